@@ -0,0 +1,241 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * A persistent cache of string values that appends its entries to a log file, keeps the
+ * most recently used ones in memory, expires them after a time to live and compacts the
+ * log file when it contains too many outdated entries. Null values are cached, too.
+ *
+ * @author Christian Pesch
+ */
+
+public class PersistentCache {
+    private static final Logger log = Logger.getLogger(PersistentCache.class.getName());
+    private static final int COMPACTION_FACTOR = 2;
+
+    private final File file;
+    private final long timeToLive;
+    private final int maximumEntries;
+    private Map<String, Entry> entries;
+    private DataOutputStream output;
+    private int recordCount;
+    private boolean truncated;
+    private long hitCount, missCount;
+
+    public PersistentCache(File file, long timeToLive, int maximumEntries) {
+        this.file = file;
+        this.timeToLive = timeToLive;
+        this.maximumEntries = maximumEntries;
+    }
+
+    public static class Entry {
+        private final String value;
+        private final long time;
+
+        private Entry(String value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.time > timeToLive;
+    }
+
+    private void open() {
+        if (entries != null)
+            return;
+
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maximumEntries;
+            }
+        };
+        if (file.exists())
+            read();
+        if (truncated || recordCount > COMPACTION_FACTOR * entries.size())
+            compact();
+        else
+            openOutput(true);
+    }
+
+    private void read() {
+        long now = currentTimeMillis();
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                while (true) {
+                    input.mark(1);
+                    if (input.read() == -1)
+                        break;
+                    input.reset();
+
+                    String key = input.readUTF();
+                    String value = input.readBoolean() ? input.readUTF() : null;
+                    Entry entry = new Entry(value, input.readLong());
+                    recordCount++;
+                    if (!isExpired(entry, now))
+                        entries.put(key, entry);
+                    else
+                        entries.remove(key);
+                }
+            } catch (EOFException e) {
+                // a record truncated while writing, rewrite the log without it
+                truncated = true;
+            } catch (IOException e) {
+                // a corrupted record, rewrite the log up to the last good record
+                log.warning("Dropping corrupted records of cache " + file + ": " + e);
+                truncated = true;
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            log.warning("Cannot read cache " + file + ": " + e);
+        }
+    }
+
+    private void openOutput(boolean append) {
+        try {
+            File directory = file.getParentFile();
+            if (directory != null && !directory.exists() && !directory.mkdirs())
+                throw new IOException("Cannot create directory " + directory);
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+        } catch (IOException e) {
+            log.warning("Cannot write cache " + file + ", caching in memory: " + e);
+            output = null;
+        }
+    }
+
+    private void write(String key, Entry entry) throws IOException {
+        output.writeUTF(key);
+        output.writeBoolean(entry.value != null);
+        if (entry.value != null)
+            output.writeUTF(entry.value);
+        output.writeLong(entry.time);
+        recordCount++;
+    }
+
+    private void compact() {
+        closeOutput();
+        recordCount = 0;
+        truncated = false;
+        openOutput(false);
+        if (output == null)
+            return;
+        try {
+            for (Map.Entry<String, Entry> entry : entries.entrySet())
+                write(entry.getKey(), entry.getValue());
+            output.flush();
+        } catch (IOException e) {
+            log.warning("Cannot compact cache " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Returns the entry for the given key or null if there is none or it is expired.
+     */
+    public synchronized Entry get(String key) {
+        open();
+        Entry entry = entries.get(key);
+        if (entry != null && isExpired(entry, currentTimeMillis())) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry != null)
+            hitCount++;
+        else
+            missCount++;
+        return entry;
+    }
+
+    public synchronized void put(String key, String value) {
+        open();
+        Entry entry = new Entry(value, currentTimeMillis());
+        entries.put(key, entry);
+        if (output == null)
+            return;
+
+        try {
+            write(key, entry);
+            output.flush();
+        } catch (IOException e) {
+            log.warning("Cannot write cache " + file + ": " + e);
+        }
+        if (recordCount > COMPACTION_FACTOR * maximumEntries)
+            compact();
+    }
+
+    public synchronized int size() {
+        open();
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void clear() {
+        open();
+        entries.clear();
+        compact();
+    }
+
+    public synchronized void close() {
+        closeOutput();
+        entries = null;
+        recordCount = 0;
+        truncated = false;
+    }
+
+    private void closeOutput() {
+        if (output == null)
+            return;
+        try {
+            output.close();
+        } catch (IOException e) {
+            log.warning("Cannot close cache " + file + ": " + e);
+        }
+        output = null;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} for a {@link File} which is {@link #reset()} by reopening the file
+ * instead of buffering everything that has been read since the {@link #mark(int)}.
+ * Thus the stream may only be reset to the beginning of the file.
+ *
+ * @author Christian Pesch
+ */
+
+public class ResettableFileInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private InputStream delegate;
+
+    public ResettableFileInputStream(File file) throws IOException {
+        this.file = file;
+        this.delegate = open();
+    }
+
+    private InputStream open() throws IOException {
+        return new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+    }
+
+    public int available() throws IOException {
+        return delegate.available();
+    }
+
+    public synchronized void mark(int readlimit) {
+        // the file is reopened on reset
+    }
+
+    public synchronized void reset() throws IOException {
+        delegate.close();
+        delegate = open();
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public int read() throws IOException {
+        return delegate.read();
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        return delegate.read(bytes, offset, length);
+    }
+
+    public long skip(long count) throws IOException {
+        return delegate.skip(count);
+    }
+
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
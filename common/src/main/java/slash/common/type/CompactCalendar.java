@@ -30,8 +30,6 @@ import java.util.Map;
 import java.util.TimeZone;
 import java.util.logging.Logger;
 
-import static java.util.Calendar.DAY_OF_YEAR;
-import static java.util.Calendar.YEAR;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
 
@@ -45,6 +43,14 @@ import static java.util.Collections.unmodifiableMap;
 public class CompactCalendar {
     private static final Logger log = Logger.getLogger(CompactCalendar.class.getName());
     public static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    /**
+     * Returned by the helpers for parsers, that bypass {@link SimpleDateFormat} and
+     * <code>XMLGregorianCalendar</code>, if a value is not in its canonical form.
+     */
+    public static final long NOT_CANONICAL = Long.MIN_VALUE;
+    public static final long MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000L;
+    // SimpleDateFormat and XMLGregorianCalendar switch to the Julian calendar before the Gregorian cutover
+    private static final int MINIMUM_GREGORIAN_YEAR = 1583;
 
     private final long timeInMillis;
     private final String timeZoneId;
@@ -109,9 +115,100 @@ public class CompactCalendar {
         return result;
     }
 
+    /**
+     * Returns the number of days from the 1st of January 1970 to the given date
+     * of the Gregorian calendar without creating a {@link Calendar}.
+     *
+     * @param year  the year, at least 1
+     * @param month the month from 1 to 12
+     * @param day   the day of the month from 1 to 31
+     * @return the number of days since the epoch
+     */
+    public static long getDaysSinceEpoch(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = y / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Parses the given number of decimal digits at the given position.
+     *
+     * @param string   the string to parse
+     * @param position the index of the first digit
+     * @param length   the number of digits
+     * @return the value of the digits or -1 if there is another character
+     */
+    public static int parseDigits(String string, int position, int length) {
+        int value = 0;
+        for (int i = position; i < position + length; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    public static int getDaysOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the milliseconds from the 1st of January 1970 to midnight UTC of the given date
+     * if it is a valid date of the Gregorian calendar after its cutover.
+     *
+     * @param year  the year
+     * @param month the month from 1 to 12
+     * @param day   the day of the month
+     * @return the milliseconds since the epoch or {@link #NOT_CANONICAL}
+     */
+    public static long getMillisSinceEpoch(int year, int month, int day) {
+        if (year < MINIMUM_GREGORIAN_YEAR || month < 1 || month > 12 || day < 1 || day > getDaysOfMonth(year, month))
+            return NOT_CANONICAL;
+        return getDaysSinceEpoch(year, month, day) * MILLISECONDS_PER_DAY;
+    }
+
+    /**
+     * Returns the milliseconds from midnight to the given time of the day if it is valid.
+     *
+     * @return the milliseconds since midnight or {@link #NOT_CANONICAL}
+     */
+    public static long getMillisOfDay(int hours, int minutes, int seconds, int milliseconds) {
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59 ||
+                milliseconds < 0 || milliseconds > 999)
+            return NOT_CANONICAL;
+        return ((hours * 60L + minutes) * 60L + seconds) * 1000L + milliseconds;
+    }
+
+    /**
+     * Returns the number of days since the 1st of January 1970 in the time zone of this calendar
+     * without creating a {@link Calendar}.
+     *
+     * @return the number of days since the epoch
+     */
+    public long getDaysSinceEpoch() {
+        long timeInMillis = getTimeInMillis();
+        if (!"UTC".equals(getTimeZoneId()))
+            timeInMillis += getTimeZone().getOffset(timeInMillis);
+        long days = timeInMillis / MILLISECONDS_PER_DAY;
+        return timeInMillis < 0 && timeInMillis % MILLISECONDS_PER_DAY != 0 ? days - 1 : days;
+    }
+
     public boolean hasDateDefined() {
-        Calendar calendar = getCalendar();
-        return !(calendar.get(YEAR) == 1970 && calendar.get(DAY_OF_YEAR) == 1);
+        return getDaysSinceEpoch() != 0;
     }
 
     public Date getTime() {
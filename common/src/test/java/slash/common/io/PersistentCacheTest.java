@@ -0,0 +1,140 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentCacheTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = createTempFile("cache", ".log");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        if (file.exists())
+            assertTrue(file.delete());
+    }
+
+    @Test
+    public void testPersistsEntries() {
+        PersistentCache cache = new PersistentCache(file, 60 * 1000, 100);
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        cache.put("b", null);
+        assertEquals("1", cache.get("a").getValue());
+        cache.close();
+
+        PersistentCache reopened = new PersistentCache(file, 60 * 1000, 100);
+        assertEquals("1", reopened.get("a").getValue());
+        PersistentCache.Entry entry = reopened.get("b");
+        assertNotNull(entry);
+        assertNull(entry.getValue());
+        assertNull(reopened.get("c"));
+        assertEquals(2, reopened.getHitCount());
+        assertEquals(1, reopened.getMissCount());
+        reopened.close();
+    }
+
+    @Test
+    public void testExpiresEntries() throws InterruptedException {
+        PersistentCache cache = new PersistentCache(file, 10, 100);
+        cache.put("a", "1");
+        Thread.sleep(20);
+        assertNull(cache.get("a"));
+        cache.close();
+    }
+
+    @Test
+    public void testEvictsAndCompacts() {
+        PersistentCache cache = new PersistentCache(file, 60 * 1000, 10);
+        for (int i = 0; i < 100; i++)
+            cache.put("key" + i, "value" + i);
+        assertEquals(10, cache.size());
+        assertNull(cache.get("key0"));
+        assertEquals("value99", cache.get("key99").getValue());
+        cache.close();
+
+        PersistentCache reopened = new PersistentCache(file, 60 * 1000, 10);
+        assertEquals(10, reopened.size());
+        assertEquals("value95", reopened.get("key95").getValue());
+        reopened.close();
+        assertTrue(file.length() < 50 * 10);
+    }
+
+    @Test
+    public void testIgnoresTruncatedRecord() throws IOException {
+        PersistentCache cache = new PersistentCache(file, 60 * 1000, 100);
+        cache.put("a", "1");
+        cache.close();
+        FileOutputStream output = new FileOutputStream(file, true);
+        output.write(new byte[]{0, 5, 'b'});
+        output.close();
+
+        PersistentCache reopened = new PersistentCache(file, 60 * 1000, 100);
+        assertEquals("1", reopened.get("a").getValue());
+        assertEquals(1, reopened.size());
+        reopened.put("c", "3");
+        reopened.close();
+
+        PersistentCache again = new PersistentCache(file, 60 * 1000, 100);
+        assertEquals("1", again.get("a").getValue());
+        assertEquals("3", again.get("c").getValue());
+        again.close();
+    }
+
+    @Test
+    public void testDropsCorruptedRecord() throws IOException {
+        PersistentCache cache = new PersistentCache(file, 60 * 1000, 100);
+        cache.put("a", "1");
+        cache.close();
+        long length = file.length();
+        FileOutputStream output = new FileOutputStream(file, true);
+        output.write(new byte[]{0, 2, (byte) 0xFF, (byte) 0xFF, 0, 1, 'b', 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        output.close();
+
+        PersistentCache reopened = new PersistentCache(file, 60 * 1000, 100);
+        assertEquals("1", reopened.get("a").getValue());
+        assertEquals(1, reopened.size());
+        assertEquals(length, file.length());
+        reopened.put("c", "3");
+        reopened.close();
+
+        PersistentCache again = new PersistentCache(file, 60 * 1000, 100);
+        assertEquals("1", again.get("a").getValue());
+        assertEquals("3", again.get("c").getValue());
+        again.close();
+    }
+}
@@ -28,8 +28,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static slash.common.TestCase.assertCalendarEquals;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.common.type.CompactCalendar.fromMillisAndTimeZone;
+import static slash.common.type.CompactCalendar.getDaysOfMonth;
+import static slash.common.type.CompactCalendar.getDaysSinceEpoch;
+import static slash.common.type.CompactCalendar.getMillisOfDay;
+import static slash.common.type.CompactCalendar.getMillisSinceEpoch;
+import static slash.common.type.CompactCalendar.parseDigits;
 
 public class CompactCalendarTest {
 
@@ -61,4 +68,68 @@ public class CompactCalendarTest {
         assertFalse(early.before(early));
         assertFalse(early.after(early));
     }
+
+    @Test
+    public void testDaysSinceEpoch() {
+        assertEquals(0, fromMillis(0).getDaysSinceEpoch());
+        assertEquals(0, fromMillis(86399999).getDaysSinceEpoch());
+        assertEquals(1, fromMillis(86400000).getDaysSinceEpoch());
+        assertEquals(-1, fromMillis(-1).getDaysSinceEpoch());
+        assertEquals(1, fromMillisAndTimeZone(82800000, "Europe/Berlin").getDaysSinceEpoch());
+        assertEquals(-1, fromMillisAndTimeZone(3600000, "America/New_York").getDaysSinceEpoch());
+    }
+
+    @Test
+    public void testDaysSinceEpochOfDate() {
+        assertEquals(0, getDaysSinceEpoch(1970, 1, 1));
+        assertEquals(-1, getDaysSinceEpoch(1969, 12, 31));
+        assertEquals(11016, getDaysSinceEpoch(2000, 2, 29));
+        assertEquals(11017, getDaysSinceEpoch(2000, 3, 1));
+        assertEquals(-141427, getDaysSinceEpoch(1582, 10, 15));
+    }
+
+    @Test
+    public void testParseDigits() {
+        assertEquals(2013, parseDigits("x2013-", 1, 4));
+        assertEquals(7, parseDigits("07", 0, 2));
+        assertEquals(-1, parseDigits("2O13", 0, 4));
+    }
+
+    @Test
+    public void testGetDaysOfMonth() {
+        assertEquals(31, getDaysOfMonth(2013, 1));
+        assertEquals(28, getDaysOfMonth(2013, 2));
+        assertEquals(29, getDaysOfMonth(2012, 2));
+        assertEquals(28, getDaysOfMonth(1900, 2));
+        assertEquals(29, getDaysOfMonth(2000, 2));
+        assertEquals(30, getDaysOfMonth(2013, 11));
+    }
+
+    @Test
+    public void testGetMillisSinceEpoch() {
+        assertEquals(0, getMillisSinceEpoch(1970, 1, 1));
+        assertEquals(11016 * 86400000L, getMillisSinceEpoch(2000, 2, 29));
+        assertEquals(NOT_CANONICAL, getMillisSinceEpoch(2001, 2, 29));
+        assertEquals(NOT_CANONICAL, getMillisSinceEpoch(2001, 13, 1));
+        assertEquals(NOT_CANONICAL, getMillisSinceEpoch(2001, 1, 0));
+        assertEquals(NOT_CANONICAL, getMillisSinceEpoch(1582, 12, 31));
+    }
+
+    @Test
+    public void testGetMillisOfDay() {
+        assertEquals(0, getMillisOfDay(0, 0, 0, 0));
+        assertEquals(86399999, getMillisOfDay(23, 59, 59, 999));
+        assertEquals(NOT_CANONICAL, getMillisOfDay(24, 0, 0, 0));
+        assertEquals(NOT_CANONICAL, getMillisOfDay(12, 60, 0, 0));
+        assertEquals(NOT_CANONICAL, getMillisOfDay(12, 0, -1, 0));
+        assertEquals(NOT_CANONICAL, getMillisOfDay(12, 0, 0, 1000));
+    }
+
+    @Test
+    public void testHasDateDefined() {
+        assertFalse(fromMillis(3600000).hasDateDefined());
+        assertTrue(fromMillis(86400000).hasDateDefined());
+        assertTrue(fromMillisAndTimeZone(82800000, "Europe/Berlin").hasDateDefined());
+        assertFalse(fromMillisAndTimeZone(-3600000, "Europe/Berlin").hasDateDefined());
+    }
 }
@@ -25,13 +25,22 @@ import slash.common.type.CompactCalendar;
 import java.io.File;
 import java.io.IOException;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import static java.io.File.createTempFile;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static slash.common.io.Externalization.getTempDirectory;
 import static slash.common.io.Files.getExtension;
 import static slash.common.io.Files.removeExtension;
 import static slash.common.type.CompactCalendar.fromDate;
+import static slash.navigation.download.State.Failed;
 import static slash.navigation.download.State.Queued;
+import static slash.navigation.download.State.Succeeded;
 
 /**
  * A file to download
@@ -46,9 +55,21 @@ public class Download {
     private final Action action;
     private final File target, tempFile;
 
-    private State state;
-    private long processedBytes;
+    private volatile State state;
+    private volatile long processedBytes;
     private Long expectedBytes;
+    private volatile List<Segment> segments;
+    private final Object progressMonitor = new Object();
+    private long lastProgress = nanoTime();
+    private final FutureTask<Download> completion = new FutureTask<Download>(new Callable<Download>() {
+        public Download call() {
+            return Download.this;
+        }
+    }) {
+        protected void done() {
+            progressed();
+        }
+    };
 
     public Download(String description, String url, Long size, String checksum, Action action, File target,
                     CompactCalendar creationDate, State state, File tempFile) {
@@ -61,6 +82,8 @@ public class Download {
         this.creationDate = creationDate;
         this.state = state;
         this.tempFile = tempFile;
+        if (Succeeded.equals(state) || Failed.equals(state))
+            complete();
     }
 
     public Download(String description, String url, Long size, String checksum, Action action, File target) {
@@ -116,12 +139,35 @@ public class Download {
 
     public void setState(State state) {
         this.state = state;
+        progressed();
     }
 
     public File getTempFile() {
         return tempFile;
     }
 
+    /**
+     * Returns a future that is done when the download either succeeded or failed.
+     * Cancelling the future before the download is executed skips the download.
+     *
+     * @return a future that is done when the download either succeeded or failed
+     */
+    public Future<Download> getCompletion() {
+        return completion;
+    }
+
+    void complete() {
+        completion.run();
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
     private static final int UNKNOWN_EXPECTED_BYTES = 1024 * 1024 * 1024;
 
     public int getPercentage() {
@@ -129,8 +175,42 @@ public class Download {
         return new Double((double) processedBytes / totalBytes * 100).intValue();
     }
 
+    public long getProcessedBytes() {
+        return processedBytes;
+    }
+
     public void setProcessedBytes(long processedBytes) {
         this.processedBytes = processedBytes;
+        progressed();
+    }
+
+    private void progressed() {
+        synchronized (progressMonitor) {
+            lastProgress = nanoTime();
+            progressMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until the download is completed or cancelled or made no progress for the given time.
+     * The time starts with the last progress but not before waiting started so that a download
+     * that is still queued has the given time to start.
+     *
+     * @param silenceNanos the maximum time to wait without progress in nanoseconds
+     * @return <code>true</code> if the download completed or was cancelled
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    boolean waitForCompletionWhileProgressing(long silenceNanos) throws InterruptedException {
+        long waitingSince = nanoTime();
+        synchronized (progressMonitor) {
+            while (!completion.isDone()) {
+                long remainingNanos = max(lastProgress, waitingSince) + silenceNanos - nanoTime();
+                if (remainingNanos <= 0)
+                    return false;
+                NANOSECONDS.timedWait(progressMonitor, remainingNanos);
+            }
+            return true;
+        }
     }
 
     public void setExpectedBytes(Long expectedBytes) {
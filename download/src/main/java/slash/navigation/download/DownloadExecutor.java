@@ -23,13 +23,22 @@ package slash.navigation.download;
 import slash.navigation.download.actions.Copier;
 import slash.navigation.download.actions.CopierListener;
 import slash.navigation.download.actions.Extractor;
+import slash.navigation.download.actions.ExtractorListener;
 import slash.navigation.rest.Get;
 import slash.navigation.rest.Head;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
+import static java.nio.channels.Channels.newChannel;
 import static java.util.logging.Logger.getLogger;
 import static slash.common.io.Files.generateChecksum;
 import static slash.navigation.download.State.*;
@@ -42,13 +51,21 @@ import static slash.navigation.download.State.*;
 
 public class DownloadExecutor implements Runnable {
     private static final Logger log = getLogger(DownloadExecutor.class.getName());
+    private static final long SEGMENTED_DOWNLOAD_MINIMUM_SIZE = 8 * 1024 * 1024;
+    private static final int SEGMENT_COUNT = 4;
 
     private Download download;
     private DownloadTableModel model;
+    private ExecutorService segmentPool, extractionPool;
+    private final AtomicReference<Response> completeResponse = new AtomicReference<Response>();
+    private boolean extracting;
 
-    public DownloadExecutor(Download download, DownloadTableModel model) {
+    public DownloadExecutor(Download download, DownloadTableModel model,
+                            ExecutorService segmentPool, ExecutorService extractionPool) {
         this.download = download;
         this.model = model;
+        this.segmentPool = segmentPool;
+        this.extractionPool = extractionPool;
     }
 
     public Download getDownload() {
@@ -56,6 +73,9 @@ public class DownloadExecutor implements Runnable {
     }
 
     public void run() {
+        if (download.getCompletion().isCancelled())
+            return;
+
         try {
             if (resume())
                 return;
@@ -64,6 +84,10 @@ public class DownloadExecutor implements Runnable {
         } catch (Exception e) {
             log.severe(format("Could not download content from %s: %s", download.getUrl(), e.getMessage()));
             updateState(download, Failed);
+        } finally {
+            // an extraction completes the download when its last entry is extracted
+            if (!extracting)
+                download.complete();
         }
     }
 
@@ -76,6 +100,9 @@ public class DownloadExecutor implements Runnable {
         // TODO think about better validating target
         if (download.getTarget().exists())
             return false;
+        // the temp file of a segmented download is preallocated, continue with the segments
+        if (download.getSegments() != null)
+            return false;
 
         long tempSize = download.getTempFile().length();
         long tempLastModified = download.getTempFile().lastModified();
@@ -92,12 +119,16 @@ public class DownloadExecutor implements Runnable {
         if (contentLength != null && contentLength == tempSize) {
             if (contentLastModified > tempLastModified)
                 log.warning("Content modified after file, need to download again");
+            // the temp file of a segmented download has its final size from the start
+            else if (download.getChecksum() == null && isSegmented(contentLength, head.getAcceptByteRanges()))
+                log.warning("Cannot validate file without checksum, need to download again");
+            else if (!validate(download.getTempFile(), contentLength, download.getChecksum()))
+                log.warning("File is invalid, need to download again");
             else {
                 updateState(download, NotModified);
 
                 // finished download but not post processing
                 postProcess();
-                updateState(download, Succeeded);
                 return true;
             }
         } else if (head.getAcceptByteRanges()) {
@@ -108,6 +139,10 @@ public class DownloadExecutor implements Runnable {
         return false;
     }
 
+    private boolean isSegmented(Long contentLength, boolean acceptByteRanges) {
+        return contentLength != null && contentLength >= SEGMENTED_DOWNLOAD_MINIMUM_SIZE && acceptByteRanges;
+    }
+
     private boolean validate(File file, Long expectedSize, String expectedChecksum) throws IOException {
         if (!file.exists()) {
             log.warning("File " + file + " does not exist");
@@ -161,41 +196,224 @@ public class DownloadExecutor implements Runnable {
 
             // post process download
             postProcess();
-            updateState(download, Succeeded);
             return true;
 
         } else {
+            // close the connection instead of reading the unwanted body
+            get.release();
             log.warning("Resuming not successful, downloading");
             updateState(download, Failed);
             return false;
         }
     }
 
+    private class SegmentUpdater implements CopierListener {
+        private final Segment segment;
+
+        public SegmentUpdater(Segment segment) {
+            this.segment = segment;
+        }
+
+        public void expectingBytes(long byteCount) {
+        }
+
+        public void processedBytes(long byteCount) {
+            segment.setProcessedBytes(byteCount - segment.getStart());
+            segmentsProcessedBytes();
+        }
+    }
+
+    private synchronized void segmentsProcessedBytes() {
+        long processedBytes = 0;
+        for (Segment segment : download.getSegments())
+            processedBytes += segment.getProcessedBytes();
+        modelUpdater.processedBytes(processedBytes);
+    }
+
+    /**
+     * The response of a server that sends the complete content instead of the range of a segment.
+     */
+    private static class Response {
+        private final Get get;
+        private final InputStream inputStream;
+
+        private Response(Get get, InputStream inputStream) {
+            this.get = get;
+            this.inputStream = inputStream;
+        }
+    }
+
+    private class SegmentDownloader implements Callable<Void> {
+        private final Segment segment;
+
+        public SegmentDownloader(Segment segment) {
+            this.segment = segment;
+        }
+
+        public Void call() throws IOException {
+            long startByte = segment.getStart() + segment.getProcessedBytes();
+            Get get = new Get(download.getUrl());
+            get.setRange(startByte, segment.getEnd());
+            InputStream inputStream = get.executeAsStream(true);
+            if (get.isOk()) {
+                // the range is ignored, keep the first complete content to download it in one stream
+                if (!completeResponse.compareAndSet(null, new Response(get, inputStream)))
+                    get.release();
+                return null;
+            }
+            if (!get.isPartialContent()) {
+                get.release();
+                throw new IOException(format("Cannot download bytes %d-%d from %s", startByte, segment.getEnd(), download.getUrl()));
+            }
+
+            RandomAccessFile file = new RandomAccessFile(download.getTempFile(), "rw");
+            try {
+                new Copier(new SegmentUpdater(segment)).copy(newChannel(inputStream), file.getChannel().position(startByte), startByte);
+            } finally {
+                // a segment that is cancelled or fails is not read to its end
+                get.release();
+                file.close();
+            }
+            if (!segment.isComplete())
+                throw new IOException(format("Downloaded %d of %d bytes of %s", segment.getProcessedBytes(), segment.getLength(), segment));
+            return null;
+        }
+    }
+
+    private List<Segment> createSegments(long contentLength) {
+        List<Segment> segments = new ArrayList<Segment>();
+        long segmentLength = (contentLength + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+        for (long start = 0; start < contentLength; start += segmentLength)
+            segments.add(new Segment(start, Math.min(start + segmentLength, contentLength) - 1, 0));
+        return segments;
+    }
+
+    private long getLength(List<Segment> segments) {
+        long length = 0;
+        for (Segment segment : segments)
+            length += segment.getLength();
+        return length;
+    }
+
+    private boolean downloadSegments() throws IOException {
+        Head head = new Head(download.getUrl());
+        head.execute(true);
+        Long contentLength = head.isOk() ? head.getContentLength() : null;
+        if (!isSegmented(contentLength, head.getAcceptByteRanges())) {
+            download.setSegments(null);
+            return false;
+        }
+
+        List<Segment> segments = download.getSegments();
+        if (segments == null || getLength(segments) != contentLength || download.getTempFile().length() != contentLength) {
+            segments = createSegments(contentLength);
+            download.setSegments(segments);
+
+            // preallocate the temp file so that each segment can write at its offset
+            RandomAccessFile file = new RandomAccessFile(download.getTempFile(), "rw");
+            try {
+                file.setLength(contentLength);
+            } finally {
+                file.close();
+            }
+        }
+
+        // download the remaining segments in parallel
+        modelUpdater.expectingBytes(contentLength);
+        segmentsProcessedBytes();
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (Segment segment : segments) {
+            if (!segment.isComplete())
+                futures.add(segmentPool.submit(new SegmentDownloader(segment)));
+        }
+
+        Throwable failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Future<Void> remaining : futures)
+                    remaining.cancel(true);
+                failure = e;
+                break;
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+        }
+        Response response = completeResponse.getAndSet(null);
+        if (response != null) {
+            if (!(failure instanceof InterruptedException)) {
+                log.warning(format("Server of %s sends complete content instead of segments, downloading in one stream", download.getUrl()));
+                download.setSegments(null);
+                download(response.inputStream);
+                return true;
+            }
+            response.get.release();
+        }
+
+        if (failure != null) {
+            // keep the segments to resume later
+            log.severe(format("Could not download segments of %s: %s", download.getUrl(), failure.getMessage()));
+            updateState(download, Failed);
+            return true;
+        }
+
+        // validate download
+        download.setSegments(null);
+        if (!validate(download.getTempFile(), download.getSize(), download.getChecksum())) {
+            log.severe("Segmented download produced invalid file");
+            updateState(download, Failed);
+            return true;
+        }
+
+        // post process download
+        postProcess();
+        return true;
+    }
+
     private void download() throws IOException {
         updateState(download, Downloading);
+        if (downloadSegments())
+            return;
+
         Get get = new Get(download.getUrl());
         InputStream inputStream = get.executeAsStream(true);
         if (get.isSuccessful()) {
+            download(inputStream);
+        } else {
+            get.release();
+            log.severe(format("Cannot copy content from %s", download.getUrl()));
+            updateState(download, Failed);
+        }
+    }
 
-            // download
+    private void download(InputStream inputStream) throws IOException {
+        // download
+        if (download.getSize() != null)
             modelUpdater.expectingBytes(download.getSize());
-            new Copier(modelUpdater).copyAndClose(inputStream, new FileOutputStream(download.getTempFile()), 0);
-
-            // validate download
-            if (!validate(download.getTempFile(), download.getSize(), download.getChecksum())) {
-                log.severe("Download produced invalid file");
-                updateState(download, Failed);
-                return;
-            }
-
-            // post process download
-            postProcess();
-            updateState(download, Succeeded);
+        new Copier(modelUpdater).copyAndClose(inputStream, new FileOutputStream(download.getTempFile()), 0);
 
-        } else {
-            log.severe(format("Cannot copy content from %s", download.getUrl()));
+        // validate download
+        if (!validate(download.getTempFile(), download.getSize(), download.getChecksum())) {
+            log.severe("Download produced invalid file");
             updateState(download, Failed);
+            return;
         }
+
+        // post process download
+        postProcess();
+    }
+
+    private boolean move(File source, File target) {
+        // the temp file might be on another file system where only copying works
+        if (target.exists() && !target.delete())
+            return false;
+        if (!source.renameTo(target))
+            return false;
+        modelUpdater.expectingBytes(target.length());
+        modelUpdater.processedBytes(target.length());
+        return true;
     }
 
     private void postProcess() throws IOException {
@@ -204,16 +422,48 @@ public class DownloadExecutor implements Runnable {
         Action action = download.getAction();
         switch (action) {
             case Copy:
+                if (move(download.getTempFile(), download.getTarget())) {
+                    updateState(download, Succeeded);
+                    return;
+                }
                 new Copier(modelUpdater).copyAndClose(new FileInputStream(download.getTempFile()), new FileOutputStream(download.getTarget()), 0);
                 break;
             case Extract:
-                new Extractor(modelUpdater).extract(download.getTempFile(), download.getTarget());
-                break;
+                new Extractor(new ExtractionUpdater(), extractionPool).extract(download.getTempFile(), download.getTarget());
+                extracting = true;
+                return;
             default:
                 throw new IllegalArgumentException("Unknown Action " + action);
         }
 
         if (!download.getTempFile().delete())
             throw new IOException(format("Cannot delete temp file %s", download.getTempFile()));
+        updateState(download, Succeeded);
+    }
+
+    private class ExtractionUpdater implements ExtractorListener {
+        public void expectingBytes(long byteCount) {
+            modelUpdater.expectingBytes(byteCount);
+        }
+
+        public void processedBytes(long byteCount) {
+            modelUpdater.processedBytes(byteCount);
+        }
+
+        public void extracted() {
+            if (download.getTempFile().delete())
+                updateState(download, Succeeded);
+            else {
+                log.severe(format("Cannot delete temp file %s", download.getTempFile()));
+                updateState(download, Failed);
+            }
+            download.complete();
+        }
+
+        public void failed(IOException e) {
+            log.severe(format("Could not extract %s: %s", download.getTempFile(), e.getMessage()));
+            updateState(download, Failed);
+            download.complete();
+        }
     }
 }
@@ -22,21 +22,29 @@ package slash.navigation.download;
 
 import slash.navigation.download.queue.QueuePersister;
 
-import javax.swing.event.TableModelEvent;
-import javax.swing.event.TableModelListener;
 import java.io.File;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
-import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static slash.navigation.download.Action.Extract;
 import static slash.navigation.download.State.*;
+import static slash.navigation.rest.HttpConnectionPool.logStatistics;
 
 /**
  * Manages {@link Download}s
@@ -48,13 +56,19 @@ public class DownloadManager {
     private static final Logger log = Logger.getLogger(DownloadManager.class.getName());
     static final int WAIT_TIMEOUT = 15 * 1000;
     private static final int PARALLEL_DOWNLOAD_COUNT = 4;
+    private static final int PARALLEL_SEGMENT_COUNT = 8;
+    private static final int PARALLEL_EXTRACTION_COUNT = Runtime.getRuntime().availableProcessors();
     private final DownloadTableModel model = new DownloadTableModel();
-    private final ThreadPoolExecutor pool;
+    private final ThreadPoolExecutor pool, segmentPool, extractionPool;
 
     public DownloadManager() {
         BlockingQueue<Runnable> queue = new PriorityBlockingQueue<Runnable>(1, new DownloadExecutorComparator());
         pool = new ThreadPoolExecutor(PARALLEL_DOWNLOAD_COUNT, PARALLEL_DOWNLOAD_COUNT * 2, 60, SECONDS, queue);
         pool.allowCoreThreadTimeOut(true);
+        segmentPool = new ThreadPoolExecutor(PARALLEL_SEGMENT_COUNT, PARALLEL_SEGMENT_COUNT, 60, SECONDS, new LinkedBlockingQueue<Runnable>());
+        segmentPool.allowCoreThreadTimeOut(true);
+        extractionPool = new ThreadPoolExecutor(PARALLEL_EXTRACTION_COUNT, PARALLEL_EXTRACTION_COUNT, 60, SECONDS, new LinkedBlockingQueue<Runnable>());
+        extractionPool.allowCoreThreadTimeOut(true);
     }
 
     public void restartQueue(File file) {
@@ -88,6 +102,15 @@ public class DownloadManager {
     }
     public void dispose() {
         pool.shutdownNow();
+        segmentPool.shutdownNow();
+        // cancelling the queued entries lets the extractions fail and complete their downloads
+        for (Runnable runnable : extractionPool.shutdownNow())
+            if (runnable instanceof Future)
+                ((Future<?>) runnable).cancel(false);
+        // release the threads waiting for downloads that will not be executed anymore
+        for (Download download : model.getDownloads())
+            download.getCompletion().cancel(false);
+        logStatistics();
     }
 
     public DownloadTableModel getModel() {
@@ -95,7 +118,7 @@ public class DownloadManager {
     }
 
     private void startExecutor(Download download) {
-        DownloadExecutor executor = new DownloadExecutor(download, model);
+        DownloadExecutor executor = new DownloadExecutor(download, model, segmentPool, extractionPool);
         model.addOrUpdateDownload(download);
         pool.execute(executor);
     }
@@ -115,44 +138,80 @@ public class DownloadManager {
         return queueForDownload(new Download(description, url, size, checksum, action, target));
     }
 
-    private static final Object LOCK = new Object();
-
-    public void waitForCompletion(final Collection<Download> downloads) {
-        final boolean[] found = new boolean[1];
-        found[0] = false;
-        final long[] lastEvent = new long[1];
-        lastEvent[0] = currentTimeMillis();
-
-        TableModelListener l = new TableModelListener() {
-            public void tableChanged(TableModelEvent e) {
-                synchronized (LOCK) {
-                    lastEvent[0] = currentTimeMillis();
-
-                    for (Download download : downloads) {
-                        if (!(Succeeded.equals(download.getState()) || Failed.equals(download.getState())))
-                            return;
-                    }
-                    found[0] = true;
-                    LOCK.notifyAll();
+    /**
+     * Waits until the given downloads either succeeded or failed or one of the downloads
+     * made no progress for {@link #WAIT_TIMEOUT} milliseconds.
+     *
+     * @param downloads the downloads to wait for
+     * @return <code>true</code> if all downloads completed or were cancelled, <code>false</code> if
+     *         the downloads made no progress or the waiting thread was interrupted
+     */
+    public boolean waitForCompletion(Collection<Download> downloads) {
+        return waitForCompletionWhileProgressing(downloads, WAIT_TIMEOUT, MILLISECONDS);
+    }
+
+    /**
+     * Waits until the given downloads either succeeded or failed or the timeout elapsed.
+     *
+     * @param downloads the downloads to wait for
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout
+     * @return <code>true</code> if all downloads completed or were cancelled, <code>false</code> if the timeout
+     *         elapsed or the waiting thread was interrupted
+     */
+    public boolean waitForCompletion(Collection<Download> downloads, long timeout, TimeUnit unit) {
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        for (Download download : downloads) {
+            try {
+                if (!waitForCompletion(download, deadline - nanoTime())) {
+                    log.warning(format("Timeout while waiting for completion of %s", download.getUrl()));
+                    return false;
                 }
+            } catch (InterruptedException e) {
+                currentThread().interrupt();
+                return false;
             }
-        };
+        }
+        return true;
+    }
 
-        model.addTableModelListener(l);
-        try {
-            while (true) {
-                synchronized (LOCK) {
-                    if (found[0] || currentTimeMillis() - lastEvent[0] > WAIT_TIMEOUT)
-                        break;
-                    try {
-                        LOCK.wait(1000);
-                    } catch (InterruptedException e) {
-                        // intentionally left empty
-                    }
+    /**
+     * Waits until the given downloads either succeeded or failed or one of the downloads
+     * made no progress for the given time.
+     *
+     * @param downloads the downloads to wait for
+     * @param silence the maximum time to wait without progress
+     * @param unit the time unit of the silence
+     * @return <code>true</code> if all downloads completed or were cancelled, <code>false</code> if
+     *         the downloads made no progress or the waiting thread was interrupted
+     */
+    public boolean waitForCompletionWhileProgressing(Collection<Download> downloads, long silence, TimeUnit unit) {
+        long silenceNanos = unit.toNanos(silence);
+        for (Download download : downloads) {
+            try {
+                if (!download.waitForCompletionWhileProgressing(silenceNanos)) {
+                    log.warning(format("No progress while waiting for completion of %s", download.getUrl()));
+                    return false;
                 }
+            } catch (InterruptedException e) {
+                currentThread().interrupt();
+                return false;
             }
-        } finally {
-            model.removeTableModelListener(l);
+        }
+        return true;
+    }
+
+    private boolean waitForCompletion(Download download, long timeoutNanos) throws InterruptedException {
+        try {
+            download.getCompletion().get(Math.max(0, timeoutNanos), NANOSECONDS);
+            return true;
+        } catch (CancellationException e) {
+            // cancelled downloads are not executed
+            return true;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Completion of " + download + " failed", e);
+        } catch (TimeoutException e) {
+            return false;
         }
     }
 }
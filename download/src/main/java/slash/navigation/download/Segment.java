@@ -0,0 +1,66 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download;
+
+/**
+ * A range of bytes of a {@link Download} that is downloaded separately
+ *
+ * @author Christian Pesch
+ */
+
+public class Segment {
+    private final long start, end;
+    private volatile long processedBytes;
+
+    public Segment(long start, long end, long processedBytes) {
+        this.start = start;
+        this.end = end;
+        this.processedBytes = processedBytes;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public void setProcessedBytes(long processedBytes) {
+        this.processedBytes = processedBytes;
+    }
+
+    public boolean isComplete() {
+        return processedBytes >= getLength();
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[start=" + start + ", end=" + end + ", processedBytes=" + processedBytes + "]";
+    }
+}
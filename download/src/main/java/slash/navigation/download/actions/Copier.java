@@ -19,12 +19,22 @@
 */
 package slash.navigation.download.actions;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import static java.lang.System.currentTimeMillis;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.channels.Channels.newChannel;
 import static org.apache.commons.io.IOUtils.closeQuietly;
-import static slash.common.io.InputOutput.DEFAULT_BUFFER_SIZE;
 
 /**
  * Copies an {@link InputStream} to an {@link OutputStream} and notifies about it.
@@ -32,7 +42,15 @@ import static slash.common.io.InputOutput.DEFAULT_BUFFER_SIZE;
  * @author Christian Pesch
  */
 public class Copier {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAXIMUM_POOLED_BUFFERS = 16;
+    private static final long TRANSFER_SIZE = 8 * 1024 * 1024;
+    private static final long NOTIFICATION_BYTES = 256 * 1024;
+    private static final long NOTIFICATION_MILLIS = 250;
+    private static final Queue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+
     private final CopierListener listener;
+    private long lastNotificationBytes, lastNotificationTime;
 
     public Copier(CopierListener listener) {
         this.listener = listener;
@@ -51,15 +69,68 @@ public class Copier {
     }
 
     public long copy(InputStream input, OutputStream output, long startByte) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        // files are transferred by the operating system without copying them through the heap
+        if (input instanceof FileInputStream && output instanceof FileOutputStream)
+            return transfer(((FileInputStream) input).getChannel(), ((FileOutputStream) output).getChannel(), startByte);
+        return copy(newChannel(input), newChannel(output), startByte);
+    }
+
+    public long copy(ReadableByteChannel input, WritableByteChannel output, long startByte) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            long totalBytes = startByte;
+            int read;
+            while (-1 != (read = input.read(buffer))) {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    output.write(buffer);
+                buffer.clear();
+                totalBytes += read;
+                processedBytes(totalBytes, false);
+            }
+            processedBytes(totalBytes, true);
+            return totalBytes;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    private long transfer(FileChannel input, FileChannel output, long startByte) throws IOException {
+        long position = input.position();
+        long size = input.size();
         long totalBytes = startByte;
-        int read;
+        while (position < size) {
+            long transferred = input.transferTo(position, Math.min(TRANSFER_SIZE, size - position), output);
+            if (transferred <= 0)
+                break;
+            position += transferred;
+            totalBytes += transferred;
+            processedBytes(totalBytes, false);
+        }
+        input.position(position);
+        processedBytes(totalBytes, true);
+        return totalBytes;
+    }
 
-        while (-1 != (read = input.read(buffer))) {
-            output.write(buffer, 0, read);
-            totalBytes += read;
+    private void processedBytes(long totalBytes, boolean finished) {
+        // avoid flooding the listener with an event for every buffer
+        long now = currentTimeMillis();
+        if (finished || totalBytes - lastNotificationBytes >= NOTIFICATION_BYTES ||
+                now - lastNotificationTime >= NOTIFICATION_MILLIS) {
             listener.processedBytes(totalBytes);
+            lastNotificationBytes = totalBytes;
+            lastNotificationTime = now;
         }
-        return totalBytes;
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : allocateDirect(BUFFER_SIZE);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        if (bufferPool.size() < MAXIMUM_POOLED_BUFFERS)
+            bufferPool.offer(buffer);
     }
 }
@@ -22,51 +22,160 @@ package slash.navigation.download.actions;
 import slash.navigation.download.Download;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import static java.lang.Integer.MAX_VALUE;
-import static org.apache.commons.io.IOUtils.closeQuietly;
 import static slash.common.io.Files.lastPathFragment;
 
 /**
  * Extracts a {@link Download} to a target directory.
+ * <p/>
+ * The entries are extracted by the given pool and the {@link ExtractorListener} is notified
+ * by the thread that extracted the last entry, so the caller does not wait for the extraction.
  *
  * @author Christian Pesch
  */
 public class Extractor {
-    private final CopierListener listener;
+    private final ExtractorListener listener;
+    private final ExecutorService pool;
+    private long processedBytes = 0;
+    private ZipFile zipFile;
+    private final AtomicInteger pendingEntries = new AtomicInteger();
+    private final AtomicReference<IOException> failure = new AtomicReference<IOException>();
 
-    public Extractor(CopierListener listener) {
+    public Extractor(ExtractorListener listener, ExecutorService pool) {
         this.listener = listener;
+        this.pool = pool;
     }
 
     public void extract(File tempFile, File destination) throws IOException {
-        ZipInputStream zipInputStream = null;
+        zipFile = new ZipFile(tempFile);
+        // entries from different directories with the same name are extracted to the same file
+        Map<File, List<ZipEntry>> entries = new LinkedHashMap<File, List<ZipEntry>>();
+        long expectedBytes = 0;
         try {
-            zipInputStream = new ZipInputStream(new FileInputStream(tempFile));
-            ZipEntry entry = zipInputStream.getNextEntry();
-            while (entry != null) {
-                if (!entry.isDirectory()) {
-                    File extracted = new File(destination, lastPathFragment(entry.getName(), MAX_VALUE));
-                    FileOutputStream output = new FileOutputStream(extracted);
-
-                    listener.expectingBytes(entry.getSize());
-                    new Copier(listener).copy(zipInputStream, output, 0);
-
-                    // do not close zip input stream
-                    closeQuietly(output);
-                    zipInputStream.closeEntry();
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                if (entry.isDirectory())
+                    continue;
+                File extracted = new File(destination, lastPathFragment(entry.getName(), MAX_VALUE));
+                List<ZipEntry> sameFile = entries.get(extracted);
+                if (sameFile == null) {
+                    sameFile = new ArrayList<ZipEntry>(1);
+                    entries.put(extracted, sameFile);
                 }
-                entry = zipInputStream.getNextEntry();
+                sameFile.add(entry);
+                if (entry.getSize() > 0)
+                    expectedBytes += entry.getSize();
             }
+        } catch (RuntimeException e) {
+            zipFile.close();
+            throw e;
         }
-        finally {
-            if (zipInputStream != null)
-                closeQuietly(zipInputStream);
+        listener.expectingBytes(expectedBytes);
+
+        // the entries of a zip file can be inflated independently of each other,
+        // the entries for the same file are extracted one after the other
+        pendingEntries.set(entries.size() + 1);
+        for (Map.Entry<File, List<ZipEntry>> entry : entries.entrySet()) {
+            try {
+                pool.execute(new EntryTask(new EntryExtractor(entry.getValue(), entry.getKey())));
+            } catch (RejectedExecutionException e) {
+                failed(new IOException("Cannot extract " + entry.getKey() + ": " + e.getMessage()));
+                entryCompleted();
+            }
+        }
+        // completes an extraction without entries and keeps a fast one from completing while submitting
+        entryCompleted();
+    }
+
+    private void failed(IOException e) {
+        failure.compareAndSet(null, e);
+    }
+
+    private void entryCompleted() {
+        if (pendingEntries.decrementAndGet() > 0)
+            return;
+
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            failed(e);
+        }
+        IOException e = failure.get();
+        if (e == null)
+            listener.extracted();
+        else
+            listener.failed(e);
+    }
+
+    private synchronized void processedBytes(long byteCount) {
+        processedBytes += byteCount;
+        listener.processedBytes(processedBytes);
+    }
+
+    private class EntryTask extends FutureTask<Void> {
+        public EntryTask(EntryExtractor extractor) {
+            super(extractor);
+        }
+
+        protected void done() {
+            try {
+                get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failed(cause instanceof IOException ? (IOException) cause : new IOException(cause));
+            } catch (CancellationException e) {
+                failed(new InterruptedIOException("Extraction cancelled"));
+            } catch (InterruptedException e) {
+                failed(new InterruptedIOException("Interrupted while extracting"));
+            }
+            entryCompleted();
+        }
+    }
+
+    private class EntryExtractor implements Callable<Void>, CopierListener {
+        private final List<ZipEntry> entries;
+        private final File extracted;
+        private long lastByteCount = 0;
+
+        public EntryExtractor(List<ZipEntry> entries, File extracted) {
+            this.entries = entries;
+            this.extracted = extracted;
+        }
+
+        public Void call() throws IOException {
+            for (ZipEntry entry : entries) {
+                lastByteCount = 0;
+                new Copier(this).copyAndClose(zipFile.getInputStream(entry), new FileOutputStream(extracted), 0);
+            }
+            return null;
+        }
+
+        public void expectingBytes(long byteCount) {
+        }
+
+        public void processedBytes(long byteCount) {
+            Extractor.this.processedBytes(byteCount - lastByteCount);
+            lastByteCount = byteCount;
         }
     }
 }
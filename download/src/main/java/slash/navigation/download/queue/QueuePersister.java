@@ -22,10 +22,12 @@ package slash.navigation.download.queue;
 
 import slash.navigation.download.Action;
 import slash.navigation.download.Download;
+import slash.navigation.download.Segment;
 import slash.navigation.download.State;
 import slash.navigation.download.queue.binding.DownloadType;
 import slash.navigation.download.queue.binding.ObjectFactory;
 import slash.navigation.download.queue.binding.QueueType;
+import slash.navigation.download.queue.binding.SegmentType;
 
 import javax.xml.bind.JAXBException;
 import java.io.File;
@@ -72,9 +74,19 @@ public class QueuePersister {
     }
 
     private Download asDownload(DownloadType downloadType) {
-        return new Download(downloadType.getDescription(), downloadType.getUrl(), downloadType.getSize(),
+        Download download = new Download(downloadType.getDescription(), downloadType.getUrl(), downloadType.getSize(),
                 downloadType.getChecksum(), Action.valueOf(downloadType.getAction()), new File(downloadType.getTarget()),
                 parseTime(downloadType.getCreationDate()), State.valueOf(downloadType.getState()), new File(downloadType.getTempFile()));
+        if (!downloadType.getSegment().isEmpty())
+            download.setSegments(asSegments(downloadType.getSegment()));
+        return download;
+    }
+
+    private List<Segment> asSegments(List<SegmentType> segmentTypes) {
+        List<Segment> result = new ArrayList<Segment>();
+        for (SegmentType segmentType : segmentTypes)
+            result.add(new Segment(segmentType.getStart(), segmentType.getEnd(), segmentType.getProcessed()));
+        return result;
     }
 
     public void save(List<Download> downloads) throws IOException, JAXBException {
@@ -100,6 +112,18 @@ public class QueuePersister {
         downloadType.setAction(download.getAction().name());
         downloadType.setTarget(download.getTarget().getPath());
         downloadType.setTempFile(download.getTempFile().getPath());
+        List<Segment> segments = download.getSegments();
+        if (segments != null)
+            for (Segment segment : segments)
+                downloadType.getSegment().add(asSegmentType(segment));
         return downloadType;
     }
+
+    private SegmentType asSegmentType(Segment segment) {
+        SegmentType segmentType = new ObjectFactory().createSegmentType();
+        segmentType.setStart(segment.getStart());
+        segmentType.setEnd(segment.getEnd());
+        segmentType.setProcessed(segment.getProcessedBytes());
+        return segmentType;
+    }
 }
@@ -14,12 +14,15 @@ import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlSchemaType;
 import javax.xml.bind.annotation.XmlType;
 import javax.xml.datatype.XMLGregorianCalendar;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
  * 
  *                 a download contains a description, an url, optionally size and checksum,
  *                 a state and an action like copy or extract for the target.
+ *                 large downloads are split into segments which are downloaded in parallel.
  *             
  * 
  * <p>Java class for downloadType complex type.
@@ -30,6 +33,9 @@ import javax.xml.datatype.XMLGregorianCalendar;
  * &lt;complexType name="downloadType">
  *   &lt;complexContent>
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="segment" type="{http://www.routeconverter.com/queue}segmentType" maxOccurs="unbounded" minOccurs="0"/>
+ *       &lt;/sequence>
  *       &lt;attribute name="description" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="url" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="size" type="{http://www.w3.org/2001/XMLSchema}long" />
@@ -47,9 +53,12 @@ import javax.xml.datatype.XMLGregorianCalendar;
  * 
  */
 @XmlAccessorType(XmlAccessType.FIELD)
-@XmlType(name = "downloadType")
+@XmlType(name = "downloadType", propOrder = {
+    "segment"
+})
 public class DownloadType {
 
+    protected List<SegmentType> segment;
     @XmlAttribute(name = "description")
     protected String description;
     @XmlAttribute(name = "url")
@@ -70,6 +79,35 @@ public class DownloadType {
     @XmlAttribute(name = "tempFile")
     protected String tempFile;
 
+    /**
+     * Gets the value of the segment property.
+     * 
+     * <p>
+     * This accessor method returns a reference to the live list,
+     * not a snapshot. Therefore any modification you make to the
+     * returned list will be present inside the JAXB object.
+     * This is why there is not a <CODE>set</CODE> method for the segment property.
+     * 
+     * <p>
+     * For example, to add a new item, do as follows:
+     * <pre>
+     *    getSegment().add(newItem);
+     * </pre>
+     * 
+     * 
+     * <p>
+     * Objects of the following type(s) are allowed in the list
+     * {@link SegmentType }
+     * 
+     * 
+     */
+    public List<SegmentType> getSegment() {
+        if (segment == null) {
+            segment = new ArrayList<SegmentType>();
+        }
+        return this.segment;
+    }
+
     /**
      * Gets the value of the description property.
      * 
@@ -56,6 +56,14 @@ public class ObjectFactory {
         return new DownloadType();
     }
 
+    /**
+     * Create an instance of {@link SegmentType }
+     * 
+     */
+    public SegmentType createSegmentType() {
+        return new SegmentType();
+    }
+
     /**
      * Create an instance of {@link JAXBElement }{@code <}{@link QueueType }{@code >}}
      * 
@@ -0,0 +1,101 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.1.16-hudson-jaxb-ri-2.1-pushtomaven-250--SNAPSHOT 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2014.01.18 at 08:15:43 AM MEZ 
+//
+
+
+
+package slash.navigation.download.queue.binding;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * 
+ *                 a segment contains the first and the last byte of a range of a download
+ *                 and the number of bytes of the range that have already been downloaded.
+ *             
+ * 
+ * <p>Java class for segmentType complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType name="segmentType">
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;attribute name="start" use="required" type="{http://www.w3.org/2001/XMLSchema}long" />
+ *       &lt;attribute name="end" use="required" type="{http://www.w3.org/2001/XMLSchema}long" />
+ *       &lt;attribute name="processed" use="required" type="{http://www.w3.org/2001/XMLSchema}long" />
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "segmentType")
+public class SegmentType {
+
+    @XmlAttribute(name = "start", required = true)
+    protected long start;
+    @XmlAttribute(name = "end", required = true)
+    protected long end;
+    @XmlAttribute(name = "processed", required = true)
+    protected long processed;
+
+    /**
+     * Gets the value of the start property.
+     * 
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Sets the value of the start property.
+     * 
+     */
+    public void setStart(long value) {
+        this.start = value;
+    }
+
+    /**
+     * Gets the value of the end property.
+     * 
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Sets the value of the end property.
+     * 
+     */
+    public void setEnd(long value) {
+        this.end = value;
+    }
+
+    /**
+     * Gets the value of the processed property.
+     * 
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Sets the value of the processed property.
+     * 
+     */
+    public void setProcessed(long value) {
+        this.processed = value;
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.io.File.createTempFile;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.download.Action.Copy;
+import static slash.navigation.download.Action.Extract;
+import static slash.navigation.download.State.Processing;
+import static slash.navigation.download.State.Succeeded;
+
+public class DownloadExecutorTest {
+    private static final int CONTENT_SIZE = 8 * 1024 * 1024 + 1;
+    private static final byte[] ZIP = createZip();
+
+    private final AtomicInteger gets = new AtomicInteger();
+    private HttpServer server;
+    private final ExecutorService serverPool = newCachedThreadPool();
+    private ExecutorService segmentPool, extractionPool;
+    private File target;
+
+    private static byte[] createZip() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ZipOutputStream output = new ZipOutputStream(bytes);
+            output.putNextEntry(new ZipEntry("directory/entry.hgt"));
+            output.write(new byte[]{1, 2, 3});
+            output.closeEntry();
+            output.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        // a server that announces ranges but sends the complete content for every range
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+                    exchange.getResponseHeaders().set("Last-Modified", "Thu, 01 Jan 2015 00:00:00 GMT");
+                    if ("HEAD".equals(exchange.getRequestMethod())) {
+                        exchange.getResponseHeaders().set("Content-Length", Integer.toString(CONTENT_SIZE));
+                        exchange.sendResponseHeaders(200, -1);
+                        return;
+                    }
+                    gets.incrementAndGet();
+                    exchange.sendResponseHeaders(200, CONTENT_SIZE);
+                    OutputStream body = exchange.getResponseBody();
+                    byte[] buffer = new byte[64 * 1024];
+                    for (int i = 0; i < CONTENT_SIZE; i += buffer.length) {
+                        for (int j = 0; j < buffer.length; j++)
+                            buffer[j] = (byte) (i + j);
+                        body.write(buffer, 0, Math.min(buffer.length, CONTENT_SIZE - i));
+                    }
+                } catch (IOException e) {
+                    // the client closed the connection
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.createContext("/file.zip", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    exchange.getResponseHeaders().set("Last-Modified", "Thu, 01 Jan 2015 00:00:00 GMT");
+                    if ("HEAD".equals(exchange.getRequestMethod())) {
+                        exchange.getResponseHeaders().set("Content-Length", Integer.toString(ZIP.length));
+                        exchange.sendResponseHeaders(200, -1);
+                        return;
+                    }
+                    exchange.sendResponseHeaders(200, ZIP.length);
+                    exchange.getResponseBody().write(ZIP);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        // answer the segments in parallel like a web server
+        server.setExecutor(serverPool);
+        server.start();
+        segmentPool = newFixedThreadPool(4);
+        extractionPool = newFixedThreadPool(1);
+        target = createTempFile("target", ".bin");
+        target.delete();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverPool.shutdownNow();
+        segmentPool.shutdownNow();
+        extractionPool.shutdownNow();
+        target.delete();
+    }
+
+    @Test
+    public void testDownloadCompleteContentOfSegmentInOneStream() {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file.bin";
+        Download download = new Download("test", url, (long) CONTENT_SIZE, null, Copy, target);
+        DownloadTableModel model = new DownloadTableModel();
+        model.addOrUpdateDownload(download);
+        new DownloadExecutor(download, model, segmentPool, extractionPool).run();
+
+        assertEquals(Succeeded, download.getState());
+        assertEquals(CONTENT_SIZE, target.length());
+        // one failed resume and one request per segment but no further download
+        assertEquals(5, gets.get());
+    }
+
+    @Test
+    public void testExtractionCompletesDownloadAfterWorkerReturned() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        extractionPool.execute(new Runnable() {
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                }
+            }
+        });
+        assertTrue(target.mkdirs());
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/file.zip";
+        Download download = new Download("test", url, (long) ZIP.length, null, Extract, target);
+        DownloadTableModel model = new DownloadTableModel();
+        model.addOrUpdateDownload(download);
+        new DownloadExecutor(download, model, segmentPool, extractionPool).run();
+        assertEquals(Processing, download.getState());
+        assertFalse(download.getCompletion().isDone());
+
+        blocked.countDown();
+        download.getCompletion().get(30, SECONDS);
+        assertEquals(Succeeded, download.getState());
+        File extracted = new File(target, "entry.hgt");
+        assertEquals(3, extracted.length());
+        assertTrue(extracted.delete());
+        assertFalse(download.getTempFile().exists());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.download.Action.Copy;
+
+public class DownloadManagerTest {
+    private DownloadManager manager;
+    private Download download;
+
+    @Before
+    public void setUp() {
+        manager = new DownloadManager();
+        download = new Download("test", "http://localhost/test", null, null, Copy, new File("test.bin"));
+    }
+
+    @After
+    public void tearDown() {
+        manager.dispose();
+        download.getTempFile().delete();
+    }
+
+    @Test
+    public void testWaitForCompletionTimesOut() {
+        assertFalse(manager.waitForCompletion(asList(download), 10, MILLISECONDS));
+        assertFalse(download.getCompletion().isDone());
+    }
+
+    @Test
+    public void testWaitForCompletionWithoutProgressTimesOut() {
+        assertFalse(manager.waitForCompletionWhileProgressing(asList(download), 10, MILLISECONDS));
+        assertFalse(download.getCompletion().isDone());
+    }
+
+    @Test
+    public void testWaitForCompletionWhileProgressing() {
+        manager.getModel().addOrUpdateDownload(download);
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i = 1; i <= 10; i++) {
+                        Thread.sleep(50);
+                        download.setProcessedBytes(i);
+                    }
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                }
+                download.setState(State.Succeeded);
+                download.complete();
+            }
+        }).start();
+        assertTrue(manager.waitForCompletionWhileProgressing(asList(download), 200, MILLISECONDS));
+        assertTrue(download.getCompletion().isDone());
+    }
+
+    @Test
+    public void testWaitForCompletionDetectsStalledDownload() {
+        final Download progressing = new Download("progressing", "http://localhost/progressing", null, null, Copy, new File("progressing.bin"));
+        manager.getModel().addOrUpdateDownload(download);
+        manager.getModel().addOrUpdateDownload(progressing);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i = 1; i <= 100; i++) {
+                        Thread.sleep(20);
+                        progressing.setProcessedBytes(i);
+                    }
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                }
+            }
+        });
+        thread.start();
+        try {
+            long start = currentTimeMillis();
+            assertFalse(manager.waitForCompletionWhileProgressing(asList(download, progressing), 100, MILLISECONDS));
+            assertTrue(currentTimeMillis() - start < 1000);
+            assertFalse(download.getCompletion().isDone());
+        } finally {
+            thread.interrupt();
+            progressing.getTempFile().delete();
+        }
+    }
+
+    @Test
+    public void testWaitForCompletion() {
+        new Thread(new Runnable() {
+            public void run() {
+                download.setState(State.Succeeded);
+                download.complete();
+            }
+        }).start();
+        assertTrue(manager.waitForCompletion(asList(download), 5, SECONDS));
+        assertTrue(download.getCompletion().isDone());
+    }
+
+    @Test
+    public void testWaitForCancelledDownload() {
+        download.getCompletion().cancel(false);
+        assertTrue(manager.waitForCompletion(asList(download)));
+    }
+
+    @Test
+    public void testLoadedDownloadIsCompleted() {
+        Download succeeded = new Download("test", "http://localhost/test", null, null, Copy, new File("test.bin"),
+                download.getCreationDate(), State.Succeeded, download.getTempFile());
+        assertTrue(succeeded.getCompletion().isDone());
+        assertTrue(manager.waitForCompletion(asList(succeeded), 10, MILLISECONDS));
+    }
+}
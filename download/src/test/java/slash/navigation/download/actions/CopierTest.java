@@ -0,0 +1,93 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download.actions;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.InputOutput.readBytes;
+
+public class CopierTest {
+    private static final int SIZE = 3 * 1024 * 1024 + 17;
+
+    private static class RecordingListener implements CopierListener {
+        private final List<Long> processed = new ArrayList<Long>();
+
+        public void expectingBytes(long byteCount) {
+        }
+
+        public void processedBytes(long byteCount) {
+            processed.add(byteCount);
+        }
+    }
+
+    private byte[] createBytes() {
+        byte[] bytes = new byte[SIZE];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) i;
+        return bytes;
+    }
+
+    @Test
+    public void testCopyStreams() throws IOException {
+        byte[] bytes = createBytes();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RecordingListener listener = new RecordingListener();
+
+        assertEquals(SIZE + 5, new Copier(listener).copyAndClose(new ByteArrayInputStream(bytes), output, 5));
+        assertArrayEquals(bytes, output.toByteArray());
+        assertEquals(SIZE + 5, (long) listener.processed.get(listener.processed.size() - 1));
+        // notifications are throttled and not sent for every buffer
+        assertTrue(listener.processed.size() < SIZE / (64 * 1024));
+    }
+
+    @Test
+    public void testCopyFiles() throws IOException {
+        byte[] bytes = createBytes();
+        File source = createTempFile("source", ".bin");
+        File target = createTempFile("target", ".bin");
+        try {
+            FileOutputStream output = new FileOutputStream(source);
+            output.write(bytes);
+            output.close();
+
+            RecordingListener listener = new RecordingListener();
+            assertEquals(SIZE, new Copier(listener).copyAndClose(new FileInputStream(source), new FileOutputStream(target), 0));
+            assertArrayEquals(bytes, readBytes(new FileInputStream(target)));
+            assertEquals(SIZE, (long) listener.processed.get(listener.processed.size() - 1));
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download.actions;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.io.File.createTempFile;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.InputOutput.readBytes;
+
+public class ExtractorTest {
+    private static final int ENTRY_COUNT = 5;
+    private static final int ENTRY_SIZE = 512 * 1024;
+
+    private ExecutorService pool;
+    private File zip, directory;
+
+    private static byte[] createBytes(int entry) {
+        byte[] bytes = new byte[ENTRY_SIZE];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * entry);
+        return bytes;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        pool = newFixedThreadPool(2);
+        zip = createTempFile("extractor", ".zip");
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            output.putNextEntry(new ZipEntry("directory/"));
+            output.closeEntry();
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                output.putNextEntry(new ZipEntry("directory/entry" + i + ".hgt"));
+                output.write(createBytes(i));
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+
+        directory = createTempFile("extractor", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+        zip.delete();
+        for (int i = 0; i < ENTRY_COUNT; i++)
+            new File(directory, "entry" + i + ".hgt").delete();
+        new File(directory, "entry.hgt").delete();
+        directory.delete();
+    }
+
+    private static class Listener implements ExtractorListener {
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private long expected, processed;
+        private IOException failure;
+
+        public void expectingBytes(long byteCount) {
+            expected = byteCount;
+        }
+
+        public void processedBytes(long byteCount) {
+            processed = byteCount;
+        }
+
+        public void extracted() {
+            completed.countDown();
+        }
+
+        public void failed(IOException e) {
+            failure = e;
+            completed.countDown();
+        }
+
+        public void waitForCompletion() throws InterruptedException {
+            assertTrue(completed.await(30, SECONDS));
+        }
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        Listener listener = new Listener();
+        new Extractor(listener, pool).extract(zip, directory);
+        listener.waitForCompletion();
+
+        assertNull(listener.failure);
+        for (int i = 0; i < ENTRY_COUNT; i++)
+            assertArrayEquals(createBytes(i), readBytes(new FileInputStream(new File(directory, "entry" + i + ".hgt"))));
+        assertEquals(ENTRY_COUNT * ENTRY_SIZE, listener.expected);
+        assertEquals(ENTRY_COUNT * ENTRY_SIZE, listener.processed);
+    }
+
+    @Test
+    public void testExtractDoesNotWaitForEntries() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        ExecutorService single = newSingleThreadExecutor();
+        try {
+            single.execute(new Runnable() {
+                public void run() {
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        // intentionally left empty
+                    }
+                }
+            });
+            Listener listener = new Listener();
+            new Extractor(listener, single).extract(zip, directory);
+            assertEquals(1, listener.completed.getCount());
+
+            blocked.countDown();
+            listener.waitForCompletion();
+            assertNull(listener.failure);
+            assertEquals(ENTRY_COUNT * ENTRY_SIZE, listener.processed);
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelledEntryFailsExtraction() throws Exception {
+        ExecutorService single = newSingleThreadExecutor();
+        single.execute(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(60 * 1000);
+                } catch (InterruptedException e) {
+                    // intentionally left empty
+                }
+            }
+        });
+        Listener listener = new Listener();
+        new Extractor(listener, single).extract(zip, directory);
+        for (Runnable runnable : single.shutdownNow())
+            if (runnable instanceof Future)
+                ((Future<?>) runnable).cancel(false);
+
+        listener.waitForCompletion();
+        assertNotNull(listener.failure);
+    }
+
+    @Test
+    public void testExtractSameNameFromDifferentDirectories() throws Exception {
+        ZipOutputStream output = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                output.putNextEntry(new ZipEntry("directory" + i + "/entry.hgt"));
+                output.write(createBytes(i));
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+
+        Listener listener = new Listener();
+        new Extractor(listener, pool).extract(zip, directory);
+        listener.waitForCompletion();
+
+        assertNull(listener.failure);
+        assertArrayEquals(createBytes(ENTRY_COUNT - 1), readBytes(new FileInputStream(new File(directory, "entry.hgt"))));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.download.queue;
+
+import org.junit.Test;
+import slash.navigation.download.Download;
+import slash.navigation.download.Segment;
+
+import java.io.File;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.download.Action.Copy;
+
+public class QueuePersisterTest {
+    @Test
+    public void testSaveAndLoadSegments() throws Exception {
+        File file = createTempFile("queue", ".xml");
+        Download segmented = new Download("segmented", "http://localhost/segmented", 200L, null, Copy, new File("segmented.bin"));
+        segmented.setSegments(asList(new Segment(0, 99, 100), new Segment(100, 199, 42)));
+        Download simple = new Download("simple", "http://localhost/simple", 10L, null, Copy, new File("simple.bin"));
+        try {
+
+            new QueuePersister(file).save(asList(segmented, simple));
+            List<Download> downloads = new QueuePersister(file).load();
+
+            assertEquals(2, downloads.size());
+            List<Segment> segments = downloads.get(0).getSegments();
+            assertEquals(2, segments.size());
+            assertEquals(0, segments.get(0).getStart());
+            assertEquals(99, segments.get(0).getEnd());
+            assertTrue(segments.get(0).isComplete());
+            assertEquals(100, segments.get(1).getStart());
+            assertEquals(199, segments.get(1).getEnd());
+            assertEquals(42, segments.get(1).getProcessedBytes());
+            assertFalse(segments.get(1).isComplete());
+            assertNull(downloads.get(1).getSegments());
+        } finally {
+            file.delete();
+            segmented.getTempFile().delete();
+            simple.getTempFile().delete();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import slash.navigation.earthtools.binding.Height;
 import slash.navigation.rest.Get;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.prefs.Preferences;
 
@@ -67,6 +68,14 @@ public class EarthToolsService implements ElevationService {
         return null;
     }
 
+    public List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException {
+        // the service supports one position per request only
+        List<Double> result = new ArrayList<Double>(longitudeAndLatitudes.size());
+        for (LongitudeAndLatitude longitudeAndLatitude : longitudeAndLatitudes)
+            result.add(getElevationFor(longitudeAndLatitude.longitude, longitudeAndLatitude.latitude));
+        return result;
+    }
+
     public void downloadElevationDataFor(List<LongitudeAndLatitude> longitudeAndLatitudes) {
         // noop for online services
     }
@@ -34,5 +34,14 @@ import java.util.List;
 public interface ElevationService {
     String getName();
     Double getElevationFor(double longitude, double latitude) throws IOException;
+
+    /**
+     * Looks up the elevations for the given positions in as few requests as possible.
+     *
+     * @param longitudeAndLatitudes the positions to look up the elevations for
+     * @return the elevations in the order of the given positions, <code>null</code> if an elevation is unknown
+     * @throws IOException if an error occurs while looking up the elevations
+     */
+    List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException;
     void downloadElevationDataFor(List<LongitudeAndLatitude> longitudeAndLatitudes);
 }
@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.prefs.Preferences;
 
+import static java.util.Arrays.asList;
 import static slash.common.io.Transfer.parseInt;
 
 /**
@@ -44,6 +45,7 @@ public class GeoNamesService implements ElevationService {
     private static final Preferences preferences = Preferences.userNodeForPackage(GeoNamesService.class);
     private static final String GEONAMES_URL_PREFERENCE = "geonamesUrl";
     private static final String GEONAMES_USERNAME_PREFERENCE = "geonamesUserName";
+    private static final int MAXIMUM_POSITIONS_PER_REQUEST = 20;
 
     public String getName() {
         return "GeoNames";
@@ -84,6 +86,40 @@ public class GeoNamesService implements ElevationService {
         return null;
     }
 
+    private List<Integer> requestElevations(String uri, List<LongitudeAndLatitude> longitudeAndLatitudes, Integer nullValue) throws IOException {
+        StringBuilder latitudes = new StringBuilder();
+        StringBuilder longitudes = new StringBuilder();
+        for (LongitudeAndLatitude longitudeAndLatitude : longitudeAndLatitudes) {
+            if (latitudes.length() > 0) {
+                latitudes.append(",");
+                longitudes.append(",");
+            }
+            latitudes.append(longitudeAndLatitude.latitude);
+            longitudes.append(longitudeAndLatitude.longitude);
+        }
+
+        String result = execute(uri + "?lats=" + latitudes + "&lngs=" + longitudes);
+        if (result == null)
+            return null;
+
+        // one elevation per line in the order of the positions
+        String[] lines = result.trim().split("\\s+");
+        if (lines.length != longitudeAndLatitudes.size())
+            throw new IOException("Requested " + longitudeAndLatitudes.size() + " elevations but got " + result);
+        List<Integer> elevations = new ArrayList<Integer>(lines.length);
+        for (String line : lines) {
+            try {
+                Integer elevation = parseInt(line);
+                elevations.add(elevation != null && !elevation.equals(nullValue) ? elevation : null);
+            } catch (NumberFormatException e) {
+                IOException io = new IOException("Cannot unmarshall " + result + ": " + e.getMessage());
+                io.setStackTrace(e.getStackTrace());
+                throw io;
+            }
+        }
+        return elevations;
+    }
+
     private void checkCurrentlyOverloaded(String url, String result) throws ServiceUnavailableException {
         if (result.contains("<html>") && (result.contains("overloaded") || result.contains("exceeded")))
             throw new ServiceUnavailableException("geonames.org", url);
@@ -97,8 +133,12 @@ public class GeoNamesService implements ElevationService {
         return getElevationFor("gtopo30", longitude, latitude, -9999);
     }
 
+    private static boolean isCoveredBySrtm3(double latitude) {
+        return latitude < 60.0 && latitude > -56.0;
+    }
+
     public Double getElevationFor(double longitude, double latitude) throws IOException {
-        if (latitude < 60.0 && latitude > -56.0) {
+        if (isCoveredBySrtm3(latitude)) {
             Integer elevation = getSrtm3ElevationFor(longitude, latitude);
             return elevation != null ? elevation.doubleValue() : null;
         } else {
@@ -107,6 +147,40 @@ public class GeoNamesService implements ElevationService {
         }
     }
 
+    public List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException {
+        List<Integer> srtm3Indices = new ArrayList<Integer>();
+        List<Integer> gtopo30Indices = new ArrayList<Integer>();
+        for (int i = 0; i < longitudeAndLatitudes.size(); i++) {
+            if (isCoveredBySrtm3(longitudeAndLatitudes.get(i).latitude))
+                srtm3Indices.add(i);
+            else
+                gtopo30Indices.add(i);
+        }
+
+        Double[] result = new Double[longitudeAndLatitudes.size()];
+        getElevationsFor("srtm3", longitudeAndLatitudes, srtm3Indices, -32768, result);
+        getElevationsFor("gtopo30", longitudeAndLatitudes, gtopo30Indices, -9999, result);
+        return new ArrayList<Double>(asList(result));
+    }
+
+    private void getElevationsFor(String uri, List<LongitudeAndLatitude> longitudeAndLatitudes, List<Integer> indices,
+                                  Integer nullValue, Double[] result) throws IOException {
+        for (int from = 0; from < indices.size(); from += MAXIMUM_POSITIONS_PER_REQUEST) {
+            List<Integer> requestIndices = indices.subList(from, Math.min(from + MAXIMUM_POSITIONS_PER_REQUEST, indices.size()));
+            List<LongitudeAndLatitude> request = new ArrayList<LongitudeAndLatitude>(requestIndices.size());
+            for (Integer index : requestIndices)
+                request.add(longitudeAndLatitudes.get(index));
+
+            List<Integer> elevations = requestElevations(uri, request, nullValue);
+            if (elevations == null)
+                continue;
+            for (int i = 0; i < requestIndices.size(); i++) {
+                Integer elevation = elevations.get(i);
+                result[requestIndices.get(i)] = elevation != null ? elevation.doubleValue() : null;
+            }
+        }
+    }
+
     private Geonames getGeonamesFor(String uri) throws IOException {
         String result = execute(uri);
         if (result != null) {
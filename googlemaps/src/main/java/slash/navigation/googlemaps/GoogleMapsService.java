@@ -53,6 +53,8 @@ public class GoogleMapsService implements ElevationService {
     private static final String GOOGLE_MAPS_API_URL_PREFERENCE = "googleMapsApiUrl";
     private static final String OK = "OK";
     private static final String OVER_QUERY_LIMIT = "OVER_QUERY_LIMIT";
+    private static final int MAXIMUM_LOCATIONS_PER_REQUEST = 512;
+    private static final int MAXIMUM_LOCATIONS_LENGTH = 1800;
 
     public String getName() {
         return "Google Maps";
@@ -153,7 +155,40 @@ public class GoogleMapsService implements ElevationService {
     }
 
     public Double getElevationFor(double longitude, double latitude) throws IOException {
-        String url = getElevationUrl("locations=" + latitude + "," + longitude); // TODO could be up to 512 locations
+        List<Double> elevations = requestElevations("locations=" + latitude + "," + longitude);
+        return elevations != null && elevations.size() > 0 ? elevations.get(0) : null;
+    }
+
+    public List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException {
+        List<Double> result = new ArrayList<Double>(longitudeAndLatitudes.size());
+        int from = 0;
+        while (from < longitudeAndLatitudes.size()) {
+            // pack as many locations into one request as the url length allows
+            StringBuilder locations = new StringBuilder();
+            int to = from;
+            while (to < longitudeAndLatitudes.size() && to - from < MAXIMUM_LOCATIONS_PER_REQUEST) {
+                LongitudeAndLatitude longitudeAndLatitude = longitudeAndLatitudes.get(to);
+                String location = longitudeAndLatitude.latitude + "," + longitudeAndLatitude.longitude;
+                if (to > from && locations.length() + location.length() + 3 > MAXIMUM_LOCATIONS_LENGTH)
+                    break;
+                if (to > from)
+                    locations.append("%7C");
+                locations.append(location);
+                to++;
+            }
+
+            List<Double> elevations = requestElevations("locations=" + locations);
+            if (elevations != null && elevations.size() != to - from)
+                throw new IOException("Requested " + (to - from) + " elevations but got " + elevations.size());
+            for (int i = from; i < to; i++)
+                result.add(elevations != null ? elevations.get(i - from) : null);
+            from = to;
+        }
+        return result;
+    }
+
+    private List<Double> requestElevations(String payload) throws IOException {
+        String url = getElevationUrl(payload);
         Get get = get(url);
         String result = get.execute();
         if (get.isSuccessful())
@@ -161,10 +196,8 @@ public class GoogleMapsService implements ElevationService {
                 ElevationResponse elevationResponse = GoogleMapsUtil.unmarshalElevation(result);
                 if (elevationResponse != null) {
                     String status = elevationResponse.getStatus();
-                    if (status.equals(OK)) {
-                        List<Double> elevations = extractElevations(elevationResponse.getResult());
-                        return elevations != null && elevations.size() > 0 ? elevations.get(0) : null;
-                    }
+                    if (status.equals(OK))
+                        return extractElevations(elevationResponse.getResult());
                     if (status.equals(OVER_QUERY_LIMIT))
                         throw new ServiceUnavailableException("maps.googleapis.com", url);
                 }
@@ -30,13 +30,13 @@ import java.io.*;
 import static slash.navigation.jaxb.JaxbUtils.*;
 
 public class GpxUtil {
-    private static final String GPX_10_NAMESPACE_URI = "http://www.topografix.com/GPX/1/0";
-    private static final String GPX_11_NAMESPACE_URI = "http://www.topografix.com/GPX/1/1";
-    private static final String GARMIN_EXTENSIONS_3_NAMESPACE_URI = "http://www.garmin.com/xmlschemas/GpxExtensions/v3";
+    public static final String GPX_10_NAMESPACE_URI = "http://www.topografix.com/GPX/1/0";
+    public static final String GPX_11_NAMESPACE_URI = "http://www.topografix.com/GPX/1/1";
+    public static final String GARMIN_EXTENSIONS_3_NAMESPACE_URI = "http://www.garmin.com/xmlschemas/GpxExtensions/v3";
     private static final String GARMIN_WAYPOINT_EXTENSIONS_1_NAMESPACE_URI = "http://www.garmin.com/xmlschemas/WaypointExtension/v1";
     private static final String GARMIN_TRACKPOINT_EXTENSIONS_1_NAMESPACE_URI = "http://www.garmin.com/xmlschemas/TrackPointExtension/v1";
     private static final String ROUTECATALOG_EXTENSIONS_1_NAMESPACE_URI = "http://www.routeconverter.de/xmlschemas/RouteCatalogExtensions/1.0";
-    private static final String TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI = "http://trekbuddy.net/2009/01/gpx/nmea";
+    public static final String TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI = "http://trekbuddy.net/2009/01/gpx/nmea";
     private static final String XML_SCHEMA_INSTANCE_NAMESPACE_URI = "http://www.w3.org/2001/XMLSchema-instance";
 
     public static Unmarshaller newUnmarshaller10() {
@@ -20,8 +20,13 @@
 
 package slash.navigation.hgt;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 
 /**
  * A tile with elevation data.
@@ -37,14 +42,24 @@ public class ElevationTile {
     public static final int SRTM1_FILE_SIZE = (SRTM1_INTERVALS + 1) * (SRTM1_INTERVALS + 1) * 2;
     private static final int INVALID_VALUE_LIMIT = -15000; // Won't interpolate below this elevation in Meters, guess is: -0x8000
 
-    private final RandomAccessFile file;
-
-    public ElevationTile(RandomAccessFile file) {
-        this.file = file;
+    private final ShortBuffer elevations;
+    private final int intervalCount;
+    private final long size;
+
+    public ElevationTile(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            this.size = channel.size();
+            this.intervalCount = getIntervalCount(file, size);
+            // the mapping stays valid after the channel is closed; HGT files are big endian like the buffer
+            this.elevations = channel.map(READ_ONLY, 0, size).asShortBuffer();
+        } finally {
+            randomAccessFile.close();
+        }
     }
-    
-    private int getIntervalCount() throws IOException {
-        long fileLength = file.length();
+
+    private static int getIntervalCount(File file, long fileLength) throws IOException {
         if(fileLength == SRTM3_FILE_SIZE)
           return SRTM3_INTERVALS;
         else if(fileLength == SRTM1_FILE_SIZE)
@@ -53,6 +68,15 @@ public class ElevationTile {
             throw new IOException("Elevation tile " + file + " has invalid size " + fileLength);
     }
 
+    /**
+     * Returns the number of bytes the tile occupies.
+     *
+     * @return the number of bytes the tile occupies
+     */
+    public long getSize() {
+        return size;
+    }
+
     /**
      * Calculate the elevation for the destination position according the
      * theorem on intersecting lines ("Strahlensatz").
@@ -66,13 +90,33 @@ public class ElevationTile {
         return (dHeight12 * dDiff) / dLength12;
     }
 
-    public Double getElevationFor(Double longitude, Double latitude) throws IOException {
-        if (file == null || longitude == null || latitude == null)
+    public Double getElevationFor(Double longitude, Double latitude) {
+        if (longitude == null || latitude == null)
             return null;
 
+        double elevation = interpolateElevation(longitude, latitude);
+        return Double.isNaN(elevation) ? null : elevation;
+    }
+
+    /**
+     * Interpolates the elevations for the given positions which all have to be located
+     * within this tile.
+     *
+     * @param longitudes the longitudes of the positions
+     * @param latitudes the latitudes of the positions
+     * @param elevations the array to fill with the elevations or {@link Double#NaN} if there is none
+     * @param from the index of the first position
+     * @param to the index after the last position
+     */
+    public void getElevationsFor(double[] longitudes, double[] latitudes, double[] elevations, int from, int to) {
+        for (int i = from; i < to; i++)
+            elevations[i] = interpolateElevation(longitudes[i], latitudes[i]);
+    }
+
+    private double interpolateElevation(double longitude, double latitude) {
         // cut off the decimal places
-        int longitudeAsInt = longitude.intValue();
-        int latitudeAsInt = latitude.intValue();
+        int longitudeAsInt = (int) longitude;
+        int latitudeAsInt = (int) latitude;
 
         if (longitude < 0) {                                        // If it's west longitude (negative value)
             longitudeAsInt = (longitudeAsInt - 1) * -1;             // Make a positive number (left edge)
@@ -84,7 +128,6 @@ public class ElevationTile {
             latitude = ((double) latitudeAsInt + latitude) + (double) latitudeAsInt; // Make positive double latitude (needed for later calculation)
         }
 
-        int intervalCount = getIntervalCount();
         int longitudeIntervalIndex = (int) ((longitude - (double) longitudeAsInt) * intervalCount);
         int latitudeIntervalIndex = (int) ((latitude - (double) latitudeAsInt) * intervalCount);
 
@@ -99,32 +142,18 @@ public class ElevationTile {
         double dOffLon = longitude - (double) longitudeAsInt;                    // The longitude value offset within a tile
         double dOffLat = latitude - (double) latitudeAsInt;                      // The latitude value offset within a tile
 
-        double dLeftTop;                                            // The left top position of a sub tile
-        double dLeftBottom;                                         // The left bottom position of a sub tile
-        double dRightTop;                                           // The right top position of a sub tile
-        double dRightBottom;                                        // The right bootm position of a sub tile
-        int pos;                                                    // The index of the elevation into the hgt file
-
-        pos = (((intervalCount - latitudeIntervalIndex) - 1) * (intervalCount + 1)) + longitudeIntervalIndex; // The index for the left top elevation
-        file.seek(pos * 2);                                // We have 16-bit values for elevation, so multiply by 2
-        dLeftTop = file.readShort();                       // Now read the left top elevation from hgt file
-
-        pos = ((intervalCount - latitudeIntervalIndex) * (intervalCount + 1)) + longitudeIntervalIndex; // The index for the left bottom elevation
-        file.seek(pos * 2);                                // We have 16-bit values for elevation, so multiply by 2
-        dLeftBottom = file.readShort();                    // Now read the left bottom elevation from hgt file
+        int topPos = (((intervalCount - latitudeIntervalIndex) - 1) * (intervalCount + 1)) + longitudeIntervalIndex; // The index for the left top elevation
+        int bottomPos = ((intervalCount - latitudeIntervalIndex) * (intervalCount + 1)) + longitudeIntervalIndex; // The index for the left bottom elevation
 
-        pos = (((intervalCount - latitudeIntervalIndex) - 1) * (intervalCount + 1)) + longitudeIntervalIndex + 1; // The index for the right top elevation
-        file.seek(pos * 2);                                // We have 16-bit values for elevation, so multiply by 2
-        dRightTop = file.readShort();                      // Now read the right top elevation from hgt file
-
-        pos = ((intervalCount - latitudeIntervalIndex) * (intervalCount + 1)) + longitudeIntervalIndex + 1; // The index for the right bottom elevation
-        file.seek(pos * 2);                                // We have 16-bit values for elevation, so multiply by 2
-        dRightBottom = file.readShort();                   // Now read the right bottom top elevation from hgt file
+        double dLeftTop = elevations.get(topPos);                   // The left top position of a sub tile
+        double dLeftBottom = elevations.get(bottomPos);             // The left bottom position of a sub tile
+        double dRightTop = elevations.get(topPos + 1);              // The right top position of a sub tile
+        double dRightBottom = elevations.get(bottomPos + 1);        // The right bottom position of a sub tile
 
         // if one of the read elevation values is not valid, we cannot interpolate
         if ((dLeftTop < INVALID_VALUE_LIMIT) || (dLeftBottom < INVALID_VALUE_LIMIT) ||
                 (dRightTop < INVALID_VALUE_LIMIT) || (dRightBottom < INVALID_VALUE_LIMIT)) {
-            return null;
+            return Double.NaN;
         }
 
         // the delta between top lat value and requested latitude (offset within a sub tile)
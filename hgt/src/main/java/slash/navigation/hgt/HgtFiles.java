@@ -27,7 +27,6 @@ import slash.navigation.download.datasources.Fragment;
 import slash.navigation.elevation.ElevationService;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.*;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -47,8 +46,11 @@ public class HgtFiles implements ElevationService {
     private static final Preferences preferences = Preferences.userNodeForPackage(HgtFiles.class);
     private static final String DIRECTORY_PREFERENCE = "directory";
     private static final String BASE_URL_PREFERENCE = "baseUrl";
+    private static final String TILE_CACHE_SIZE_PREFERENCE = "tileCacheSize";
+    private static final long MEGA_BYTE = 1024 * 1024;
 
-    private final Map<java.io.File, RandomAccessFile> randomAccessFileCache = new HashMap<java.io.File, RandomAccessFile>();
+    private final Map<java.io.File, ElevationTile> tileCache = new LinkedHashMap<java.io.File, ElevationTile>(16, 0.75f, true);
+    private long tileCacheSize = 0;
     private final String name, baseUrl, directory;
     private final Map<String, Fragment> archiveMap;
     private final Map<String, File> fileMap;
@@ -84,6 +86,10 @@ public class HgtFiles implements ElevationService {
         return directory;
     }
 
+    long getMaximumTileCacheSize() {
+        return preferences.getLong(TILE_CACHE_SIZE_PREFERENCE, 256) * MEGA_BYTE;
+    }
+
     String createFileKey(double longitude, double latitude) {
         int longitudeAsInteger = (int) longitude;
         int latitudeAsInteger = (int) latitude;
@@ -97,27 +103,115 @@ public class HgtFiles implements ElevationService {
         return new java.io.File(getDirectory(), format("%s%s", key, ".hgt"));
     }
 
+    private synchronized ElevationTile getTile(java.io.File file) throws IOException {
+        ElevationTile tile = tileCache.get(file);
+        if (tile == null) {
+            tile = new ElevationTile(file);
+            tileCache.put(file, tile);
+            tileCacheSize += tile.getSize();
+            evictTiles();
+        }
+        return tile;
+    }
+
+    private void evictTiles() {
+        long maximumTileCacheSize = getMaximumTileCacheSize();
+        Iterator<ElevationTile> iterator = tileCache.values().iterator();
+        // keep at least the tile that was just added
+        while (tileCacheSize > maximumTileCacheSize && tileCache.size() > 1) {
+            ElevationTile tile = iterator.next();
+            iterator.remove();
+            tileCacheSize -= tile.getSize();
+        }
+    }
+
     public Double getElevationFor(double longitude, double latitude) throws IOException {
         java.io.File file = createFile(createFileKey(longitude, latitude));
         if (!file.exists())
             return null;
 
-        RandomAccessFile randomAccessFile = randomAccessFileCache.get(file);
-        if (randomAccessFile == null) {
-            randomAccessFile = new RandomAccessFile(file, "r");
-            randomAccessFileCache.put(file, randomAccessFile);
+        return getTile(file).getElevationFor(longitude, latitude);
+    }
+
+    private static int getTileIndex(double coordinate) {
+        int coordinateAsInteger = (int) coordinate;
+        return coordinate < 0 ? coordinateAsInteger - 1 : coordinateAsInteger;
+    }
+
+    /**
+     * Interpolates the elevations for the given positions. Consecutive positions within the same tile
+     * are looked up with a single tile access.
+     *
+     * @param longitudes the longitudes of the positions
+     * @param latitudes the latitudes of the positions
+     * @return the elevations of the positions or {@link Double#NaN} if there is none
+     * @throws IOException if a tile cannot be read
+     */
+    public double[] getElevationsFor(double[] longitudes, double[] latitudes) throws IOException {
+        if (longitudes.length != latitudes.length)
+            throw new IllegalArgumentException("Got " + longitudes.length + " longitudes but " + latitudes.length + " latitudes");
+
+        double[] elevations = new double[longitudes.length];
+        int from = 0;
+        while (from < longitudes.length) {
+            int longitudeIndex = getTileIndex(longitudes[from]);
+            int latitudeIndex = getTileIndex(latitudes[from]);
+            int to = from + 1;
+            while (to < longitudes.length && getTileIndex(longitudes[to]) == longitudeIndex &&
+                    getTileIndex(latitudes[to]) == latitudeIndex)
+                to++;
+
+            java.io.File file = createFile(createFileKey(longitudes[from], latitudes[from]));
+            if (file.exists())
+                getTile(file).getElevationsFor(longitudes, latitudes, elevations, from, to);
+            else
+                Arrays.fill(elevations, from, to, Double.NaN);
+            from = to;
         }
-        return new ElevationTile(randomAccessFile).getElevationFor(longitude, latitude);
+        return elevations;
     }
 
-    public void dispose() {
-        for (RandomAccessFile randomAccessFile : randomAccessFileCache.values())
-            try {
-                randomAccessFile.close();
-            } catch (IOException e) {
-                throw new IllegalArgumentException("Cannot close random access file" + randomAccessFile);
+    public List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException {
+        Map<String, List<Integer>> tileIndices = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < longitudeAndLatitudes.size(); i++) {
+            LongitudeAndLatitude longitudeAndLatitude = longitudeAndLatitudes.get(i);
+            String key = createFileKey(longitudeAndLatitude.longitude, longitudeAndLatitude.latitude);
+            List<Integer> indices = tileIndices.get(key);
+            if (indices == null) {
+                indices = new ArrayList<Integer>();
+                tileIndices.put(key, indices);
             }
-        randomAccessFileCache.clear();
+            indices.add(i);
+        }
+
+        Double[] result = new Double[longitudeAndLatitudes.size()];
+        for (Map.Entry<String, List<Integer>> entry : tileIndices.entrySet()) {
+            java.io.File file = createFile(entry.getKey());
+            if (!file.exists())
+                continue;
+
+            List<Integer> indices = entry.getValue();
+            int count = indices.size();
+            double[] longitudes = new double[count];
+            double[] latitudes = new double[count];
+            for (int i = 0; i < count; i++) {
+                LongitudeAndLatitude longitudeAndLatitude = longitudeAndLatitudes.get(indices.get(i));
+                longitudes[i] = longitudeAndLatitude.longitude;
+                latitudes[i] = longitudeAndLatitude.latitude;
+            }
+
+            double[] elevations = new double[count];
+            getTile(file).getElevationsFor(longitudes, latitudes, elevations, 0, count);
+            for (int i = 0; i < count; i++)
+                result[indices.get(i)] = Double.isNaN(elevations[i]) ? null : elevations[i];
+        }
+        return new ArrayList<Double>(Arrays.asList(result));
+    }
+
+    public synchronized void dispose() {
+        // the mapped tiles are released when they are garbage collected
+        tileCache.clear();
+        tileCacheSize = 0;
     }
 
     public void downloadElevationDataFor(List<LongitudeAndLatitude> longitudeAndLatitudes) {
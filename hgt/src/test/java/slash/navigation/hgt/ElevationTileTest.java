@@ -0,0 +1,96 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.hgt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ElevationTileTest {
+    private static final int INTERVALS = 1200;
+    private File file;
+    private ElevationTile tile;
+
+    @Before
+    public void setUp() throws IOException {
+        file = createTempFile("N47E011", ".hgt");
+        writeTile(file);
+        tile = new ElevationTile(file);
+    }
+
+    static void writeTile(File file) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            for (int row = 0; row <= INTERVALS; row++) {
+                for (int column = 0; column <= INTERVALS; column++) {
+                    // elevation grows from west to east, the northern most row is invalid
+                    output.writeShort(row == 0 ? -32768 : column);
+                }
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        tile = null;
+        // mapped files cannot be deleted on all platforms
+        file.deleteOnExit();
+    }
+
+    @Test
+    public void testGetElevationFor() {
+        assertEquals(0.5, tile.getElevationFor(11.0, 47.5), 0.001);
+        assertEquals(600.5, tile.getElevationFor(11.5, 47.5), 0.001);
+        assertEquals(900.5, tile.getElevationFor(11.75, 47.25), 0.001);
+        assertNull(tile.getElevationFor(11.5, 47.9999));
+        assertNull(tile.getElevationFor(null, 47.5));
+    }
+
+    @Test
+    public void testGetElevationsFor() {
+        double[] longitudes = new double[]{11.0, 11.5, 11.75, 11.5};
+        double[] latitudes = new double[]{47.5, 47.5, 47.25, 47.9999};
+        double[] elevations = new double[longitudes.length];
+        tile.getElevationsFor(longitudes, latitudes, elevations, 0, longitudes.length);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals(tile.getElevationFor(longitudes[i], latitudes[i]), elevations[i], 0.0);
+        assertTrue(Double.isNaN(elevations[3]));
+    }
+
+    @Test
+    public void testGetSize() {
+        assertEquals(file.length(), tile.getSize());
+    }
+}
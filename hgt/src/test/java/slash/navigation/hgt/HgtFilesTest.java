@@ -1,9 +1,18 @@
 package slash.navigation.hgt;
 
 import org.junit.Test;
+import slash.navigation.common.LongitudeAndLatitude;
 import slash.navigation.download.DownloadManager;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static slash.navigation.hgt.ElevationTileTest.writeTile;
 
 public class HgtFilesTest {
     private HgtFiles files = new HgtFiles(null, null, null, null, null, new DownloadManager());
@@ -21,4 +30,33 @@ public class HgtFilesTest {
         assertEquals("N42E000", files.createFileKey(0.15052, 42.42091));
         assertEquals("N42W001", files.createFileKey(-0.55289, 42.55803));
     }
+
+    @Test
+    public void getElevationsForKeepsOrder() throws IOException {
+        final File directory = createTempFile("hgt", "");
+        directory.delete();
+        directory.mkdirs();
+        File tile = new File(directory, "N47E011.hgt");
+        writeTile(tile);
+        tile.deleteOnExit();
+        directory.deleteOnExit();
+
+        HgtFiles hgtFiles = new HgtFiles(null, null, null, null, null, new DownloadManager()) {
+            File getDirectory() {
+                return directory;
+            }
+        };
+        List<Double> elevations = hgtFiles.getElevationsFor(asList(
+                new LongitudeAndLatitude(11.5, 47.5),
+                new LongitudeAndLatitude(12.5, 47.5),
+                new LongitudeAndLatitude(11.0, 47.5),
+                new LongitudeAndLatitude(11.75, 47.25)
+        ));
+        assertEquals(4, elevations.size());
+        assertEquals(600.5, elevations.get(0), 0.001);
+        assertNull(elevations.get(1));
+        assertEquals(0.5, elevations.get(2), 0.001);
+        assertEquals(hgtFiles.getElevationFor(11.75, 47.25), elevations.get(3));
+        hgtFiles.dispose();
+    }
 }
@@ -23,20 +23,31 @@ package slash.navigation.jaxb;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
 import javax.xml.bind.Unmarshaller;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
+import static javax.xml.bind.Marshaller.JAXB_ENCODING;
 import static javax.xml.bind.Marshaller.JAXB_FORMATTED_OUTPUT;
+import static javax.xml.bind.Marshaller.JAXB_FRAGMENT;
 
 /**
  * Provides JAXB helpers.
  *
+ * Contexts are created once per process, marshallers and unmarshallers once per thread
+ * and context. Since a cached marshaller keeps the properties its previous caller set, the
+ * properties callers set are reset to their defaults every time it is handed out again.
+ *
  * @author Christian Pesch
  */
 
@@ -46,47 +57,103 @@ public class JaxbUtils {
     private static final String JAXB_IMPL_NAMESPACE_PREFIX_MAPPER = "com.sun.xml.internal.bind.namespacePrefixMapper".intern();
     public static final String JAXB_IMPL_HEADER = "com.sun.xml.internal.bind.xmlHeaders".intern();
 
-    private static Map<List<Class<?>>, JAXBContext> classesToContext = new HashMap<List<Class<?>>, JAXBContext>();
-    private static boolean cacheContexts = false;
-
-    public static void setCacheContexts(boolean cacheContexts) {
-        JaxbUtils.cacheContexts = cacheContexts;
-    }
+    private static final Map<List<Class<?>>, JAXBContext> classesToContext = new ConcurrentHashMap<List<Class<?>>, JAXBContext>();
+    private static final AtomicLong contextCreationTime = new AtomicLong();
+    private static final ThreadLocal<Map<JAXBContext, Map<List<String>, Marshaller>>> marshallers =
+            new ThreadLocal<Map<JAXBContext, Map<List<String>, Marshaller>>>() {
+                protected Map<JAXBContext, Map<List<String>, Marshaller>> initialValue() {
+                    return new HashMap<JAXBContext, Map<List<String>, Marshaller>>();
+                }
+            };
+    private static final ThreadLocal<Map<JAXBContext, Unmarshaller>> unmarshallers =
+            new ThreadLocal<Map<JAXBContext, Unmarshaller>>() {
+                protected Map<JAXBContext, Unmarshaller> initialValue() {
+                    return new HashMap<JAXBContext, Unmarshaller>();
+                }
+            };
 
     public static JAXBContext newContext(Class<?>... classes) {
         List<Class<?>> key = asList(classes);
         JAXBContext context = classesToContext.get(key);
         if (context == null) {
-            try {
-                context = JAXBContext.newInstance(classes);
-                if (cacheContexts)
+            synchronized (classesToContext) {
+                context = classesToContext.get(key);
+                if (context == null) {
+                    long start = currentTimeMillis();
+                    try {
+                        context = JAXBContext.newInstance(classes);
+                    } catch (JAXBException e) {
+                        throw new RuntimeException(e);
+                    }
+                    long milliSeconds = currentTimeMillis() - start;
+                    contextCreationTime.addAndGet(milliSeconds);
+                    log.fine(format("Created JAXB context for %s in %d milliseconds", key, milliSeconds));
                     classesToContext.put(key, context);
-            } catch (JAXBException e) {
-                throw new RuntimeException(e);
+                }
             }
         }
         return context;
     }
 
+    /**
+     * Returns the number of milliseconds spent creating JAXB contexts so far.
+     */
+    public static long getContextCreationTime() {
+        return contextCreationTime.get();
+    }
+
     public static Marshaller newMarshaller(JAXBContext context, String... uriToPrefix) {
+        Map<List<String>, Marshaller> prefixesToMarshaller = marshallers.get().get(context);
+        if (prefixesToMarshaller == null) {
+            prefixesToMarshaller = new HashMap<List<String>, Marshaller>();
+            marshallers.get().put(context, prefixesToMarshaller);
+        }
+
+        List<String> key = asList(uriToPrefix);
+        Marshaller result = prefixesToMarshaller.get(key);
         try {
-            Marshaller result = context.createMarshaller();
-            result.setProperty(JAXB_FORMATTED_OUTPUT, preferences.getBoolean("prettyPrintXml", true));
-            try {
-                result.setProperty(JAXB_IMPL_NAMESPACE_PREFIX_MAPPER, new NamespacePrefixMapperImpl(map(uriToPrefix)));
-            } catch (Throwable t) {
-                t.printStackTrace();
-                log.severe("Could not set namespace prefix mapper: " + t.getMessage());
+            if (result == null) {
+                result = context.createMarshaller();
+                try {
+                    result.setProperty(JAXB_IMPL_NAMESPACE_PREFIX_MAPPER, new NamespacePrefixMapperImpl(map(uriToPrefix)));
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                    log.severe("Could not set namespace prefix mapper: " + t.getMessage());
+                }
+                prefixesToMarshaller.put(key, result);
             }
+            resetProperties(result);
             return result;
         } catch (JAXBException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static void resetProperties(Marshaller marshaller) throws JAXBException {
+        marshaller.setProperty(JAXB_ENCODING, "UTF-8");
+        marshaller.setProperty(JAXB_FRAGMENT, false);
+        marshaller.setProperty(JAXB_FORMATTED_OUTPUT, preferences.getBoolean("prettyPrintXml", true));
+        marshaller.setEventHandler(null);
+        marshaller.setListener(null);
+        marshaller.setSchema(null);
+        try {
+            marshaller.setProperty(JAXB_IMPL_HEADER, null);
+        } catch (PropertyException e) {
+            // intentionally left empty since other implementations do not know the header
+        }
+    }
+
     public static Unmarshaller newUnmarshaller(JAXBContext context) {
+        Unmarshaller result = unmarshallers.get().get(context);
         try {
-            return context.createUnmarshaller();
+            if (result == null) {
+                result = context.createUnmarshaller();
+                unmarshallers.get().put(context, result);
+            }
+            result.setEventHandler(null);
+            result.setListener(null);
+            result.setSchema(null);
+            return result;
         } catch (JAXBException e) {
             throw new RuntimeException(e);
         }
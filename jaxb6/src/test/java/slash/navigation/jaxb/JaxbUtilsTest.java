@@ -0,0 +1,61 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.jaxb;
+
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.ByteArrayOutputStream;
+
+import static javax.xml.bind.Marshaller.JAXB_ENCODING;
+import static javax.xml.bind.Marshaller.JAXB_FRAGMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.jaxb.JaxbUtils.newContext;
+import static slash.navigation.jaxb.JaxbUtils.newMarshaller;
+
+public class JaxbUtilsTest {
+
+    @XmlRootElement
+    public static class Element {
+    }
+
+    @Test
+    public void testResetsPropertiesOfCachedMarshaller() throws JAXBException {
+        JAXBContext context = newContext(Element.class);
+        Marshaller marshaller = newMarshaller(context);
+        marshaller.setProperty(JAXB_FRAGMENT, true);
+        marshaller.setProperty(JAXB_ENCODING, "ISO-8859-1");
+
+        Marshaller reused = newMarshaller(context);
+        assertSame(marshaller, reused);
+        assertEquals(false, reused.getProperty(JAXB_FRAGMENT));
+        assertEquals("UTF-8", reused.getProperty(JAXB_ENCODING));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reused.marshal(new Element(), out);
+        assertTrue(out.toString().startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\""));
+    }
+}
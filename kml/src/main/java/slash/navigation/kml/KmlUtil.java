@@ -38,10 +38,10 @@ public class KmlUtil {
     private static final String KML_20_NAMESPACE_URI = "http://earth.google.com/kml/2.0";
     private static final String KML_21_NAMESPACE_URI = "http://earth.google.com/kml/2.1";
     private static final String KML_22_BETA_NAMESPACE_URI = "http://earth.google.com/kml/2.2";
-    private static final String KML_22_NAMESPACE_URI = "http://www.opengis.net/kml/2.2";
+    public static final String KML_22_NAMESPACE_URI = "http://www.opengis.net/kml/2.2";
     private static final String ATOM_2005_NAMESPACE_URI = "http://www.w3.org/2005/Atom";
     private static final String XAL_20_NAMESPACE_URI = "urn:oasis:names:tc:ciq:xsdschema:xAL:2.0";
-    private static final String KML_22_EXT_NAMESPACE_URI = "http://www.google.com/kml/ext/2.2";
+    public static final String KML_22_EXT_NAMESPACE_URI = "http://www.google.com/kml/ext/2.2";
 
     public static Unmarshaller newUnmarshaller20() {
         return newUnmarshaller(newContext(slash.navigation.kml.binding20.ObjectFactory.class));
@@ -54,6 +54,7 @@ import java.util.regex.Pattern;
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.lang.Math.round;
 import static java.lang.System.currentTimeMillis;
 import static java.lang.Thread.sleep;
 import static java.util.Calendar.SECOND;
@@ -164,6 +165,11 @@ public abstract class BaseMapView implements MapView {
                                     e.getColumn() == LATITUDE_COLUMN_INDEX ||
                                     e.getColumn() == ALL_COLUMNS))
                         return;
+                    // edits and undo of coordinates in the table keep the positions but not their ranks
+                    if (e.getType() == UPDATE && !allRowsChanged &&
+                            (e.getColumn() == LONGITUDE_COLUMN_INDEX ||
+                                    e.getColumn() == LATITUDE_COLUMN_INDEX))
+                        positionsMoved(e.getFirstRow(), e.getLastRow());
                     update(allRowsChanged || insertOrDelete);
                 }
                 // update position marker on updates of longitude and latitude
@@ -758,6 +764,19 @@ public abstract class BaseMapView implements MapView {
         }
     }
 
+    private void positionsMoved(int firstRow, int lastRow) {
+        List<NavigationPosition> movedPositions = new ArrayList<NavigationPosition>();
+        int last = min(lastRow, positionsModel.getRowCount() - 1);
+        for (int i = max(firstRow, 0); i <= last; i++) {
+            NavigationPosition position = positionsModel.getPosition(i);
+            if (position != null)
+                movedPositions.add(position);
+        }
+        synchronized (notificationMutex) {
+            positionReducer.positionsMoved(movedPositions);
+        }
+    }
+
     private void updateRouteButDontRecenter() {
         // repaint route immediately, simulates update(true) without recentering
         synchronized (notificationMutex) {
@@ -840,47 +859,65 @@ public abstract class BaseMapView implements MapView {
             return;
         }
 
+        // transfer the complete track as one encoded polyline which the browser decodes in one pass
         String color = preferences.get("trackLineColor", "0033FF");
         int width = preferences.getInt("trackLineWidth", 2);
-        int maximumPolylineSegmentLength = positionReducer.getMaximumSegmentLength(Track);
-        int polylinesCount = ceiling(positions.size(), maximumPolylineSegmentLength, true);
-        for (int j = 0; j < polylinesCount; j++) {
-            StringBuilder latlngs = new StringBuilder();
-            int maximum = min(positions.size(), (j + 1) * maximumPolylineSegmentLength + 1);
-            for (int i = j * maximumPolylineSegmentLength; i < maximum; i++) {
-                NavigationPosition position = positions.get(i);
-                latlngs.append("new google.maps.LatLng(").append(position.getLatitude()).append(",").
-                        append(position.getLongitude()).append(")");
-                if (i < maximum - 1)
-                    latlngs.append(",");
-            }
-            StringBuilder buffer = new StringBuilder();
-            buffer.append("addPolyline([").append(latlngs).append("], \"#").append(color).append("\",").append(width).append(");");
-            executeScript(buffer.toString());
-        }
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("addEncodedPolyline(\"").append(escapeEncodedPolyline(encodePolyline(positions))).
+                append("\", \"#").append(color).append("\",").append(width).append(");");
+        executeScript(buffer.toString());
         removeOverlays();
         removeDirections();
     }
 
     private void addMarkersToMap(List<NavigationPosition> positions) {
-        int maximumMarkerSegmentLength = positionReducer.getMaximumSegmentLength(Waypoints);
-        int markersCount = ceiling(positions.size(), maximumMarkerSegmentLength, false);
-        for (int j = 0; j < markersCount; j++) {
-            StringBuilder buffer = new StringBuilder();
-            int maximum = min(positions.size(), (j + 1) * maximumMarkerSegmentLength);
-            for (int i = j * maximumMarkerSegmentLength; i < maximum; i++) {
-                NavigationPosition position = positions.get(i);
-                buffer.append("addMarker(").append(position.getLatitude()).append(",").
-                        append(position.getLongitude()).append(",").
-                        append("\"").append(escape(position.getDescription())).append("\",").
-                        append(showWaypointDescription).append(");\n");
-            }
-            executeScript(buffer.toString());
+        // transfer all markers as one encoded polyline and a list of descriptions
+        StringBuilder descriptions = new StringBuilder();
+        for (int i = 0; i < positions.size(); i++) {
+            descriptions.append("\"").append(escape(positions.get(i).getDescription())).append("\"");
+            if (i < positions.size() - 1)
+                descriptions.append(",");
         }
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("addEncodedMarkers(\"").append(escapeEncodedPolyline(encodePolyline(positions))).
+                append("\", [").append(descriptions).append("], ").append(showWaypointDescription).append(");");
+        executeScript(buffer.toString());
         removeOverlays();
         removeDirections();
     }
 
+    private static void encodeValue(long value, StringBuilder buffer) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            buffer.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        buffer.append((char) (shifted + 63));
+    }
+
+    /**
+     * Encodes the positions in the Encoded Polyline Algorithm Format of the Google Maps API
+     * with a precision of five decimal places.
+     */
+    static String encodePolyline(List<NavigationPosition> positions) {
+        StringBuilder buffer = new StringBuilder(positions.size() * 8);
+        long previousLatitude = 0, previousLongitude = 0;
+        for (NavigationPosition position : positions) {
+            long latitude = round(position.getLatitude() * 1e5);
+            long longitude = round(position.getLongitude() * 1e5);
+            encodeValue(latitude - previousLatitude, buffer);
+            encodeValue(longitude - previousLongitude, buffer);
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        return buffer.toString();
+    }
+
+    private String escapeEncodedPolyline(String string) {
+        // the encoding uses the characters from '?' to '~' of which only the backslash needs escaping
+        return string.replace("\\", "\\\\");
+    }
+
     private void setCenterOfMap(List<NavigationPosition> positions, boolean recenter) {
         StringBuilder buffer = new StringBuilder();
 
@@ -1485,6 +1522,7 @@ public abstract class BaseMapView implements MapView {
         boolean complementTime = preferences.getBoolean(COMPLEMENT_TIME_ON_MOVE_PREFERENCE, false);
 
         int minimum = row;
+        List<NavigationPosition> movedPositions = new ArrayList<NavigationPosition>();
         for (int index : selectedPositionIndices) {
             if (index < minimum)
                 minimum = index;
@@ -1503,6 +1541,7 @@ public abstract class BaseMapView implements MapView {
                 positionsModel.edit(index, LONGITUDE_COLUMN_INDEX, longitude,
                         LATITUDE_COLUMN_INDEX, latitude, false, true);
             }
+            movedPositions.add(position);
 
             if (cleanElevation)
                 positionsModel.edit(index, ELEVATION_COLUMN_INDEX, null, -1, null, false, false);
@@ -1519,7 +1558,7 @@ public abstract class BaseMapView implements MapView {
             size = positions.size() - 1;
             haveToRepaintRouteImmediately = true;
             routeUpdateReason = "move position";
-            positionReducer.clear();
+            positionReducer.positionsMoved(movedPositions);
             haveToRepaintSelectionImmediately = true;
             selectionUpdateReason = "move position";
         }
@@ -26,16 +26,19 @@ import slash.navigation.base.RouteCharacteristics;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
+import static java.lang.Boolean.TRUE;
 import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
-import static slash.navigation.base.RouteCalculations.getSignificantPositions;
+import static slash.navigation.base.RouteCalculations.getSignificances;
+import static slash.navigation.base.RouteCalculations.updateSignificances;
 import static slash.navigation.base.RouteCharacteristics.Route;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
 
@@ -73,7 +76,10 @@ class PositionReducer {
 
     private final Callback callback;
     private final Map<Integer, List<NavigationPosition>> reducedPositions = new HashMap<Integer, List<NavigationPosition>>(THRESHOLD_PER_ZOOM.length);
+    private final List<NavigationPosition> movedPositions = new ArrayList<NavigationPosition>();
     private BoundingBox visible;
+    private List<NavigationPosition> rankedPositions;
+    private double[] longitudes, latitudes, significances;
 
     PositionReducer(Callback callback) {
         this.callback = callback;
@@ -126,6 +132,24 @@ class PositionReducer {
     public void clear() {
         reducedPositions.clear();
         visible = null;
+        synchronized (movedPositions) {
+            movedPositions.clear();
+            rankedPositions = null;
+        }
+    }
+
+    /**
+     * Keeps the significance ranks of all positions but the moved ones and their neighbourhood
+     * which are ranked again with the next reduction.
+     *
+     * @param positions the positions whose coordinates changed
+     */
+    public void positionsMoved(List<NavigationPosition> positions) {
+        reducedPositions.clear();
+        visible = null;
+        synchronized (movedPositions) {
+            movedPositions.addAll(positions);
+        }
     }
 
     interface Callback {
@@ -161,7 +185,8 @@ class PositionReducer {
     }
 
     private List<NavigationPosition> reducePositions(List<NavigationPosition> positions, int zoom, RouteCharacteristics characteristics, boolean showWaypointDescription) {
-        List<NavigationPosition> result = filterPositionsWithoutCoordinates(positions);
+        List<NavigationPosition> positionsWithCoordinates = filterPositionsWithoutCoordinates(positions);
+        List<NavigationPosition> result = positionsWithCoordinates;
         int maximumPositionCount = getMaximumPositionCount(characteristics, showWaypointDescription);
 
         // reduce the number of result to those that are visible for tracks and waypoint lists
@@ -174,14 +199,9 @@ class PositionReducer {
             visible = null;
         }
 
-        // reduce the number of result by selecting every Nth to limit significance computation time
-        int maximumSignificantPositionCount = preferences.getInt("maximumSignificantPositionCount", 50000);
-        if (result.size() > maximumSignificantPositionCount)
-            result = filterEveryNthPosition(result, maximumSignificantPositionCount);
-
         // determine significant result for routes and tracks for this zoom level
         if (!characteristics.equals(Waypoints))
-            result = filterSignificantPositions(result, zoom);
+            result = filterSignificantPositions(positionsWithCoordinates, result, zoom);
 
         // reduce the number of result to ensure browser stability
         if (result.size() > maximumPositionCount)
@@ -206,21 +226,87 @@ class PositionReducer {
         return result;
     }
 
-    private List<NavigationPosition> filterSignificantPositions(List<NavigationPosition> positions, int zoom) {
+    private boolean isRanked(List<NavigationPosition> positions) {
+        if (rankedPositions == null || rankedPositions.size() != positions.size())
+            return false;
+        for (int i = 0; i < positions.size(); i++) {
+            if (rankedPositions.get(i) != positions.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    private double[] rankPositions(List<NavigationPosition> positions) {
+        synchronized (movedPositions) {
+            if (isRanked(positions)) {
+                if (movedPositions.size() == 0)
+                    return significances;
+
+                long start = currentTimeMillis();
+                Map<NavigationPosition, Boolean> moved = new IdentityHashMap<NavigationPosition, Boolean>();
+                for (NavigationPosition position : movedPositions)
+                    moved.put(position, TRUE);
+                List<Integer> indices = new ArrayList<Integer>();
+                for (int i = 0; i < positions.size(); i++) {
+                    NavigationPosition position = positions.get(i);
+                    if (moved.containsKey(position)) {
+                        longitudes[i] = position.getLongitude();
+                        latitudes[i] = position.getLatitude();
+                        indices.add(i);
+                    }
+                }
+                for (Integer index : indices)
+                    updateSignificances(longitudes, latitudes, significances, index);
+                movedPositions.clear();
+
+                long end = currentTimeMillis();
+                log.info(format("Ranked significance of %d moved positions in %d milliseconds",
+                        indices.size(), (end - start)));
+                return significances;
+            }
+
+            long start = currentTimeMillis();
+            movedPositions.clear();
+            longitudes = new double[positions.size()];
+            latitudes = new double[positions.size()];
+            for (int i = 0; i < positions.size(); i++) {
+                NavigationPosition position = positions.get(i);
+                longitudes[i] = position.getLongitude();
+                latitudes[i] = position.getLatitude();
+            }
+            significances = getSignificances(longitudes, latitudes);
+            rankedPositions = positions;
+
+            long end = currentTimeMillis();
+            log.info(format("Ranked significance of %d positions in %d milliseconds",
+                    positions.size(), (end - start)));
+            return significances;
+        }
+    }
+
+    private List<NavigationPosition> filterSignificantPositions(List<NavigationPosition> rankPositions,
+                                                                List<NavigationPosition> positions, int zoom) {
         long start = currentTimeMillis();
 
         List<NavigationPosition> result = new ArrayList<NavigationPosition>();
         if (zoom < MAXIMUM_ZOOM_FOR_SIGNIFICANCE_CALCULATION) {
             double threshold = THRESHOLD_PER_ZOOM[zoom];
-            int[] significantPositions = getSignificantPositions(positions, threshold);
-            for (int significantPosition : significantPositions) {
-                result.add(positions.get(significantPosition));
+            double[] significances = rankPositions(rankPositions);
+
+            // the significances are ranked for all positions, the positions might be filtered already
+            Map<NavigationPosition, Boolean> filtered = new IdentityHashMap<NavigationPosition, Boolean>(positions.size());
+            for (NavigationPosition position : positions)
+                filtered.put(position, TRUE);
+            for (int i = 0; i < rankPositions.size(); i++) {
+                NavigationPosition position = rankPositions.get(i);
+                if (significances[i] > threshold && filtered.containsKey(position))
+                    result.add(position);
             }
             log.info(format("Zoom %d smaller than %d: for threshold %f use %d significant positions",
-                    zoom, MAXIMUM_ZOOM_FOR_SIGNIFICANCE_CALCULATION, threshold, significantPositions.length));
+                    zoom, MAXIMUM_ZOOM_FOR_SIGNIFICANCE_CALCULATION, threshold, result.size()));
         } else {
             // on all zoom about MAXIMUM_ZOOM_FOR_SIGNIFICANCE_CALCULATION
-            // use all positions since the calculation is too expensive
+            // use all positions since they are all visible
             result.addAll(positions);
             log.info("Zoom " + zoom + " large: use all " + positions.size() + " positions");
         }
@@ -21,6 +21,8 @@
 package slash.navigation.converter.gui.mapview;
 
 import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.common.SimpleNavigationPosition;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,6 +32,7 @@ import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static slash.common.io.Transfer.ceiling;
+import static slash.navigation.converter.gui.mapview.BaseMapView.encodePolyline;
 
 public class BaseMapViewTest {
     private static final int MAXIMUM_DIRECTIONS_SEGMENT_LENGTH = 4;
@@ -70,4 +73,18 @@ public class BaseMapViewTest {
         assertEquals(asList(1, 2, 0, 3, 4, 5, 6, 3, 7, 7, 8), createIntervals(9));
         assertEquals(asList(1, 2, 0, 3, 4, 5, 6, 3, 7, 8, 7, 9), createIntervals(10));
     }
+
+    @Test
+    public void encodePolylineOfGoogleExample() {
+        List<NavigationPosition> positions = new ArrayList<NavigationPosition>();
+        positions.add(new SimpleNavigationPosition(-120.2, 38.5));
+        positions.add(new SimpleNavigationPosition(-120.95, 40.7));
+        positions.add(new SimpleNavigationPosition(-126.453, 43.252));
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encodePolyline(positions));
+    }
+
+    @Test
+    public void encodePolylineOfNoPositions() {
+        assertEquals("", encodePolyline(new ArrayList<NavigationPosition>()));
+    }
 }
@@ -26,7 +26,6 @@ import slash.navigation.bcr.BcrRoute;
 import slash.navigation.bcr.MTP0607Format;
 import slash.navigation.bcr.MTP0809Format;
 import slash.navigation.common.BoundingBox;
-import slash.navigation.common.NavigationPosition;
 import slash.navigation.copilot.CoPilot6Format;
 import slash.navigation.copilot.CoPilot7Format;
 import slash.navigation.copilot.CoPilot8Format;
@@ -125,11 +124,9 @@ import java.util.Comparator;
 import java.util.List;
 
 import static java.lang.Double.MAX_VALUE;
-import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Arrays.asList;
-import static java.util.Arrays.binarySearch;
 import static slash.common.io.Transfer.toArray;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromCalendar;
@@ -144,14 +141,36 @@ import static slash.navigation.base.RouteCalculations.getSignificantPositions;
 
 public abstract class BaseRoute<P extends BaseNavigationPosition, F extends BaseNavigationFormat> {
     private static final String REVERSE_ROUTE_NAME_POSTFIX = " (rev)";
+    private static final int MINIMUM_POSITION_COUNT_FOR_INDEX = 256;
     private F format;
     private RouteCharacteristics characteristics;
+    private volatile PositionIndex positionIndex;
+    private RouteStatistics statistics;
+    private long statisticsModifications;
 
     protected BaseRoute(F format, RouteCharacteristics characteristics) {
         this.format = format;
         this.characteristics = characteristics;
     }
 
+    /**
+     * Returns a view of the given positions list which counts replacing, inserting and removing
+     * positions so that the distances and elevations maintained for the positions notice changes
+     * to the list that do not change its size. Routes call this for the positions they keep.
+     *
+     * @param positions the positions of the route
+     * @return the positions as a list that counts its modifications
+     */
+    protected static <P extends BaseNavigationPosition> List<P> countModifications(List<P> positions) {
+        if (positions == null || positions instanceof ModificationCounter)
+            return positions;
+        return new ModificationCountingList<P>(positions);
+    }
+
+    private static long getModifications(List<?> positions) {
+        return positions instanceof ModificationCounter ? ((ModificationCounter) positions).getModifications() : 0;
+    }
+
     public F getFormat() {
         return format;
     }
@@ -173,12 +192,100 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
 
     public abstract int getPositionCount();
 
+    /**
+     * Discards the spatial index over the {@link #getPositions() positions} which is
+     * built lazily for {@link #getContainedPositions(BoundingBox)} and
+     * {@link #getClosestPosition(double, double, double)}. Call this after changing
+     * the coordinates of positions or the positions list directly.
+     */
+    public void invalidateIndex() {
+        positionIndex = null;
+    }
+
+    private PositionIndex getPositionIndex() {
+        List<P> positions = getPositions();
+        if (positions.size() < MINIMUM_POSITION_COUNT_FOR_INDEX)
+            return null;
+
+        PositionIndex index = positionIndex;
+        if (index == null || index.getPositionCount() != positions.size()) {
+            index = new PositionIndex(positions);
+            positionIndex = index;
+        }
+        return index;
+    }
+
+    private synchronized RouteStatistics getStatistics() {
+        List<P> positions = getPositions();
+        long modifications = getModifications(positions);
+        if (statistics == null || statistics.getPositionCount() != positions.size() || statisticsModifications != modifications) {
+            statistics = new RouteStatistics(positions);
+            statisticsModifications = modifications;
+        }
+        return statistics;
+    }
+
+    private synchronized void invalidateStatistics() {
+        statistics = null;
+    }
+
+    private synchronized boolean isStatisticsCurrent() {
+        return statistics != null && statisticsModifications == getModifications(getPositions());
+    }
+
+    /**
+     * Updates the distances and elevations maintained for the {@link #getPositions() positions}
+     * after positions have been inserted into the positions list directly or with {@link #add(int, BaseNavigationPosition)}.
+     * The inserted positions have to be the only changes since the distances were last queried,
+     * other changes to the positions list recalculate all distances.
+     *
+     * @param firstIndex the index of the first inserted position
+     * @param lastIndex the index of the last inserted position
+     */
+    public synchronized void positionsInserted(int firstIndex, int lastIndex) {
+        if (statistics == null)
+            return;
+        int positionCount = getPositionCount();
+        if (statistics.getPositionCount() == positionCount)
+            return;
+        if (statistics.getPositionCount() + lastIndex - firstIndex + 1 == positionCount) {
+            statistics.inserted(getPositions(), firstIndex, lastIndex);
+            statisticsModifications = getModifications(getPositions());
+        } else
+            statistics = null;
+    }
+
+    /**
+     * Updates the distances and elevations maintained for the {@link #getPositions() positions}
+     * after the coordinates or elevations of positions have been changed. Positions do not report
+     * such changes themselves, so whoever edits them, like the positions model, calls this; only a
+     * {@link ColumnarPositionList} notices changes to the coordinates and elevations it keeps.
+     * The changed positions have to be the only changes since the distances were last queried,
+     * other changes to the positions list recalculate all distances.
+     *
+     * @param firstIndex the index of the first changed position
+     * @param lastIndex the index of the last changed position
+     */
+    public synchronized void positionsUpdated(int firstIndex, int lastIndex) {
+        if (statistics == null)
+            return;
+        if (statistics.getPositionCount() == getPositionCount()) {
+            statistics.updated(getPositions(), firstIndex, lastIndex);
+            statisticsModifications = getModifications(getPositions());
+        } else
+            statistics = null;
+    }
+
     private void move(int index, int upOrDown) {
         List<P> positions = getPositions();
         P move = positions.get(index);
         P replace = positions.get(index + upOrDown);
+        boolean current = isStatisticsCurrent();
         positions.set(index + upOrDown, move);
         positions.set(index, replace);
+        invalidateIndex();
+        if (current)
+            positionsUpdated(min(index, index + upOrDown), max(index, index + upOrDown));
     }
 
     public void top(int index, int topOffset) {
@@ -209,7 +316,42 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
 
     public P remove(int index) {
         List<P> positions = getPositions();
-        return positions.remove(index);
+        invalidateIndex();
+        boolean current = isStatisticsCurrent();
+        P removed = positions.remove(index);
+        synchronized (this) {
+            if (statistics != null) {
+                if (current && statistics.getPositionCount() == positions.size() + 1) {
+                    statistics.removed(positions, index, index);
+                    statisticsModifications = getModifications(getPositions());
+                } else
+                    statistics = null;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the continuous range of {@link #getPositions() positions} from this route and
+     * updates the distances and elevations maintained for them once for the whole range.
+     *
+     * @param firstIndex the index of the first position to remove
+     * @param lastIndex the index of the last position to remove
+     */
+    public void remove(int firstIndex, int lastIndex) {
+        List<P> positions = getPositions();
+        invalidateIndex();
+        boolean current = isStatisticsCurrent();
+        positions.subList(firstIndex, lastIndex + 1).clear();
+        synchronized (this) {
+            if (statistics != null) {
+                if (current && statistics.getPositionCount() == positions.size() + lastIndex - firstIndex + 1) {
+                    statistics.removed(positions, firstIndex, lastIndex);
+                    statisticsModifications = getModifications(getPositions());
+                } else
+                    statistics = null;
+            }
+        }
     }
 
     /**
@@ -228,6 +370,8 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
                 index++;
             previous = next;
         }
+        invalidateIndex();
+        invalidateStatistics();
     }
 
     public void ensureIncreasingTime() {
@@ -259,6 +403,10 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public int[] getContainedPositions(BoundingBox boundingBox) {
+        PositionIndex index = getPositionIndex();
+        if (index != null)
+            return index.getContainedPositions(boundingBox);
+
         List<Integer> result = new ArrayList<Integer>();
         List<P> positions = getPositions();
         for (int i = 0; i < positions.size(); i++) {
@@ -300,6 +448,10 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public int getClosestPosition(double longitude, double latitude, double threshold) {
+        PositionIndex index = getPositionIndex();
+        if (index != null)
+            return index.getClosestPosition(getPositions(), longitude, latitude, threshold);
+
         int closestIndex = -1;
         double closestDistance = MAX_VALUE;
 
@@ -361,99 +513,24 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public double getDistance(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double distance = previous.calculateDistance(next);
-                if (distance != null)
-                    result += distance;
-            }
-            previous = next;
-        }
-        return result;
+        return getStatistics().getDistance(startIndex, endIndex);
     }
 
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
-        double[] result = new double[endIndex - startIndex + 1];
-        List<P> positions = getPositions();
-        int index = 0;
-        double distance = 0.0;
-        NavigationPosition previous = positions.size() > 0 ? positions.get(0) : null;
-        while (index <= endIndex) {
-            NavigationPosition next = positions.get(index);
-            if (previous != null) {
-                Double delta = previous.calculateDistance(next);
-                if (delta != null)
-                    distance += delta;
-                if (index >= startIndex)
-                    result[index - startIndex] = distance;
-            }
-            index++;
-            previous = next;
-        }
-        return result;
+        return getStatistics().getDistancesFromStart(startIndex, endIndex);
     }
 
     public double[] getDistancesFromStart(int[] indices) {
-        double[] result = new double[indices.length];
-        if (indices.length > 0 && getPositionCount() > 0) {
-            Arrays.sort(indices);
-            int endIndex = min(indices[indices.length - 1], getPositionCount() - 1);
-
-            int index = 0;
-            double distance = 0.0;
-            List<P> positions = getPositions();
-            NavigationPosition previous = positions.get(0);
-            while (index <= endIndex) {
-                NavigationPosition next = positions.get(index);
-                if (previous != null) {
-                    Double delta = previous.calculateDistance(next);
-                    if (delta != null)
-                        distance += delta;
-                    int indexInIndices = binarySearch(indices, index);
-                    if (indexInIndices >= 0)
-                        result[indexInIndices] = distance;
-                }
-                index++;
-                previous = next;
-            }
-        }
-        return result;
+        Arrays.sort(indices);
+        return getStatistics().getDistancesFromStart(indices);
     }
 
     public double getElevationAscend(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double elevation = previous.calculateElevation(next);
-                if (elevation != null && elevation > 0)
-                    result += elevation;
-            }
-            previous = next;
-        }
-        return result;
+        return getStatistics().getElevationAscend(startIndex, endIndex);
     }
 
     public double getElevationDescend(int startIndex, int endIndex) {
-        double result = 0;
-        List<P> positions = getPositions();
-        NavigationPosition previous = null;
-        for (int i = startIndex; i <= endIndex; i++) {
-            NavigationPosition next = positions.get(i);
-            if (previous != null) {
-                Double elevation = previous.calculateElevation(next);
-                if (elevation != null && elevation < 0)
-                    result += abs(elevation);
-            }
-            previous = next;
-        }
-        return result;
+        return getStatistics().getElevationDescend(startIndex, endIndex);
     }
 
     public void sort(Comparator<P> comparator) {
@@ -470,6 +547,8 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         for (int i = 0; i < positions.size(); i++) {
             existing.set(i, positions.get(i));
         }
+        invalidateIndex();
+        invalidateStatistics();
     }
 
     public void revert() {
@@ -0,0 +1,230 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import static slash.navigation.base.RouteComments.parseDescription;
+
+/**
+ * Represents a {@link Wgs84Position} which is a view onto a row of a {@link ColumnarPositionList}.
+ * Detached from a list it keeps its values in its own fields like a {@link Wgs84Position}.
+ *
+ * @author Christian Pesch
+ */
+
+public class ColumnarPosition extends Wgs84Position {
+    private ColumnarPositionList list;
+    private int index;
+
+    public ColumnarPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
+        super(longitude, latitude, elevation, speed, time, description);
+    }
+
+    ColumnarPosition(ColumnarPositionList list, int index) {
+        // the values are in the columns of the list, so the setters of the other constructor are skipped
+        this.list = list;
+        this.index = index;
+    }
+
+    ColumnarPositionList getList() {
+        return list;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void attach(ColumnarPositionList list, int index) {
+        this.list = list;
+        this.index = index;
+    }
+
+    void detach() {
+        if (list == null)
+            return;
+
+        Double longitude = getLongitude();
+        Double latitude = getLatitude();
+        Double elevation = getElevation();
+        Double speed = getSpeed();
+        CompactCalendar time = getTime();
+        String description = getDescription();
+        list = null;
+        super.setLongitude(longitude);
+        super.setLatitude(latitude);
+        super.setElevation(elevation);
+        super.setSpeed(speed);
+        super.setTime(time);
+        this.description = description;
+    }
+
+    public Double getLongitude() {
+        return list != null ? list.getLongitude(index) : super.getLongitude();
+    }
+
+    public void setLongitude(Double longitude) {
+        if (list != null)
+            list.setLongitude(index, longitude);
+        else
+            super.setLongitude(longitude);
+    }
+
+    public Double getLatitude() {
+        return list != null ? list.getLatitude(index) : super.getLatitude();
+    }
+
+    public void setLatitude(Double latitude) {
+        if (list != null)
+            list.setLatitude(index, latitude);
+        else
+            super.setLatitude(latitude);
+    }
+
+    public Double getElevation() {
+        return list != null ? list.getElevation(index) : super.getElevation();
+    }
+
+    public void setElevation(Double elevation) {
+        if (list != null)
+            list.setElevation(index, elevation);
+        else
+            super.setElevation(elevation);
+    }
+
+    public Double getSpeed() {
+        return list != null ? list.getSpeed(index) : super.getSpeed();
+    }
+
+    public void setSpeed(Double speed) {
+        if (list != null)
+            list.setSpeed(index, speed);
+        else
+            super.setSpeed(speed);
+    }
+
+    public CompactCalendar getTime() {
+        return list != null ? list.getTime(index) : super.getTime();
+    }
+
+    public void setTime(CompactCalendar time) {
+        if (list != null)
+            list.setTime(index, time);
+        else
+            super.setTime(time);
+    }
+
+    public boolean hasTime() {
+        return list != null ? list.hasTime(index) : super.hasTime();
+    }
+
+    public String getDescription() {
+        return list != null ? list.getDescription(index) : super.getDescription();
+    }
+
+    public void setDescription(String description) {
+        if (list == null) {
+            super.setDescription(description);
+            return;
+        }
+
+        list.setDescription(index, description);
+        if (description == null)
+            return;
+
+        parseDescription(this, description);
+    }
+
+    public void setHeading(Double heading) {
+        super.setHeading(heading);
+        extended();
+    }
+
+    public void setHdop(Double hdop) {
+        super.setHdop(hdop);
+        extended();
+    }
+
+    public void setVdop(Double vdop) {
+        super.setVdop(vdop);
+        extended();
+    }
+
+    public void setPdop(Double pdop) {
+        super.setPdop(pdop);
+        extended();
+    }
+
+    public void setSatellites(Integer satellites) {
+        super.setSatellites(satellites);
+        extended();
+    }
+
+    private void extended() {
+        // the values without a column are kept in this view which the list must not release
+        if (list != null)
+            list.extended(this);
+    }
+
+    public Wgs84Position asWgs84Position() {
+        return this;
+    }
+
+    private static boolean equal(Object first, Object second) {
+        return first != null ? first.equals(second) : second == null;
+    }
+
+    private static int hashCode(Object object) {
+        return object != null ? object.hashCode() : 0;
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ColumnarPosition that = (ColumnarPosition) o;
+
+        return equal(getDescription(), that.getDescription()) &&
+                equal(getElevation(), that.getElevation()) &&
+                equal(getHeading(), that.getHeading()) &&
+                equal(getLatitude(), that.getLatitude()) &&
+                equal(getLongitude(), that.getLongitude()) &&
+                equal(getTime(), that.getTime()) &&
+                equal(getHdop(), that.getHdop()) &&
+                equal(getPdop(), that.getPdop()) &&
+                equal(getVdop(), that.getVdop()) &&
+                equal(getSatellites(), that.getSatellites());
+    }
+
+    public int hashCode() {
+        int result;
+        result = hashCode(getLongitude());
+        result = 31 * result + hashCode(getLatitude());
+        result = 31 * result + hashCode(getElevation());
+        result = 31 * result + hashCode(getHeading());
+        result = 31 * result + hashCode(getDescription());
+        result = 31 * result + hashCode(getTime());
+        result = 31 * result + hashCode(getHdop());
+        result = 31 * result + hashCode(getPdop());
+        result = 31 * result + hashCode(getVdop());
+        result = 31 * result + hashCode(getSatellites());
+        return result;
+    }
+}
@@ -0,0 +1,355 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static slash.common.type.CompactCalendar.fromMillisAndTimeZone;
+
+/**
+ * A list of {@link Wgs84Position}s which keeps the coordinates, elevation, speed and time
+ * in primitive columns and shares equal descriptions.
+ * <p/>
+ * Descriptions are shared through a small map of the most recently used descriptions, so
+ * repeating descriptions are stored once while unique ones do not accumulate in the map.
+ * <p/>
+ * Positions handed out by the list are {@link ColumnarPosition} views which are created on
+ * access and read and write through to the columns. The list holds its views weakly so that
+ * they are collected once nobody uses them any more, only views with a heading, dilution of
+ * precision or satellites which have no column are held strongly. A missing value is stored as
+ * {@link Double#NaN}, a missing time as a <code>null</code> time zone. Views that are removed
+ * or replaced are detached and keep their values; detached {@link ColumnarPosition}s are
+ * attached again when they are added which keeps the identity of the positions stable for
+ * {@link BaseRoute#order(List)}, {@link BaseRoute#sort} and {@link BaseRoute#revert()}.
+ *
+ * @author Christian Pesch
+ */
+
+public class ColumnarPositionList extends AbstractList<Wgs84Position> implements RandomAccess, ModificationCounter {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAXIMUM_SHARED_STRINGS = 256;
+
+    private double[] longitudes, latitudes, elevations, speeds;
+    private long[] times;
+    private String[] timeZoneIds, descriptions;
+    private Object[] views;
+    private final Map<String, String> strings = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAXIMUM_SHARED_STRINGS;
+        }
+    };
+    private int size;
+    private long modifications;
+
+    public ColumnarPositionList(int capacity) {
+        capacity = max(capacity, 1);
+        longitudes = new double[capacity];
+        latitudes = new double[capacity];
+        elevations = new double[capacity];
+        speeds = new double[capacity];
+        times = new long[capacity];
+        timeZoneIds = new String[capacity];
+        descriptions = new String[capacity];
+        views = new Object[capacity];
+    }
+
+    public ColumnarPositionList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ColumnarPositionList(List<? extends Wgs84Position> positions) {
+        this(positions.size());
+        addAll(positions);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getModifications() {
+        return modifications;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= longitudes.length)
+            return;
+
+        int grown = max(capacity, longitudes.length + (longitudes.length >> 1));
+        longitudes = copyOf(longitudes, grown);
+        latitudes = copyOf(latitudes, grown);
+        elevations = copyOf(elevations, grown);
+        speeds = copyOf(speeds, grown);
+        times = copyOf(times, grown);
+        timeZoneIds = copyOf(timeZoneIds, grown);
+        descriptions = copyOf(descriptions, grown);
+        views = copyOf(views, grown);
+    }
+
+    private void move(int from, int to, int count) {
+        arraycopy(longitudes, from, longitudes, to, count);
+        arraycopy(latitudes, from, latitudes, to, count);
+        arraycopy(elevations, from, elevations, to, count);
+        arraycopy(speeds, from, speeds, to, count);
+        arraycopy(times, from, times, to, count);
+        arraycopy(timeZoneIds, from, timeZoneIds, to, count);
+        arraycopy(descriptions, from, descriptions, to, count);
+        arraycopy(views, from, views, to, count);
+        for (int i = to; i < to + count; i++) {
+            ColumnarPosition view = getView(i);
+            if (view != null)
+                view.attach(this, i);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnarPosition getView(int index) {
+        Object view = views[index];
+        if (view instanceof WeakReference)
+            return ((WeakReference<ColumnarPosition>) view).get();
+        return (ColumnarPosition) view;
+    }
+
+    private static boolean hasExtensions(Wgs84Position position) {
+        return position.getHeading() != null || position.getHdop() != null || position.getVdop() != null ||
+                position.getPdop() != null || position.getSatellites() != null;
+    }
+
+    private void setView(int index, ColumnarPosition view) {
+        views[index] = hasExtensions(view) ? view : new WeakReference<ColumnarPosition>(view);
+    }
+
+    void extended(ColumnarPosition view) {
+        if (getView(view.getIndex()) == view)
+            views[view.getIndex()] = view;
+    }
+
+    private String share(String string) {
+        if (string == null)
+            return null;
+        String shared = strings.get(string);
+        if (shared == null) {
+            strings.put(string, string);
+            shared = string;
+        }
+        return shared;
+    }
+
+    private static double toDouble(Double value) {
+        return value != null ? value : NaN;
+    }
+
+    private static Double toDouble(double value) {
+        return isNaN(value) ? null : value;
+    }
+
+    private void store(int index, Wgs84Position position) {
+        longitudes[index] = toDouble(position.getLongitude());
+        latitudes[index] = toDouble(position.getLatitude());
+        elevations[index] = toDouble(position.getElevation());
+        speeds[index] = toDouble(position.getSpeed());
+        setTime(index, position.getTime());
+        descriptions[index] = share(position.getDescription());
+
+        if (position instanceof ColumnarPosition) {
+            ColumnarPosition view = (ColumnarPosition) position;
+            if (view.getList() == null) {
+                view.attach(this, index);
+                setView(index, view);
+                return;
+            }
+            if (view.getList() == this) {
+                if (getView(view.getIndex()) == view)
+                    views[view.getIndex()] = null;
+                view.attach(this, index);
+                setView(index, view);
+                return;
+            }
+        }
+
+        if (hasExtensions(position)) {
+            ColumnarPosition view = get(index);
+            view.setHeading(position.getHeading());
+            view.setHdop(position.getHdop());
+            view.setVdop(position.getVdop());
+            view.setPdop(position.getPdop());
+            view.setSatellites(position.getSatellites());
+        }
+    }
+
+    public ColumnarPosition get(int index) {
+        checkIndex(index);
+        ColumnarPosition view = getView(index);
+        if (view == null) {
+            view = new ColumnarPosition(this, index);
+            setView(index, view);
+        }
+        return view;
+    }
+
+    public Wgs84Position set(int index, Wgs84Position position) {
+        ColumnarPosition previous = get(index);
+        if (previous == position)
+            return previous;
+
+        previous.detach();
+        views[index] = null;
+        store(index, position);
+        modifications++;
+        return previous;
+    }
+
+    public void add(int index, Wgs84Position position) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        ensureCapacity(size + 1);
+        if (index < size)
+            move(index, index + 1, size - index);
+        views[index] = null;
+        size++;
+        modCount++;
+        store(index, position);
+        modifications++;
+    }
+
+    public Wgs84Position remove(int index) {
+        ColumnarPosition previous = get(index);
+        previous.detach();
+
+        if (index < size - 1)
+            move(index + 1, index, size - index - 1);
+        size--;
+        modCount++;
+        timeZoneIds[size] = null;
+        descriptions[size] = null;
+        views[size] = null;
+        modifications++;
+        return previous;
+    }
+
+    protected void removeRange(int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            ColumnarPosition view = getView(i);
+            if (view != null)
+                view.detach();
+        }
+
+        int count = toIndex - fromIndex;
+        if (toIndex < size)
+            move(toIndex, fromIndex, size - toIndex);
+        for (int i = size - count; i < size; i++) {
+            timeZoneIds[i] = null;
+            descriptions[i] = null;
+            views[i] = null;
+        }
+        size -= count;
+        modCount++;
+        modifications++;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            ColumnarPosition view = getView(i);
+            if (view != null)
+                view.detach();
+            timeZoneIds[i] = null;
+            descriptions[i] = null;
+            views[i] = null;
+        }
+        strings.clear();
+        size = 0;
+        modCount++;
+        modifications++;
+    }
+
+    Double getLongitude(int index) {
+        return toDouble(longitudes[index]);
+    }
+
+    void setLongitude(int index, Double longitude) {
+        longitudes[index] = toDouble(longitude);
+        modifications++;
+    }
+
+    Double getLatitude(int index) {
+        return toDouble(latitudes[index]);
+    }
+
+    void setLatitude(int index, Double latitude) {
+        latitudes[index] = toDouble(latitude);
+        modifications++;
+    }
+
+    Double getElevation(int index) {
+        return toDouble(elevations[index]);
+    }
+
+    void setElevation(int index, Double elevation) {
+        elevations[index] = toDouble(elevation);
+        modifications++;
+    }
+
+    Double getSpeed(int index) {
+        return toDouble(speeds[index]);
+    }
+
+    void setSpeed(int index, Double speed) {
+        speeds[index] = toDouble(speed);
+    }
+
+    boolean hasTime(int index) {
+        return timeZoneIds[index] != null;
+    }
+
+    CompactCalendar getTime(int index) {
+        String timeZoneId = timeZoneIds[index];
+        return timeZoneId != null ? fromMillisAndTimeZone(times[index], timeZoneId) : null;
+    }
+
+    void setTime(int index, CompactCalendar time) {
+        times[index] = time != null ? time.getTimeInMillis() : 0;
+        timeZoneIds[index] = time != null ? time.getTimeZoneId() : null;
+    }
+
+    String getDescription(int index) {
+        return descriptions[index];
+    }
+
+    void setDescription(int index, String description) {
+        descriptions[index] = share(description);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import java.util.List;
+
+/**
+ * Represents a Wgs84 route whose positions are kept in a {@link ColumnarPositionList}.
+ *
+ * @author Christian Pesch
+ */
+
+public class ColumnarRoute extends Wgs84Route {
+    public ColumnarRoute(SimpleFormat format, RouteCharacteristics characteristics, List<Wgs84Position> positions) {
+        super(format, characteristics, positions instanceof ColumnarPositionList ? positions : new ColumnarPositionList(positions));
+    }
+
+    public Wgs84Position createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
+        return new ColumnarPosition(longitude, latitude, elevation, speed, time, description);
+    }
+}
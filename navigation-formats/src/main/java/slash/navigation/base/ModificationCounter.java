@@ -0,0 +1,37 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+/**
+ * Implemented by the positions lists of a {@link BaseRoute} which count the changes to their
+ * positions, so that the values derived from the positions notice changes which do not change
+ * the size of the list.
+ *
+ * @author Christian Pesch
+ */
+
+interface ModificationCounter {
+    /**
+     * Returns the count of the changes to the positions of this list; the values derived from
+     * the positions are current as long as the count does not change.
+     */
+    long getModifications();
+}
@@ -0,0 +1,87 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Passes all operations on to the positions list of a route and counts replacing, inserting
+ * and removing positions so that the values a {@link BaseRoute} derives from its positions
+ * notice such changes, too.
+ *
+ * @author Christian Pesch
+ */
+
+class ModificationCountingList<P> extends AbstractList<P> implements RandomAccess, ModificationCounter {
+    private final List<P> delegate;
+    private long modifications;
+
+    ModificationCountingList(List<P> delegate) {
+        this.delegate = delegate;
+    }
+
+    public long getModifications() {
+        return modifications;
+    }
+
+    public int size() {
+        return delegate.size();
+    }
+
+    public P get(int index) {
+        return delegate.get(index);
+    }
+
+    public P set(int index, P element) {
+        P previous = delegate.set(index, element);
+        modifications++;
+        return previous;
+    }
+
+    public void add(int index, P element) {
+        delegate.add(index, element);
+        modCount++;
+        modifications++;
+    }
+
+    public boolean addAll(int index, Collection<? extends P> elements) {
+        boolean changed = delegate.addAll(index, elements);
+        modCount++;
+        modifications++;
+        return changed;
+    }
+
+    public P remove(int index) {
+        P previous = delegate.remove(index);
+        modCount++;
+        modifications++;
+        return previous;
+    }
+
+    protected void removeRange(int fromIndex, int toIndex) {
+        delegate.subList(fromIndex, toIndex).clear();
+        modCount++;
+        modifications++;
+    }
+}
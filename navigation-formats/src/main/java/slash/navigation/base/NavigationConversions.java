@@ -0,0 +1,864 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.babel.BabelFormat;
+import slash.navigation.bcr.MTP0607Format;
+import slash.navigation.bcr.MTP0809Format;
+import slash.navigation.copilot.CoPilot6Format;
+import slash.navigation.copilot.CoPilot7Format;
+import slash.navigation.copilot.CoPilot8Format;
+import slash.navigation.copilot.CoPilot9Format;
+import slash.navigation.fpl.GarminFlightPlanFormat;
+import slash.navigation.gopal.GoPal3RouteFormat;
+import slash.navigation.gopal.GoPal5RouteFormat;
+import slash.navigation.gopal.GoPalTrackFormat;
+import slash.navigation.gpx.BrokenGpx10Format;
+import slash.navigation.gpx.BrokenGpx11Format;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.itn.TomTom5RouteFormat;
+import slash.navigation.itn.TomTom8RouteFormat;
+import slash.navigation.klicktel.KlickTelRouteFormat;
+import slash.navigation.kml.BrokenKml21Format;
+import slash.navigation.kml.BrokenKml21LittleEndianFormat;
+import slash.navigation.kml.BrokenKml22BetaFormat;
+import slash.navigation.kml.BrokenKml22Format;
+import slash.navigation.kml.BrokenKmz21Format;
+import slash.navigation.kml.BrokenKmz21LittleEndianFormat;
+import slash.navigation.kml.Igo8RouteFormat;
+import slash.navigation.kml.Kml20Format;
+import slash.navigation.kml.Kml21Format;
+import slash.navigation.kml.Kml22BetaFormat;
+import slash.navigation.kml.Kml22Format;
+import slash.navigation.kml.Kmz20Format;
+import slash.navigation.kml.Kmz21Format;
+import slash.navigation.kml.Kmz22BetaFormat;
+import slash.navigation.kml.Kmz22Format;
+import slash.navigation.lmx.NokiaLandmarkExchangeFormat;
+import slash.navigation.mm.MagicMaps2GoFormat;
+import slash.navigation.mm.MagicMapsIktFormat;
+import slash.navigation.mm.MagicMapsPthFormat;
+import slash.navigation.nmea.BrokenNmeaFormat;
+import slash.navigation.nmea.MagellanExploristFormat;
+import slash.navigation.nmea.MagellanRouteFormat;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.nmn.NavigatingPoiWarnerFormat;
+import slash.navigation.nmn.Nmn4Format;
+import slash.navigation.nmn.Nmn5Format;
+import slash.navigation.nmn.Nmn6FavoritesFormat;
+import slash.navigation.nmn.Nmn6Format;
+import slash.navigation.nmn.Nmn7Format;
+import slash.navigation.nmn.NmnRouteFormat;
+import slash.navigation.nmn.NmnUrlFormat;
+import slash.navigation.ovl.OvlFormat;
+import slash.navigation.simple.ApeMapFormat;
+import slash.navigation.simple.BrokenColumbusV900StandardFormat;
+import slash.navigation.simple.BrokenHaicomLoggerFormat;
+import slash.navigation.simple.BrokenNavilinkFormat;
+import slash.navigation.simple.ColumbusV900ProfessionalFormat;
+import slash.navigation.simple.ColumbusV900StandardFormat;
+import slash.navigation.simple.GlopusFormat;
+import slash.navigation.simple.GoRiderGpsFormat;
+import slash.navigation.simple.GpsTunerFormat;
+import slash.navigation.simple.GroundTrackFormat;
+import slash.navigation.simple.HaicomLoggerFormat;
+import slash.navigation.simple.Iblue747Format;
+import slash.navigation.simple.KienzleGpsFormat;
+import slash.navigation.simple.KompassFormat;
+import slash.navigation.simple.NavilinkFormat;
+import slash.navigation.simple.OpelNaviFormat;
+import slash.navigation.simple.QstarzQ1000Format;
+import slash.navigation.simple.Route66Format;
+import slash.navigation.simple.SygicAsciiFormat;
+import slash.navigation.simple.SygicUnicodeFormat;
+import slash.navigation.simple.WebPageFormat;
+import slash.navigation.tcx.Tcx1Format;
+import slash.navigation.tcx.Tcx2Format;
+import slash.navigation.tour.TourFormat;
+import slash.navigation.url.GoogleMapsUrlFormat;
+import slash.navigation.url.MotoPlanerUrlFormat;
+import slash.navigation.viamichelin.ViaMichelinFormat;
+import slash.navigation.wbt.WintecWbt201Tk1Format;
+import slash.navigation.wbt.WintecWbt201Tk2Format;
+import slash.navigation.wbt.WintecWbt202TesFormat;
+import slash.navigation.common.NavigationPosition;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static slash.common.io.Transfer.trim;
+
+/**
+ * Converts {@link BaseRoute}s and {@link BaseNavigationPosition}s into the route and position
+ * types of a {@link NavigationFormat} by calling the {@code asXxxFormat()} and {@code asXxxPosition()}
+ * methods directly instead of looking them up per position.
+ *
+ * @author Christian Pesch
+ */
+
+final class NavigationConversions {
+    interface RouteConversion {
+        BaseRoute convert(BaseRoute route) throws IOException;
+    }
+
+    interface PositionConversion {
+        BaseNavigationPosition convert(NavigationPosition position) throws IOException;
+    }
+
+    private static final Map<Class<? extends NavigationFormat>, RouteConversion> ROUTE_CONVERSIONS = new HashMap<Class<? extends NavigationFormat>, RouteConversion>();
+    private static final Map<Class<? extends NavigationFormat>, PositionConversion> POSITION_CONVERSIONS = new HashMap<Class<? extends NavigationFormat>, PositionConversion>();
+    private static final Map<Class<? extends NavigationFormat>, RouteConversion> REFLECTIVE_ROUTE_CONVERSIONS = new ConcurrentHashMap<Class<? extends NavigationFormat>, RouteConversion>();
+    private static final Map<Class<? extends NavigationFormat>, PositionConversion> REFLECTIVE_POSITION_CONVERSIONS = new ConcurrentHashMap<Class<? extends NavigationFormat>, PositionConversion>();
+
+    private static final PositionConversion NMEA_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNmeaPosition();
+        }
+    };
+    private static final PositionConversion MTPPOSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMTPPosition();
+        }
+    };
+    private static final PositionConversion TOM_TOM_ROUTE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asTomTomRoutePosition();
+        }
+    };
+    private static final PositionConversion KML_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKmlPosition();
+        }
+    };
+    private static final PositionConversion KMZ_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKmzPosition();
+        }
+    };
+    private static final PositionConversion KML_BETA_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKmlBetaPosition();
+        }
+    };
+    private static final PositionConversion KMZ_BETA_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKmzBetaPosition();
+        }
+    };
+    private static final PositionConversion GPX_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGpxPosition();
+        }
+    };
+    private static final PositionConversion NMN_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNmnPosition();
+        }
+    };
+    private static final PositionConversion NMN_FAVORITES_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNmnFavoritesPosition();
+        }
+    };
+    private static final PositionConversion GPS_TUNER_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGpsTunerPosition();
+        }
+    };
+    private static final PositionConversion HAICOM_LOGGER_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asHaicomLoggerPosition();
+        }
+    };
+    private static final PositionConversion CO_PILOT_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asCoPilotPosition();
+        }
+    };
+    private static final PositionConversion ROUTE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asRoutePosition();
+        }
+    };
+    private static final PositionConversion KOMPASS_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKompassPosition();
+        }
+    };
+    private static final PositionConversion GLOPUS_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGlopusPosition();
+        }
+    };
+    private static final PositionConversion COLUMBUS_VPROFESSIONAL_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asColumbusVProfessionalPosition();
+        }
+    };
+    private static final PositionConversion COLUMBUS_VSTANDARD_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asColumbusVStandardPosition();
+        }
+    };
+    private static final PositionConversion QSTARZ_QPOSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asQstarzQPosition();
+        }
+    };
+    private static final PositionConversion IBLUE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asIbluePosition();
+        }
+    };
+    private static final PositionConversion SYGIC_UNICODE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asSygicUnicodePosition();
+        }
+    };
+    private static final PositionConversion MAGIC_MAPS_PTH_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMagicMapsPthPosition();
+        }
+    };
+    private static final PositionConversion GO_PAL_ROUTE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGoPalRoutePosition();
+        }
+    };
+    private static final PositionConversion OVL_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asOvlPosition();
+        }
+    };
+    private static final PositionConversion TOUR_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asTourPosition();
+        }
+    };
+    private static final PositionConversion MAGIC_MAPS_IKT_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMagicMapsIktPosition();
+        }
+    };
+    private static final PositionConversion MAGIC_MAPS_GO_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMagicMapsGoPosition();
+        }
+    };
+    private static final PositionConversion MAGELLAN_EXPLORIST_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMagellanExploristPosition();
+        }
+    };
+    private static final PositionConversion MAGELLAN_ROUTE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMagellanRoutePosition();
+        }
+    };
+    private static final PositionConversion TCX_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asTcxPosition();
+        }
+    };
+    private static final PositionConversion NOKIA_LANDMARK_EXCHANGE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNokiaLandmarkExchangePosition();
+        }
+    };
+    private static final PositionConversion KLICK_TEL_ROUTE_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asKlickTelRoutePosition();
+        }
+    };
+    private static final PositionConversion GARMIN_FLIGHT_PLAN_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGarminFlightPlanPosition();
+        }
+    };
+    private static final PositionConversion WINTEC_WBT_TK_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asWintecWbtTkPosition();
+        }
+    };
+    private static final PositionConversion GO_RIDER_GPS_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGoRiderGpsPosition();
+        }
+    };
+    private static final PositionConversion OPEL_NAVI_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asOpelNaviPosition();
+        }
+    };
+    private static final PositionConversion NAVIGATING_POI_WARNER_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNavigatingPoiWarnerPosition();
+        }
+    };
+    private static final PositionConversion GO_PAL_TRACK_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGoPalTrackPosition();
+        }
+    };
+    private static final PositionConversion WINTEC_WBT_TES_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asWintecWbtTesPosition();
+        }
+    };
+    private static final PositionConversion NMN_URL_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asNmnUrlPosition();
+        }
+    };
+    private static final PositionConversion GOOGLE_MAPS_URL_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asGoogleMapsUrlPosition();
+        }
+    };
+    private static final PositionConversion MOTO_PLANER_URL_POSITION = new PositionConversion() {
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            return asBaseNavigationPosition(position).asMotoPlanerUrlPosition();
+        }
+    };
+
+    static {
+        register(NmeaFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmeaFormat();
+            }
+        }, NMEA_POSITION);
+        register(MTP0809Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMTP0809Format();
+            }
+        }, MTPPOSITION);
+        register(MTP0607Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMTP0607Format();
+            }
+        }, MTPPOSITION);
+        register(TomTom8RouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asTomTom8RouteFormat();
+            }
+        }, TOM_TOM_ROUTE_POSITION);
+        register(TomTom5RouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asTomTom5RouteFormat();
+            }
+        }, TOM_TOM_ROUTE_POSITION);
+        register(Igo8RouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asIgo8RouteFormat();
+            }
+        }, null);
+        register(Kml22Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml22Format();
+            }
+        }, KML_POSITION);
+        register(Kmz22Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz22Format();
+            }
+        }, KMZ_POSITION);
+        register(Kml22BetaFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml22BetaFormat();
+            }
+        }, KML_BETA_POSITION);
+        register(Kmz22BetaFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz22BetaFormat();
+            }
+        }, KMZ_BETA_POSITION);
+        register(Kml21Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml21Format();
+            }
+        }, KML_POSITION);
+        register(Kmz21Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz21Format();
+            }
+        }, KMZ_POSITION);
+        register(Kml20Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml20Format();
+            }
+        }, KML_POSITION);
+        register(Kmz20Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz20Format();
+            }
+        }, KMZ_POSITION);
+        register(Gpx11Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGpx11Format();
+            }
+        }, GPX_POSITION);
+        register(Gpx10Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGpx10Format();
+            }
+        }, GPX_POSITION);
+        register(Nmn7Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmn7Format();
+            }
+        }, NMN_POSITION);
+        register(Nmn6FavoritesFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmn6FavoritesFormat();
+            }
+        }, NMN_FAVORITES_POSITION);
+        register(Nmn6Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmn6Format();
+            }
+        }, NMN_POSITION);
+        register(Nmn5Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmn5Format();
+            }
+        }, NMN_POSITION);
+        register(Nmn4Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmn4Format();
+            }
+        }, NMN_POSITION);
+        register(WebPageFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asWebPageFormat();
+            }
+        }, null);
+        register(GpsTunerFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGpsTunerFormat();
+            }
+        }, GPS_TUNER_POSITION);
+        register(HaicomLoggerFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asHaicomLoggerFormat();
+            }
+        }, HAICOM_LOGGER_POSITION);
+        register(CoPilot7Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asCoPilot7Format();
+            }
+        }, CO_PILOT_POSITION);
+        register(CoPilot9Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asCoPilot9Format();
+            }
+        }, CO_PILOT_POSITION);
+        register(CoPilot8Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asCoPilot8Format();
+            }
+        }, CO_PILOT_POSITION);
+        register(CoPilot6Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asCoPilot6Format();
+            }
+        }, CO_PILOT_POSITION);
+        register(Route66Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asRoute66Format();
+            }
+        }, ROUTE_POSITION);
+        register(KompassFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKompassFormat();
+            }
+        }, KOMPASS_POSITION);
+        register(GlopusFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGlopusFormat();
+            }
+        }, GLOPUS_POSITION);
+        register(ColumbusV900ProfessionalFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asColumbusV900ProfessionalFormat();
+            }
+        }, COLUMBUS_VPROFESSIONAL_POSITION);
+        register(ColumbusV900StandardFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asColumbusV900StandardFormat();
+            }
+        }, COLUMBUS_VSTANDARD_POSITION);
+        register(QstarzQ1000Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asQstarzQ1000Format();
+            }
+        }, QSTARZ_QPOSITION);
+        register(Iblue747Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asIblue747Format();
+            }
+        }, IBLUE_POSITION);
+        register(SygicAsciiFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asSygicAsciiFormat();
+            }
+        }, null);
+        register(SygicUnicodeFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asSygicUnicodeFormat();
+            }
+        }, SYGIC_UNICODE_POSITION);
+        register(MagicMapsPthFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMagicMapsPthFormat();
+            }
+        }, MAGIC_MAPS_PTH_POSITION);
+        register(GoPal5RouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGoPal5RouteFormat();
+            }
+        }, GO_PAL_ROUTE_POSITION);
+        register(GoPal3RouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGoPal3RouteFormat();
+            }
+        }, GO_PAL_ROUTE_POSITION);
+        register(OvlFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asOvlFormat();
+            }
+        }, OVL_POSITION);
+        register(TourFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asTourFormat();
+            }
+        }, TOUR_POSITION);
+        register(ViaMichelinFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asViaMichelinFormat();
+            }
+        }, null);
+        register(MagicMapsIktFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMagicMapsIktFormat();
+            }
+        }, MAGIC_MAPS_IKT_POSITION);
+        register(MagicMaps2GoFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMagicMaps2GoFormat();
+            }
+        }, MAGIC_MAPS_GO_POSITION);
+        register(MagellanExploristFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMagellanExploristFormat();
+            }
+        }, MAGELLAN_EXPLORIST_POSITION);
+        register(MagellanRouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMagellanRouteFormat();
+            }
+        }, MAGELLAN_ROUTE_POSITION);
+        register(Tcx2Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asTcx2Format();
+            }
+        }, TCX_POSITION);
+        register(Tcx1Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asTcx1Format();
+            }
+        }, TCX_POSITION);
+        register(NokiaLandmarkExchangeFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNokiaLandmarkExchangeFormat();
+            }
+        }, NOKIA_LANDMARK_EXCHANGE_POSITION);
+        register(KlickTelRouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKlickTelRouteFormat();
+            }
+        }, KLICK_TEL_ROUTE_POSITION);
+        register(GarminFlightPlanFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGarminFlightPlanFormat();
+            }
+        }, GARMIN_FLIGHT_PLAN_POSITION);
+        register(WintecWbt201Tk1Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asWintecWbt201Tk1Format();
+            }
+        }, WINTEC_WBT_TK_POSITION);
+        register(WintecWbt201Tk2Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asWintecWbt201Tk2Format();
+            }
+        }, WINTEC_WBT_TK_POSITION);
+        register(NavilinkFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNavilinkFormat();
+            }
+        }, null);
+        register(GoRiderGpsFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGoRiderGpsFormat();
+            }
+        }, GO_RIDER_GPS_POSITION);
+        register(KienzleGpsFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKienzleGpsFormat();
+            }
+        }, null);
+        register(GroundTrackFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGroundTrackFormat();
+            }
+        }, null);
+        register(OpelNaviFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asOpelNaviFormat();
+            }
+        }, OPEL_NAVI_POSITION);
+        register(NavigatingPoiWarnerFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNavigatingPoiWarnerFormat();
+            }
+        }, NAVIGATING_POI_WARNER_POSITION);
+        register(NmnRouteFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmnRouteFormat();
+            }
+        }, null);
+        register(ApeMapFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asApeMapFormat();
+            }
+        }, null);
+        register(GoPalTrackFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGoPalTrackFormat();
+            }
+        }, GO_PAL_TRACK_POSITION);
+        register(WintecWbt202TesFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asWintecWbt202TesFormat();
+            }
+        }, WINTEC_WBT_TES_POSITION);
+        register(NmnUrlFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmnUrlFormat();
+            }
+        }, NMN_URL_POSITION);
+        register(GoogleMapsUrlFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGoogleMapsUrlFormat();
+            }
+        }, GOOGLE_MAPS_URL_POSITION);
+        register(MotoPlanerUrlFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asMotoPlanerUrlFormat();
+            }
+        }, MOTO_PLANER_URL_POSITION);
+        register(BrokenColumbusV900StandardFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asColumbusV900StandardFormat();
+            }
+        }, COLUMBUS_VSTANDARD_POSITION);
+        register(BrokenNmeaFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNmeaFormat();
+            }
+        }, NMEA_POSITION);
+        register(BrokenHaicomLoggerFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asHaicomLoggerFormat();
+            }
+        }, HAICOM_LOGGER_POSITION);
+        register(BrokenGpx10Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGpx10Format();
+            }
+        }, GPX_POSITION);
+        register(BrokenGpx11Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asGpx11Format();
+            }
+        }, GPX_POSITION);
+        register(BrokenKml21Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml21Format();
+            }
+        }, KML_POSITION);
+        register(BrokenKml21LittleEndianFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml21Format();
+            }
+        }, KML_POSITION);
+        register(BrokenKmz21Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz21Format();
+            }
+        }, KMZ_POSITION);
+        register(BrokenKmz21LittleEndianFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKmz21Format();
+            }
+        }, KMZ_POSITION);
+        register(BrokenKml22BetaFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml22BetaFormat();
+            }
+        }, KML_BETA_POSITION);
+        register(BrokenKml22Format.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asKml22Format();
+            }
+        }, KML_POSITION);
+        register(BrokenNavilinkFormat.class, new RouteConversion() {
+            public BaseRoute convert(BaseRoute route) {
+                return route.asNavilinkFormat();
+            }
+        }, null);
+    }
+
+    private static void register(Class<? extends NavigationFormat> formatClass,
+                                 RouteConversion routeConversion, PositionConversion positionConversion) {
+        ROUTE_CONVERSIONS.put(formatClass, routeConversion);
+        if (positionConversion != null)
+            POSITION_CONVERSIONS.put(formatClass, positionConversion);
+    }
+
+    private static BaseNavigationPosition asBaseNavigationPosition(NavigationPosition position) throws IOException {
+        if (!(position instanceof BaseNavigationPosition))
+            throw new IOException("Cannot convert " + position);
+        return (BaseNavigationPosition) position;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends NavigationFormat> getConversionClass(NavigationFormat format) {
+        // shortcut to prevent lots of as... methods
+        if (format instanceof BabelFormat)
+            return Gpx10Format.class;
+        Class<? extends NavigationFormat> formatClass = format.getClass();
+        if (trim(formatClass.getSimpleName()) == null && formatClass.getSuperclass() != null)
+            formatClass = (Class<? extends NavigationFormat>) formatClass.getSuperclass();
+        return formatClass;
+    }
+
+    static RouteConversion getRouteConversion(NavigationFormat format) {
+        Class<? extends NavigationFormat> formatClass = getConversionClass(format);
+        RouteConversion conversion = ROUTE_CONVERSIONS.get(formatClass);
+        if (conversion == null) {
+            conversion = REFLECTIVE_ROUTE_CONVERSIONS.get(formatClass);
+            if (conversion == null) {
+                conversion = new ReflectiveRouteConversion("as" + getFormatName(formatClass));
+                REFLECTIVE_ROUTE_CONVERSIONS.put(formatClass, conversion);
+            }
+        }
+        return conversion;
+    }
+
+    static PositionConversion getPositionConversion(NavigationFormat format) {
+        Class<? extends NavigationFormat> formatClass = getConversionClass(format);
+        PositionConversion conversion = POSITION_CONVERSIONS.get(formatClass);
+        if (conversion == null) {
+            conversion = REFLECTIVE_POSITION_CONVERSIONS.get(formatClass);
+            if (conversion == null) {
+                String formatName = getFormatName(formatClass);
+                formatName = formatName.replace("Format", "Position");
+                formatName = removeDigits(formatName);
+                conversion = new ReflectivePositionConversion("as" + formatName);
+                REFLECTIVE_POSITION_CONVERSIONS.put(formatClass, conversion);
+            }
+        }
+        return conversion;
+    }
+
+    private static String getFormatName(Class<? extends NavigationFormat> formatClass) {
+        String formatName = formatClass.getSimpleName();
+        if (formatName.startsWith("Broken"))
+            formatName = formatName.substring(6);
+        formatName = formatName.replaceAll("LittleEndian", "");
+        return formatName;
+    }
+
+    private static String removeDigits(String string) {
+        StringBuilder buffer = new StringBuilder(string);
+        for (int i = 0; i < buffer.length(); i++) {
+            char c = buffer.charAt(i);
+            if (Character.isDigit(c)) {
+                buffer.deleteCharAt(i);
+                i--;
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Fallback for formats that are not registered, i.e. added with {@link NavigationFormats#addFormat}.
+     * The method is looked up per route class and remembered.
+     */
+    static class ReflectiveRouteConversion implements RouteConversion {
+        private final String methodName;
+        private final Map<Class, Method> methods = new ConcurrentHashMap<Class, Method>();
+
+        public ReflectiveRouteConversion(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public BaseRoute convert(BaseRoute route) throws IOException {
+            try {
+                Method method = methods.get(route.getClass());
+                if (method == null) {
+                    method = route.getClass().getMethod(methodName);
+                    methods.put(route.getClass(), method);
+                }
+                return (BaseRoute) method.invoke(route);
+            } catch (Exception e) {
+                throw new IOException("Cannot call " + methodName + "() on " + route, e);
+            }
+        }
+    }
+
+    static class ReflectivePositionConversion implements PositionConversion {
+        private final String methodName;
+        private final Map<Class, Method> methods = new ConcurrentHashMap<Class, Method>();
+
+        public ReflectivePositionConversion(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public BaseNavigationPosition convert(NavigationPosition position) throws IOException {
+            try {
+                Method method = methods.get(position.getClass());
+                if (method == null) {
+                    method = position.getClass().getMethod(methodName);
+                    methods.put(position.getClass(), method);
+                }
+                return (BaseNavigationPosition) method.invoke(position);
+            } catch (Exception e) {
+                throw new IOException("Cannot call " + methodName + "() on " + position, e);
+            }
+        }
+    }
+}
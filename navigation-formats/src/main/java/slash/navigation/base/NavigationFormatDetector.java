@@ -0,0 +1,376 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.bcr.BcrFormat;
+import slash.navigation.fpl.GarminFlightPlanFormat;
+import slash.navigation.gopal.GoPal3RouteFormat;
+import slash.navigation.gopal.GoPal5RouteFormat;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxFormat;
+import slash.navigation.klicktel.KlickTelRouteFormat;
+import slash.navigation.kml.Kml20Format;
+import slash.navigation.kml.Kml21Format;
+import slash.navigation.kml.Kml22BetaFormat;
+import slash.navigation.kml.Kml22Format;
+import slash.navigation.kml.KmlFormat;
+import slash.navigation.kml.KmzFormat;
+import slash.navigation.lmx.NokiaLandmarkExchangeFormat;
+import slash.navigation.mm.MagicMapsIktFormat;
+import slash.navigation.nmea.BaseNmeaFormat;
+import slash.navigation.nmn.Nmn7Format;
+import slash.navigation.ovl.OvlFormat;
+import slash.navigation.tcx.Tcx1Format;
+import slash.navigation.tcx.Tcx2Format;
+import slash.navigation.tour.TourFormat;
+import slash.navigation.viamichelin.ViaMichelinFormat;
+import slash.navigation.wbt.WintecWbt201Format;
+import slash.navigation.zip.ZipFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.min;
+import static java.util.Arrays.asList;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+
+/**
+ * Detects the likely {@link NavigationFormat}s of a byte stream from the signature
+ * of its first bytes: magic bytes, the XML root element, NMEA sentence prefixes
+ * and INI section titles.
+ *
+ * A signature selects a whole family of formats, e.g. all NMEA formats, which is
+ * ranked in front of the other formats. Within the family of an XML root element
+ * the formats for the namespace of the root element come first, e.g. the KML 2.2
+ * formats for <code>http://www.opengis.net/kml/2.2</code>. All groups keep the order
+ * of {@link NavigationFormats}, so that the {@link NavigationFormatParser} tries the
+ * likely formats first but reads a file with the same format as without ranking.
+ *
+ * @author Christian Pesch
+ */
+
+public final class NavigationFormatDetector {
+    static final int DETECTION_BUFFER_SIZE = 4 * 1024;
+
+    private static final byte[] ZIP_SIGNATURE = new byte[]{'P', 'K', 3, 4};
+    private static final String WINTEC_SIGNATURE = "winteclog";
+
+    private static final Map<String, List<Class<? extends NavigationFormat>>> XML_ROOT_ELEMENTS = new HashMap<String, List<Class<? extends NavigationFormat>>>();
+    private static final Map<String, List<Class<? extends NavigationFormat>>> XML_NAMESPACES = new HashMap<String, List<Class<? extends NavigationFormat>>>();
+    private static final Map<String, List<Class<? extends NavigationFormat>>> INI_SECTION_TITLES = new HashMap<String, List<Class<? extends NavigationFormat>>>();
+
+    static {
+        addXmlRootElement("gpx", GpxFormat.class);
+        addXmlRootElement("kml", KmlFormat.class);
+        addXmlRootElement("TrainingCenterDatabase", Tcx1Format.class, Tcx2Format.class);
+        addXmlRootElement("lmx", NokiaLandmarkExchangeFormat.class);
+        addXmlRootElement("flight-plan", GarminFlightPlanFormat.class);
+        addXmlRootElement("kDRoute", KlickTelRouteFormat.class);
+        addXmlRootElement("tour", GoPal3RouteFormat.class);
+        addXmlRootElement("Tour", GoPal5RouteFormat.class);
+        addXmlRootElement("Route", Nmn7Format.class);
+        addXmlRootElement("Root", MagicMapsIktFormat.class);
+        addXmlRootElement("poi_list", ViaMichelinFormat.class);
+
+        addXmlNamespace("http://www.topografix.com/GPX/1/0", Gpx10Format.class);
+        addXmlNamespace("http://www.topografix.com/GPX/1/1", Gpx11Format.class);
+        addXmlNamespace("http://earth.google.com/kml/2.0", Kml20Format.class);
+        addXmlNamespace("http://earth.google.com/kml/2.1", Kml21Format.class);
+        addXmlNamespace("http://earth.google.com/kml/2.2", Kml22BetaFormat.class);
+        addXmlNamespace("http://www.opengis.net/kml/2.2", Kml22Format.class);
+        addXmlNamespace("http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v1", Tcx1Format.class);
+        addXmlNamespace("http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2", Tcx2Format.class);
+
+        addIniSectionTitle("CLIENT", BcrFormat.class);
+        addIniSectionTitle("COORDINATES", BcrFormat.class);
+        addIniSectionTitle("DESCRIPTION", BcrFormat.class);
+        addIniSectionTitle("ROUTE", BcrFormat.class);
+        addIniSectionTitle("Symbol", OvlFormat.class);
+        addIniSectionTitle("Overlay", OvlFormat.class);
+        addIniSectionTitle("MapLage", OvlFormat.class);
+        addIniSectionTitle("TOUR", TourFormat.class);
+        addIniSectionTitle("HOME", TourFormat.class);
+    }
+
+    private NavigationFormatDetector() {
+    }
+
+    private static void addXmlRootElement(String localName, Class<? extends NavigationFormat>... formats) {
+        XML_ROOT_ELEMENTS.put(localName, asList(formats));
+    }
+
+    private static void addXmlNamespace(String namespaceUri, Class<? extends NavigationFormat>... formats) {
+        XML_NAMESPACES.put(namespaceUri, asList(formats));
+    }
+
+    private static void addIniSectionTitle(String title, Class<? extends NavigationFormat>... formats) {
+        INI_SECTION_TITLES.put(title, asList(formats));
+    }
+
+    /**
+     * Reads the first bytes of the given {@link InputStream} and resets it afterwards.
+     * The stream has to be marked with a read limit of at least <code>readBufferSize</code>.
+     */
+    static byte[] readHeader(InputStream source, int readBufferSize) throws IOException {
+        int size = min(DETECTION_BUFFER_SIZE, readBufferSize);
+        if (size <= 0)
+            return new byte[0];
+
+        byte[] buffer = new byte[size];
+        int count = 0;
+        while (count < size) {
+            int read = source.read(buffer, count, size - count);
+            if (read == -1)
+                break;
+            count += read;
+        }
+        source.reset();
+
+        if (count == size)
+            return buffer;
+        byte[] header = new byte[count];
+        System.arraycopy(buffer, 0, header, 0, count);
+        return header;
+    }
+
+    /**
+     * Ranks the formats which match the signature of the given header in front of
+     * the other formats and those which match its XML namespace in front of the
+     * family; the order within all groups is preserved.
+     */
+    public static List<NavigationFormat> rankFormats(byte[] header, List<NavigationFormat> formats) {
+        List<Class<? extends NavigationFormat>> candidates = detectFormats(header);
+        if (candidates.isEmpty())
+            return formats;
+        List<Class<? extends NavigationFormat>> namespaceCandidates = detectNamespaceFormats(header);
+
+        List<NavigationFormat> namespaceMatching = new ArrayList<NavigationFormat>();
+        List<NavigationFormat> matching = new ArrayList<NavigationFormat>();
+        List<NavigationFormat> others = new ArrayList<NavigationFormat>();
+        for (NavigationFormat format : formats) {
+            if (isCandidate(format, candidates)) {
+                if (isCandidate(format, namespaceCandidates))
+                    namespaceMatching.add(format);
+                else
+                    matching.add(format);
+            } else
+                others.add(format);
+        }
+
+        List<NavigationFormat> result = new ArrayList<NavigationFormat>(formats.size());
+        result.addAll(namespaceMatching);
+        result.addAll(matching);
+        result.addAll(others);
+        return result;
+    }
+
+    static boolean isCandidate(NavigationFormat format, List<Class<? extends NavigationFormat>> candidates) {
+        for (Class<? extends NavigationFormat> candidate : candidates) {
+            if (candidate.isInstance(format))
+                return true;
+        }
+        return false;
+    }
+
+    static List<Class<? extends NavigationFormat>> detectFormats(byte[] header) {
+        List<Class<? extends NavigationFormat>> result = new ArrayList<Class<? extends NavigationFormat>>();
+        if (header.length == 0)
+            return result;
+
+        if (startsWith(header, ZIP_SIGNATURE)) {
+            result.add(KmzFormat.class);
+            result.add(ZipFormat.class);
+            return result;
+        }
+
+        String string = decode(header);
+        if (string.toLowerCase().startsWith(WINTEC_SIGNATURE)) {
+            result.add(WintecWbt201Format.class);
+            return result;
+        }
+
+        String[] rootElement = findXmlRootElement(string);
+        if (rootElement != null) {
+            List<Class<? extends NavigationFormat>> byRootElement = XML_ROOT_ELEMENTS.get(rootElement[0]);
+            if (byRootElement != null) {
+                result.addAll(byRootElement);
+                return result;
+            }
+        }
+
+        detectLineSignatures(string, result);
+        return result;
+    }
+
+    static List<Class<? extends NavigationFormat>> detectNamespaceFormats(byte[] header) {
+        String[] rootElement = header.length > 0 && !startsWith(header, ZIP_SIGNATURE) ? findXmlRootElement(decode(header)) : null;
+        List<Class<? extends NavigationFormat>> byNamespace = rootElement != null && rootElement[1] != null ?
+                XML_NAMESPACES.get(rootElement[1]) : null;
+        return byNamespace != null ? byNamespace : new ArrayList<Class<? extends NavigationFormat>>();
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    static String decode(byte[] header) {
+        try {
+            if (header.length >= 3 && (header[0] & 0xff) == 0xef && (header[1] & 0xff) == 0xbb && (header[2] & 0xff) == 0xbf)
+                return new String(header, 3, header.length - 3, UTF8_ENCODING);
+            if (header.length >= 2) {
+                int first = header[0] & 0xff, second = header[1] & 0xff;
+                if (first == 0xff && second == 0xfe)
+                    return new String(header, 2, header.length - 2, "UTF-16LE");
+                if (first == 0xfe && second == 0xff)
+                    return new String(header, 2, header.length - 2, "UTF-16BE");
+                if (first != 0 && second == 0)
+                    return new String(header, 0, header.length, "UTF-16LE");
+                if (first == 0 && second != 0)
+                    return new String(header, 0, header.length, "UTF-16BE");
+            }
+            return new String(header, ISO_LATIN1_ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalArgumentException("Cannot decode header: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the local name and the namespace URI of the first element of the given
+     * XML fragment or <code>null</code> if there is no element.
+     */
+    static String[] findXmlRootElement(String string) {
+        int index = string.indexOf('<');
+        while (index != -1 && index < string.length() - 1) {
+            if (string.startsWith("<?", index))
+                index = skipTo(string, index, "?>");
+            else if (string.startsWith("<!--", index))
+                index = skipTo(string, index, "-->");
+            else if (string.startsWith("<!", index)) {
+                int end = string.indexOf('>', index);
+                int subset = string.indexOf('[', index);
+                index = subset != -1 && subset < end ? skipTo(string, index, "]>") : skipTo(string, index, ">");
+            } else if (Character.isLetter(string.charAt(index + 1)) || string.charAt(index + 1) == '_')
+                return parseStartTag(string, index + 1);
+            else
+                index = string.indexOf('<', index + 1);
+        }
+        return null;
+    }
+
+    private static int skipTo(String string, int index, String end) {
+        int found = string.indexOf(end, index);
+        return found != -1 ? string.indexOf('<', found + end.length()) : -1;
+    }
+
+    private static String[] parseStartTag(String string, int index) {
+        int end = index;
+        while (end < string.length()) {
+            char c = string.charAt(end);
+            if (Character.isWhitespace(c) || c == '/' || c == '>')
+                break;
+            end++;
+        }
+        String qualifiedName = string.substring(index, end);
+        int tagEnd = string.indexOf('>', end);
+        String attributes = string.substring(end, tagEnd != -1 ? tagEnd : string.length());
+
+        int colon = qualifiedName.indexOf(':');
+        String prefix = colon != -1 ? qualifiedName.substring(0, colon) : null;
+        String localName = colon != -1 ? qualifiedName.substring(colon + 1) : qualifiedName;
+        String namespaceUri = findAttributeValue(attributes, prefix != null ? "xmlns:" + prefix : "xmlns");
+        return new String[]{localName, namespaceUri};
+    }
+
+    private static String findAttributeValue(String attributes, String name) {
+        int index = attributes.indexOf(name);
+        while (index != -1) {
+            int position = index + name.length();
+            boolean startsAttribute = index == 0 || Character.isWhitespace(attributes.charAt(index - 1));
+            while (position < attributes.length() && Character.isWhitespace(attributes.charAt(position)))
+                position++;
+            if (startsAttribute && position < attributes.length() && attributes.charAt(position) == '=') {
+                position++;
+                while (position < attributes.length() && Character.isWhitespace(attributes.charAt(position)))
+                    position++;
+                if (position < attributes.length()) {
+                    char quote = attributes.charAt(position);
+                    int end = attributes.indexOf(quote, position + 1);
+                    if ((quote == '"' || quote == '\'') && end != -1)
+                        return attributes.substring(position + 1, end);
+                }
+                return null;
+            }
+            index = attributes.indexOf(name, index + 1);
+        }
+        return null;
+    }
+
+    private static void detectLineSignatures(String string, List<Class<? extends NavigationFormat>> result) {
+        for (String line : string.split("\r\n|\n|\r")) {
+            line = line.trim();
+            if (line.length() == 0)
+                continue;
+
+            if (line.startsWith("$GP") || line.startsWith("$PMGN")) {
+                result.add(BaseNmeaFormat.class);
+                return;
+            }
+
+            int start = line.indexOf('[');
+            int end = line.indexOf(']', start + 1);
+            if (start != -1 && end != -1) {
+                String title = line.substring(start + 1, end).trim();
+                List<Class<? extends NavigationFormat>> formats = INI_SECTION_TITLES.get(title);
+                if (formats == null && title.startsWith("Symbol "))
+                    formats = INI_SECTION_TITLES.get("Symbol");
+                if (formats == null && isDigits(title))
+                    formats = INI_SECTION_TITLES.get("TOUR");
+                if (formats != null) {
+                    result.addAll(formats);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean isDigits(String string) {
+        if (string.length() == 0)
+            return false;
+        for (int i = 0; i < string.length(); i++) {
+            if (!Character.isDigit(string.charAt(i)))
+                return false;
+        }
+        return true;
+    }
+}
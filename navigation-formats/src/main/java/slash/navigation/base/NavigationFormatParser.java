@@ -21,6 +21,7 @@
 package slash.navigation.base;
 
 import slash.common.io.NotClosingUnderlyingInputStream;
+import slash.common.io.ResettableFileInputStream;
 import slash.common.type.CompactCalendar;
 import slash.navigation.babel.BabelFormat;
 import slash.navigation.bcr.BcrFormat;
@@ -35,6 +36,7 @@ import slash.navigation.url.GoogleMapsUrlFormat;
 import slash.navigation.url.MotoPlanerUrlFormat;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -53,12 +55,17 @@ import java.util.logging.Logger;
 import static java.io.File.separatorChar;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static slash.common.io.Files.removeExtension;
+import static slash.common.io.Files.toFile;
 import static slash.common.io.Transfer.ceiling;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromCalendar;
+import static slash.navigation.base.NavigationFormatDetector.rankFormats;
+import static slash.navigation.base.NavigationFormatDetector.readHeader;
 import static slash.navigation.base.NavigationFormats.asFormat;
 import static slash.navigation.base.NavigationFormats.asFormatForRoutes;
 import static slash.navigation.base.NavigationFormats.getReadFormats;
+import static slash.navigation.base.RouteComments.commentPosition;
 import static slash.navigation.base.RouteComments.commentPositions;
 import static slash.navigation.base.RouteComments.commentRouteName;
 import static slash.navigation.base.RouteComments.commentRoutePositions;
@@ -105,7 +112,9 @@ public class NavigationFormatParser {
                               List<NavigationFormat> formats, ParserContext context) throws IOException {
         int routeCountBefore = context.getRoutes().size();
         try {
-            for (NavigationFormat<BaseRoute> format : formats) {
+            List<NavigationFormat> candidates = rankFormats(readHeader(buffer, readBufferSize), formats);
+            for (int i = 0; i < candidates.size(); i++) {
+                NavigationFormat<BaseRoute> format = candidates.get(i);
                 notifyReading(format);
 
                 log.fine(format("Trying to read with %s", format));
@@ -116,6 +125,7 @@ public class NavigationFormatParser {
                 }
 
                 if (context.getRoutes().size() > routeCountBefore) {
+                    log.info(format("Read with %s as candidate %d of %d", format, i + 1, candidates.size()));
                     context.addFormat(format);
                     break;
                 }
@@ -135,11 +145,10 @@ public class NavigationFormatParser {
 
     public ParserResult read(File source, List<NavigationFormat> formats) throws IOException {
         log.info("Reading '" + source.getAbsolutePath() + "' by " + formats.size() + " formats");
-        FileInputStream fis = new FileInputStream(source);
-        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(fis, (int) source.length() + 1));
-        buffer.mark((int) source.length() + 1);
+        // reopens the file for every format instead of buffering it completely
+        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new ResettableFileInputStream(source));
         try {
-            return read(buffer, (int) source.length(), getStartDate(source), formats);
+            return internalRead(buffer, getSize(source), getStartDate(source), formats);
         } finally {
             buffer.closeUnderlyingInputStream();
         }
@@ -225,14 +234,19 @@ public class NavigationFormatParser {
         NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(source, readBufferSize + 1));
         buffer.mark(readBufferSize + 1);
         try {
-            ParserContext<BaseRoute> context = new InternalParserContext<BaseRoute>();
-            internalRead(buffer, readBufferSize, startDate, formats, context);
-            return createResult(context);
+            return internalRead(buffer, readBufferSize, startDate, formats);
         } finally {
             buffer.closeUnderlyingInputStream();
         }
     }
 
+    private ParserResult internalRead(InputStream buffer, int readBufferSize, CompactCalendar startDate,
+                                      List<NavigationFormat> formats) throws IOException {
+        ParserContext<BaseRoute> context = new InternalParserContext<BaseRoute>();
+        internalRead(buffer, readBufferSize, startDate, formats, context);
+        return createResult(context);
+    }
+
     public ParserResult read(String source) throws IOException {
         return read(new ByteArrayInputStream(source.getBytes()));
     }
@@ -241,6 +255,10 @@ public class NavigationFormatParser {
         return read(source, READ_BUFFER_SIZE, null, getReadFormats());
     }
 
+    private int getSize(File file) {
+        return (int) min(file.length(), Integer.MAX_VALUE - 1);
+    }
+
     private int getSize(URL url) throws IOException {
         try {
             if (url.getProtocol().equals("file"))
@@ -288,12 +306,245 @@ public class NavigationFormatParser {
             return read(new ByteArrayInputStream(bytes), bytes.length, null, readFormats);
         }
 
+        File file = toFile(url);
+        if (file != null)
+            return read(file, formats);
+
         int readBufferSize = getSize(url);
         log.info("Reading '" + url + "' with a buffer of " + readBufferSize + " bytes");
         return read(url.openStream(), readBufferSize, getStartDate(url), formats);
     }
 
 
+    private byte[] readPrefix(File source) throws IOException {
+        InputStream inputStream = new FileInputStream(source);
+        try {
+            byte[] buffer = new byte[(int) min(source.length(), READ_BUFFER_SIZE)];
+            int count = 0;
+            while (count < buffer.length) {
+                int read = inputStream.read(buffer, count, buffer.length - count);
+                if (read == -1)
+                    break;
+                count += read;
+            }
+            // cut a truncated last line which would make line based formats fail
+            if (count < source.length()) {
+                int lastLineFeed = count - 1;
+                while (lastLineFeed > 0 && buffer[lastLineFeed] != '\n')
+                    lastLineFeed--;
+                if (lastLineFeed > 0)
+                    count = lastLineFeed + 1;
+            }
+            byte[] result = new byte[count];
+            System.arraycopy(buffer, 0, result, 0, count);
+            return result;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Detects the {@link StreamingNavigationFormat} of a file that is larger than the read buffer
+     * from a prefix of it. Returns <code>null</code> if the file is small enough to be read
+     * completely or if its format cannot be detected from the prefix or does not support streaming,
+     * since then the file has to be read completely anyway.
+     */
+    @SuppressWarnings("unchecked")
+    private NavigationFormat detectStreamingFormat(File source, List<NavigationFormat> formats) throws IOException {
+        if (source.length() <= READ_BUFFER_SIZE)
+            return null;
+
+        byte[] prefix = readPrefix(source);
+        // XML documents cannot be read from a truncated prefix and their lines may look like other formats
+        NavigationFormat format = detectStreamingXmlFormat(prefix, formats);
+        if (format != null)
+            return format;
+
+        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new ByteArrayInputStream(prefix));
+        buffer.mark(prefix.length + 1);
+        ParserContext<BaseRoute> context = new InternalParserContext<BaseRoute>();
+        internalRead(buffer, prefix.length, getStartDate(source), formats, context);
+        List<NavigationFormat<BaseRoute>> detected = context.getFormats();
+        return detected.size() > 0 && isStreamingRead(detected.get(0)) ? detected.get(0) : null;
+    }
+
+    private NavigationFormat detectStreamingXmlFormat(byte[] prefix, List<NavigationFormat> formats) {
+        // count the positions streamed from the truncated prefix
+        for (NavigationFormat format : rankFormats(prefix, formats)) {
+            if (!(format instanceof XmlNavigationFormat && format instanceof StreamingNavigationFormat &&
+                    ((StreamingNavigationFormat) format).isSupportsStreamingRead()))
+                continue;
+
+            final int[] count = new int[1];
+            try {
+                ((StreamingNavigationFormat) format).readPositions(new ByteArrayInputStream(prefix), null, new PositionConsumer() {
+                    public void consume(BaseNavigationPosition position) {
+                        count[0]++;
+                    }
+                });
+            } catch (Exception e) {
+                log.fine(format("Stopped streaming prefix with %s: %s", format, e.getMessage()));
+            }
+
+            if (count[0] > 0) {
+                log.info(format("Detected %s from %d positions of a truncated prefix", format, count[0]));
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isStreamingRead(NavigationFormat format) {
+        return format instanceof StreamingNavigationFormat && ((StreamingNavigationFormat) format).isSupportsStreamingRead();
+    }
+
+    private static boolean isStreamingWrite(NavigationFormat format) {
+        return format instanceof StreamingNavigationFormat && ((StreamingNavigationFormat) format).isSupportsStreamingWrite();
+    }
+
+    private void streamPositions(File source, StreamingNavigationFormat format, PositionConsumer consumer) throws IOException {
+        log.info("Streaming '" + source.getAbsolutePath() + "' with " + format.getName());
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(source), READ_BUFFER_SIZE);
+        try {
+            format.readPositions(inputStream, getStartDate(source), consumer);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Reads the positions of the given file one by one into the given {@link PositionConsumer}.
+     * If the file is larger than the read buffer and the format detected from the beginning of
+     * the file is a {@link StreamingNavigationFormat}, neither the file nor the route is held in
+     * memory. Otherwise the file is read once completely.
+     *
+     * @return the format that read the positions or <code>null</code> if no format could read the file
+     */
+    @SuppressWarnings("unchecked")
+    public NavigationFormat readPositions(File source, List<NavigationFormat> formats, PositionConsumer consumer) throws IOException {
+        NavigationFormat format = detectStreamingFormat(source, formats);
+        if (format != null) {
+            streamPositions(source, (StreamingNavigationFormat) format, consumer);
+            return format;
+        }
+
+        ParserResult result = read(source, formats);
+        if (!result.isSuccessful())
+            return null;
+        for (BaseRoute route : result.getAllRoutes()) {
+            List<BaseNavigationPosition> positions = route.getPositions();
+            for (BaseNavigationPosition position : positions)
+                consumer.consume(position);
+        }
+        return result.getFormat();
+    }
+
+    public NavigationFormat readPositions(File source, PositionConsumer consumer) throws IOException {
+        return readPositions(source, getReadFormats(), consumer);
+    }
+
+    private static boolean isStreamingConvert(NavigationFormat sourceFormat, NavigationFormat targetFormat) {
+        // the route is changed before writing for some formats which needs all of its positions
+        return isStreamingRead(sourceFormat) && isStreamingWrite(targetFormat) &&
+                !isPreprocessRoute(targetFormat) && !isRenameRoute(sourceFormat, targetFormat);
+    }
+
+    /**
+     * Converts the given file into the given format. If the file is larger than the read buffer,
+     * both formats support streaming and the route is not changed before writing, the positions
+     * are passed one by one from the source to the target file. A partially written target is
+     * deleted if the conversion fails.
+     *
+     * @return <code>true</code> if the source could be read and was written to the target
+     */
+    @SuppressWarnings("unchecked")
+    public boolean convert(File source, List<NavigationFormat> formats, NavigationFormat targetFormat, File target) throws IOException {
+        if (convertStreaming(source, formats, targetFormat, target))
+            return true;
+
+        ParserResult result = read(source, formats);
+        if (!result.isSuccessful())
+            return false;
+
+        boolean written = false;
+        try {
+            write(result.getTheRoute(), targetFormat, false, true, null, target);
+            written = true;
+        } finally {
+            if (!written)
+                deletePartialTarget(target);
+        }
+        return true;
+    }
+
+    /**
+     * Converts the given file into the given format by passing the positions of the first route
+     * one by one from the source to the target file if the file is larger than the read buffer,
+     * both formats support streaming and the route is not changed before writing. A partially
+     * written target is deleted if the conversion fails.
+     *
+     * @return <code>true</code> if the source was converted, <code>false</code> if it has to be read completely
+     */
+    public boolean convertStreaming(File source, List<NavigationFormat> formats, NavigationFormat targetFormat, File target) throws IOException {
+        NavigationFormat sourceFormat = detectStreamingFormat(source, formats);
+        if (sourceFormat == null || !isStreamingConvert(sourceFormat, targetFormat))
+            return false;
+
+        boolean converted = false;
+        OutputStream outputStream = null;
+        try {
+            outputStream = new BufferedOutputStream(new FileOutputStream(target), READ_BUFFER_SIZE);
+            streamPositions(source, (StreamingNavigationFormat) sourceFormat, (StreamingNavigationFormat) targetFormat,
+                    removeExtension(source.getName()), outputStream);
+            converted = true;
+        } finally {
+            if (outputStream != null)
+                outputStream.close();
+            if (!converted)
+                deletePartialTarget(target);
+        }
+        log.info("Converted '" + source.getAbsolutePath() + "' from " + sourceFormat.getName() + " to '" + target.getAbsolutePath() + "'");
+        return true;
+    }
+
+    /**
+     * Signals that the positions of the first route have been passed on and stops reading.
+     */
+    private static class FirstRouteConsumed extends IOException {
+    }
+
+    private void streamPositions(File source, StreamingNavigationFormat sourceFormat, final StreamingNavigationFormat targetFormat,
+                                 String name, OutputStream target) throws IOException {
+        final PositionWriter writer = targetFormat.createPositionWriter(name, target);
+        try {
+            // like the first route of a read is written, the positions of further routes are not converted
+            streamPositions(source, sourceFormat, new RoutesConsumer() {
+                private int index = 0, routes = 0;
+
+                public void startRoute(RouteCharacteristics characteristics) throws IOException {
+                    if (routes++ > 0)
+                        throw new FirstRouteConsumed();
+                }
+
+                public void consume(BaseNavigationPosition position) throws IOException {
+                    BaseNavigationPosition converted = asFormat(position, targetFormat);
+                    commentPosition(converted, index++);
+                    writer.consume(converted);
+                }
+            });
+        } catch (FirstRouteConsumed e) {
+            log.fine("Stopped streaming '" + source.getAbsolutePath() + "' after the first route");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void deletePartialTarget(File target) {
+        if (target.exists() && !target.delete())
+            log.warning("Cannot delete partially written '" + target.getAbsolutePath() + "'");
+    }
+
+
     public static int getNumberOfFilesToWriteFor(BaseRoute route, NavigationFormat format, boolean duplicateFirstPosition) {
         return ceiling(route.getPositionCount() + (duplicateFirstPosition ? 1 : 0), format.getMaximumPositionCount(), true);
     }
@@ -349,6 +600,10 @@ public class NavigationFormatParser {
     }
 
 
+    private static boolean isPreprocessRoute(NavigationFormat format) {
+        return format instanceof NmnFormat || format instanceof TcxFormat;
+    }
+
     @SuppressWarnings("unchecked")
     private void preprocessRoute(BaseRoute routeToWrite, NavigationFormat format,
                                  boolean duplicateFirstPosition,
@@ -365,11 +620,15 @@ public class NavigationFormatParser {
             parserCallback.preprocess(routeToWrite, format);
     }
 
+    private static boolean isRenameRoute(NavigationFormat sourceFormat, NavigationFormat targetFormat) {
+        return sourceFormat instanceof TomTomRouteFormat || sourceFormat instanceof SimpleFormat ||
+                sourceFormat instanceof GpxFormat && targetFormat instanceof BcrFormat;
+    }
+
     @SuppressWarnings("unchecked")
     private void renameRoute(BaseRoute route, BaseRoute routeToWrite, int startIndex, int endIndex, int trackIndex, OutputStream... targets) {
         // gives splitted TomTomRoute and SimpleRoute routes a more useful name for the fragment
-        if (route.getFormat() instanceof TomTomRouteFormat || route.getFormat() instanceof SimpleFormat ||
-                route.getFormat() instanceof GpxFormat && routeToWrite.getFormat() instanceof BcrFormat) {
+        if (isRenameRoute(route.getFormat(), routeToWrite.getFormat())) {
             String name = createRouteName(routeToWrite.getPositions().subList(startIndex, endIndex));
             if (targets.length > 1)
                 name = "Track" + (trackIndex + 1) + ": " + name;
@@ -44,6 +44,8 @@ import slash.navigation.babel.OziExplorerTrackFormat;
 import slash.navigation.babel.OziExplorerWaypointFormat;
 import slash.navigation.babel.TomTomPoiFormat;
 import slash.navigation.babel.TourExchangeFormat;
+import slash.navigation.base.NavigationConversions.PositionConversion;
+import slash.navigation.base.NavigationConversions.RouteConversion;
 import slash.navigation.bcr.MTP0607Format;
 import slash.navigation.bcr.MTP0809Format;
 import slash.navigation.common.NavigationPosition;
@@ -128,14 +130,14 @@ import slash.navigation.wbt.WintecWbt202TesFormat;
 import slash.navigation.zip.ZipFormat;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static java.util.Arrays.sort;
-import static slash.common.io.Transfer.trim;
+import static slash.navigation.base.NavigationConversions.getPositionConversion;
+import static slash.navigation.base.NavigationConversions.getRouteConversion;
 
 /**
  * Contains a list of all navigation formats.
@@ -340,72 +342,30 @@ public final class NavigationFormats {
     }
 
 
-    private static String removeDigits(String string) {
-        StringBuilder buffer = new StringBuilder(string);
-        for (int i = 0; i < buffer.length(); i++) {
-            char c = buffer.charAt(i);
-            if (Character.isDigit(c)) {
-                buffer.deleteCharAt(i);
-                i--;
-            }
-        }
-        return buffer.toString();
-    }
-
     /* package local for tests */static BaseNavigationPosition asFormat(NavigationPosition position, NavigationFormat format) throws IOException {
-        BaseNavigationPosition result;
-        String formatName = getFormatName(format);
-        formatName = formatName.replace("Format", "Position");
-        formatName = removeDigits(formatName);
-        try {
-            Method method = position.getClass().getMethod("as" + formatName, new Class[0]);
-            result = (BaseNavigationPosition) method.invoke(position);
-        } catch (Exception e) {
-            throw new IOException("Cannot call as" + formatName + "() on " + position, e);
-        }
-        return result;
+        return getPositionConversion(format).convert(position);
     }
 
     public static List<BaseNavigationPosition> asFormatForPositions(List<NavigationPosition> positions, NavigationFormat format) throws IOException {
+        PositionConversion conversion = getPositionConversion(format);
         List<BaseNavigationPosition> result = new ArrayList<BaseNavigationPosition>(positions.size());
         for (NavigationPosition position : positions) {
-            result.add(asFormat(position, format));
+            result.add(conversion.convert(position));
         }
         return result;
     }
 
     @SuppressWarnings("unchecked")
     public static BaseRoute<BaseNavigationPosition, BaseNavigationFormat> asFormat(BaseRoute route, NavigationFormat format) throws IOException {
-        BaseRoute<BaseNavigationPosition, BaseNavigationFormat> result;
-        String formatName = getFormatName(format);
-        try {
-            Method method = route.getClass().getMethod("as" + formatName, new Class[0]);
-            result = (BaseRoute<BaseNavigationPosition, BaseNavigationFormat>) method.invoke(route);
-        } catch (Exception e) {
-            throw new IOException("Cannot call as" + formatName + "() on " + route, e);
-        }
-        return result;
+        return (BaseRoute<BaseNavigationPosition, BaseNavigationFormat>) getRouteConversion(format).convert(route);
     }
 
     public static List<BaseRoute> asFormatForRoutes(List<BaseRoute> routes, NavigationFormat format) throws IOException {
+        RouteConversion conversion = getRouteConversion(format);
         List<BaseRoute> result = new ArrayList<BaseRoute>(routes.size());
         for (BaseRoute route : routes) {
-            result.add(asFormat(route, format));
+            result.add(conversion.convert(route));
         }
         return result;
     }
-
-    private static String getFormatName(NavigationFormat format) {
-        Class<? extends NavigationFormat> formatClass = format.getClass();
-        String formatName = formatClass.getSimpleName();
-        if (trim(formatName) == null && formatClass.getSuperclass() != null)
-            formatName = formatClass.getSuperclass().getSimpleName();
-        // shortcut to prevent lots of as... methods
-        if (format instanceof BabelFormat)
-            formatName = "Gpx10Format";
-        if (formatName.startsWith("Broken"))
-            formatName = formatName.substring(6);
-        formatName = formatName.replaceAll("LittleEndian", "");
-        return formatName;
-    }
 }
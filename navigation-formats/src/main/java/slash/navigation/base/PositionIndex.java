@@ -0,0 +1,225 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.BoundingBox;
+import slash.navigation.common.NavigationPosition;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.ceil;
+import static java.lang.Math.cos;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
+import static java.lang.System.arraycopy;
+
+/**
+ * A uniform grid over the longitude and latitude of the {@link NavigationPosition}s
+ * of a route to answer bounding box and closest position queries without a linear scan.
+ * The index is a snapshot of the coordinates at construction time.
+ *
+ * @author Christian Pesch
+ */
+
+class PositionIndex {
+    private static final int POSITIONS_PER_CELL = 8;
+    private static final double MINIMUM_METERS_PER_DEGREE_LATITUDE = 110574.0 * 0.99;
+    private static final double MEAN_EARTH_RADIUS = 6371008.8;
+    private static final double EQUIRECTANGULAR_TOLERANCE = 1.1;
+    private static final double EQUIRECTANGULAR_MAXIMUM_DISTANCE = 1000000.0;
+    private static final double EQUIRECTANGULAR_MAXIMUM_DELTA_LONGITUDE = 20.0;
+
+    private final int positionCount;
+    private final double minimumLongitude, minimumLatitude, maximumLongitude, maximumLatitude;
+    private final int columns, rows;
+    private final double cellWidth, cellHeight;
+    private final int[] cellStart;
+    private final int[] indices;
+    private final double[] longitudes, latitudes;
+
+    PositionIndex(List<? extends NavigationPosition> positions) {
+        this.positionCount = positions.size();
+
+        int count = 0;
+        double[] allLongitudes = new double[positionCount];
+        double[] allLatitudes = new double[positionCount];
+        int[] allIndices = new int[positionCount];
+        double minLongitude = Double.MAX_VALUE, minLatitude = Double.MAX_VALUE,
+                maxLongitude = -Double.MAX_VALUE, maxLatitude = -Double.MAX_VALUE;
+        for (int i = 0; i < positionCount; i++) {
+            NavigationPosition position = positions.get(i);
+            if (!position.hasCoordinates())
+                continue;
+            double longitude = position.getLongitude();
+            double latitude = position.getLatitude();
+            allLongitudes[count] = longitude;
+            allLatitudes[count] = latitude;
+            allIndices[count] = i;
+            count++;
+            minLongitude = min(minLongitude, longitude);
+            minLatitude = min(minLatitude, latitude);
+            maxLongitude = max(maxLongitude, longitude);
+            maxLatitude = max(maxLatitude, latitude);
+        }
+        if (count == 0)
+            minLongitude = minLatitude = maxLongitude = maxLatitude = 0.0;
+
+        this.minimumLongitude = minLongitude;
+        this.minimumLatitude = minLatitude;
+        this.maximumLongitude = maxLongitude;
+        this.maximumLatitude = maxLatitude;
+
+        int cellsPerSide = max(1, (int) ceil(sqrt((double) count / POSITIONS_PER_CELL)));
+        this.columns = maxLongitude > minLongitude ? cellsPerSide : 1;
+        this.rows = maxLatitude > minLatitude ? cellsPerSide : 1;
+        this.cellWidth = columns > 1 ? (maxLongitude - minLongitude) / columns : 1.0;
+        this.cellHeight = rows > 1 ? (maxLatitude - minLatitude) / rows : 1.0;
+
+        // counting sort of the positions into their cells keeps the original order within a cell
+        int[] cells = new int[count];
+        this.cellStart = new int[columns * rows + 1];
+        for (int i = 0; i < count; i++) {
+            cells[i] = cellOf(allLongitudes[i], allLatitudes[i]);
+            cellStart[cells[i] + 1]++;
+        }
+        for (int i = 0; i < columns * rows; i++)
+            cellStart[i + 1] += cellStart[i];
+
+        int[] next = new int[columns * rows];
+        arraycopy(cellStart, 0, next, 0, next.length);
+        this.indices = new int[count];
+        this.longitudes = new double[count];
+        this.latitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = next[cells[i]]++;
+            indices[slot] = allIndices[i];
+            longitudes[slot] = allLongitudes[i];
+            latitudes[slot] = allLatitudes[i];
+        }
+    }
+
+    int getPositionCount() {
+        return positionCount;
+    }
+
+    private int column(double longitude) {
+        return max(0, min(columns - 1, (int) ((longitude - minimumLongitude) / cellWidth)));
+    }
+
+    private int row(double latitude) {
+        return max(0, min(rows - 1, (int) ((latitude - minimumLatitude) / cellHeight)));
+    }
+
+    private int cellOf(double longitude, double latitude) {
+        return row(latitude) * columns + column(longitude);
+    }
+
+    int[] getContainedPositions(BoundingBox boundingBox) {
+        double west = boundingBox.getSouthWest().getLongitude();
+        double south = boundingBox.getSouthWest().getLatitude();
+        double east = boundingBox.getNorthEast().getLongitude();
+        double north = boundingBox.getNorthEast().getLatitude();
+        if (indices.length == 0 || east < minimumLongitude || west > maximumLongitude ||
+                north < minimumLatitude || south > maximumLatitude)
+            return new int[0];
+
+        int[] result = new int[indices.length];
+        int count = 0;
+        int fromColumn = column(west), toColumn = column(east);
+        int fromRow = row(south), toRow = row(north);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    double longitude = longitudes[i];
+                    double latitude = latitudes[i];
+                    if (longitude > west && longitude < east && latitude > south && latitude < north)
+                        result[count++] = indices[i];
+                }
+            }
+        }
+        int[] contained = new int[count];
+        arraycopy(result, 0, contained, 0, count);
+        Arrays.sort(contained);
+        return contained;
+    }
+
+    int getClosestPosition(List<? extends NavigationPosition> positions, double longitude, double latitude, double threshold) {
+        if (indices.length == 0)
+            return -1;
+
+        // conservative search window in degrees, widened to all longitudes near the poles or the date line
+        double deltaLatitude = threshold / MINIMUM_METERS_PER_DEGREE_LATITUDE;
+        double maximumAbsoluteLatitude = min(90.0, abs(latitude) + deltaLatitude);
+        double cosine = cos(toRadians(maximumAbsoluteLatitude));
+        double deltaLongitude = cosine > 0.000001 ? deltaLatitude / cosine : Double.MAX_VALUE;
+        boolean allLongitudes = longitude - deltaLongitude < -180.0 || longitude + deltaLongitude > 180.0;
+
+        int fromColumn = allLongitudes ? 0 : column(longitude - deltaLongitude);
+        int toColumn = allLongitudes ? columns - 1 : column(longitude + deltaLongitude);
+        int fromRow = row(latitude - deltaLatitude), toRow = row(latitude + deltaLatitude);
+        if (!allLongitudes && (longitude + deltaLongitude < minimumLongitude || longitude - deltaLongitude > maximumLongitude))
+            return -1;
+        if (latitude + deltaLatitude < minimumLatitude || latitude - deltaLatitude > maximumLatitude)
+            return -1;
+
+        // the equirectangular approximation overestimates long distances at high latitudes
+        boolean equirectangular = !allLongitudes && deltaLongitude <= EQUIRECTANGULAR_MAXIMUM_DELTA_LONGITUDE &&
+                threshold <= EQUIRECTANGULAR_MAXIMUM_DISTANCE;
+        double cosineLatitude = cos(toRadians(latitude));
+        int closestIndex = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    if (equirectangular &&
+                            equirectangularDistance(longitude, latitude, cosineLatitude, longitudes[i], latitudes[i]) >
+                                    threshold * EQUIRECTANGULAR_TOLERANCE)
+                        continue;
+
+                    int index = indices[i];
+                    Double distance = positions.get(index).calculateDistance(longitude, latitude);
+                    if (distance != null && distance < threshold &&
+                            (distance < closestDistance || distance == closestDistance && index < closestIndex)) {
+                        closestDistance = distance;
+                        closestIndex = index;
+                    }
+                }
+            }
+        }
+        return closestIndex;
+    }
+
+    private static double equirectangularDistance(double longitude1, double latitude1, double cosineLatitude1,
+                                                  double longitude2, double latitude2) {
+        double deltaLongitude = abs(longitude2 - longitude1);
+        if (deltaLongitude > 180.0)
+            deltaLongitude = 360.0 - deltaLongitude;
+        double x = toRadians(deltaLongitude) * (cosineLatitude1 + cos(toRadians(latitude2))) / 2;
+        double y = toRadians(latitude2 - latitude1);
+        return MEAN_EARTH_RADIUS * sqrt(x * x + y * y);
+    }
+}
@@ -21,14 +21,30 @@
 package slash.navigation.base;
 
 import slash.common.type.CompactCalendar;
+import slash.navigation.common.Bearing;
 import slash.navigation.common.NavigationPosition;
 
+import java.util.BitSet;
 import java.util.List;
 
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.NaN;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static java.lang.Double.isNaN;
 import static java.lang.Math.abs;
+import static java.lang.Math.asin;
+import static java.lang.Math.cos;
+import static java.lang.Math.min;
+import static java.lang.Math.nextAfter;
+import static java.lang.Math.sin;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
 import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.common.Bearing.EARTH_RADIUS;
+import static slash.navigation.common.Bearing.calculateBearing;
 
 /**
  * Provides {@link NavigationPosition} calculation functionality.
@@ -37,34 +53,257 @@ import static slash.common.type.CompactCalendar.fromMillis;
  */
 
 public class RouteCalculations {
-    private static int[] douglasPeuckerSimplify(List<? extends NavigationPosition> positions, int from, int to, double threshold) {
-        // find the point with the maximum distance
-        NavigationPosition pointA = positions.get(from);
-        NavigationPosition pointB = positions.get(to);
+    private static final double METERS_PER_DEGREE = toRadians(EARTH_RADIUS);
+    private static final double PROJECTION_TOLERANCE = 0.1;
+
+    private static double normalizeLongitude(double deltaLongitude) {
+        if (deltaLongitude > 180.0)
+            return deltaLongitude - 360.0;
+        if (deltaLongitude < -180.0)
+            return deltaLongitude + 360.0;
+        return deltaLongitude;
+    }
+
+    /**
+     * Approximates the distance of a position to the line through A and B in a local
+     * equirectangular projection around A.
+     */
+    private static double projectedOrthogonalDistance(double longitudeA, double latitudeA, double x1, double y1,
+                                                      double length, double cosine,
+                                                      double longitude, double latitude) {
+        double x0 = normalizeLongitude(longitude - longitudeA) * cosine * METERS_PER_DEGREE;
+        double y0 = (latitude - latitudeA) * METERS_PER_DEGREE;
+        if (length == 0.0)
+            return sqrt(x0 * x0 + y0 * y0);
+        return abs(x1 * y0 - y1 * x0) / length;
+    }
+
+    /**
+     * Calculates the distance of a position to the great circle through A and B like
+     * {@link NavigationPosition#calculateOrthogonalDistance(NavigationPosition, NavigationPosition)}.
+     */
+    static double calculateOrthogonalDistance(double longitudeA, double latitudeA, double longitudeB, double latitudeB,
+                                              double longitude, double latitude) {
+        Bearing bearingAD = calculateBearing(longitudeA, latitudeA, longitude, latitude);
+        double courseAtoD = toRadians(bearingAD.getAngle());
+        double courseAtoB = toRadians(calculateBearing(longitudeA, latitudeA, longitudeB, latitudeB).getAngle());
+        return abs(asin(sin(bearingAD.getDistance() / EARTH_RADIUS) * sin(courseAtoD - courseAtoB)) * EARTH_RADIUS);
+    }
+
+    private static boolean hasCoordinates(double[] longitudes, double[] latitudes, int index) {
+        return !isNaN(longitudes[index]) && !isNaN(latitudes[index]);
+    }
+
+    private static int findMostDistantPosition(double[] longitudes, double[] latitudes, int from, int to,
+                                               double[] maximumDistance) {
+        // a segment end without coordinates is trimmed to the nearest position with coordinates
+        // which then splits the segment like an end point
+        if (!hasCoordinates(longitudes, latitudes, from) || !hasCoordinates(longitudes, latitudes, to)) {
+            boolean trimFrom = !hasCoordinates(longitudes, latitudes, from);
+            for (int i = trimFrom ? from + 1 : to - 1; i > from && i < to; i += trimFrom ? 1 : -1) {
+                if (hasCoordinates(longitudes, latitudes, i)) {
+                    maximumDistance[0] = POSITIVE_INFINITY;
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        double longitudeA = longitudes[from], latitudeA = latitudes[from];
+        double longitudeB = longitudes[to], latitudeB = latitudes[to];
+
+        // find the point with the maximum distance in a projection local to the segment
+        double cosine = cos(toRadians((latitudeA + latitudeB) / 2));
+        double x1 = normalizeLongitude(longitudeB - longitudeA) * cosine * METERS_PER_DEGREE;
+        double y1 = (latitudeB - latitudeA) * METERS_PER_DEGREE;
+        double length = sqrt(x1 * x1 + y1 * y1);
         int maximumDistanceIndex = -1;
-        double maximumDistance = 0.0;
+        maximumDistance[0] = 0.0;
         for (int i = from + 1; i < to; i++) {
-            NavigationPosition position = positions.get(i);
-            if (position.hasCoordinates()) {
-                double distance = abs(position.calculateOrthogonalDistance(pointA, pointB));
-                if (distance > maximumDistance) {
-                    maximumDistance = distance;
-                    maximumDistanceIndex = i;
-                }
+            if (!hasCoordinates(longitudes, latitudes, i))
+                continue;
+            double distance = projectedOrthogonalDistance(longitudeA, latitudeA, x1, y1, length, cosine,
+                    longitudes[i], latitudes[i]);
+            if (distance > maximumDistance[0]) {
+                maximumDistance[0] = distance;
+                maximumDistanceIndex = i;
+            }
+        }
+        return maximumDistanceIndex;
+    }
+
+    private static int findSignificantPosition(double[] longitudes, double[] latitudes, int from, int to, double threshold) {
+        double[] maximumDistance = new double[1];
+        int maximumDistanceIndex = findMostDistantPosition(longitudes, latitudes, from, to, maximumDistance);
+        if (maximumDistanceIndex == -1 || maximumDistance[0] <= threshold * (1.0 - PROJECTION_TOLERANCE))
+            return -1;
+        if (maximumDistance[0] > threshold * (1.0 + PROJECTION_TOLERANCE))
+            return maximumDistanceIndex;
+
+        // close to the threshold the projection is not precise enough, use the geodesic distance
+        double distance = calculateOrthogonalDistance(longitudes[from], latitudes[from], longitudes[to], latitudes[to],
+                longitudes[maximumDistanceIndex], latitudes[maximumDistanceIndex]);
+        return distance > threshold ? maximumDistanceIndex : -1;
+    }
+
+    private static void rankSignificances(double[] longitudes, double[] latitudes, double[] significances, int from, int to) {
+        double[] maximumDistance = new double[1];
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = from;
+        stack[top++] = to;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            int index = findMostDistantPosition(longitudes, latitudes, start, end, maximumDistance);
+            if (index == -1)
+                continue;
+
+            // a position is less significant than the ends of the segment it splits which makes
+            // the nearest more significant positions the ends of that segment
+            significances[index] = min(maximumDistance[0],
+                    nextAfter(min(significances[start], significances[end]), NEGATIVE_INFINITY));
+            if (top + 4 > stack.length)
+                stack = copyOf(stack, stack.length * 2);
+            stack[top++] = start;
+            stack[top++] = index;
+            stack[top++] = index;
+            stack[top++] = end;
+        }
+    }
+
+    /**
+     * Ranks the positions by the threshold in meter up to which the Douglas-Peucker-Algorithm
+     * considers them significant. The positions significant for a threshold are those with a
+     * significance greater than the threshold.
+     *
+     * @param longitudes the longitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @param latitudes  the latitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @return the significance of each position in meter, infinite for the first and the last position
+     */
+    public static double[] getSignificances(double[] longitudes, double[] latitudes) {
+        double[] significances = new double[longitudes.length];
+        if (significances.length == 0)
+            return significances;
+
+        significances[0] = POSITIVE_INFINITY;
+        significances[significances.length - 1] = POSITIVE_INFINITY;
+        rankSignificances(longitudes, latitudes, significances, 0, significances.length - 1);
+        return significances;
+    }
+
+    private static double projectedOrthogonalDistance(double[] longitudes, double[] latitudes, int from, int to, int index) {
+        double longitudeA = longitudes[from], latitudeA = latitudes[from];
+        double cosine = cos(toRadians((latitudeA + latitudes[to]) / 2));
+        double x1 = normalizeLongitude(longitudes[to] - longitudeA) * cosine * METERS_PER_DEGREE;
+        double y1 = (latitudes[to] - latitudeA) * METERS_PER_DEGREE;
+        return projectedOrthogonalDistance(longitudeA, latitudeA, x1, y1, sqrt(x1 * x1 + y1 * y1), cosine,
+                longitudes[index], latitudes[index]);
+    }
+
+    private static boolean isMoreDistant(double[] longitudes, double[] latitudes, int from, int to, int split, int index) {
+        if (!hasCoordinates(longitudes, latitudes, index))
+            return false;
+        if (!hasCoordinates(longitudes, latitudes, from) || !hasCoordinates(longitudes, latitudes, to))
+            return true;
+        return projectedOrthogonalDistance(longitudes, latitudes, from, to, index) >
+                projectedOrthogonalDistance(longitudes, latitudes, from, to, split);
+    }
+
+    /**
+     * Ranks the significances of the neighbourhood of a position again after its coordinates
+     * changed. The neighbourhood is the segment between the nearest more significant positions,
+     * widened to every enclosing segment which the position now splits instead of the position
+     * that split it before. The ranks outside of it are kept.
+     *
+     * @param longitudes    the longitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @param latitudes     the latitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @param significances the significances from {@link #getSignificances(double[], double[])}
+     * @param index         the index of the changed position
+     */
+    public static void updateSignificances(double[] longitudes, double[] latitudes, double[] significances, int index) {
+        int last = significances.length - 1;
+        if (index == 0 || index == last) {
+            arraycopy(getSignificances(longitudes, latitudes), 0, significances, 0, significances.length);
+            return;
+        }
+
+        double significance = significances[index];
+        int from = index - 1;
+        while (from > 0 && significances[from] <= significance)
+            from--;
+        int to = index + 1;
+        while (to < last && significances[to] <= significance)
+            to++;
+
+        // walk up the enclosing segments, each one is split by the less significant end of the one below
+        int start = from, end = to;
+        while (start > 0 || end < last) {
+            int split = significances[start] < significances[end] ? start : end;
+            double splitSignificance = significances[split];
+            while (start > 0 && significances[start] <= splitSignificance)
+                start--;
+            while (end < last && significances[end] <= splitSignificance)
+                end++;
+
+            if (isMoreDistant(longitudes, latitudes, start, end, split, index)) {
+                from = start;
+                to = end;
             }
         }
 
-        // if maximum distance is greater than threshold, recursively simplify
-        if ((maximumDistanceIndex != -1) && (maximumDistance > threshold)) {
-            int[] res1 = douglasPeuckerSimplify(positions, from, maximumDistanceIndex, threshold);
-            int[] res2 = douglasPeuckerSimplify(positions, maximumDistanceIndex, to, threshold);
+        for (int i = from + 1; i < to; i++)
+            significances[i] = 0.0;
+        rankSignificances(longitudes, latitudes, significances, from, to);
+    }
 
-            int[] result = new int[res1.length - 1 + res2.length];
-            arraycopy(res1, 0, result, 0, res1.length - 1);
-            arraycopy(res2, 0, result, res1.length - 1, res2.length);
-            return result;
-        } else
-            return new int[]{from, to};
+    /**
+     * Search the significant positions with the Douglas-Peucker-Algorithm.
+     * <p/>
+     * http://de.wikipedia.org/wiki/Douglas-Peucker-Algorithmus
+     *
+     * @param longitudes the longitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @param latitudes  the latitudes of the positions, {@link Double#NaN} for positions without coordinates
+     * @param threshold  determines the threshold for significance in meter
+     * @return an ascending array of indices to the positions with the significant positions
+     */
+    public static int[] getSignificantPositions(double[] longitudes, double[] latitudes, double threshold) {
+        int count = longitudes.length;
+        if (count == 0)
+            return new int[0];
+        else if (count == 1)
+            return new int[]{0};
+
+        BitSet significant = new BitSet(count);
+        significant.set(0);
+        significant.set(count - 1);
+
+        // an explicit stack of segments to simplify instead of one recursion per split
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+        while (top > 0) {
+            int to = stack[--top];
+            int from = stack[--top];
+            int index = findSignificantPosition(longitudes, latitudes, from, to, threshold);
+            if (index == -1)
+                continue;
+
+            significant.set(index);
+            if (top + 4 > stack.length)
+                stack = copyOf(stack, stack.length * 2);
+            stack[top++] = from;
+            stack[top++] = index;
+            stack[top++] = index;
+            stack[top++] = to;
+        }
+
+        int[] result = new int[significant.cardinality()];
+        int index = 0;
+        for (int i = significant.nextSetBit(0); i >= 0; i = significant.nextSetBit(i + 1))
+            result[index++] = i;
+        return result;
     }
 
     /**
@@ -77,12 +316,15 @@ public class RouteCalculations {
      * @return an array of indices to the original list of positions with the significant positions
      */
     public static int[] getSignificantPositions(List<? extends NavigationPosition> positions, double threshold) {
-        if (positions.size() == 0)
-            return new int[0];
-        else if (positions.size() == 1)
-            return new int[]{0};
-        else
-            return douglasPeuckerSimplify(positions, 0, positions.size() - 1, threshold);
+        double[] longitudes = new double[positions.size()];
+        double[] latitudes = new double[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            NavigationPosition position = positions.get(i);
+            boolean hasCoordinates = position.hasCoordinates();
+            longitudes[i] = hasCoordinates ? position.getLongitude() : NaN;
+            latitudes[i] = hasCoordinates ? position.getLatitude() : NaN;
+        }
+        return getSignificantPositions(longitudes, latitudes, threshold);
     }
 
     public static CompactCalendar extrapolateTime(NavigationPosition position, NavigationPosition predecessor, NavigationPosition beforePredecessor) {
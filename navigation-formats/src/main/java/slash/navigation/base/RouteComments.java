@@ -34,6 +34,7 @@ import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static java.lang.Character.isDigit;
 import static slash.common.io.Transfer.formatIntAsString;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.io.Transfer.trim;
@@ -113,14 +114,17 @@ public abstract class RouteComments {
 
     public static void commentPositions(List<? extends NavigationPosition> positions) {
         for (int i = 0; i < positions.size(); i++) {
-            NavigationPosition position = positions.get(i);
-            String original = position.getDescription();
-            String modified = getPositionComment(position, i);
-            if (original == null || !original.equals(modified))
-                position.setDescription(modified);
+            commentPosition(positions.get(i), i);
         }
     }
 
+    public static void commentPosition(NavigationPosition position, int index) {
+        String original = position.getDescription();
+        String modified = getPositionComment(position, index);
+        if (original == null || !original.equals(modified))
+            position.setDescription(modified);
+    }
+
     private static String getPositionComment(NavigationPosition position, int index) {
         if (position.getDescription() == null || "(null)".equals(position.getDescription())) {
             return getPositionComment(index);
@@ -339,9 +343,39 @@ public abstract class RouteComments {
         return !isEmpty(aDouble) ? aDouble : null;
     }
 
+    private static boolean startsWithTripmasterReason(char first) {
+        return first == 'A' || first == 'C' || first == 'D' || first == 'K' || first == 'P' || first == 'R' || first == 'W';
+    }
+
+    private static boolean startsWithStartOrEnd(String comment) {
+        return comment.startsWith("Start") || comment.startsWith("Ende") || comment.startsWith("Finish");
+    }
+
+    private static boolean startsWithLogposDate(String comment) {
+        return comment.length() > 15 && comment.charAt(6) == ' ';
+    }
+
+    private static boolean startsWithTTTracklogTime(String comment) {
+        return comment.length() > 6 && comment.charAt(2) == ':';
+    }
+
     public static void parseDescription(NavigationPosition position, String comment) {
-        Matcher matcher = TRIPMASTER_14_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        if (comment.length() == 0)
+            return;
+
+        // every pattern needs one of these properties; check them before running any pattern
+        char first = comment.charAt(0);
+        boolean startsWithDigit = isDigit(first);
+        boolean startsWithStartOrEnd = startsWithStartOrEnd(comment);
+        boolean containsMeters = comment.indexOf(" m") != -1;
+        boolean containsDegrees = comment.indexOf(" deg") != -1;
+        if (!startsWithDigit && !containsDegrees && !(containsMeters && (startsWithStartOrEnd || startsWithTripmasterReason(first))))
+            return;
+
+        boolean tripmaster = startsWithDigit && containsMeters;
+
+        Matcher matcher = (containsMeters && startsWithTripmasterReason(first)) ? TRIPMASTER_14_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster14Time(matcher.group(2)));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -360,8 +394,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_18_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = (containsMeters && startsWithStartOrEnd) ? TRIPMASTER_18_SHORT_STARTEND_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -381,8 +415,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_18_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_18_SHORT_WAYPOINT_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster14Time(matcher.group(1)));
             position.setElevation(parseDouble(matcher.group(2)));
 
@@ -394,8 +428,8 @@ public abstract class RouteComments {
 
         }
 
-        matcher = TRIPMASTER_25_SHORT_WAYPOINT_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_25_SHORT_WAYPOINT_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(3)));
 
@@ -414,8 +448,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_25_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_25_SHORT_STARTEND_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -429,8 +463,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_31_SHORT_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_31_SHORT_STARTEND_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -444,8 +478,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_MIDDLE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_MIDDLE_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setElevation(parseDouble(matcher.group(4)));
 
@@ -462,8 +496,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_LONG_NO_REASON_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_LONG_NO_REASON_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster14Time(trim(matcher.group(1))));
             position.setSpeed(parseDouble(matcher.group(6)));
             position.setElevation(parseDouble(matcher.group(3)));
@@ -478,8 +512,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TRIPMASTER_LONG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = tripmaster ? TRIPMASTER_LONG_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTripmaster18Date(matcher.group(3)));
             if (!position.hasTime())
                 position.setTime(parseTripmaster14Time(matcher.group(1)));
@@ -499,8 +533,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = LOGPOS_2_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = (startsWithDigit && startsWithLogposDate(comment)) ? LOGPOS_2_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseLogposDate(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
 
@@ -512,8 +546,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = LOGPOS_1_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = (startsWithDigit && startsWithLogposDate(comment)) ? LOGPOS_1_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseLogposDate(matcher.group(1)));
             Double elevation;
             try {
@@ -532,8 +566,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = TTTRACKLOG_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = (startsWithDigit && startsWithTTTracklogTime(comment)) ? TTTRACKLOG_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             position.setTime(parseTTTracklogTime(matcher.group(1)));
             position.setSpeed(parseDouble(matcher.group(5)));
             Double elevation = parseDouble(matcher.group(6));
@@ -546,8 +580,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = ROUTECONVERTER_STARTEND_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = (containsDegrees && startsWithStartOrEnd) ? ROUTECONVERTER_STARTEND_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             String dateStr = trim(matcher.group(4));
             String timeStr = trim(matcher.group(5));
             position.setTime(parseTripmaster18Date(dateStr + " " + timeStr));
@@ -564,8 +598,8 @@ public abstract class RouteComments {
             }
         }
 
-        matcher = ROUTECONVERTER_INTERMEDIATE_PATTERN.matcher(comment);
-        if (matcher.matches()) {
+        matcher = containsDegrees ? ROUTECONVERTER_INTERMEDIATE_PATTERN.matcher(comment) : null;
+        if (matcher != null && matcher.matches()) {
             String timeStr = trim(matcher.group(2));
             position.setTime(parseTripmaster14Time(timeStr));
             position.setElevation(parseDouble(matcher.group(3)));
@@ -0,0 +1,199 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.navigation.common.NavigationPosition;
+
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Maintains the distance and elevation ascend and descend of the segments between
+ * the {@link NavigationPosition}s of a route in Fenwick trees so that sums from the start
+ * are answered and single segments are updated in logarithmic time. Inserting or removing
+ * a range of positions shifts the segments and rebuilds the trees once in linear time.
+ * Segment i is the segment from position i - 1 to position i; segment 0 is always empty.
+ *
+ * @author Christian Pesch
+ */
+
+class RouteStatistics {
+    private final SumTree distances = new SumTree(), ascends = new SumTree(), descends = new SumTree();
+    private int positionCount;
+
+    RouteStatistics(List<? extends NavigationPosition> positions) {
+        this.positionCount = positions.size();
+        allocate(positionCount);
+        for (int i = 1; i < positionCount; i++)
+            calculateSegment(positions, i);
+        rebuild();
+    }
+
+    int getPositionCount() {
+        return positionCount;
+    }
+
+    private void allocate(int count) {
+        distances.values = new double[count];
+        ascends.values = new double[count];
+        descends.values = new double[count];
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= distances.values.length)
+            return;
+
+        int grown = max(count, distances.values.length + (distances.values.length >> 1));
+        distances.values = copyOf(distances.values, grown);
+        ascends.values = copyOf(ascends.values, grown);
+        descends.values = copyOf(descends.values, grown);
+    }
+
+    private void rebuild() {
+        distances.rebuild(positionCount);
+        ascends.rebuild(positionCount);
+        descends.rebuild(positionCount);
+    }
+
+    private void calculateSegment(List<? extends NavigationPosition> positions, int index) {
+        double distance = 0.0, ascend = 0.0, descend = 0.0;
+        if (index > 0) {
+            NavigationPosition previous = positions.get(index - 1);
+            NavigationPosition next = positions.get(index);
+            Double deltaDistance = previous.calculateDistance(next);
+            if (deltaDistance != null)
+                distance = deltaDistance;
+            Double deltaElevation = previous.calculateElevation(next);
+            if (deltaElevation != null) {
+                if (deltaElevation > 0)
+                    ascend = deltaElevation;
+                else
+                    descend = -deltaElevation;
+            }
+        }
+        distances.values[index] = distance;
+        ascends.values[index] = ascend;
+        descends.values[index] = descend;
+    }
+
+    private void updateSegment(List<? extends NavigationPosition> positions, int index) {
+        double distance = distances.values[index], ascend = ascends.values[index], descend = descends.values[index];
+        calculateSegment(positions, index);
+        distances.add(index, distances.values[index] - distance, positionCount);
+        ascends.add(index, ascends.values[index] - ascend, positionCount);
+        descends.add(index, descends.values[index] - descend, positionCount);
+    }
+
+    synchronized void updated(List<? extends NavigationPosition> positions, int firstIndex, int lastIndex) {
+        int from = max(1, firstIndex);
+        int to = min(lastIndex + 1, positionCount - 1);
+        for (int i = from; i <= to; i++)
+            updateSegment(positions, i);
+    }
+
+    synchronized void inserted(List<? extends NavigationPosition> positions, int firstIndex, int lastIndex) {
+        int count = lastIndex - firstIndex + 1;
+        ensureCapacity(positionCount + count);
+        for (double[] values : new double[][]{distances.values, ascends.values, descends.values})
+            arraycopy(values, firstIndex, values, lastIndex + 1, positionCount - firstIndex);
+        positionCount += count;
+
+        int to = min(lastIndex + 1, positionCount - 1);
+        for (int i = firstIndex; i <= to; i++)
+            calculateSegment(positions, i);
+        rebuild();
+    }
+
+    synchronized void removed(List<? extends NavigationPosition> positions, int firstIndex, int lastIndex) {
+        int count = lastIndex - firstIndex + 1;
+        for (double[] values : new double[][]{distances.values, ascends.values, descends.values})
+            arraycopy(values, lastIndex + 1, values, firstIndex, positionCount - lastIndex - 1);
+        positionCount -= count;
+
+        if (firstIndex < positionCount)
+            calculateSegment(positions, firstIndex);
+        rebuild();
+    }
+
+    synchronized double getDistance(int startIndex, int endIndex) {
+        return endIndex > startIndex ? distances.sum(endIndex) - distances.sum(startIndex) : 0.0;
+    }
+
+    synchronized double getElevationAscend(int startIndex, int endIndex) {
+        return endIndex > startIndex ? ascends.sum(endIndex) - ascends.sum(startIndex) : 0.0;
+    }
+
+    synchronized double getElevationDescend(int startIndex, int endIndex) {
+        return endIndex > startIndex ? descends.sum(endIndex) - descends.sum(startIndex) : 0.0;
+    }
+
+    synchronized double[] getDistancesFromStart(int startIndex, int endIndex) {
+        double[] result = new double[max(0, endIndex - startIndex + 1)];
+        if (result.length == 0)
+            return result;
+
+        double distance = distances.sum(startIndex);
+        for (int i = startIndex; i <= endIndex; i++) {
+            if (i > startIndex)
+                distance += distances.values[i];
+            result[i - startIndex] = distance;
+        }
+        return result;
+    }
+
+    synchronized double[] getDistancesFromStart(int[] indices) {
+        double[] result = new double[indices.length];
+        for (int i = 0; i < indices.length; i++)
+            result[i] = indices[i] < positionCount ? distances.sum(indices[i]) : 0.0;
+        return result;
+    }
+
+    private static class SumTree {
+        private double[] values, tree;
+
+        void rebuild(int count) {
+            if (tree == null || tree.length < count)
+                tree = new double[values.length];
+            arraycopy(values, 0, tree, 0, count);
+            for (int i = 0; i < count; i++) {
+                int parent = i | (i + 1);
+                if (parent < count)
+                    tree[parent] += tree[i];
+            }
+        }
+
+        void add(int index, double delta, int count) {
+            for (int i = index; i < count; i |= i + 1)
+                tree[i] += delta;
+        }
+
+        double sum(int index) {
+            double result = 0.0;
+            for (int i = index; i >= 0; i = (i & (i + 1)) - 1)
+                result += tree[i];
+            return result;
+        }
+    }
+}
@@ -23,10 +23,16 @@ import slash.common.type.CompactCalendar;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.prefs.Preferences;
 
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
 import static slash.navigation.base.RouteCharacteristics.Waypoints;
 
 /**
@@ -35,20 +41,43 @@ import static slash.navigation.base.RouteCharacteristics.Waypoints;
  * @author Christian Pesch
  */
 
-public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends SimpleFormat<R> {
+public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends SimpleFormat<R> implements StreamingNavigationFormat<R> {
+    private static final Preferences preferences = Preferences.userNodeForPackage(SimpleLineBasedFormat.class);
 
     public int getMaximumPositionCount() {
         return UNLIMITED_MAXIMUM_POSITION_COUNT;
     }
 
+    /**
+     * Returns whether the positions read are kept in a {@link ColumnarPositionList} of a
+     * {@link ColumnarRoute} instead of a list of {@link Wgs84Position}s. Formats for long logs
+     * whose positions have no values beyond the columns override this; for all other formats
+     * the <code>columnarPositions</code> preference of this package switches it on.
+     */
+    protected boolean isColumnarPositions() {
+        return preferences.getBoolean("columnarPositions", false);
+    }
+
     @SuppressWarnings("unchecked")
     protected R createRoute(RouteCharacteristics characteristics, List<Wgs84Position> positions) {
+        if (isColumnarPositions())
+            return (R)new ColumnarRoute(this, characteristics, positions);
         return (R)new Wgs84Route(this, characteristics, positions);
     }
 
     public void read(BufferedReader reader, CompactCalendar startDate, String encoding, ParserContext<R> context) throws IOException {
-        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        final List<Wgs84Position> positions = isColumnarPositions() ? new ColumnarPositionList() : new ArrayList<Wgs84Position>();
+        boolean valid = read(reader, startDate, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add((Wgs84Position) position);
+            }
+        });
+
+        if (valid && positions.size() > 0)
+            context.appendRoute(createRoute(getRouteCharacteristics(), positions));
+    }
 
+    private boolean read(BufferedReader reader, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
         int lineCount = 0;
         while (true) {
             String line = reader.readLine();
@@ -60,16 +89,37 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
             if (isValidLine(line)) {
                 if (isPosition(line)) {
                     Wgs84Position position = parsePosition(line, startDate);
-                    positions.add(position);
+                    consumer.consume(position);
                 }
             } else {
                 if (lineCount++ > getGarbleCount())
-                    return;
+                    return false;
             }
         }
+        return true;
+    }
 
-        if (positions.size() > 0)
-            context.appendRoute(createRoute(getRouteCharacteristics(), positions));
+    public boolean isSupportsStreamingRead() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return isSupportsWriting() && getMaximumPositionCount() == UNLIMITED_MAXIMUM_POSITION_COUNT;
+    }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        readPositions(source, startDate, ISO_LATIN1_ENCODING, consumer);
+    }
+
+    protected void readPositions(InputStream source, CompactCalendar startDate, String encoding, PositionConsumer consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, encoding));
+        try {
+            if (!read(reader, startDate, consumer))
+                throw new IOException("Stopped reading " + getName() + " at an invalid line");
+        }
+        finally {
+            reader.close();
+        }
     }
 
     protected int getGarbleCount() {
@@ -98,6 +148,29 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
         writeFooter(writer, endIndex - startIndex);
     }
 
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        return createPositionWriter(name, target, ISO_LATIN1_ENCODING);
+    }
+
+    protected PositionWriter createPositionWriter(String name, OutputStream target, String encoding) throws IOException {
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(target, encoding));
+        writeHeader(writer, createRoute(getRouteCharacteristics(), name, new ArrayList<Wgs84Position>()));
+        return new PositionWriter() {
+            private int index = 0;
+
+            public void consume(BaseNavigationPosition position) {
+                writePosition((Wgs84Position) position, writer, index, index == 0);
+                index++;
+            }
+
+            public void close() {
+                writeFooter(writer, index);
+                writer.flush();
+                writer.close();
+            }
+        };
+    }
+
     protected void writeHeader(PrintWriter writer, R route) {
     }
 
@@ -66,7 +66,7 @@ public abstract class SimpleRoute<P extends BaseNavigationPosition, F extends Ba
     public SimpleRoute(F format, RouteCharacteristics characteristics, String name, List<P> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public String getName() {
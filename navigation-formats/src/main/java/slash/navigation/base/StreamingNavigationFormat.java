@@ -0,0 +1,42 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A navigation format which reads and writes the positions of a single route
+ * incrementally without holding the source or the route in memory.
+ *
+ * @author Christian Pesch
+ */
+
+public interface StreamingNavigationFormat<R extends BaseRoute> extends NavigationFormat<R> {
+    boolean isSupportsStreamingRead();
+    boolean isSupportsStreamingWrite();
+
+    void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException;
+    PositionWriter createPositionWriter(String name, OutputStream target) throws IOException;
+}
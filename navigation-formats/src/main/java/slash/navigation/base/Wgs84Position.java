@@ -56,6 +56,13 @@ public class Wgs84Position extends BaseNavigationPosition {
         this.origin = origin;
     }
 
+    /**
+     * Creates a position without values for subclasses which keep them elsewhere; in
+     * contrast to the other constructors no setter is called.
+     */
+    protected Wgs84Position() {
+    }
+
     public Double getLongitude() {
         return longitude;
     }
@@ -74,7 +74,7 @@ public class BcrRoute extends BaseRoute<BcrPosition, BcrFormat> {
     public BcrRoute(BcrFormat format, List<BcrSection> sections, List<BcrPosition> positions) {
         super(format, Route);
         this.sections = sections;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public BcrRoute(BcrFormat format, String name, List<String> description, List<BcrPosition> positions) {
@@ -71,7 +71,7 @@ public class GarminFlightPlanRoute extends BaseRoute<GarminFlightPlanPosition, G
         super(new GarminFlightPlanFormat(), Track);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public String getName() {
@@ -71,7 +71,7 @@ public class GoPalRoute extends BaseRoute<GoPalPosition, GoPalRouteFormat> {
     public GoPalRoute(GoPalRouteFormat format, String name, Object options, List<GoPalPosition> positions) {
         super(format, Route);
         this.options = options;
-        this.positions = positions;
+        this.positions = countModifications(positions);
         setName(name);
     }
 
@@ -50,6 +50,7 @@ import static slash.navigation.common.NavigationConversion.formatSpeedAsString;
 import static slash.common.io.Transfer.formatTime;
 import static slash.common.io.Transfer.parseTime;
 import static slash.navigation.common.UnitConversion.kmhToMs;
+import static slash.navigation.gpx.GpxUtil.GPX_10_NAMESPACE_URI;
 import static slash.navigation.gpx.GpxUtil.marshal10;
 import static slash.navigation.gpx.GpxUtil.unmarshal10;
 
@@ -76,13 +77,29 @@ public class Gpx10Format extends GpxFormat {
         return "GPS Exchange Format " + VERSION + " (*" + getExtension() + ")";
     }
 
+    String getVersion() {
+        return VERSION;
+    }
+
+    String getNamespaceUri() {
+        return GPX_10_NAMESPACE_URI;
+    }
+
+    boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(String creator) {
+        return creator != null &&
+                ("Mobile Action http://www.mobileaction.com/".equals(creator) ||
+                 "Holux Utility".equals(creator));
+    }
+
+    boolean isSplitNameAndDesc() {
+        return splitNameAndDesc;
+    }
+
     void process(Gpx gpx, ParserContext<GpxRoute> context) {
         if (gpx == null || !VERSION.equals(gpx.getVersion()))
             return;
 
-        boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond = gpx.getCreator() != null &&
-                ("Mobile Action http://www.mobileaction.com/".equals(gpx.getCreator()) ||
-                 "Holux Utility".equals(gpx.getCreator()));
+        boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond = hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(gpx.getCreator());
         GpxRoute wayPointsAsRoute = extractWayPoints(gpx, hasSpeedInKilometerPerHourInsteadOfMeterPerSecond);
         if (wayPointsAsRoute != null)
             context.appendRoute(wayPointsAsRoute);
@@ -58,6 +58,7 @@ import static slash.navigation.common.NavigationConversion.formatSpeed;
 import static slash.navigation.common.NavigationConversion.formatSpeedAsString;
 import static slash.common.io.Transfer.formatTime;
 import static slash.common.io.Transfer.parseTime;
+import static slash.navigation.gpx.GpxUtil.GPX_11_NAMESPACE_URI;
 import static slash.navigation.gpx.GpxUtil.marshal11;
 import static slash.navigation.gpx.GpxUtil.unmarshal11;
 
@@ -74,12 +75,23 @@ public class Gpx11Format extends GpxFormat {
         return "GPS Exchange Format " + VERSION + " (*" + getExtension() + ")";
     }
 
+    String getVersion() {
+        return VERSION;
+    }
+
+    String getNamespaceUri() {
+        return GPX_11_NAMESPACE_URI;
+    }
+
+    boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(String creator) {
+        return creator != null && "Whatever".equals(creator);
+    }
+
     void process(GpxType gpxType,ParserContext<GpxRoute> context) {
         if (gpxType == null || !VERSION.equals(gpxType.getVersion()))
             return;
 
-        boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond = gpxType.getCreator() != null &&
-                ("Whatever".equals(gpxType.getCreator()));
+        boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond = hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(gpxType.getCreator());
         GpxRoute wayPointsAsRoute = extractWayPoints(gpxType, hasSpeedInKilometerPerHourInsteadOfMeterPerSecond);
         if (wayPointsAsRoute != null)
             context.appendRoute(wayPointsAsRoute);
@@ -20,17 +20,25 @@
 
 package slash.navigation.gpx;
 
+import slash.common.type.CompactCalendar;
 import slash.navigation.base.MultipleRoutesFormat;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
+import slash.navigation.base.StreamingNavigationFormat;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.XmlNavigationFormat;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.prefs.Preferences;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static slash.common.io.Transfer.parseDouble;
+import static slash.common.io.Transfer.trim;
 import static slash.navigation.common.UnitConversion.kmhToMs;
 import static slash.navigation.common.UnitConversion.msToKmh;
 
@@ -40,7 +48,7 @@ import static slash.navigation.common.UnitConversion.msToKmh;
  * @author Christian Pesch
  */
 
-public abstract class GpxFormat extends XmlNavigationFormat<GpxRoute> implements MultipleRoutesFormat<GpxRoute> {
+public abstract class GpxFormat extends XmlNavigationFormat<GpxRoute> implements MultipleRoutesFormat<GpxRoute>, StreamingNavigationFormat<GpxRoute> {
     private static final Preferences preferences = Preferences.userNodeForPackage(GpxFormat.class);
     static final Pattern TRIPMASTER_REASON_PATTERN = Pattern.compile("(Punkt|Richtung \\d+|Abstand \\d+|Dur. \\d+:\\d+:\\d+|Course \\d+|Dist. \\d+) (-|:) (.+)");
     private static final Pattern TRIPMASTER_SPEED_PATTERN = Pattern.compile("[^-\\d\\.]*([-\\d\\.]+)\\s*(K|k)m/h.*");
@@ -59,6 +67,30 @@ public abstract class GpxFormat extends XmlNavigationFormat<GpxRoute> implements
         return true; 
     }
 
+    abstract String getVersion();
+    abstract String getNamespaceUri();
+    abstract boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(String creator);
+
+    boolean isSplitNameAndDesc() {
+        return true;
+    }
+
+    public boolean isSupportsStreamingRead() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return isSupportsWriting();
+    }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        new GpxStreamReader(this).read(source, consumer);
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        return new GpxStreamWriter(this, GENERATED_BY, isWriteName() ? asRouteName(name) : null, target);
+    }
+
     @SuppressWarnings({"unchecked"})
     public <P extends NavigationPosition> GpxRoute createRoute(RouteCharacteristics characteristics, String name, List<P> positions) {
         return new GpxRoute(this, characteristics, name, null, (List<GpxPosition>) positions);
@@ -80,6 +112,18 @@ public abstract class GpxFormat extends XmlNavigationFormat<GpxRoute> implements
         return asDescription(name, description);
     }
 
+    String asPositionDescription(String name, String description) {
+        return asDescription(name, description);
+    }
+
+    String asPositionName(String description) {
+        return isSplitNameAndDesc() ? asName(description) : trim(description);
+    }
+
+    String asPositionDesc(String description) {
+        return isSplitNameAndDesc() ? asDesc(description, null) : null;
+    }
+
     protected Double parseSpeed(String description) {
         if (description != null) {
             Matcher tripMasterMatcher = TRIPMASTER_SPEED_PATTERN.matcher(description);
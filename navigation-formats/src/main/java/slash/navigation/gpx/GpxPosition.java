@@ -70,6 +70,10 @@ public class GpxPosition extends Wgs84Position {
         setSatellites(formatInt(satellites));
     }
 
+    private static boolean hasReasonSeparator(String description) {
+        return description.indexOf(" - ") != -1 || description.indexOf(" : ") != -1;
+    }
+
     public void setDescription(String description) {
         this.description = description;
         this.reason = null;
@@ -79,8 +83,8 @@ public class GpxPosition extends Wgs84Position {
         parseDescription(this, description);
 
         // TODO move this logic up
-        Matcher matcher = TRIPMASTER_REASON_PATTERN.matcher(this.description);
-        if (matcher.matches()) {
+        Matcher matcher = hasReasonSeparator(this.description) ? TRIPMASTER_REASON_PATTERN.matcher(this.description) : null;
+        if (matcher != null && matcher.matches()) {
             this.reason = trim(matcher.group(1));
             this.description = trim(matcher.group(3));
 
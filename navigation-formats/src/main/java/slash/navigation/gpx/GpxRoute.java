@@ -72,7 +72,7 @@ public class GpxRoute extends BaseRoute<GpxPosition, GpxFormat> {
         super(format, characteristics);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = countModifications(positions);
         this.origins = asList(origins);
     }
 
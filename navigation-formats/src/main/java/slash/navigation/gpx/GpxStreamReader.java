@@ -0,0 +1,441 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gpx;
+
+import slash.common.type.CompactCalendar;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.RoutesConsumer;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static slash.common.io.Transfer.parseDouble;
+import static slash.common.io.Transfer.parseTime;
+import static slash.common.io.Transfer.trim;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.common.type.CompactCalendar.getMillisOfDay;
+import static slash.common.type.CompactCalendar.getMillisSinceEpoch;
+import static slash.common.type.CompactCalendar.parseDigits;
+import static slash.navigation.base.RouteCharacteristics.Route;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.base.RouteCharacteristics.Waypoints;
+import static slash.navigation.gpx.GpxUtil.GARMIN_EXTENSIONS_3_NAMESPACE_URI;
+import static slash.navigation.gpx.GpxUtil.GPX_10_NAMESPACE_URI;
+
+/**
+ * Reads the positions of GPS Exchange Format 1.0 and 1.1 (.gpx) files one by one
+ * with a StAX pull parser instead of unmarshalling the whole document with JAXB.
+ * <p/>
+ * Way points, route points and track points are passed on in the order of the
+ * document. A {@link RoutesConsumer} is told when the way points, a route or a
+ * track start. The values are interpreted like the {@link GpxFormat}s do for the
+ * JAXB bindings, but no origins are kept.
+ *
+ * @author Christian Pesch
+ */
+
+class GpxStreamReader {
+    private static final String GPX_ELEMENT = "gpx";
+    private static final String WPT_ELEMENT = "wpt";
+    private static final String RTE_ELEMENT = "rte";
+    private static final String RTEPT_ELEMENT = "rtept";
+    private static final String TRK_ELEMENT = "trk";
+    private static final String TRKSEG_ELEMENT = "trkseg";
+    private static final String TRKPT_ELEMENT = "trkpt";
+    private static final String ELE_ELEMENT = "ele";
+    private static final String TIME_ELEMENT = "time";
+    private static final String COURSE_ELEMENT = "course";
+    private static final String SPEED_ELEMENT = "speed";
+    private static final String NAME_ELEMENT = "name";
+    private static final String CMT_ELEMENT = "cmt";
+    private static final String DESC_ELEMENT = "desc";
+    private static final String SAT_ELEMENT = "sat";
+    private static final String HDOP_ELEMENT = "hdop";
+    private static final String VDOP_ELEMENT = "vdop";
+    private static final String PDOP_ELEMENT = "pdop";
+    private static final String EXTENSIONS_ELEMENT = "extensions";
+    private static final String TRACK_POINT_EXTENSION_ELEMENT = "TrackPointExtension";
+    private static final String VERSION_ATTRIBUTE = "version";
+    private static final String CREATOR_ATTRIBUTE = "creator";
+    private static final String LAT_ATTRIBUTE = "lat";
+    private static final String LON_ATTRIBUTE = "lon";
+
+    private final GpxFormat format;
+    private final String namespaceUri;
+    private final boolean speedAndCourseElements;
+    private boolean hasSpeedInKilometerPerHourInsteadOfMeterPerSecond;
+    private Double extensionSpeed, extensionHeading;
+    private DatatypeFactory datatypeFactory;
+
+    GpxStreamReader(GpxFormat format) {
+        this.format = format;
+        this.namespaceUri = format.getNamespaceUri();
+        this.speedAndCourseElements = GPX_10_NAMESPACE_URI.equals(namespaceUri);
+    }
+
+    void read(InputStream source, PositionConsumer consumer) throws IOException {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            XMLStreamReader reader = factory.createXMLStreamReader(source);
+            try {
+                if (readRoot(reader))
+                    readGpx(reader, consumer);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while reading: " + e.getMessage());
+        }
+    }
+
+    private boolean readRoot(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == START_ELEMENT) {
+                if (!GPX_ELEMENT.equals(getElement(reader)))
+                    return false;
+                String version = reader.getAttributeValue(null, VERSION_ATTRIBUTE);
+                if (version != null && !version.equals(format.getVersion()))
+                    return false;
+                hasSpeedInKilometerPerHourInsteadOfMeterPerSecond = format.hasSpeedInKilometerPerHourInsteadOfMeterPerSecond(reader.getAttributeValue(null, CREATOR_ATTRIBUTE));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readGpx(XMLStreamReader reader, PositionConsumer consumer) throws XMLStreamException, IOException {
+        boolean wayPoints = false;
+        while (nextChild(reader)) {
+            String element = getElement(reader);
+            if (WPT_ELEMENT.equals(element)) {
+                if (!wayPoints)
+                    startRoute(consumer, Waypoints);
+                wayPoints = true;
+                consumer.consume(readPosition(reader, true));
+                continue;
+            }
+
+            wayPoints = false;
+            if (RTE_ELEMENT.equals(element)) {
+                startRoute(consumer, Route);
+                readPositions(reader, RTEPT_ELEMENT, consumer);
+            } else if (TRK_ELEMENT.equals(element)) {
+                startRoute(consumer, Track);
+                readTrack(reader, consumer);
+            } else
+                skipElement(reader);
+        }
+    }
+
+    private void startRoute(PositionConsumer consumer, RouteCharacteristics characteristics) throws IOException {
+        if (consumer instanceof RoutesConsumer)
+            ((RoutesConsumer) consumer).startRoute(characteristics);
+    }
+
+    private void readTrack(XMLStreamReader reader, PositionConsumer consumer) throws XMLStreamException, IOException {
+        while (nextChild(reader)) {
+            if (TRKSEG_ELEMENT.equals(getElement(reader)))
+                readPositions(reader, TRKPT_ELEMENT, consumer);
+            else
+                skipElement(reader);
+        }
+    }
+
+    private void readPositions(XMLStreamReader reader, String positionElement, PositionConsumer consumer) throws XMLStreamException, IOException {
+        while (nextChild(reader)) {
+            if (positionElement.equals(getElement(reader)))
+                consumer.consume(readPosition(reader, false));
+            else
+                skipElement(reader);
+        }
+    }
+
+    private GpxPosition readPosition(XMLStreamReader reader, boolean wayPoint) throws XMLStreamException {
+        Double longitude = parseDecimal(reader.getAttributeValue(null, LON_ATTRIBUTE));
+        Double latitude = parseDecimal(reader.getAttributeValue(null, LAT_ATTRIBUTE));
+        Double elevation = null, speed = null, heading = null, hdop = null, pdop = null, vdop = null;
+        Integer satellites = null;
+        CompactCalendar time = null;
+        String name = null, comment = null, description = null;
+        extensionSpeed = null;
+        extensionHeading = null;
+
+        while (nextChild(reader)) {
+            String element = getElement(reader);
+            if (ELE_ELEMENT.equals(element))
+                elevation = parseDecimal(readText(reader));
+            else if (TIME_ELEMENT.equals(element))
+                time = parseDateTime(readText(reader));
+            else if (speedAndCourseElements && COURSE_ELEMENT.equals(element))
+                heading = parseDecimal(readText(reader));
+            else if (speedAndCourseElements && SPEED_ELEMENT.equals(element))
+                speed = parseDecimal(readText(reader));
+            else if (NAME_ELEMENT.equals(element))
+                name = readText(reader);
+            else if (CMT_ELEMENT.equals(element))
+                comment = readText(reader);
+            else if (DESC_ELEMENT.equals(element))
+                description = readText(reader);
+            else if (SAT_ELEMENT.equals(element))
+                satellites = parseInteger(readText(reader));
+            else if (HDOP_ELEMENT.equals(element))
+                hdop = parseDecimal(readText(reader));
+            else if (VDOP_ELEMENT.equals(element))
+                vdop = parseDecimal(readText(reader));
+            else if (PDOP_ELEMENT.equals(element))
+                pdop = parseDecimal(readText(reader));
+            else if (!speedAndCourseElements && EXTENSIONS_ELEMENT.equals(element))
+                readExtensions(reader);
+            else
+                skipElement(reader);
+        }
+
+        if (speedAndCourseElements) {
+            speed = asKmh(speed);
+            if (speed == null)
+                speed = format.parseSpeed(comment);
+        } else {
+            speed = extensionSpeed;
+            if (speed == null)
+                speed = format.parseSpeed(comment);
+            if (speed == null)
+                speed = format.parseSpeed(name);
+            if (speed == null)
+                speed = format.parseSpeed(description);
+            heading = extensionHeading;
+            if (heading == null)
+                heading = format.parseHeading(comment);
+        }
+
+        GpxPosition position = new GpxPosition(longitude, latitude, elevation, speed, time,
+                wayPoint && speedAndCourseElements ? format.asWayPointDescription(name, description) :
+                        format.asPositionDescription(name, description), null);
+        // avoid overwriting values determined by setDescription() with a null value
+        if (heading != null)
+            position.setHeading(heading);
+        position.setHdop(hdop);
+        position.setPdop(pdop);
+        position.setVdop(vdop);
+        position.setSatellites(satellites);
+        return position;
+    }
+
+    private void readExtensions(XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            String localName = reader.getLocalName();
+
+            // Garmin Extensions v3
+            if (TRACK_POINT_EXTENSION_ELEMENT.equals(localName) && !GARMIN_EXTENSIONS_3_NAMESPACE_URI.equals(reader.getNamespaceURI())) {
+                // the DOM of the JAXB binding drops comments and whitespace only text
+                int event = reader.next();
+                while (event == COMMENT || event == PROCESSING_INSTRUCTION ||
+                        ((event == CHARACTERS || event == SPACE) && reader.isWhiteSpace()))
+                    event = reader.next();
+                boolean startsWithSpeed = event == START_ELEMENT && SPEED_ELEMENT.equals(reader.getLocalName());
+                String text = readText(reader, event, true);
+                if (startsWithSpeed)
+                    extensionSpeed = asKmh(parseDouble(text));
+
+            // generic reading of speed elements
+            } else if (SPEED_ELEMENT.equals(localName))
+                extensionSpeed = asKmh(parseDouble(readText(reader)));
+            else if (COURSE_ELEMENT.equals(localName))
+                extensionHeading = parseDouble(readText(reader));
+            else
+                skipElement(reader);
+        }
+    }
+
+    private Double asKmh(Double speed) {
+        // everything is converted from m/s to Km/h except for the exceptional case
+        return hasSpeedInKilometerPerHourInsteadOfMeterPerSecond ? speed : format.asKmh(speed);
+    }
+
+    private String getElement(XMLStreamReader reader) {
+        return namespaceUri.equals(reader.getNamespaceURI()) ? reader.getLocalName() : null;
+    }
+
+    private boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                return true;
+            if (event == END_ELEMENT)
+                return false;
+        }
+        return false;
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private String readText(XMLStreamReader reader) throws XMLStreamException {
+        return readText(reader, reader.next());
+    }
+
+    private String readText(XMLStreamReader reader, int event) throws XMLStreamException {
+        return readText(reader, event, false);
+    }
+
+    private String readText(XMLStreamReader reader, int event, boolean ignoreWhitespace) throws XMLStreamException {
+        // collects the text of the element and its children like Node#getTextContent()
+        String text = "";
+        StringBuilder buffer = null;
+        int depth = 1;
+        while (true) {
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT) {
+                if (--depth == 0)
+                    break;
+            } else if ((event == CHARACTERS || event == CDATA || event == SPACE) && !(ignoreWhitespace && reader.isWhiteSpace())) {
+                if (buffer != null)
+                    buffer.append(reader.getText());
+                else if (text.length() > 0)
+                    buffer = new StringBuilder(text).append(reader.getText());
+                else
+                    text = reader.getText();
+            }
+            event = reader.next();
+        }
+        return buffer != null ? buffer.toString() : text;
+    }
+
+    private static Double parseDecimal(String string) {
+        string = trim(string);
+        if (string == null)
+            return null;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E')
+                return null;
+        }
+        try {
+            double value = Double.parseDouble(string);
+            // like BigDecimal#doubleValue() for -0.0
+            return value == 0.0 ? 0.0 : value;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseInteger(String string) {
+        string = trim(string);
+        if (string == null)
+            return null;
+        try {
+            return new BigInteger(string).intValue();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private CompactCalendar parseDateTime(String string) {
+        string = trim(string);
+        if (string == null)
+            return null;
+        long millis = parseCanonicalTime(string);
+        if (millis != NOT_CANONICAL)
+            return fromMillis(millis);
+
+        try {
+            if (datatypeFactory == null)
+                datatypeFactory = DatatypeFactory.newInstance();
+            return parseTime(datatypeFactory.newXMLGregorianCalendar(string));
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a time of the form <code>yyyy-MM-ddTHH:mm:ss[.SSS][Z|+HH:mm|-HH:mm]</code>
+     * as <code>XMLGregorianCalendar#toGregorianCalendar(UTC, ...)</code> does.
+     *
+     * @param string the trimmed time
+     * @return the milliseconds since the epoch or {@link CompactCalendar#NOT_CANONICAL}
+     */
+    private static long parseCanonicalTime(String string) {
+        int length = string.length();
+        if (length < 19 || string.charAt(4) != '-' || string.charAt(7) != '-' || string.charAt(10) != 'T' ||
+                string.charAt(13) != ':' || string.charAt(16) != ':')
+            return NOT_CANONICAL;
+
+        long date = getMillisSinceEpoch(parseDigits(string, 0, 4), parseDigits(string, 5, 2), parseDigits(string, 8, 2));
+        long timeOfDay = getMillisOfDay(parseDigits(string, 11, 2), parseDigits(string, 14, 2), parseDigits(string, 17, 2), 0);
+        if (date == NOT_CANONICAL || timeOfDay == NOT_CANONICAL)
+            return NOT_CANONICAL;
+
+        int position = 19, milliseconds = 0;
+        if (position < length && string.charAt(position) == '.') {
+            int start = ++position;
+            while (position < length && string.charAt(position) >= '0' && string.charAt(position) <= '9') {
+                // further digits are truncated like XMLGregorianCalendar#getMillisecond()
+                if (position - start < 3)
+                    milliseconds = milliseconds * 10 + (string.charAt(position) - '0');
+                position++;
+            }
+            if (position == start)
+                return NOT_CANONICAL;
+            for (int i = position - start; i < 3; i++)
+                milliseconds *= 10;
+        }
+
+        // the time zone is validated but ignored since toGregorianCalendar(UTC, ...) overrides it
+        if (position < length) {
+            char sign = string.charAt(position);
+            if ((sign == '+' || sign == '-') && position + 6 == length && string.charAt(position + 3) == ':') {
+                int offsetHours = parseDigits(string, position + 1, 2), offsetMinutes = parseDigits(string, position + 4, 2);
+                if (offsetHours < 0 || offsetHours > 14 || offsetMinutes < 0 || offsetMinutes > 59)
+                    return NOT_CANONICAL;
+            } else if (sign != 'Z' || position + 1 != length)
+                return NOT_CANONICAL;
+        }
+
+        return date + timeOfDay + milliseconds;
+    }
+}
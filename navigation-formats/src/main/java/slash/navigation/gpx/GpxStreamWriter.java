@@ -0,0 +1,188 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gpx;
+
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.PositionWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.common.io.Transfer.formatInt;
+import static slash.common.io.Transfer.formatTime;
+import static slash.navigation.common.NavigationConversion.formatBigDecimal;
+import static slash.navigation.common.NavigationConversion.formatElevation;
+import static slash.navigation.common.NavigationConversion.formatHeading;
+import static slash.navigation.common.NavigationConversion.formatPosition;
+import static slash.navigation.common.NavigationConversion.formatSpeed;
+import static slash.navigation.common.UnitConversion.kmhToMs;
+import static slash.navigation.gpx.GpxUtil.GPX_10_NAMESPACE_URI;
+import static slash.navigation.gpx.GpxUtil.TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI;
+
+/**
+ * Writes the positions of a track one by one as GPS Exchange Format 1.0 or 1.1 (.gpx)
+ * with a StAX stream writer instead of marshalling a whole document with JAXB.
+ * <p/>
+ * The values are formatted like the {@link GpxFormat}s do for the JAXB bindings.
+ *
+ * @author Christian Pesch
+ */
+
+class GpxStreamWriter implements PositionWriter {
+    private static final String INDENTATION = "    ";
+    private static final String TREKBUDDY_PREFIX = "nmea";
+
+    private final GpxFormat format;
+    private final String namespaceUri;
+    private final boolean speedAndCourseElements;
+    private final OutputStream target;
+    private final XMLStreamWriter writer;
+
+    GpxStreamWriter(GpxFormat format, String creator, String trackName, OutputStream target) throws IOException {
+        this.format = format;
+        this.namespaceUri = format.getNamespaceUri();
+        this.speedAndCourseElements = GPX_10_NAMESPACE_URI.equals(namespaceUri);
+        this.target = target;
+        try {
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(target, UTF8_ENCODING);
+            writer.writeStartDocument(UTF8_ENCODING, "1.0");
+            writeIndentation(0);
+            writer.setDefaultNamespace(namespaceUri);
+            writer.writeStartElement(namespaceUri, "gpx");
+            writer.writeDefaultNamespace(namespaceUri);
+            if (!speedAndCourseElements) {
+                writer.setPrefix(TREKBUDDY_PREFIX, TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI);
+                writer.writeNamespace(TREKBUDDY_PREFIX, TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI);
+            }
+            writer.writeAttribute("version", format.getVersion());
+            writer.writeAttribute("creator", creator);
+            writeStartElement(1, "trk");
+            writeElement(2, namespaceUri, "name", trackName);
+            writeStartElement(2, "trkseg");
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        }
+    }
+
+    private void writeIndentation(int depth) throws XMLStreamException {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++)
+            writer.writeCharacters(INDENTATION);
+    }
+
+    private void writeStartElement(int depth, String localName) throws XMLStreamException {
+        writeIndentation(depth);
+        writer.writeStartElement(namespaceUri, localName);
+    }
+
+    private void writeEndElement(int depth) throws XMLStreamException {
+        writeIndentation(depth);
+        writer.writeEndElement();
+    }
+
+    private void writeElement(int depth, String elementNamespaceUri, String localName, String value) throws XMLStreamException {
+        if (value == null)
+            return;
+        writeIndentation(depth);
+        writer.writeStartElement(elementNamespaceUri, localName);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private void writeElement(int depth, String elementNamespaceUri, String localName, BigDecimal value) throws XMLStreamException {
+        if (value != null)
+            writeElement(depth, elementNamespaceUri, localName, value.toPlainString());
+    }
+
+    private void writeElement(int depth, String localName, BigDecimal value) throws XMLStreamException {
+        writeElement(depth, namespaceUri, localName, value);
+    }
+
+    public void consume(BaseNavigationPosition position) throws IOException {
+        GpxPosition gpxPosition = position.asGpxPosition();
+        BigDecimal latitude = formatPosition(gpxPosition.getLatitude());
+        BigDecimal longitude = formatPosition(gpxPosition.getLongitude());
+        if (latitude == null || longitude == null)
+            return;
+
+        try {
+            writeStartElement(3, "trkpt");
+            writer.writeAttribute("lat", latitude.toPlainString());
+            writer.writeAttribute("lon", longitude.toPlainString());
+            writePosition(gpxPosition);
+            writeEndElement(3);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        }
+    }
+
+    private void writePosition(GpxPosition position) throws XMLStreamException {
+        writeElement(4, "ele", format.isWriteElevation() ? formatElevation(position.getElevation()) : null);
+        if (format.isWriteTime() && position.hasTime())
+            writeElement(4, namespaceUri, "time", formatTime(position.getTime()).toXMLFormat());
+        if (speedAndCourseElements) {
+            writeElement(4, "course", format.isWriteHeading() ? formatHeading(position.getHeading()) : null);
+            writeElement(4, "speed", format.isWriteSpeed() && position.getSpeed() != null ?
+                    formatBigDecimal(kmhToMs(position.getSpeed()), 3) : null);
+        }
+        if (format.isWriteName()) {
+            writeElement(4, namespaceUri, "name", format.asPositionName(position.getDescription()));
+            writeElement(4, namespaceUri, "desc", format.asPositionDesc(position.getDescription()));
+        }
+        if (format.isWriteAccuracy()) {
+            if (position.getSatellites() != null)
+                writeElement(4, namespaceUri, "sat", formatInt(position.getSatellites()).toString());
+            writeElement(4, "hdop", position.getHdop() != null ? formatBigDecimal(position.getHdop(), 6) : null);
+            writeElement(4, "vdop", position.getVdop() != null ? formatBigDecimal(position.getVdop(), 6) : null);
+            writeElement(4, "pdop", position.getPdop() != null ? formatBigDecimal(position.getPdop(), 6) : null);
+        }
+        if (!speedAndCourseElements) {
+            BigDecimal speed = format.isWriteSpeed() ? formatSpeed(format.asMs(position.getSpeed())) : null;
+            BigDecimal heading = format.isWriteHeading() ? formatHeading(position.getHeading()) : null;
+            if (speed != null || heading != null) {
+                writeStartElement(4, "extensions");
+                writeElement(5, TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI, "speed", speed);
+                writeElement(5, TREKBUDDY_EXTENSIONS_0984_NAMESPACE_URI, "course", heading);
+                writeEndElement(4);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            writeEndElement(2);
+            writeEndElement(1);
+            writeEndElement(0);
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        } finally {
+            target.close();
+        }
+    }
+}
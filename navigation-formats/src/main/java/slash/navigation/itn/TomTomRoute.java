@@ -65,7 +65,7 @@ public class TomTomRoute extends BaseRoute<TomTomPosition, TomTomRouteFormat> {
     public TomTomRoute(TomTomRouteFormat format, RouteCharacteristics characteristics, String name, List<TomTomPosition> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public TomTomRoute(RouteCharacteristics characteristics, String name, List<TomTomPosition> positions) {
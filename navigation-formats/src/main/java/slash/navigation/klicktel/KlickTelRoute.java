@@ -79,7 +79,7 @@ public class KlickTelRoute extends BaseRoute<Wgs84Position, KlickTelRouteFormat>
     public KlickTelRoute(String name, KDRoute.RouteOptions options, List<Wgs84Position> positions) {
         super(new KlickTelRouteFormat(), Route);
         this.options = options;
-        this.positions = positions;
+        this.positions = countModifications(positions);
         setName(name);
     }
 
@@ -22,8 +22,10 @@ package slash.navigation.kml;
 
 import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
 import slash.navigation.kml.binding22.KmlType;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
@@ -55,4 +57,8 @@ public class BrokenKml22Format extends Kml22Format {
             reader.close();
         }
     }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        new KmlStreamReader(this).read(new InputStreamReader(source), startDate, consumer);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import slash.navigation.base.PositionConsumer;
+
+import java.io.IOException;
+
+import static slash.common.io.Transfer.parseDouble;
+
+/**
+ * Tokenizes the text of <code>coordinates</code> and <code>gx:coord</code> elements
+ * into {@link KmlPosition}s without creating strings for tuples and numbers.
+ * <p/>
+ * The text may be passed in as many chunks as a pull parser reports. The tuples of
+ * <code>coordinates</code> are formed like <code>PositionParser#parsePositions()</code>
+ * does, the triples of <code>gx:coord</code> like <code>PositionParser#parseExtensionPositions()</code>.
+ *
+ * @author Christian Pesch
+ */
+
+class CoordinatesTokenizer {
+    private static final boolean[] NUMBER = characters("-|+0123456789.E");
+    private static final boolean[] WHITESPACE = characters(" \t\n\u000B\f\r");
+    private static final char COMPONENT_SEPARATOR = ',';
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAXIMUM_SIGNIFICANT_DIGITS = 15;
+
+    private static final int COMPONENT = 0;
+    private static final int TUPLE = 1;
+    private static final int BREAK = 2;
+
+    private final boolean extension;
+    private PositionConsumer consumer;
+    private char[] number = new char[32];
+    private int numberLength, component;
+    private boolean inNumber;
+    private Double[] values = new Double[3];
+
+    CoordinatesTokenizer(boolean extension) {
+        this.extension = extension;
+    }
+
+    private static boolean[] characters(String characters) {
+        boolean[] result = new boolean[128];
+        for (int i = 0; i < characters.length(); i++)
+            result[characters.charAt(i)] = true;
+        return result;
+    }
+
+    private static boolean is(boolean[] characters, char c) {
+        return c < characters.length && characters[c];
+    }
+
+    void start(PositionConsumer consumer) {
+        this.consumer = consumer;
+        this.numberLength = 0;
+        this.component = 0;
+        this.inNumber = false;
+    }
+
+    void tokenize(char[] characters, int start, int length) throws IOException {
+        for (int i = start; i < start + length; i++) {
+            char c = characters[i];
+            if (is(NUMBER, c)) {
+                if (!inNumber) {
+                    // a second number in a component starts the next tuple
+                    if (numberLength > 0)
+                        endComponent(TUPLE);
+                    inNumber = true;
+                }
+                if (numberLength == number.length) {
+                    char[] bigger = new char[number.length * 2];
+                    System.arraycopy(number, 0, bigger, 0, numberLength);
+                    number = bigger;
+                }
+                number[numberLength++] = c;
+            } else {
+                inNumber = false;
+                if (c == COMPONENT_SEPARATOR)
+                    endComponent(extension ? TUPLE : COMPONENT);
+                else if (!is(WHITESPACE, c))
+                    endComponent(BREAK);
+            }
+        }
+    }
+
+    void finish() throws IOException {
+        if (numberLength > 0 || (!extension && component > 0))
+            endComponent(BREAK);
+        component = 0;
+    }
+
+    private void endComponent(int separator) throws IOException {
+        boolean present = numberLength > 0;
+        Double value = present ? parseNumber() : null;
+        numberLength = 0;
+        inNumber = false;
+
+        if (extension) {
+            if (present) {
+                values[component++] = value;
+                if (component == 3) {
+                    emit(values[0], values[1], values[2]);
+                    component = 0;
+                }
+            }
+            if (separator == BREAK)
+                component = 0;
+            return;
+        }
+
+        switch (component) {
+            case 0:
+                // a single number without separator is no position
+                if (separator == COMPONENT) {
+                    values[0] = value;
+                    component = 1;
+                }
+                break;
+            case 1:
+                values[1] = value;
+                if (separator == COMPONENT)
+                    component = 2;
+                else {
+                    emit(values[0], values[1], null);
+                    component = 0;
+                }
+                break;
+            case 2:
+                if (present) {
+                    emit(values[0], values[1], value);
+                    // further components form the next position with an empty longitude
+                    values[0] = null;
+                    component = separator == COMPONENT ? 1 : 0;
+                } else {
+                    // an empty elevation is the empty latitude of the next position
+                    emit(values[0], values[1], null);
+                    values[0] = null;
+                    values[1] = null;
+                    if (separator != COMPONENT) {
+                        emit(null, null, null);
+                        component = 0;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown component " + component);
+        }
+    }
+
+    private void emit(Double longitude, Double latitude, Double elevation) throws IOException {
+        consumer.consume(new KmlPosition(longitude, latitude, elevation, null, null, null));
+    }
+
+    private Double parseNumber() {
+        int position = 0;
+        boolean negative = number[0] == '-';
+        if (negative || number[0] == '+')
+            position++;
+
+        long mantissa = 0;
+        int digits = 0, fractionDigits = -1;
+        for (; position < numberLength; position++) {
+            char c = number[position];
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0')
+                    digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits != -1)
+                    fractionDigits++;
+            } else if (c == '.' && fractionDigits == -1)
+                fractionDigits = 0;
+            else
+                break;
+        }
+
+        boolean hasSign = number[0] == '-' || number[0] == '+';
+        boolean hasDigit = position > (hasSign ? 1 : 0) + (fractionDigits != -1 ? 1 : 0);
+        if (position != numberLength || !hasDigit || digits > MAXIMUM_SIGNIFICANT_DIGITS || fractionDigits >= POWERS_OF_TEN.length)
+            return parseDouble(new String(number, 0, numberLength));
+
+        // mantissa and power of ten are exact, so the division is rounded like Double.parseDouble
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+}
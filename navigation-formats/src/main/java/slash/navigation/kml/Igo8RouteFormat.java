@@ -59,6 +59,15 @@ public class Igo8RouteFormat extends Kml22Format {
         return false;
     }
 
+    public boolean isSupportsStreamingRead() {
+        // an iGO8 route is recognized from the routes of the whole document
+        return false;
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return false;
+    }
+
     public int getMaximumPositionCount() {
         return preferences.getInt("maximumiGo8RoutePositionCount", 100);
     }
@@ -24,7 +24,10 @@ import slash.common.type.CompactCalendar;
 import slash.common.type.ISO8601;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.StreamingNavigationFormat;
 import slash.navigation.kml.binding22.AbstractContainerType;
 import slash.navigation.kml.binding22.AbstractFeatureType;
 import slash.navigation.kml.binding22.AbstractGeometryType;
@@ -91,7 +94,7 @@ import static slash.navigation.kml.binding22.UnitsEnumType.PIXELS;
  * @author Christian Pesch
  */
 
-public class Kml22Format extends KmlFormat {
+public class Kml22Format extends KmlFormat implements StreamingNavigationFormat<KmlRoute> {
     private static final int METERS_BETWEEN_MARKS = 1000;
 
     public String getName() {
@@ -103,6 +106,22 @@ public class Kml22Format extends KmlFormat {
         process(kmlType, startDate, context);
     }
 
+    public boolean isSupportsStreamingRead() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return isSupportsWriting();
+    }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        new KmlStreamReader(this).read(source, startDate, consumer);
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        return new KmlStreamWriter(this, createDocumentName(name), GENERATED_BY, target);
+    }
+
     protected void process(KmlType kmlType, CompactCalendar startDate, ParserContext<KmlRoute> context) throws IOException {
         if (kmlType == null || kmlType.getAbstractFeatureGroup() == null)
             return;
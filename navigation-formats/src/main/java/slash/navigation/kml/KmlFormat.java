@@ -102,9 +102,13 @@ public abstract class KmlFormat extends BaseKmlFormat {
     }
 
     protected String createDocumentName(KmlRoute route) {
+        return createDocumentName(route.getName());
+    }
+
+    protected String createDocumentName(String routeName) {
         // some kind of crude workaround since the route carries the name of the
         // plus and divided by a slash the route of the track
-        String name = asRouteName(route.getName());
+        String name = asRouteName(routeName);
         if (name != null) {
             StringTokenizer tokenizer = new StringTokenizer(name, "/");
             if (tokenizer.hasMoreTokens())
@@ -161,6 +165,10 @@ public abstract class KmlFormat extends BaseKmlFormat {
         return null;
     }
 
+    String asPositionDescription(String name, String description) {
+        return asDescription(name, description);
+    }
+
     protected void enrichPosition(KmlPosition position, CompactCalendar time, String name, String description, CompactCalendar startDate) {
         if (!position.hasTime() && time != null)
             position.setTime(time);
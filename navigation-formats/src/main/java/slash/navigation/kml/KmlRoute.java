@@ -67,7 +67,7 @@ public class KmlRoute extends BaseRoute<KmlPosition, BaseKmlFormat> {
         super(format, characteristics);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public String getName() {
@@ -0,0 +1,489 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import slash.common.type.CompactCalendar;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.RoutesConsumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.LinkedList;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static slash.common.io.Transfer.isEmpty;
+import static slash.common.io.Transfer.parseDouble;
+import static slash.common.io.Transfer.trim;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.base.RouteCharacteristics.Waypoints;
+import static slash.navigation.kml.KmlFormat.MARKS;
+import static slash.navigation.kml.KmlFormat.SPEED;
+import static slash.navigation.kml.KmlUtil.KML_22_EXT_NAMESPACE_URI;
+import static slash.navigation.kml.KmlUtil.KML_22_NAMESPACE_URI;
+
+/**
+ * Reads the positions of Google Earth 5 (.kml) files one by one with a StAX pull
+ * parser instead of unmarshalling the whole document with the JAXB bindings.
+ * <p/>
+ * The positions of <code>Point</code>, <code>LineString</code>, <code>MultiGeometry</code>,
+ * <code>gx:Track</code>, <code>gx:MultiTrack</code> and <code>gx:Tour</code> are passed on
+ * in the order of the document and interpreted like the {@link Kml22Format} does for the
+ * JAXB bindings. Network links are not followed. A {@link RoutesConsumer} is told where
+ * a track or a run of way points starts in the order of the document.
+ *
+ * @author Christian Pesch
+ */
+
+class KmlStreamReader {
+    private static final String KML_ELEMENT = "kml";
+    private static final String DOCUMENT_ELEMENT = "Document";
+    private static final String FOLDER_ELEMENT = "Folder";
+    private static final String PLACEMARK_ELEMENT = "Placemark";
+    private static final String NAME_ELEMENT = "name";
+    private static final String DESCRIPTION_ELEMENT = "description";
+    private static final String TIME_STAMP_ELEMENT = "TimeStamp";
+    private static final String TIME_SPAN_ELEMENT = "TimeSpan";
+    private static final String WHEN_ELEMENT = "when";
+    private static final String BEGIN_ELEMENT = "begin";
+    private static final String POINT_ELEMENT = "Point";
+    private static final String LINE_STRING_ELEMENT = "LineString";
+    private static final String MULTI_GEOMETRY_ELEMENT = "MultiGeometry";
+    private static final String LINEAR_RING_ELEMENT = "LinearRing";
+    private static final String POLYGON_ELEMENT = "Polygon";
+    private static final String MODEL_ELEMENT = "Model";
+    private static final String COORDINATES_ELEMENT = "coordinates";
+    private static final String TRACK_ELEMENT = "Track";
+    private static final String MULTI_TRACK_ELEMENT = "MultiTrack";
+    private static final String COORD_ELEMENT = "coord";
+    private static final String TOUR_ELEMENT = "Tour";
+    private static final String PLAYLIST_ELEMENT = "Playlist";
+    private static final String FLY_TO_ELEMENT = "FlyTo";
+    private static final String LOOK_AT_ELEMENT = "LookAt";
+    private static final String LONGITUDE_ELEMENT = "longitude";
+    private static final String LATITUDE_ELEMENT = "latitude";
+    private static final String ALTITUDE_ELEMENT = "altitude";
+    private static final String HEADING_ELEMENT = "heading";
+
+    private final Kml22Format format;
+    private final CoordinatesTokenizer coordinatesTokenizer = new CoordinatesTokenizer(false);
+    private final CoordinatesTokenizer coordTokenizer = new CoordinatesTokenizer(true);
+    private CompactCalendar startDate;
+    private PositionConsumer consumer;
+    private int containers, container, waypointsContainer;
+
+    KmlStreamReader(Kml22Format format) {
+        this.format = format;
+    }
+
+    void read(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        try {
+            read(createFactory().createXMLStreamReader(source), startDate, consumer);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while reading: " + e.getMessage());
+        }
+    }
+
+    void read(Reader source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        try {
+            read(createFactory().createXMLStreamReader(source), startDate, consumer);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while reading: " + e.getMessage());
+        }
+    }
+
+    private XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // large coordinates are reported in chunks instead of one string
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        return factory;
+    }
+
+    private void read(XMLStreamReader reader, CompactCalendar startDate, PositionConsumer consumer) throws XMLStreamException, IOException {
+        this.startDate = startDate;
+        this.consumer = consumer;
+        try {
+            if (readRoot(reader))
+                readFeatures(reader, true);
+        } catch (NumberFormatException e) {
+            throw new IOException("Error while reading: " + e.getMessage());
+        } finally {
+            reader.close();
+        }
+    }
+
+    private boolean readRoot(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == START_ELEMENT)
+                return KML_ELEMENT.equals(getElement(reader));
+        }
+        return false;
+    }
+
+    private void readFeatures(XMLStreamReader reader, boolean root) throws XMLStreamException, IOException {
+        while (nextChild(reader)) {
+            String element = getElement(reader);
+            if (DOCUMENT_ELEMENT.equals(element) || FOLDER_ELEMENT.equals(element))
+                readContainer(reader, root);
+            else if (PLACEMARK_ELEMENT.equals(element))
+                readPlacemark(reader, root);
+            else if (root && TOUR_ELEMENT.equals(getExtensionElement(reader)))
+                readTour(reader);
+            else
+                skipElement(reader);
+        }
+    }
+
+    private void readContainer(XMLStreamReader reader, boolean root) throws XMLStreamException, IOException {
+        boolean folder = FOLDER_ELEMENT.equals(getElement(reader));
+        int parent = container;
+        container = ++containers;
+        while (nextChild(reader)) {
+            String element = getElement(reader);
+            if (NAME_ELEMENT.equals(element)) {
+                String name = trim(readText(reader));
+                // ignore speed and marks folders
+                if (!root && folder && (SPEED.equals(name) || MARKS.equals(name))) {
+                    skipElement(reader);
+                    break;
+                }
+            } else if (DOCUMENT_ELEMENT.equals(element) || FOLDER_ELEMENT.equals(element))
+                readContainer(reader, false);
+            else if (PLACEMARK_ELEMENT.equals(element))
+                readPlacemark(reader, false);
+            else
+                skipElement(reader);
+        }
+        container = parent;
+    }
+
+    private void readPlacemark(XMLStreamReader reader, boolean root) throws XMLStreamException, IOException {
+        Feature feature = new Feature(root, false);
+        while (nextChild(reader)) {
+            if (!feature.read(reader))
+                readGeometry(reader, feature);
+        }
+        feature.close();
+    }
+
+    private void readGeometry(XMLStreamReader reader, PositionConsumer target) throws XMLStreamException, IOException {
+        String element = getElement(reader);
+        if (POINT_ELEMENT.equals(element) || LINE_STRING_ELEMENT.equals(element))
+            readCoordinates(reader, target);
+        else if (MULTI_GEOMETRY_ELEMENT.equals(element)) {
+            while (nextChild(reader))
+                readGeometry(reader, target);
+        } else if (LINEAR_RING_ELEMENT.equals(element) || POLYGON_ELEMENT.equals(element) || MODEL_ELEMENT.equals(element))
+            // geometries without positions
+            skipElement(reader);
+        else {
+            String extensionElement = getExtensionElement(reader);
+            if (TRACK_ELEMENT.equals(extensionElement))
+                readTrack(reader, target);
+            else if (MULTI_TRACK_ELEMENT.equals(extensionElement)) {
+                while (nextChild(reader)) {
+                    if (TRACK_ELEMENT.equals(getExtensionElement(reader)))
+                        readTrack(reader, target);
+                    else
+                        skipElement(reader);
+                }
+            } else
+                skipElement(reader);
+        }
+    }
+
+    private void readCoordinates(XMLStreamReader reader, PositionConsumer target) throws XMLStreamException, IOException {
+        while (nextChild(reader)) {
+            if (COORDINATES_ELEMENT.equals(getElement(reader)))
+                tokenize(reader, coordinatesTokenizer, target);
+            else
+                skipElement(reader);
+        }
+    }
+
+    private void readTrack(XMLStreamReader reader, PositionConsumer target) throws XMLStreamException, IOException {
+        Track track = new Track(target);
+        while (nextChild(reader)) {
+            if (WHEN_ELEMENT.equals(getElement(reader)))
+                track.addTime(readText(reader));
+            else if (COORD_ELEMENT.equals(getExtensionElement(reader)))
+                tokenize(reader, coordTokenizer, track);
+            else
+                skipElement(reader);
+        }
+        track.close();
+    }
+
+    private void readTour(XMLStreamReader reader) throws XMLStreamException, IOException {
+        Feature feature = new Feature(true, true);
+        while (nextChild(reader)) {
+            if (feature.read(reader))
+                continue;
+            if (PLAYLIST_ELEMENT.equals(getExtensionElement(reader))) {
+                while (nextChild(reader)) {
+                    if (FLY_TO_ELEMENT.equals(getExtensionElement(reader)))
+                        readFlyTo(reader, feature);
+                    else
+                        skipElement(reader);
+                }
+            } else
+                skipElement(reader);
+        }
+    }
+
+    private void readFlyTo(XMLStreamReader reader, PositionConsumer target) throws XMLStreamException, IOException {
+        while (nextChild(reader)) {
+            if (LOOK_AT_ELEMENT.equals(getElement(reader)))
+                readLookAt(reader, target);
+            else
+                skipElement(reader);
+        }
+    }
+
+    private void readLookAt(XMLStreamReader reader, PositionConsumer target) throws XMLStreamException, IOException {
+        Double longitude = null, latitude = null, altitude = null, heading = null;
+        while (nextChild(reader)) {
+            String element = getElement(reader);
+            if (LONGITUDE_ELEMENT.equals(element))
+                longitude = parseDouble(readText(reader));
+            else if (LATITUDE_ELEMENT.equals(element))
+                latitude = parseDouble(readText(reader));
+            else if (ALTITUDE_ELEMENT.equals(element))
+                altitude = parseDouble(readText(reader));
+            else if (HEADING_ELEMENT.equals(element))
+                heading = parseDouble(readText(reader));
+            else
+                skipElement(reader);
+        }
+        KmlPosition position = new KmlPosition(longitude, latitude, isEmpty(altitude) ? null : altitude, null, null, null);
+        position.setHeading(heading);
+        target.consume(position);
+    }
+
+    private CompactCalendar readTime(XMLStreamReader reader, String timeElement) throws XMLStreamException {
+        String time = null;
+        while (nextChild(reader)) {
+            if (timeElement.equals(getElement(reader)))
+                time = readText(reader);
+            else
+                skipElement(reader);
+        }
+        return format.parseTime(time);
+    }
+
+    private void startRoute(RouteCharacteristics characteristics) throws IOException {
+        if (consumer instanceof RoutesConsumer)
+            ((RoutesConsumer) consumer).startRoute(characteristics);
+    }
+
+    private String getElement(XMLStreamReader reader) {
+        return KML_22_NAMESPACE_URI.equals(reader.getNamespaceURI()) ? reader.getLocalName() : null;
+    }
+
+    private String getExtensionElement(XMLStreamReader reader) {
+        return KML_22_EXT_NAMESPACE_URI.equals(reader.getNamespaceURI()) ? reader.getLocalName() : null;
+    }
+
+    private boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                return true;
+            if (event == END_ELEMENT)
+                return false;
+        }
+        return false;
+    }
+
+    private void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT)
+                depth--;
+        }
+    }
+
+    private String readText(XMLStreamReader reader) throws XMLStreamException {
+        String text = "";
+        StringBuilder buffer = null;
+        int depth = 1;
+        while (true) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT) {
+                if (--depth == 0)
+                    break;
+            } else if (event == CHARACTERS || event == CDATA || event == SPACE) {
+                if (buffer != null)
+                    buffer.append(reader.getText());
+                else if (text.length() > 0)
+                    buffer = new StringBuilder(text).append(reader.getText());
+                else
+                    text = reader.getText();
+            }
+        }
+        return buffer != null ? buffer.toString() : text;
+    }
+
+    private void tokenize(XMLStreamReader reader, CoordinatesTokenizer tokenizer, PositionConsumer target) throws XMLStreamException, IOException {
+        tokenizer.start(target);
+        int depth = 1;
+        while (true) {
+            int event = reader.next();
+            if (event == START_ELEMENT)
+                depth++;
+            else if (event == END_ELEMENT) {
+                if (--depth == 0)
+                    break;
+            } else if (event == CHARACTERS || event == CDATA || event == SPACE)
+                tokenizer.tokenize(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+        tokenizer.finish();
+    }
+
+    /**
+     * Collects name, description and time of a <code>Placemark</code> or <code>gx:Tour</code>
+     * and passes on its positions. Like {@link Kml22Format} does, the positions of a top level
+     * feature and a single position of a nested feature are enriched as way points.
+     */
+    private class Feature implements PositionConsumer {
+        private final boolean root, tour;
+        private final int featureContainer = container;
+        private String name, description;
+        private CompactCalendar time;
+        private KmlPosition first;
+        private int count;
+
+        private Feature(boolean root, boolean tour) {
+            this.root = root;
+            this.tour = tour;
+        }
+
+        private boolean read(XMLStreamReader reader) throws XMLStreamException {
+            String element = getElement(reader);
+            if (NAME_ELEMENT.equals(element))
+                name = readText(reader);
+            else if (DESCRIPTION_ELEMENT.equals(element))
+                description = readText(reader);
+            else if (TIME_STAMP_ELEMENT.equals(element))
+                time = readTime(reader, WHEN_ELEMENT);
+            else if (TIME_SPAN_ELEMENT.equals(element))
+                time = readTime(reader, BEGIN_ELEMENT);
+            else
+                return false;
+            return true;
+        }
+
+        private void enrich(KmlPosition position) {
+            format.enrichPosition(position, time, format.asPositionDescription(trim(name), trim(description)), description, startDate);
+        }
+
+        public void consume(BaseNavigationPosition position) throws IOException {
+            KmlPosition kmlPosition = (KmlPosition) position;
+            if (root) {
+                if (count++ == 0)
+                    startRoute(tour ? Track : Waypoints);
+                enrich(kmlPosition);
+                consumer.consume(kmlPosition);
+            } else if (count++ == 0)
+                // hold back the first position until it is known whether it is a way point
+                first = kmlPosition;
+            else {
+                if (first != null) {
+                    waypointsContainer = 0;
+                    startRoute(Track);
+                    consumer.consume(first);
+                    first = null;
+                }
+                consumer.consume(kmlPosition);
+            }
+        }
+
+        private void close() throws IOException {
+            if (first != null) {
+                // way points of a container form one route
+                if (waypointsContainer != featureContainer) {
+                    waypointsContainer = featureContainer;
+                    startRoute(Waypoints);
+                }
+                enrich(first);
+                consumer.consume(first);
+            }
+        }
+    }
+
+    /**
+     * Pairs the <code>when</code>s and <code>gx:coord</code>s of a <code>gx:Track</code>
+     * by their index as they appear either in blocks or interleaved.
+     */
+    private class Track implements PositionConsumer {
+        private final PositionConsumer target;
+        private final LinkedList<CompactCalendar> times = new LinkedList<CompactCalendar>();
+        private final LinkedList<KmlPosition> positions = new LinkedList<KmlPosition>();
+
+        private Track(PositionConsumer target) {
+            this.target = target;
+        }
+
+        private void addTime(String when) throws IOException {
+            CompactCalendar time = format.parseTime(when);
+            if (positions.isEmpty())
+                times.add(time);
+            else {
+                KmlPosition position = positions.removeFirst();
+                if (time != null)
+                    position.setTime(time);
+                target.consume(position);
+            }
+        }
+
+        public void consume(BaseNavigationPosition position) throws IOException {
+            KmlPosition kmlPosition = (KmlPosition) position;
+            if (times.isEmpty())
+                positions.add(kmlPosition);
+            else {
+                CompactCalendar time = times.removeFirst();
+                if (time != null)
+                    kmlPosition.setTime(time);
+                target.consume(kmlPosition);
+            }
+        }
+
+        private void close() throws IOException {
+            for (KmlPosition position : positions)
+                target.consume(position);
+        }
+    }
+}
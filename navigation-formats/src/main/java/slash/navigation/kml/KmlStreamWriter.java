@@ -0,0 +1,165 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import slash.common.type.ISO8601;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.PositionWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.common.type.HexadecimalNumber.encodeBytes;
+import static slash.navigation.kml.KmlFormat.TRACK;
+import static slash.navigation.kml.KmlFormat.TRACK_LINE_STYLE;
+import static slash.navigation.kml.KmlUtil.KML_22_EXT_NAMESPACE_URI;
+import static slash.navigation.kml.KmlUtil.KML_22_NAMESPACE_URI;
+
+/**
+ * Writes the positions of a track one by one as Google Earth 5 (.kml) with a StAX
+ * stream writer instead of marshalling a whole document with the JAXB bindings.
+ * <p/>
+ * Since the positions are not known in advance, the first position decides whether
+ * the track is written as a <code>gx:Track</code> with interleaved <code>when</code>s and
+ * <code>gx:coord</code>s or as a <code>LineString</code> without times.
+ *
+ * @author Christian Pesch
+ */
+
+class KmlStreamWriter implements PositionWriter {
+    private static final String INDENTATION = "    ";
+    private static final String EXTENSION_PREFIX = "gx";
+
+    private final Kml22Format format;
+    private final OutputStream target;
+    private final XMLStreamWriter writer;
+    private boolean geometry, track;
+
+    KmlStreamWriter(Kml22Format format, String documentName, String documentDescription, OutputStream target) throws IOException {
+        this.format = format;
+        this.target = target;
+        try {
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(target, UTF8_ENCODING);
+            writer.writeStartDocument(UTF8_ENCODING, "1.0");
+            writeIndentation(0);
+            writer.setDefaultNamespace(KML_22_NAMESPACE_URI);
+            writer.setPrefix(EXTENSION_PREFIX, KML_22_EXT_NAMESPACE_URI);
+            writer.writeStartElement(KML_22_NAMESPACE_URI, "kml");
+            writer.writeDefaultNamespace(KML_22_NAMESPACE_URI);
+            writer.writeNamespace(EXTENSION_PREFIX, KML_22_EXT_NAMESPACE_URI);
+            writeStartElement(1, "Document");
+            writeElement(2, KML_22_NAMESPACE_URI, "name", documentName);
+            writeElement(2, KML_22_NAMESPACE_URI, "open", "true");
+            writeElement(2, KML_22_NAMESPACE_URI, "description", documentDescription);
+            writeStartElement(2, "Style");
+            writer.writeAttribute("id", TRACK_LINE_STYLE);
+            writeStartElement(3, "LineStyle");
+            writeElement(4, KML_22_NAMESPACE_URI, "color", encodeBytes(format.getTrackLineColor()));
+            writeElement(4, KML_22_NAMESPACE_URI, "width", Double.toString(format.getLineWidth()));
+            writeEndElement(3);
+            writeEndElement(2);
+            writeStartElement(2, "Placemark");
+            writeElement(3, KML_22_NAMESPACE_URI, "name", TRACK);
+            writeElement(3, KML_22_NAMESPACE_URI, "styleUrl", "#" + TRACK_LINE_STYLE);
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        }
+    }
+
+    private void writeIndentation(int depth) throws XMLStreamException {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++)
+            writer.writeCharacters(INDENTATION);
+    }
+
+    private void writeStartElement(int depth, String localName) throws XMLStreamException {
+        writeIndentation(depth);
+        writer.writeStartElement(KML_22_NAMESPACE_URI, localName);
+    }
+
+    private void writeEndElement(int depth) throws XMLStreamException {
+        writeIndentation(depth);
+        writer.writeEndElement();
+    }
+
+    private void writeElement(int depth, String elementNamespaceUri, String localName, String value) throws XMLStreamException {
+        if (value == null)
+            return;
+        writeIndentation(depth);
+        writer.writeStartElement(elementNamespaceUri, localName);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private void writeGeometry(boolean track) throws XMLStreamException {
+        this.geometry = true;
+        this.track = track;
+        if (track) {
+            writeIndentation(3);
+            writer.writeStartElement(KML_22_EXT_NAMESPACE_URI, "Track");
+        } else {
+            writeStartElement(3, "LineString");
+            writeStartElement(4, "coordinates");
+        }
+    }
+
+    public void consume(BaseNavigationPosition position) throws IOException {
+        KmlPosition kmlPosition = position.asKmlPosition();
+        try {
+            if (!geometry)
+                writeGeometry(kmlPosition.hasTime());
+
+            if (track) {
+                writeElement(4, KML_22_NAMESPACE_URI, "when", kmlPosition.hasTime() ? ISO8601.format(kmlPosition.getTime()) : "");
+                writeElement(4, KML_22_EXT_NAMESPACE_URI, "coord", format.createCoordinates(kmlPosition, true));
+            } else {
+                writeIndentation(5);
+                writer.writeCharacters(format.createCoordinates(kmlPosition, false));
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            if (geometry) {
+                if (!track)
+                    writeEndElement(4);
+                writeEndElement(3);
+            }
+            writeEndElement(2);
+            writeEndElement(1);
+            writeEndElement(0);
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Error while marshalling: " + e.getMessage());
+        } finally {
+            target.close();
+        }
+    }
+}
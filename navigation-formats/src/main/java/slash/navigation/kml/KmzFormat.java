@@ -24,7 +24,10 @@ import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.common.type.CompactCalendar;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.StreamingNavigationFormat;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -42,7 +45,7 @@ import java.util.zip.ZipOutputStream;
  * @author Christian Pesch
  */
 
-public abstract class KmzFormat extends BaseKmlFormat {
+public abstract class KmzFormat extends BaseKmlFormat implements StreamingNavigationFormat<KmlRoute> {
     private KmlFormat delegate;
 
     protected KmzFormat(KmlFormat delegate) {
@@ -77,6 +80,33 @@ public abstract class KmzFormat extends BaseKmlFormat {
         }
     }
 
+    public boolean isSupportsStreamingRead() {
+        return delegate instanceof StreamingNavigationFormat && ((StreamingNavigationFormat) delegate).isSupportsStreamingRead();
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return delegate instanceof StreamingNavigationFormat && ((StreamingNavigationFormat) delegate).isSupportsStreamingWrite();
+    }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        ZipInputStream zip = new ZipInputStream(source);
+        try {
+            while ((zip.getNextEntry()) != null) {
+                ((StreamingNavigationFormat) delegate).readPositions(new NotClosingUnderlyingInputStream(zip), startDate, consumer);
+                zip.closeEntry();
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        ZipOutputStream outputStream = new ZipOutputStream(target);
+        outputStream.putNextEntry(new ZipEntry("doc.kml"));
+        // closing the writer finishes the entry and the archive
+        return ((StreamingNavigationFormat) delegate).createPositionWriter(name, outputStream);
+    }
+
     private void writeIntermediate(OutputStream target, byte[] bytes) throws IOException {
         CRC32 crc = new CRC32();
         crc.reset();
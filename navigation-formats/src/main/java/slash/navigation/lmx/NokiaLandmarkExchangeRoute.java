@@ -75,7 +75,7 @@ public class NokiaLandmarkExchangeRoute extends BaseRoute<Wgs84Position, NokiaLa
         super(new NokiaLandmarkExchangeFormat(), Waypoints);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = countModifications(positions);
         this.lmx = lmx;
     }
 
@@ -71,7 +71,7 @@ public class MagicMapsIktRoute extends BaseRoute<Wgs84Position, MagicMapsIktForm
         super(format, Route);
         this.name = name;
         this.description = description;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public MagicMapsIktRoute(String name, List<String> description, List<Wgs84Position> positions) {
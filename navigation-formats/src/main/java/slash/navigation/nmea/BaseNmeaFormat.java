@@ -21,32 +21,39 @@
 package slash.navigation.nmea;
 
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.SimpleFormat;
+import slash.navigation.base.StreamingNavigationFormat;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.util.Locale.US;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
 import static slash.common.io.Transfer.isEmpty;
 import static slash.common.io.Transfer.trim;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
 import static slash.common.type.CompactCalendar.createDateFormat;
 import static slash.common.type.CompactCalendar.fromDate;
+import static slash.common.type.CompactCalendar.fromMillis;
 import static slash.common.type.CompactCalendar.parseDate;
-import static slash.common.type.HexadecimalNumber.decodeBytes;
 import static slash.common.type.HexadecimalNumber.encodeByte;
 import static slash.navigation.base.RouteCharacteristics.Track;
 
@@ -56,15 +63,17 @@ import static slash.navigation.base.RouteCharacteristics.Track;
  * @author Christian Pesch
  */
 
-public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
+public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> implements StreamingNavigationFormat<NmeaRoute> {
     private static final Preferences preferences = Preferences.userNodeForPackage(BaseNmeaFormat.class);
     protected static Logger log = Logger.getLogger(BaseNmeaFormat.class.getName());
 
     static final char SEPARATOR = ',';
-    static final String BEGIN_OF_LINE = "^\\$GP";
-    static final String END_OF_LINE = "\\*[0-9A-Fa-f][0-9A-Fa-f]$";
 
-    private static final Pattern LINE_PATTERN = Pattern.compile("(^@.*|^\\$.*|" + BEGIN_OF_LINE + ".*" + END_OF_LINE + ")");
+    private static final ThreadLocal<NmeaSentence> sentences = new ThreadLocal<NmeaSentence>() {
+        protected NmeaSentence initialValue() {
+            return new NmeaSentence();
+        }
+    };
 
     private static final String DATE_AND_PRECISE_TIME_FORMAT = "ddMMyy HHmmss.SSS";
     private static final String PRECISE_DATE_AND_TIME_FORMAT = "ddMMyyyy HHmmss";
@@ -72,20 +81,28 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     private static final String DATE_FORMAT = "ddMMyy";
     private static final String PRECISE_TIME_FORMAT = "HHmmss.SSS";
     private static final String TIME_FORMAT = "HHmmss";
-    private static final NumberFormat LONGITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    private static final NumberFormat LATITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    static {
-        LONGITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LONGITUDE_NUMBER_FORMAT.setMinimumFractionDigits(4);
-        LONGITUDE_NUMBER_FORMAT.setMaximumFractionDigits(4);
-        LONGITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(5);
-        LATITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LATITUDE_NUMBER_FORMAT.setMinimumFractionDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumFractionDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(4);
-    }
+    private static final ThreadLocal<NumberFormat> LONGITUDE_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(4);
+            format.setMaximumFractionDigits(4);
+            format.setMinimumIntegerDigits(5);
+            format.setMaximumIntegerDigits(5);
+            return format;
+        }
+    };
+    private static final ThreadLocal<NumberFormat> LATITUDE_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(4);
+            format.setMaximumFractionDigits(4);
+            format.setMinimumIntegerDigits(4);
+            format.setMaximumIntegerDigits(4);
+            return format;
+        }
+    };
 
     public int getMaximumPositionCount() {
         return UNLIMITED_MAXIMUM_POSITION_COUNT;
@@ -100,8 +117,18 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     }
 
     public void read(BufferedReader reader, CompactCalendar startDate, String encoding, ParserContext<NmeaRoute> context) throws IOException {
-        List<NmeaPosition> positions = new ArrayList<NmeaPosition>();
+        final List<NmeaPosition> positions = new ArrayList<NmeaPosition>();
+        boolean valid = read(reader, startDate, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add((NmeaPosition) position);
+            }
+        });
 
+        if (valid && positions.size() > 0)
+            context.appendRoute(createRoute(getCharacteristics(), null, positions));
+    }
+
+    private boolean read(BufferedReader reader, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
         CompactCalendar originalStartDate = startDate;
         int lineCount = 0;
         NmeaPosition previous = null;
@@ -122,7 +149,9 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
                         position.setStartDate(startDate);
 
                     if (haveDifferentLongitudeAndLatitude(previous, position) || haveDifferentTime(previous, position) && !validStartDate) {
-                        positions.add(position);
+                        // the previous position is complete once the next one differs from it
+                        if (previous != null)
+                            consumer.consume(previous);
                         previous = position;
                     } else {
                         mergePositions(previous, position, originalStartDate);
@@ -131,12 +160,48 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             } else {
                 // exception for Mobile Navigator 6: accept that the first line may be garbled
                 if (lineCount++ > getGarbleCount())
-                    return;
+                    return false;
             }
         }
 
-        if (positions.size() > 0)
-            context.appendRoute(createRoute(getCharacteristics(), null, positions));
+        if (previous != null)
+            consumer.consume(previous);
+        return true;
+    }
+
+    public boolean isSupportsStreamingRead() {
+        return isSupportsReading();
+    }
+
+    public boolean isSupportsStreamingWrite() {
+        return isSupportsWriting() && getMaximumPositionCount() == UNLIMITED_MAXIMUM_POSITION_COUNT;
+    }
+
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, ISO_LATIN1_ENCODING));
+        try {
+            if (!read(reader, startDate, consumer))
+                throw new IOException("Stopped reading " + getName() + " at an invalid line");
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        final PrintWriter writer = new PrintWriter(new OutputStreamWriter(target, ISO_LATIN1_ENCODING));
+        writeHeader(writer);
+        return new PositionWriter() {
+            public void consume(BaseNavigationPosition position) {
+                writePosition((NmeaPosition) position, writer);
+            }
+
+            public void close() {
+                writeFooter(writer);
+                writer.flush();
+                writer.close();
+            }
+        };
     }
 
     boolean haveDifferentLongitudeAndLatitude(NmeaPosition predecessor, NmeaPosition successor) {
@@ -172,7 +237,7 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
             position.setLongitudeAsValueAndOrientation(toBeMergedInto.getLongitudeAsValueAndOrientation());
         if (toBeMergedInto.hasTime() &&
                 (!position.hasTime() || isStartDateEqual(position.getTime(), originalStartDate) ||
-                        position.getTime().getCalendar().before(toBeMergedInto.getTime().getCalendar())))
+                        position.getTime().getTimeInMillis() < toBeMergedInto.getTime().getTimeInMillis()))
             position.setTime(toBeMergedInto.getTime());
         if (isEmpty(position.getHdop()) && !isEmpty(toBeMergedInto.getHdop()))
             position.setHdop(toBeMergedInto.getHdop());
@@ -187,16 +252,27 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     private boolean isStartDateEqual(CompactCalendar compactCalendar1, CompactCalendar compactCalendar2) {
         if (compactCalendar1 == null || compactCalendar2 == null)
             return false;
-        Calendar calendar1 = compactCalendar1.getCalendar();
-        Calendar calendar2 = compactCalendar2.getCalendar();
-        return calendar1.get(Calendar.YEAR) == calendar2.get(Calendar.YEAR) &&
-                calendar1.get(Calendar.MONTH) == calendar2.get(Calendar.MONTH) &&
-                calendar1.get(Calendar.DAY_OF_MONTH) == calendar2.get(Calendar.DAY_OF_MONTH);
+        return compactCalendar1.getDaysSinceEpoch() == compactCalendar2.getDaysSinceEpoch();
     }
 
     protected boolean isValidLine(String line) {
-        Matcher matcher = LINE_PATTERN.matcher(line);
-        return matcher.matches();
+        if (line.length() == 0 || line.charAt(0) != '@' && line.charAt(0) != '$')
+            return false;
+        // like the . of a regular expression, a line must not contain line terminators
+        for (int i = 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\r' || c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+                return false;
+        }
+        return true;
+    }
+
+    NmeaSentence tokenize(String line) {
+        NmeaSentence sentence = sentences.get();
+        // isPosition() and parsePosition() are called for the same line one after another
+        if (sentence.getLine() != line)
+            sentence.tokenize(line);
+        return sentence;
     }
 
     private byte computeChecksum(String line) {
@@ -207,21 +283,21 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
         return result;
     }
 
-    protected boolean hasValidChecksum(String line) {
-        String lineForChecksum = line.substring(1, line.length() - 3);
-        byte expected = computeChecksum(lineForChecksum);
-        String actualStr = line.substring(line.length() - 2);
-        byte[] actual = decodeBytes(actualStr);
-        if (actual.length != 1 || actual[0] != expected) {
-            String expectedStr = encodeByte(expected);
-            log.severe("Checksum of '" + line + "' is invalid. Expected '" + expectedStr + "' but found '" + actualStr + "'");
+    boolean hasValidChecksum(NmeaSentence sentence) {
+        if (!sentence.hasValidChecksum()) {
+            log.severe("Checksum of '" + sentence.getLine() + "' is invalid. Expected '" + encodeByte(sentence.getChecksum()) +
+                    "' but found '" + encodeByte(sentence.getTransmittedChecksum()) + "'");
             return preferences.getBoolean("ignoreInvalidChecksum", false);
         }
         return true;
     }
 
     protected boolean hasValidFix(String line, String field, String valueThatIndicatesNoFix) {
-        if (field != null && field.equals(valueThatIndicatesNoFix)) {
+        return hasValidFix(line, field != null && field.equals(valueThatIndicatesNoFix), valueThatIndicatesNoFix);
+    }
+
+    protected boolean hasValidFix(String line, boolean noFix, String valueThatIndicatesNoFix) {
+        if (noFix) {
             log.severe("Fix for '" + line + "' is invalid. Contains '" + valueThatIndicatesNoFix + "'");
             return preferences.getBoolean("ignoreInvalidFix", false);
         }
@@ -272,6 +348,25 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     }
 
 
+    CompactCalendar parseTime(NmeaSentence sentence, int timeIndex) {
+        long timeOfDay = sentence.getTimeOfDay(timeIndex);
+        if (timeOfDay != NOT_CANONICAL)
+            return fromMillis(timeOfDay);
+        return parseTime(sentence.getString(timeIndex));
+    }
+
+    CompactCalendar parseDateAndTime(NmeaSentence sentence, int dateIndex, int timeIndex) {
+        long timeOfDay = sentence.getTimeOfDay(timeIndex);
+        if (timeOfDay != NOT_CANONICAL) {
+            if (sentence.isEmpty(dateIndex))
+                return fromMillis(timeOfDay);
+            long date = sentence.getDate(dateIndex);
+            if (date != NOT_CANONICAL)
+                return fromMillis(date + timeOfDay);
+        }
+        return parseDateAndTime(sentence.getString(dateIndex), sentence.getString(timeIndex));
+    }
+
     protected String formatTime(CompactCalendar time) {
         if (time == null)
             return "";
@@ -287,13 +382,13 @@ public abstract class BaseNmeaFormat extends SimpleFormat<NmeaRoute> {
     protected String formatLongitude(Double longitude) {
         if (longitude == null)
             return "";
-        return LONGITUDE_NUMBER_FORMAT.format(longitude);
+        return LONGITUDE_NUMBER_FORMAT.get().format(longitude);
     }
 
     protected String formatLatitude(Double latitude) {
         if (latitude == null)
             return "";
-        return LATITUDE_NUMBER_FORMAT.format(latitude);
+        return LATITUDE_NUMBER_FORMAT.get().format(latitude);
     }
 
     protected void writeSentence(PrintWriter writer, String sentence) {
@@ -10,13 +10,12 @@ import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static slash.common.io.Transfer.escape;
-import static slash.common.io.Transfer.parseDouble;
 import static slash.common.io.Transfer.toMixedCase;
 import static slash.common.io.Transfer.trim;
+import static slash.navigation.nmea.NmeaSentence.DIGITS;
+import static slash.navigation.nmea.NmeaSentence.DIGITS_AND_DOT;
 
 /**
  * Reads and writes Magellan Explorist (.log) files.
@@ -34,27 +33,18 @@ public class MagellanExploristFormat extends BaseNmeaFormat {
 
     private static final String HEADER_LINE = "$PMGNFMT,%TRK,LAT,HEMI,LON,HEMI,ALT,UNIT,TIME,VALID,NAME,%META,ASCII";
     
-    private static final Pattern TRK_PATTERN = Pattern.
-            compile("^\\$PMGNTRK" + SEPARATOR +
-                    "([\\d\\.]+)" + SEPARATOR + "([NS])" + SEPARATOR +
-                    "([\\d\\.]+)" + SEPARATOR + "([WE])" + SEPARATOR +
-                    "(-?[\\d\\.]+)" + SEPARATOR +
-                    "M" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +     // UTC Time, hhmmss
-                    "[A]" + SEPARATOR +
-                    "(.*)" + SEPARATOR +            // description,
-                    "(\\d*)" +                      // Date, ddmmyy
-                    END_OF_LINE);
-
-    private static final NumberFormat ALTITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
 
-    static {
-        ALTITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        ALTITUDE_NUMBER_FORMAT.setMinimumFractionDigits(0);
-        ALTITUDE_NUMBER_FORMAT.setMaximumFractionDigits(0);
-        ALTITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(6);
-        ALTITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(6);
-    }
+    private static final ThreadLocal<NumberFormat> ALTITUDE_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(Locale.US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(0);
+            format.setMaximumFractionDigits(0);
+            format.setMinimumIntegerDigits(6);
+            format.setMaximumIntegerDigits(6);
+            return format;
+        }
+    };
 
     public String getExtension() {
         return ".log";
@@ -69,24 +59,31 @@ public class MagellanExploristFormat extends BaseNmeaFormat {
         return new NmeaRoute(this, characteristics, (List<NmeaPosition>) positions);
     }
 
+    private boolean isTRK(NmeaSentence sentence) {
+        int dateIndex = sentence.getFieldCount() - 1;
+        return sentence.isSentence("PMGNTRK") && sentence.getFieldCount() >= 11 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, true) && sentence.isCharacter(2, "NS") &&
+                sentence.hasCharacters(3, DIGITS_AND_DOT, true) && sentence.isCharacter(4, "WE") &&
+                sentence.hasSignedCharacters(5, DIGITS_AND_DOT, true) &&
+                sentence.isField(6, "M") &&
+                sentence.hasCharacters(7, DIGITS_AND_DOT, false) &&     // UTC Time, hhmmss
+                sentence.isField(8, "A") &&
+                // description from field 9 up to the date
+                sentence.hasCharacters(dateIndex, DIGITS, false);      // Date, ddmmyy
+    }
+
     protected boolean isPosition(String line) {
-        Matcher matcher = TRK_PATTERN.matcher(line);
-        return matcher.matches() && hasValidChecksum(line);
+        NmeaSentence sentence = tokenize(line);
+        return isTRK(sentence) && hasValidChecksum(sentence);
     }
 
     protected NmeaPosition parsePosition(String line) {
-        Matcher matcher = TRK_PATTERN.matcher(line);
-        if (matcher.matches()) {
-            String latitude = matcher.group(1);
-            String northOrSouth = matcher.group(2);
-            String longitude = matcher.group(3);
-            String westOrEast = matcher.group(4);
-            String altitude = matcher.group(5);
-            String time = matcher.group(6);
-            String description = toMixedCase(matcher.group(7));
-            String date = matcher.group(8);
-            return new NmeaPosition(parseDouble(longitude), westOrEast, parseDouble(latitude), northOrSouth,
-                    parseDouble(altitude), null, null, parseDateAndTime(date, time), trim(description));
+        NmeaSentence sentence = tokenize(line);
+        if (isTRK(sentence)) {
+            int dateIndex = sentence.getFieldCount() - 1;
+            String description = toMixedCase(sentence.getString(9, dateIndex - 1));
+            return new NmeaPosition(sentence.getDouble(3), sentence.getOrientation(4), sentence.getDouble(1), sentence.getOrientation(2),
+                    sentence.getDouble(5), null, null, parseDateAndTime(sentence, dateIndex, 7), trim(description));
         }
 
         throw new IllegalArgumentException("'" + line + "' does not match");
@@ -99,7 +96,7 @@ public class MagellanExploristFormat extends BaseNmeaFormat {
     private String formatAltitude(Double aDouble) {
         if (aDouble == null)
             return "0";
-        return ALTITUDE_NUMBER_FORMAT.format(aDouble);
+        return ALTITUDE_NUMBER_FORMAT.get().format(aDouble);
     }
 
     protected void writePosition(NmeaPosition position, PrintWriter writer) {
@@ -31,15 +31,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static slash.common.io.Transfer.ceiling;
 import static slash.common.io.Transfer.escape;
 import static slash.common.io.Transfer.formatIntAsString;
-import static slash.common.io.Transfer.parseDouble;
 import static slash.common.io.Transfer.toMixedCase;
 import static slash.common.io.Transfer.trim;
+import static slash.navigation.nmea.NmeaSentence.DIGITS_AND_DOT;
 import static slash.navigation.base.RouteCharacteristics.Route;
 
 /**
@@ -58,35 +56,31 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
     }
     private static final Preferences preferences = Preferences.userNodeForPackage(MagellanRouteFormat.class);
 
-    private static final NumberFormat LONGITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-    private static final NumberFormat LATITUDE_NUMBER_FORMAT = DecimalFormat.getNumberInstance(Locale.US);
-
-    static {
-        LONGITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LONGITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumFractionDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(5);
-        LONGITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(5);
-        LATITUDE_NUMBER_FORMAT.setGroupingUsed(false);
-        LATITUDE_NUMBER_FORMAT.setMinimumFractionDigits(5);
-        LATITUDE_NUMBER_FORMAT.setMaximumFractionDigits(5);
-        LATITUDE_NUMBER_FORMAT.setMinimumIntegerDigits(4);
-        LATITUDE_NUMBER_FORMAT.setMaximumIntegerDigits(4);
-    }
+    private static final ThreadLocal<NumberFormat> LONGITUDE_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(Locale.US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(5);
+            format.setMaximumFractionDigits(5);
+            format.setMinimumIntegerDigits(5);
+            format.setMaximumIntegerDigits(5);
+            return format;
+        }
+    };
+    private static final ThreadLocal<NumberFormat> LATITUDE_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(Locale.US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(5);
+            format.setMaximumFractionDigits(5);
+            format.setMinimumIntegerDigits(4);
+            format.setMaximumIntegerDigits(4);
+            return format;
+        }
+    };
 
     private static final String HEADER_LINE = "$PMGNFMT,%RTE,NUM_MSG,ID,FLAG,NUM,NAME,WPT_NAME1,ICON1,WPT_NAME2,ICON2,CHKSUM ?%WPL,LAT,HEMI,LON,HEMI,ALT,UNIT,NAME,MSG,ICON,CHKSUM,%META,ASCII";
 
-    private static final Pattern WPL_PATTERN = Pattern.
-            compile("^\\$PMGNWPL" + SEPARATOR +
-                    "([\\d\\.]+)" + SEPARATOR + "([NS])" + SEPARATOR +
-                    "([\\d\\.]+)" + SEPARATOR + "([WE])" + SEPARATOR +
-                    "(-?[\\d\\.]+)" + SEPARATOR +
-                    "M" + SEPARATOR +
-                    "([^" + SEPARATOR + "]*)" + SEPARATOR +          // description
-                    "[^" + SEPARATOR + "]*" + SEPARATOR +            // copy of the description above
-                    "a" +
-                    END_OF_LINE);
-
     public String getExtension() {
         return ".rte";
     }
@@ -99,6 +93,11 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
         return Route;
     }
 
+    public boolean isSupportsStreamingWrite() {
+        // the route lines are written after all positions
+        return false;
+    }
+
     public int getMaximumPositionCount() {
         return preferences.getInt("maximumMagellanRoutePositionCount", 49);
     }
@@ -108,22 +107,27 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
         return new NmeaRoute(this, characteristics, (List<NmeaPosition>) positions);
     }
 
+    private boolean isWPL(NmeaSentence sentence) {
+        return sentence.isSentence("PMGNWPL") && sentence.getFieldCount() == 10 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, true) && sentence.isCharacter(2, "NS") &&
+                sentence.hasCharacters(3, DIGITS_AND_DOT, true) && sentence.isCharacter(4, "WE") &&
+                sentence.hasSignedCharacters(5, DIGITS_AND_DOT, true) &&
+                sentence.isField(6, "M") &&
+                // field 7 is the description and field 8 a copy of it
+                sentence.isField(9, "a");
+    }
+
     protected boolean isPosition(String line) {
-        Matcher matcher = WPL_PATTERN.matcher(line);
-        return matcher.matches() && hasValidChecksum(line);
+        NmeaSentence sentence = tokenize(line);
+        return isWPL(sentence) && hasValidChecksum(sentence);
     }
 
     protected NmeaPosition parsePosition(String line) {
-        Matcher matcher = WPL_PATTERN.matcher(line);
-        if (matcher.matches()) {
-            String latitude = matcher.group(1);
-            String northOrSouth = matcher.group(2);
-            String longitude = matcher.group(3);
-            String westOrEast = matcher.group(4);
-            String altitude = matcher.group(5);
-            String description = toMixedCase(matcher.group(6));
-            return new NmeaPosition(parseDouble(longitude), westOrEast, parseDouble(latitude), northOrSouth,
-                    parseDouble(altitude), null, null, null, trim(description));
+        NmeaSentence sentence = tokenize(line);
+        if (isWPL(sentence)) {
+            String description = toMixedCase(sentence.getString(7));
+            return new NmeaPosition(sentence.getDouble(3), sentence.getOrientation(4), sentence.getDouble(1), sentence.getOrientation(2),
+                    sentence.getDouble(5), null, null, null, trim(description));
         }
         throw new IllegalArgumentException("'" + line + "' does not match");
     }
@@ -132,13 +136,13 @@ public class MagellanRouteFormat extends BaseNmeaFormat {
     protected String formatLongitude(Double longitude) {
         if (longitude == null)
             return "";
-        return LONGITUDE_NUMBER_FORMAT.format(longitude);
+        return LONGITUDE_NUMBER_FORMAT.get().format(longitude);
     }
 
     protected String formatLatitude(Double latitude) {
         if (latitude == null)
             return "";
-        return LATITUDE_NUMBER_FORMAT.format(latitude);
+        return LATITUDE_NUMBER_FORMAT.get().format(latitude);
     }
 
     String formatRouteName(String name) {
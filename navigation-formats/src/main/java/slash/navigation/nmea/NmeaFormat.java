@@ -30,18 +30,20 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.util.Locale.US;
 import static slash.common.io.Transfer.escape;
 import static slash.common.io.Transfer.formatIntAsString;
-import static slash.common.io.Transfer.parseDouble;
-import static slash.common.io.Transfer.parseInt;
 import static slash.common.io.Transfer.trim;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
 import static slash.common.type.CompactCalendar.createDateFormat;
+import static slash.common.type.CompactCalendar.fromMillis;
 import static slash.navigation.common.UnitConversion.kilometerToNauticMiles;
 import static slash.navigation.common.UnitConversion.nauticMilesToKilometer;
+import static slash.navigation.nmea.NmeaSentence.DIGITS;
+import static slash.navigation.nmea.NmeaSentence.DIGITS_AND_DOT;
+import static slash.navigation.nmea.NmeaSentence.GEOID_SEPARATION;
+import static slash.navigation.nmea.NmeaSentence.WHITESPACE_DIGITS_AND_DOT;
 
 /**
  * Reads and writes NMEA 0183 Sentences (.nmea) files.
@@ -56,110 +58,144 @@ public class NmeaFormat extends BaseNmeaFormat {
         log = Logger.getLogger(NmeaFormat.class.getName());
     }
 
-    private static final NumberFormat ALTITUDE_AND_SPEED_NUMBER_FORMAT = DecimalFormat.getNumberInstance(US);
-    static {
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setGroupingUsed(false);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMinimumFractionDigits(1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMaximumFractionDigits(1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMinimumIntegerDigits(1);
-        ALTITUDE_AND_SPEED_NUMBER_FORMAT.setMaximumIntegerDigits(6);
-    }
+    private static final ThreadLocal<NumberFormat> ALTITUDE_AND_SPEED_NUMBER_FORMAT = new ThreadLocal<NumberFormat>() {
+        protected NumberFormat initialValue() {
+            NumberFormat format = DecimalFormat.getNumberInstance(US);
+            format.setGroupingUsed(false);
+            format.setMinimumFractionDigits(1);
+            format.setMaximumFractionDigits(1);
+            format.setMinimumIntegerDigits(1);
+            format.setMaximumIntegerDigits(6);
+            return format;
+        }
+    };
 
     private static final String DAY_FORMAT = "dd";
     private static final String MONTH_FORMAT = "MM";
     private static final String YEAR_FORMAT = "yyyy";
 
+    private static final char NO_SIGNAL_INTEGRITY = ' ';
+    private static final char NO_MATCH = 0;
+
     // $GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D
     // $GPGGA,162611,3554.2367,N,10619.4966,W,1,03,06.7,02300.3,M,-022.4,M,,*7F
     // $GPGGA,132713,5509.7861,N,00140.5854,W,1,07,1.0,98.9,M,,M,,*7d
-    private static final Pattern GGA_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "GGA" + SEPARATOR + "([\\d\\.]*)" + SEPARATOR +
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([NS])" + SEPARATOR +
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([WE])" + SEPARATOR +
-                    "([\\d+])" + SEPARATOR +         // Fix quality, 0=invalid
-                    "([\\d]*)" + SEPARATOR +         // Number of satellites in view, 00 - 12
-                    "[\\d\\.]*" + SEPARATOR +
-                    "(-?[\\d\\.]*)" + SEPARATOR +    // Antenna Altitude above/below mean-sea-level (geoid)
-                    "M" + SEPARATOR +
-                    "[-?\\d\\.]*" + SEPARATOR +
-                    "M?" + SEPARATOR +
-                    ".*" + SEPARATOR +
-                    ".*" +                           // Differential reference station ID, 0000-1023
-                    END_OF_LINE);
+    private boolean isGGA(NmeaSentence sentence) {
+        return sentence.isSentence("GPGGA") && sentence.getFieldCount() >= 15 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, false) &&                // UTC Time
+                sentence.hasCharacters(2, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(3, "NS") &&
+                sentence.hasCharacters(4, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(5, "WE") &&
+                sentence.isCharacter(6, "0123456789+") &&                          // Fix quality, 0=invalid
+                sentence.hasCharacters(7, DIGITS, false) &&                        // Number of satellites in view, 00 - 12
+                sentence.hasCharacters(8, DIGITS_AND_DOT, false) &&
+                sentence.hasSignedCharacters(9, DIGITS_AND_DOT, false) &&          // Antenna Altitude above/below mean-sea-level (geoid)
+                sentence.isField(10, "M") &&
+                sentence.hasCharacters(11, GEOID_SEPARATION, false) &&
+                sentence.isOptionalCharacter(12, "M");                             // followed by the differential reference station ID
+    }
 
     // $GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,   ,A*76
     // $GPRMC,140403.000,A,4837.5194,N,00903.4022,E,15.00,0.00,260707,,  *3E
     // $GPRMC,172103.38,V,4424.5358,N,06812.3754,W,0.000,0.000,101010,0,W,N*3A
-    private static final Pattern RMC_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "RMC" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +     // UTC Time
-                    "[AV]" + SEPARATOR +            // Status, A=active, V=void
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([NS])" + SEPARATOR +
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([EW])" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +     // Speed over ground, knots
-                    "[\\d\\.]*" + SEPARATOR +
-                    "(\\d*)" + SEPARATOR +          // Date, ddmmyy
-                    "[\\d\\.]*" + SEPARATOR +
-                    "[\\d\\.]*" + SEPARATOR + "?" + // Magnetic variation
-                    "[AEW]?" + SEPARATOR + "?" +    // E=East, W=West
-                    "([ADEMNS])?" +                 // Signal integrity, N=not valid
-                    END_OF_LINE);
+    private boolean isRMC(NmeaSentence sentence) {
+        return sentence.isSentence("GPRMC") && sentence.getFieldCount() >= 12 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, false) &&                // UTC Time
+                sentence.isCharacter(2, "AV") &&                                   // Status, A=active, V=void
+                sentence.hasCharacters(3, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(4, "NS") &&
+                sentence.hasCharacters(5, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(6, "EW") &&
+                sentence.hasCharacters(7, DIGITS_AND_DOT, false) &&                // Speed over ground, knots
+                sentence.hasCharacters(8, DIGITS_AND_DOT, false) &&
+                sentence.hasCharacters(9, DIGITS, false) &&                        // Date, ddmmyy
+                sentence.hasCharacters(10, DIGITS_AND_DOT, false) &&
+                getRMCSignalIntegrity(sentence) != NO_MATCH;
+    }
+
+    /**
+     * Matches the magnetic variation, its direction E=East, W=West and the signal integrity
+     * N=not valid at the end of a RMC sentence like <code>[\d\.]*,?[AEW]?,?([ADEMNS])?</code> would.
+     *
+     * @param sentence the RMC sentence
+     * @return the signal integrity, {@link #NO_SIGNAL_INTEGRITY} or {@link #NO_MATCH}
+     */
+    private char getRMCSignalIntegrity(NmeaSentence sentence) {
+        String line = sentence.getLine();
+        int start = sentence.getStart(11), end = sentence.getBodyEnd();
+        while (start < end && isDigitOrDot(line.charAt(start)))
+            start++;
+
+        // try the optional parts present before absent like the backtracking of a regular expression
+        for (int absent = 0; absent < 16; absent++) {
+            int position = start;
+            if ((absent & 8) == 0) {
+                if (position < end && line.charAt(position) == SEPARATOR) position++; else continue;
+            }
+            if ((absent & 4) == 0) {
+                if (position < end && "AEW".indexOf(line.charAt(position)) != -1) position++; else continue;
+            }
+            if ((absent & 2) == 0) {
+                if (position < end && line.charAt(position) == SEPARATOR) position++; else continue;
+            }
+            char signalIntegrity = NO_SIGNAL_INTEGRITY;
+            if ((absent & 1) == 0) {
+                if (position < end && "ADEMNS".indexOf(line.charAt(position)) != -1) signalIntegrity = line.charAt(position++); else continue;
+            }
+            if (position == end)
+                return signalIntegrity;
+        }
+        return NO_MATCH;
+    }
+
+    private static boolean isDigitOrDot(char c) {
+        return c >= '0' && c <= '9' || c == '.';
+    }
 
     // $GPWPL,5334.169,N,01001.920,E,STATN1*22
-    private static final Pattern WPL_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "WPL" + SEPARATOR +
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([NS])" + SEPARATOR +
-                    "([\\s\\d\\.]+)" + SEPARATOR + "([WE])" + SEPARATOR +
-                    "(.*)" +
-                    END_OF_LINE);
+    private boolean isWPL(NmeaSentence sentence) {
+        return sentence.isSentence("GPWPL") && sentence.getFieldCount() >= 6 &&
+                sentence.hasCharacters(1, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(2, "NS") &&
+                sentence.hasCharacters(3, WHITESPACE_DIGITS_AND_DOT, true) && sentence.isCharacter(4, "WE");
+    }
 
     // $GPZDA,032910.542,07,08,2004,00,00*48
-    private static final Pattern ZDA_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "ZDA" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR + // UTC Time
-                    "(\\d*)" + SEPARATOR +      // day
-                    "(\\d*)" + SEPARATOR +      // month
-                    "(\\d*)" + SEPARATOR +      // year
-                    "\\d*" + SEPARATOR +
-                    "\\d*" +
-                    END_OF_LINE);
+    private boolean isZDA(NmeaSentence sentence) {
+        return sentence.isSentence("GPZDA") && sentence.getFieldCount() == 7 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, false) &&                // UTC Time
+                sentence.hasCharacters(2, DIGITS, false) &&                        // day
+                sentence.hasCharacters(3, DIGITS, false) &&                        // month
+                sentence.hasCharacters(4, DIGITS, false) &&                        // year
+                sentence.hasCharacters(5, DIGITS, false) &&
+                sentence.hasCharacters(6, DIGITS, false);
+    }
 
     // $GPVTG,0.00,T,,M,1.531,N,2.835,K,A*37
     // $GPVTG,138.7,T,,M,014.2,N,026.3,K,A*00
-    private static final Pattern VTG_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "VTG" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +   // true course
-                    "T" + SEPARATOR +
-                    "[\\d\\.]*" + SEPARATOR +     // magnetic course
-                    "M" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +
-                    "N" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +
-                    "K" + SEPARATOR +
-                    "A" +
-                    END_OF_LINE);
+    private boolean isVTG(NmeaSentence sentence) {
+        return sentence.isSentence("GPVTG") && sentence.getFieldCount() == 10 &&
+                sentence.hasCharacters(1, DIGITS_AND_DOT, false) &&                // true course
+                sentence.isField(2, "T") &&
+                sentence.hasCharacters(3, DIGITS_AND_DOT, false) &&                // magnetic course
+                sentence.isField(4, "M") &&
+                sentence.hasCharacters(5, DIGITS_AND_DOT, false) &&
+                sentence.isField(6, "N") &&
+                sentence.hasCharacters(7, DIGITS_AND_DOT, false) &&
+                sentence.isField(8, "K") &&
+                sentence.isField(9, "A");
+    }
 
     // $GPGSA,A,3,,,,15,17,18,23,,,,,,4.7,4.4,1.5*3F
-    private static final Pattern GSA_PATTERN = Pattern.
-            compile(BEGIN_OF_LINE + "GSA" + SEPARATOR +
-                    "[AM]" + SEPARATOR +
-                    "([123])" + SEPARATOR +      // Fix, 1=Fix not available
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "\\d*" + SEPARATOR +
-                    "([\\d\\.]*)" + SEPARATOR +  // PDOP
-                    "([\\d\\.]*)" + SEPARATOR +  // HDOP
-                    "([\\d\\.]*)" +              // VDOP
-                    END_OF_LINE);
+    private boolean isGSA(NmeaSentence sentence) {
+        if (!(sentence.isSentence("GPGSA") && sentence.getFieldCount() == 18 &&
+                sentence.isCharacter(1, "AM") &&
+                sentence.isCharacter(2, "123")))                                   // Fix, 1=Fix not available
+            return false;
+        for (int i = 3; i < 15; i++) {
+            if (!sentence.hasCharacters(i, DIGITS, false))
+                return false;
+        }
+        return sentence.hasCharacters(15, DIGITS_AND_DOT, false) &&               // PDOP
+                sentence.hasCharacters(16, DIGITS_AND_DOT, false) &&               // HDOP
+                sentence.hasCharacters(17, DIGITS_AND_DOT, false);                 // VDOP
+    }
 
     public String getExtension() {
         return ".nmea";
@@ -175,110 +211,74 @@ public class NmeaFormat extends BaseNmeaFormat {
     }
 
     protected boolean isPosition(String line) {
-        Matcher rmcMatcher = RMC_PATTERN.matcher(line);
-        if (rmcMatcher.matches())
-            return hasValidChecksum(line) && hasValidFix(line, rmcMatcher.group(8), "N");
-
-        Matcher ggaMatcher = GGA_PATTERN.matcher(line);
-        if (ggaMatcher.matches())
-            return hasValidChecksum(line) && hasValidFix(line, ggaMatcher.group(6), "0");
+        NmeaSentence sentence = tokenize(line);
+        if (isRMC(sentence))
+            return hasValidChecksum(sentence) && hasValidFix(line, getRMCSignalIntegrity(sentence) == 'N', "N");
 
-        Matcher wplMatcher = WPL_PATTERN.matcher(line);
-        if (wplMatcher.matches())
-            return hasValidChecksum(line);
+        if (isGGA(sentence))
+            return hasValidChecksum(sentence) && hasValidFix(line, sentence.getCharacter(6) == '0', "0");
 
-        Matcher zdaMatcher = ZDA_PATTERN.matcher(line);
-        if (zdaMatcher.matches())
-            return hasValidChecksum(line);
+        if (isWPL(sentence) || isZDA(sentence) || isVTG(sentence))
+            return hasValidChecksum(sentence);
 
-        Matcher vtgMatcher = VTG_PATTERN.matcher(line);
-        if (vtgMatcher.matches())
-            return hasValidChecksum(line);
-
-        Matcher gsaMatcher = GSA_PATTERN.matcher(line);
-        return gsaMatcher.matches() && hasValidChecksum(line) && hasValidFix(line, gsaMatcher.group(1), "1");
+        return isGSA(sentence) && hasValidChecksum(sentence) && hasValidFix(line, sentence.getCharacter(2) == '1', "1");
     }
 
     protected NmeaPosition parsePosition(String line) {
-        Matcher rmcMatcher = RMC_PATTERN.matcher(line);
-        if (rmcMatcher.matches()) {
-            String time = rmcMatcher.group(1);
-            String latitude = rmcMatcher.group(2);
-            String northOrSouth = rmcMatcher.group(3);
-            String longitude = rmcMatcher.group(4);
-            String westOrEast = rmcMatcher.group(5);
+        NmeaSentence sentence = tokenize(line);
+        if (isRMC(sentence)) {
             Double speed = null;
-            String speedStr = rmcMatcher.group(6);
-            if (speedStr != null) {
-                Double miles = parseDouble(speedStr);
-                if (miles != null)
-                    speed = nauticMilesToKilometer(miles);
-            }
-            String date = rmcMatcher.group(7);
-            return new NmeaPosition(parseDouble(longitude), westOrEast, parseDouble(latitude), northOrSouth,
-                    null, speed, null, parseDateAndTime(date, time), null);
+            Double miles = sentence.getDouble(7);
+            if (miles != null)
+                speed = nauticMilesToKilometer(miles);
+            return new NmeaPosition(sentence.getDouble(5), sentence.getOrientation(6), sentence.getDouble(3), sentence.getOrientation(4),
+                    null, speed, null, parseDateAndTime(sentence, 9, 1), null);
         }
 
-        Matcher ggaMatcher = GGA_PATTERN.matcher(line);
-        if (ggaMatcher.matches()) {
-            String time = ggaMatcher.group(1);
-            String latitude = ggaMatcher.group(2);
-            String northOrSouth = ggaMatcher.group(3);
-            String longitude = ggaMatcher.group(4);
-            String westOrEast = ggaMatcher.group(5);
-            String satellites = ggaMatcher.group(7);
-            String altitude = ggaMatcher.group(8);
-            NmeaPosition position = new NmeaPosition(parseDouble(longitude), westOrEast, parseDouble(latitude), northOrSouth,
-                    parseDouble(altitude), null, null, parseTime(time), null);
-            position.setSatellites(parseInt(satellites));
+        if (isGGA(sentence)) {
+            NmeaPosition position = new NmeaPosition(sentence.getDouble(4), sentence.getOrientation(5), sentence.getDouble(2), sentence.getOrientation(3),
+                    sentence.getDouble(9), null, null, parseTime(sentence, 1), null);
+            position.setSatellites(sentence.getInteger(7));
             return position;
         }
 
-        Matcher wplMatcher = WPL_PATTERN.matcher(line);
-        if (wplMatcher.matches()) {
-            String latitude = wplMatcher.group(1);
-            String northOrSouth = wplMatcher.group(2);
-            String longitude = wplMatcher.group(3);
-            String westOrEast = wplMatcher.group(4);
-            String description = wplMatcher.group(5);
-            return new NmeaPosition(parseDouble(longitude), westOrEast, parseDouble(latitude), northOrSouth,
-                    null, null, null, null, trim(description));
+        if (isWPL(sentence)) {
+            return new NmeaPosition(sentence.getDouble(3), sentence.getOrientation(4), sentence.getDouble(1), sentence.getOrientation(2),
+                    null, null, null, null, sentence.getTrimmedRemainder(5));
         }
 
-        Matcher zdaMatcher = ZDA_PATTERN.matcher(line);
-        if (zdaMatcher.matches()) {
-            String time = zdaMatcher.group(1);
-            String day = trim(zdaMatcher.group(2));
-            String month = trim(zdaMatcher.group(3));
-            String year = trim(zdaMatcher.group(4));
-            String date = (day != null ? day : "") + (month != null ? month : "") + (year != null ? year : "");
-            return new NmeaPosition(null, null, null, null, null, null, null, parseDateAndTime(date, time), null);
+        if (isZDA(sentence)) {
+            CompactCalendar time;
+            long timeOfDay = sentence.getTimeOfDay(1);
+            long date = sentence.getDate(2, 3, 4);
+            if (timeOfDay != NOT_CANONICAL && date != NOT_CANONICAL)
+                time = fromMillis(date + timeOfDay);
+            else {
+                String day = trim(sentence.getString(2));
+                String month = trim(sentence.getString(3));
+                String year = trim(sentence.getString(4));
+                String dateString = (day != null ? day : "") + (month != null ? month : "") + (year != null ? year : "");
+                time = parseDateAndTime(dateString, sentence.getString(1));
+            }
+            return new NmeaPosition(null, null, null, null, null, null, null, time, null);
         }
 
-        Matcher vtgMatcher = VTG_PATTERN.matcher(line);
-        if (vtgMatcher.matches()) {
-            Double heading = parseDouble(vtgMatcher.group(1));
-            boolean miles = false;
-            String speedStr = trim(vtgMatcher.group(3));
-            if (speedStr == null) {
-                speedStr = trim(vtgMatcher.group(2));
-                miles = true;
+        if (isVTG(sentence)) {
+            Double heading = sentence.getDouble(1);
+            Double speed = sentence.getDouble(7);
+            if (speed == null) {
+                speed = sentence.getDouble(5);
+                if (speed != null)
+                    speed = nauticMilesToKilometer(speed);
             }
-            Double speed = parseDouble(speedStr);
-            if (miles && speed != null)
-                speed = nauticMilesToKilometer(speed);
             return new NmeaPosition(null, null, null, null, null, speed, heading, null, null);
         }
 
-        Matcher gsaMatcher = GSA_PATTERN.matcher(line);
-        if (gsaMatcher.matches()) {
-            String pdop = gsaMatcher.group(2);
-            String hdop = gsaMatcher.group(3);
-            String vdop = gsaMatcher.group(4);
+        if (isGSA(sentence)) {
             NmeaPosition position = new NmeaPosition(null, null, null, null, null, null, null, null, null);
-            position.setPdop(parseDouble(pdop));
-            position.setHdop(parseDouble(hdop));
-            position.setVdop(parseDouble(vdop));
+            position.setPdop(sentence.getDouble(15));
+            position.setHdop(sentence.getDouble(16));
+            position.setVdop(sentence.getDouble(17));
             return position;
         }
 
@@ -307,19 +307,19 @@ public class NmeaFormat extends BaseNmeaFormat {
     private String formatAltitude(Double altitude) {
         if (altitude == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(altitude);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(altitude);
     }
 
     private String formatSpeed(Double speed) {
         if (speed == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(speed);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(speed);
     }
 
     private String formatAccuracy(Double accuracy) {
         if (accuracy == null)
             return "";
-        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.format(accuracy);
+        return ALTITUDE_AND_SPEED_NUMBER_FORMAT.get().format(accuracy);
     }
 
     protected void writePosition(NmeaPosition position, PrintWriter writer) {
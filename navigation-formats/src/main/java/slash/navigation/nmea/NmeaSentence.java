@@ -0,0 +1,356 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import slash.common.type.CompactCalendar;
+
+import java.util.Calendar;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Calendar.YEAR;
+import static slash.common.io.Transfer.parseDouble;
+import static slash.common.io.Transfer.parseInt;
+import static slash.common.io.Transfer.trim;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
+import static slash.common.type.CompactCalendar.getMillisOfDay;
+import static slash.common.type.CompactCalendar.getMillisSinceEpoch;
+import static slash.common.type.CompactCalendar.parseDigits;
+
+/**
+ * Splits a NMEA sentence into its fields without copying them, computes the checksum
+ * on the way and parses numbers, times and dates directly from the line.
+ * <p/>
+ * An instance is reused for the lines of a file and is not thread-safe.
+ *
+ * @author Christian Pesch
+ */
+
+class NmeaSentence {
+    static final boolean[] DIGITS = characters("0123456789");
+    static final boolean[] DIGITS_AND_DOT = characters("0123456789.");
+    static final boolean[] WHITESPACE_DIGITS_AND_DOT = characters(" \t\n\u000B\f\r0123456789.");
+    static final boolean[] GEOID_SEPARATION = characters("-?0123456789.");
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAXIMUM_SIGNIFICANT_DIGITS = 15;
+    // SimpleDateFormat resolves two digit years into the century that starts 80 years ago
+    private static final int DEFAULT_CENTURY_START_YEAR = Calendar.getInstance().get(YEAR) - 80;
+
+    private String line;
+    private int[] starts = new int[32], ends = new int[32];
+    private int fieldCount, bodyEnd;
+    private byte checksum, transmittedChecksum;
+    private boolean valid;
+
+    private static boolean[] characters(String characters) {
+        boolean[] result = new boolean[128];
+        for (int i = 0; i < characters.length(); i++)
+            result[characters.charAt(i)] = true;
+        return result;
+    }
+
+    private static int hexadecimal(char c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Splits a line of the form <code>$field,field,...*checksum</code> into its fields.
+     *
+     * @param line the line to split
+     * @return if the line has the form of a NMEA sentence with a two digit checksum
+     */
+    boolean tokenize(String line) {
+        this.line = line;
+        this.fieldCount = 0;
+        this.valid = false;
+
+        int length = line.length();
+        if (length < 4 || line.charAt(0) != '$' || line.charAt(length - 3) != '*')
+            return false;
+        int high = hexadecimal(line.charAt(length - 2));
+        int low = hexadecimal(line.charAt(length - 1));
+        if (high == -1 || low == -1)
+            return false;
+
+        bodyEnd = length - 3;
+        byte checksum = 0;
+        int start = 1;
+        for (int i = 1; i < bodyEnd; i++) {
+            char c = line.charAt(i);
+            checksum ^= c;
+            if (c == ',') {
+                addField(start, i);
+                start = i + 1;
+            }
+        }
+        addField(start, bodyEnd);
+
+        this.checksum = checksum;
+        this.transmittedChecksum = (byte) (high << 4 | low);
+        this.valid = true;
+        return true;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = copyOf(starts, fieldCount * 2);
+            ends = copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    String getLine() {
+        return line;
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    boolean hasValidChecksum() {
+        return checksum == transmittedChecksum;
+    }
+
+    byte getChecksum() {
+        return checksum;
+    }
+
+    byte getTransmittedChecksum() {
+        return transmittedChecksum;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    int getStart(int index) {
+        return starts[index];
+    }
+
+    int getEnd(int index) {
+        return ends[index];
+    }
+
+    int getBodyEnd() {
+        return bodyEnd;
+    }
+
+    boolean isSentence(String name) {
+        return valid && isField(0, name);
+    }
+
+    boolean isField(int index, String value) {
+        int start = starts[index];
+        return ends[index] - start == value.length() && line.regionMatches(start, value, 0, value.length());
+    }
+
+    boolean isEmpty(int index) {
+        for (int i = starts[index]; i < ends[index]; i++) {
+            if (line.charAt(i) > ' ')
+                return false;
+        }
+        return true;
+    }
+
+    boolean isCharacter(int index, String characters) {
+        return ends[index] - starts[index] == 1 && characters.indexOf(line.charAt(starts[index])) != -1;
+    }
+
+    boolean isOptionalCharacter(int index, String characters) {
+        return ends[index] == starts[index] || isCharacter(index, characters);
+    }
+
+    private boolean hasCharacters(int start, int end, boolean[] characters, boolean required) {
+        if (required && start == end)
+            return false;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= characters.length || !characters[c])
+                return false;
+        }
+        return true;
+    }
+
+    boolean hasCharacters(int index, boolean[] characters, boolean required) {
+        return hasCharacters(starts[index], ends[index], characters, required);
+    }
+
+    boolean hasSignedCharacters(int index, boolean[] characters, boolean required) {
+        int start = starts[index];
+        if (start < ends[index] && line.charAt(start) == '-')
+            start++;
+        return hasCharacters(start, ends[index], characters, required);
+    }
+
+    char getCharacter(int index) {
+        return ends[index] > starts[index] ? line.charAt(starts[index]) : 0;
+    }
+
+    String getString(int index) {
+        return line.substring(starts[index], ends[index]);
+    }
+
+    String getString(int firstIndex, int lastIndex) {
+        return line.substring(starts[firstIndex], ends[lastIndex]);
+    }
+
+    String getRemainder(int index) {
+        return line.substring(starts[index], bodyEnd);
+    }
+
+    String getOrientation(int index) {
+        switch (getCharacter(index)) {
+            case 'N':
+                return "N";
+            case 'S':
+                return "S";
+            case 'E':
+                return "E";
+            case 'W':
+                return "W";
+            default:
+                return getString(index);
+        }
+    }
+
+    Double getDouble(int index) {
+        int start = starts[index], end = ends[index];
+        while (start < end && line.charAt(start) <= ' ')
+            start++;
+        while (end > start && line.charAt(end - 1) <= ' ')
+            end--;
+        if (start == end)
+            return null;
+
+        int position = start;
+        boolean negative = line.charAt(position) == '-';
+        if (negative)
+            position++;
+
+        long mantissa = 0;
+        int digits = 0, fractionDigits = -1;
+        for (; position < end; position++) {
+            char c = line.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0')
+                    digits++;
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits != -1)
+                    fractionDigits++;
+            } else if (c == '.' && fractionDigits == -1)
+                fractionDigits = 0;
+            else
+                break;
+        }
+
+        boolean hasDigit = position - start > (negative ? 1 : 0) + (fractionDigits != -1 ? 1 : 0);
+        if (position != end || !hasDigit || digits > MAXIMUM_SIGNIFICANT_DIGITS || fractionDigits >= POWERS_OF_TEN.length)
+            return parseDouble(line.substring(start, end));
+
+        // mantissa and power of ten are exact, so the division is rounded like Double.parseDouble
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    Integer getInteger(int index) {
+        int start = starts[index], end = ends[index];
+        if (end - start > 0 && end - start < 10 && hasCharacters(start, end, DIGITS, true)) {
+            int value = 0;
+            for (int i = start; i < end; i++)
+                value = value * 10 + (line.charAt(i) - '0');
+            return value;
+        }
+        return parseInt(line.substring(start, end));
+    }
+
+    /**
+     * Parses a time of the form <code>HHmmss</code> or <code>HHmmss.SSS</code>.
+     * Like <code>SimpleDateFormat</code> the digits after the dot are milliseconds.
+     *
+     * @param index the index of the field
+     * @return the milliseconds since midnight or {@link CompactCalendar#NOT_CANONICAL}
+     */
+    long getTimeOfDay(int index) {
+        int start = starts[index], length = ends[index] - start;
+        if (length != 6 && (length < 8 || length > 10 || line.charAt(start + 6) != '.'))
+            return NOT_CANONICAL;
+
+        return getMillisOfDay(parseDigits(line, start, 2), parseDigits(line, start + 2, 2), parseDigits(line, start + 4, 2),
+                length > 6 ? parseDigits(line, start + 7, length - 7) : 0);
+    }
+
+    /**
+     * Parses a date of the form <code>ddMMyy</code> or <code>ddMMyyyy</code>.
+     *
+     * @param index the index of the field
+     * @return the milliseconds since the epoch at midnight UTC or {@link CompactCalendar#NOT_CANONICAL}
+     */
+    long getDate(int index) {
+        int start = starts[index], length = ends[index] - start;
+        if (length != 6 && length != 8)
+            return NOT_CANONICAL;
+        return getDate(parseDigits(line, start, 2), parseDigits(line, start + 2, 2), parseDigits(line, start + 4, length - 4), length - 4);
+    }
+
+    /**
+     * Parses a date from separate day, month and year fields of the form <code>dd</code>,
+     * <code>MM</code> and <code>yy</code> or <code>yyyy</code>.
+     *
+     * @return the milliseconds since the epoch at midnight UTC or {@link CompactCalendar#NOT_CANONICAL}
+     */
+    long getDate(int dayIndex, int monthIndex, int yearIndex) {
+        int yearDigits = ends[yearIndex] - starts[yearIndex];
+        if (ends[dayIndex] - starts[dayIndex] != 2 || ends[monthIndex] - starts[monthIndex] != 2 ||
+                (yearDigits != 2 && yearDigits != 4))
+            return NOT_CANONICAL;
+        return getDate(parseDigits(line, starts[dayIndex], 2), parseDigits(line, starts[monthIndex], 2),
+                parseDigits(line, starts[yearIndex], yearDigits), yearDigits);
+    }
+
+    private static long getDate(int day, int month, int year, int yearDigits) {
+        if (year < 0)
+            return NOT_CANONICAL;
+
+        if (yearDigits == 2) {
+            int ambiguousYear = DEFAULT_CENTURY_START_YEAR % 100;
+            if (year == ambiguousYear)
+                return NOT_CANONICAL;
+            year += DEFAULT_CENTURY_START_YEAR / 100 * 100 + (year < ambiguousYear ? 100 : 0);
+        }
+
+        return getMillisSinceEpoch(year, month, day);
+    }
+
+    String getTrimmedRemainder(int index) {
+        return trim(getRemainder(index));
+    }
+}
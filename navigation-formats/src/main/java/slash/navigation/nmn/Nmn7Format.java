@@ -61,6 +61,10 @@ public class Nmn7Format extends NmnFormat {
         return preferences.getInt("maximumNavigon7PositionCount", 48 /* ApplicationSettings.xml: <RouteTargets>50</RouteTargets> */);
     }
 
+    public boolean isSupportsStreamingRead() {
+        return false;
+    }
+
     protected boolean isPosition(String line) {
         throw new UnsupportedOperationException();
     }
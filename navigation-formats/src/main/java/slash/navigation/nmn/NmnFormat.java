@@ -64,6 +64,11 @@ public abstract class NmnFormat extends SimpleLineBasedFormat<NmnRoute> {
                 first.getLatitude() + DUPLICATE_OFFSET, (Double)null, null, null, "Start:" + first.getDescription());
     }
 
+    public boolean isSupportsStreamingWrite() {
+        // duplicate positions are removed before writing
+        return false;
+    }
+
     protected String escape(String string) {
         return Transfer.escape(string, SEPARATOR, ';', "-");
     }
@@ -73,7 +73,7 @@ public class OvlRoute extends BaseRoute<Wgs84Position, OvlFormat> {
         this.symbol = symbol;
         this.overlay = overlay;
         this.mapLage = mapLage;
-        this.positions = positions;
+        this.positions = countModifications(positions);
         setName(name);
     }
 
@@ -89,6 +89,11 @@ public class GroundTrackFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected boolean isColumnarPositions() {
+        // long logs of positions without heading, dilution of precision or satellites
+        return true;
+    }
+
     protected boolean isPosition(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches();
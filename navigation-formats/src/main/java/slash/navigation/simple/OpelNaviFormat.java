@@ -24,6 +24,8 @@ import slash.common.io.Transfer;
 import slash.common.type.CompactCalendar;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.base.SimpleLineBasedFormat;
 import slash.navigation.base.SimpleRoute;
@@ -84,6 +86,14 @@ public class OpelNaviFormat extends SimpleLineBasedFormat<SimpleRoute> {
         write(route, target, UTF8_ENCODING, startIndex, endIndex);
     }
 
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        readPositions(source, startDate, UTF8_ENCODING, consumer);
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        return createPositionWriter(name, target, UTF8_ENCODING);
+    }
+
     @SuppressWarnings("unchecked")
     public <P extends NavigationPosition> SimpleRoute createRoute(RouteCharacteristics characteristics, String name, List<P> positions) {
         return new Wgs84Route(this, characteristics, (List<Wgs84Position>) positions);
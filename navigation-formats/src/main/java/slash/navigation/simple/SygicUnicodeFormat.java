@@ -21,6 +21,8 @@ package slash.navigation.simple;
 
 import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContext;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
@@ -59,6 +61,14 @@ public class SygicUnicodeFormat extends SygicFormat {
         write(route, target, UTF16LE_ENCODING, startIndex, endIndex);
     }
 
+    public void readPositions(InputStream source, CompactCalendar startDate, PositionConsumer consumer) throws IOException {
+        readPositions(source, startDate, UTF16_ENCODING, consumer);
+    }
+
+    public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+        return createPositionWriter(name, target, UTF16LE_ENCODING);
+    }
+
     protected void writeHeader(PrintWriter writer, SimpleRoute route) {
         // with UTF-16LE no BOM is written, UnicodeLittle would write one by is not supported
         // (see http://java.sun.com/j2se/1.4.2/docs/guide/intl/encoding.doc.html)
@@ -68,7 +68,7 @@ public class TcxRoute extends BaseRoute<Wgs84Position, TcxFormat> {
     public TcxRoute(TcxFormat format, RouteCharacteristics characteristics, String name, List<Wgs84Position> positions) {
         super(format, characteristics);
         this.name = name;
-        this.positions = positions;
+        this.positions = countModifications(positions);
     }
 
     public String getName() {
@@ -0,0 +1,83 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.System.gc;
+import static slash.common.type.CompactCalendar.fromMillis;
+
+/**
+ * Compares the heap used per position by a list of {@link Wgs84Position}s with the heap used
+ * by a {@link ColumnarPositionList}. Run it as a Java application; it is not part of the unit tests.
+ *
+ * @author Christian Pesch
+ */
+
+public class ColumnarPositionListBenchmark {
+    private static final int POSITION_COUNT = 100000;
+
+    private static Wgs84Position createPosition(int index, boolean uniqueDescription) {
+        return new Wgs84Position(10.0 + index * 0.001, 53.0 + index * 0.001, 20.0 + index, 5.0 + index,
+                fromMillis(1000000000000L + index * 1000L), uniqueDescription ? "Trackpoint " + index : new String("Trackpoint"));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++)
+            gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void measure(boolean uniqueDescription) {
+        long start = usedMemory();
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>(POSITION_COUNT);
+        for (int i = 0; i < POSITION_COUNT; i++)
+            positions.add(createPosition(i, uniqueDescription));
+        long objects = usedMemory() - start;
+        if (positions.size() != POSITION_COUNT)
+            throw new IllegalStateException();
+        positions = null;
+
+        start = usedMemory();
+        ColumnarPositionList list = new ColumnarPositionList(POSITION_COUNT);
+        for (int i = 0; i < POSITION_COUNT; i++)
+            list.add(createPosition(i, uniqueDescription));
+        long columns = usedMemory() - start;
+
+        double sum = 0.0;
+        for (Wgs84Position position : list)
+            sum += position.getLongitude();
+        long iterated = usedMemory() - start;
+
+        System.out.println((uniqueDescription ? "Unique" : "Repeating") + " descriptions, heap per position: " +
+                objects / POSITION_COUNT + " bytes as objects, " + columns / POSITION_COUNT + " bytes in columns, " +
+                iterated / POSITION_COUNT + " bytes in columns after iterating (" + (sum > 0.0) + ")");
+        if (list.size() != POSITION_COUNT)
+            throw new IllegalStateException();
+    }
+
+    public static void main(String[] args) {
+        measure(false);
+        measure(true);
+    }
+}
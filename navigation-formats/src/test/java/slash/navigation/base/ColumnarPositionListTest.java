@@ -0,0 +1,246 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.common.type.CompactCalendar;
+import slash.navigation.simple.GlopusFormat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.common.type.CompactCalendar.fromMillisAndTimeZone;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class ColumnarPositionListTest {
+    private Wgs84Position createPosition(int index) {
+        return new Wgs84Position(10.0 + index * 0.001, 53.0 + index * 0.001, 20.0 + index, 5.0 + index,
+                fromMillis(1000000000000L + index * 1000L), new String("Trackpoint"));
+    }
+
+    private ColumnarPositionList createList(int count) {
+        ColumnarPositionList list = new ColumnarPositionList();
+        for (int i = 0; i < count; i++)
+            list.add(createPosition(i));
+        return list;
+    }
+
+    @Test
+    public void testReadsValuesFromColumns() {
+        ColumnarPositionList list = createList(100);
+        assertEquals(100, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Wgs84Position expected = createPosition(i);
+            Wgs84Position actual = list.get(i);
+            assertEquals(expected.getLongitude(), actual.getLongitude());
+            assertEquals(expected.getLatitude(), actual.getLatitude());
+            assertEquals(expected.getElevation(), actual.getElevation());
+            assertEquals(expected.getSpeed(), actual.getSpeed());
+            assertEquals(expected.getTime(), actual.getTime());
+            assertEquals(expected.getDescription(), actual.getDescription());
+        }
+        assertSame(list.get(0).getDescription(), list.get(99).getDescription());
+    }
+
+    @Test
+    public void testSharesRepeatingDescriptions() {
+        ColumnarPositionList list = new ColumnarPositionList();
+        for (int i = 0; i < 1000; i++)
+            list.add(new Wgs84Position(10.0, 53.0, null, null, null, new String("Position " + i % 10)));
+        assertSame(list.get(0).getDescription(), list.get(990).getDescription());
+        assertSame(list.get(9).getDescription(), list.get(999).getDescription());
+    }
+
+    @Test
+    public void testForgetsUniqueDescriptions() {
+        ColumnarPositionList list = new ColumnarPositionList();
+        for (int i = 0; i < 1000; i++)
+            list.add(new Wgs84Position(10.0, 53.0, null, null, null, new String("Position " + i)));
+        list.add(new Wgs84Position(10.0, 53.0, null, null, null, new String("Position 0")));
+        list.add(new Wgs84Position(10.0, 53.0, null, null, null, new String("Position 999")));
+        assertEquals(list.get(0).getDescription(), list.get(1000).getDescription());
+        assertNotSame(list.get(0).getDescription(), list.get(1000).getDescription());
+        assertSame(list.get(999).getDescription(), list.get(1001).getDescription());
+    }
+
+    @Test
+    public void testNullValues() {
+        ColumnarPositionList list = new ColumnarPositionList();
+        list.add(new Wgs84Position(null, null, null, null, null, null));
+        Wgs84Position position = list.get(0);
+        assertNull(position.getLongitude());
+        assertNull(position.getLatitude());
+        assertNull(position.getElevation());
+        assertNull(position.getSpeed());
+        assertNull(position.getTime());
+        assertFalse(position.hasTime());
+        assertFalse(position.hasCoordinates());
+        assertNull(position.getDescription());
+    }
+
+    @Test
+    public void testWritesThroughToColumns() {
+        ColumnarPositionList list = createList(3);
+        Wgs84Position position = list.get(1);
+        position.setLongitude(1.0);
+        position.setElevation(null);
+        CompactCalendar time = fromMillisAndTimeZone(1000L, "Europe/Berlin");
+        position.setTime(time);
+        position.setHeading(90.0);
+        assertSame(position, list.get(1));
+        assertEquals(1.0, list.get(1).getLongitude(), 0.0);
+        assertNull(list.get(1).getElevation());
+        assertEquals(time, list.get(1).getTime());
+        assertEquals("Europe/Berlin", list.get(1).getTime().getTimeZoneId());
+        assertEquals(90.0, list.get(1).getHeading(), 0.0);
+    }
+
+    @Test
+    public void testCountsChangesButNotReading() {
+        ColumnarPositionList list = createList(3);
+        long modifications = list.getModifications();
+        for (Wgs84Position position : list) {
+            position.getLongitude();
+            position.getDescription();
+        }
+        assertEquals(modifications, list.getModifications());
+
+        list.get(1).setSpeed(10.0);
+        assertEquals(modifications, list.getModifications());
+        list.get(1).setLatitude(1.0);
+        assertTrue(list.getModifications() > modifications);
+    }
+
+    @Test
+    public void testKeepsHeadingAndSatellites() {
+        ColumnarPositionList list = new ColumnarPositionList();
+        Wgs84Position position = createPosition(0);
+        position.setHeading(180.0);
+        position.setSatellites(7);
+        list.add(position);
+        assertEquals(180.0, list.get(0).getHeading(), 0.0);
+        assertEquals(7, list.get(0).getSatellites().intValue());
+    }
+
+    @Test
+    public void testRemoveDetachesPosition() {
+        ColumnarPositionList list = createList(3);
+        Wgs84Position first = list.get(0);
+        Wgs84Position third = list.get(2);
+        Wgs84Position removed = list.remove(0);
+        assertSame(first, removed);
+        assertEquals(2, list.size());
+        assertEquals(createPosition(0).getLongitude(), removed.getLongitude());
+        assertSame(third, list.get(1));
+        assertEquals(createPosition(2).getLongitude(), third.getLongitude());
+
+        removed.setLongitude(0.0);
+        assertEquals(createPosition(1).getLongitude(), list.get(0).getLongitude());
+    }
+
+    @Test
+    public void testRemoveRangeDetachesPositions() {
+        ColumnarPositionList list = createList(10);
+        Wgs84Position second = list.get(2);
+        Wgs84Position eighth = list.get(8);
+        list.subList(2, 8).clear();
+        assertEquals(4, list.size());
+        assertSame(eighth, list.get(2));
+        assertEquals(createPosition(8).getLongitude(), list.get(2).getLongitude());
+        assertEquals(createPosition(9).getLongitude(), list.get(3).getLongitude());
+
+        second.setLongitude(0.0);
+        assertEquals(createPosition(1).getLongitude(), list.get(1).getLongitude());
+    }
+
+    @Test
+    public void testAddAttachesDetachedPosition() {
+        ColumnarPositionList list = createList(3);
+        Wgs84Position removed = list.remove(2);
+        list.add(0, removed);
+        assertSame(removed, list.get(0));
+        removed.setElevation(1.0);
+        assertEquals(1.0, list.get(0).getElevation(), 0.0);
+    }
+
+    @Test
+    public void testRevertKeepsIdentity() {
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        for (int i = 0; i < 10; i++)
+            positions.add(createPosition(i));
+        ColumnarRoute route = new ColumnarRoute(new GlopusFormat(), Track, positions);
+        List<Wgs84Position> before = new ArrayList<Wgs84Position>(route.getPositions());
+        route.revert();
+        for (int i = 0; i < 10; i++) {
+            Wgs84Position position = route.getPosition(i);
+            assertSame(before.get(9 - i), position);
+            assertEquals(createPosition(9 - i).getLongitude(), position.getLongitude());
+            assertEquals(createPosition(9 - i).getTime(), position.getTime());
+        }
+    }
+
+    @Test
+    public void testSortKeepsIdentity() {
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        for (int i = 0; i < 10; i++)
+            positions.add(createPosition((i * 7) % 10));
+        ColumnarRoute route = new ColumnarRoute(new GlopusFormat(), Track, positions);
+        List<Wgs84Position> before = new ArrayList<Wgs84Position>(route.getPositions());
+        route.sort(new Comparator<Wgs84Position>() {
+            public int compare(Wgs84Position p1, Wgs84Position p2) {
+                return p1.getElevation().compareTo(p2.getElevation());
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            Wgs84Position position = route.getPosition(i);
+            assertEquals(createPosition(i).getElevation(), position.getElevation());
+            assertEquals(createPosition(i).getLongitude(), position.getLongitude());
+            assertTrue(before.contains(position));
+            assertSame(before.get(before.indexOf(position)), position);
+        }
+    }
+
+    @Test
+    public void testParsesDescription() {
+        ColumnarPositionList list = createList(1);
+        list.get(0).setDescription("Richtung 316 - 11:32:26 - 34 m - Bahrenfeld");
+        assertEquals(34.0, list.get(0).getElevation(), 0.0);
+        assertEquals(316.0, list.get(0).getHeading(), 0.0);
+        assertEquals("Richtung 316 - 11:32:26 - 34 m - Bahrenfeld", list.get(0).getDescription());
+    }
+
+    @Test
+    public void testKeepsHeadingOfUnreferencedPosition() {
+        ColumnarPositionList list = createList(3);
+        list.get(1).setHeading(90.0);
+        list.get(2).setDescription("Richtung 316 - 11:32:26 - 34 m - Bahrenfeld");
+        assertEquals(90.0, list.get(1).getHeading(), 0.0);
+        assertEquals(316.0, list.get(2).getHeading(), 0.0);
+        assertNull(list.get(0).getHeading());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.base.NavigationConversions.ReflectiveRouteConversion;
+import slash.navigation.babel.GarminMapSource6Format;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.kml.Kmz22Format;
+import slash.navigation.kml.KmlPosition;
+import slash.navigation.simple.ApeMapFormat;
+import slash.navigation.url.UrlFormat;
+import slash.navigation.zip.ZipFormat;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slash.navigation.base.NavigationConversions.getRouteConversion;
+import static slash.navigation.base.NavigationFormats.asFormat;
+import static slash.navigation.base.NavigationFormats.getFormatsSortedByName;
+
+public class NavigationConversionsTest {
+    private final Wgs84Position position = new Wgs84Position(10.0, 53.0, 12.0, 5.0, null, "description");
+
+    @Test
+    public void testRouteConversionsAreRegistered() {
+        for (NavigationFormat format : getFormatsSortedByName()) {
+            if (format instanceof ZipFormat || format instanceof UrlFormat)
+                continue;
+            assertFalse("Reflective conversion for " + format, getRouteConversion(format) instanceof ReflectiveRouteConversion);
+        }
+    }
+
+    @Test
+    public void testPositionConversion() throws IOException {
+        BaseNavigationPosition gpx = asFormat(position, new Gpx10Format());
+        assertEquals(GpxPosition.class, gpx.getClass());
+        assertEquals(10.0, gpx.getLongitude(), 0.0);
+        assertEquals(53.0, gpx.getLatitude(), 0.0);
+        assertEquals("description", gpx.getDescription());
+
+        assertEquals(KmlPosition.class, asFormat(position, new Kmz22Format()).getClass());
+    }
+
+    @Test
+    public void testBabelFormatsConvertToGpx() throws IOException {
+        assertEquals(GpxPosition.class, asFormat(position, new GarminMapSource6Format()).getClass());
+    }
+
+    @Test
+    public void testAnonymousFormatUsesSuperclass() throws IOException {
+        assertEquals(GpxPosition.class, asFormat(position, new Gpx10Format() {}).getClass());
+    }
+
+    @Test
+    public void testMissingPositionConversion() {
+        try {
+            asFormat(position, new ApeMapFormat());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Cannot call asApeMapPosition()"));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.bcr.MTP0607Format;
+import slash.navigation.bcr.MTP0809Format;
+import slash.navigation.gpx.Gpx10Format;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.kml.BrokenKml22Format;
+import slash.navigation.kml.Igo8RouteFormat;
+import slash.navigation.kml.Kml21Format;
+import slash.navigation.kml.Kml22BetaFormat;
+import slash.navigation.kml.Kml22Format;
+import slash.navigation.kml.Kmz22Format;
+import slash.navigation.nmea.MagellanExploristFormat;
+import slash.navigation.nmea.MagellanRouteFormat;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.tcx.Tcx1Format;
+import slash.navigation.tcx.Tcx2Format;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.NavigationFormatDetector.findXmlRootElement;
+import static slash.navigation.base.NavigationFormatDetector.rankFormats;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
+
+public class NavigationFormatDetectorTest {
+
+    private List<NavigationFormat> rank(String header) throws Exception {
+        return rankFormats(header.getBytes("UTF-8"), getReadFormats());
+    }
+
+    @Test
+    public void testFindXmlRootElement() {
+        assertArrayEquals(new String[]{"gpx", "http://www.topografix.com/GPX/1/1"},
+                findXmlRootElement("<?xml version=\"1.0\"?>\n<!-- comment -->\n<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\">"));
+        assertArrayEquals(new String[]{"kml", "http://www.opengis.net/kml/2.2"},
+                findXmlRootElement("<k:kml xmlns='http://earth.google.com/kml/2.0' xmlns:k='http://www.opengis.net/kml/2.2'>"));
+        assertArrayEquals(new String[]{"poi_list", null},
+                findXmlRootElement("<!DOCTYPE poi_list SYSTEM \"export.dtd\" [ <!ENTITY a \"b\"> ]>\n<poi_list>"));
+        assertNull(findXmlRootElement("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D"));
+    }
+
+    @Test
+    public void testRankGpx() throws Exception {
+        List<NavigationFormat> formats = rank("<?xml version=\"1.0\"?><gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\">");
+        assertEquals(Gpx11Format.class, formats.get(0).getClass());
+        assertEquals(getReadFormats().size(), formats.size());
+
+        formats = rank("<gpx version=\"1.0\">");
+        assertEquals(Gpx11Format.class, formats.get(0).getClass());
+        assertEquals(Gpx10Format.class, formats.get(1).getClass());
+    }
+
+    @Test
+    public void testRankGpxByNamespace() throws Exception {
+        List<NavigationFormat> formats = rank("<gpx version=\"1.0\" xmlns=\"http://www.topografix.com/GPX/1/0\">");
+        assertEquals(Gpx10Format.class, formats.get(0).getClass());
+        assertTrue(indexOf(formats, Gpx11Format.class) < indexOf(formats, NmeaFormat.class));
+        assertEquals(getReadFormats().size(), formats.size());
+    }
+
+    @Test
+    public void testRankKmlPreservesOrderOfSubclasses() throws Exception {
+        List<NavigationFormat> formats = rank("<kml xmlns=\"http://www.opengis.net/kml/2.2\">");
+        assertEquals(Igo8RouteFormat.class, formats.get(0).getClass());
+        assertEquals(Kml22Format.class, formats.get(1).getClass());
+        assertTrue(indexOf(formats, BrokenKml22Format.class) < indexOf(formats, Kml22BetaFormat.class));
+    }
+
+    @Test
+    public void testRankKmlByNamespace() throws Exception {
+        List<NavigationFormat> formats = rank("<kml xmlns=\"http://earth.google.com/kml/2.1\">");
+        assertEquals(Kml21Format.class, formats.get(0).getClass());
+        assertTrue(indexOf(formats, Kml22Format.class) < indexOf(formats, Gpx11Format.class));
+    }
+
+    @Test
+    public void testRankKmlLittleEndian() throws Exception {
+        List<NavigationFormat> formats = rankFormats("<kml xmlns=\"http://www.opengis.net/kml/2.2\">".getBytes("UTF-16LE"), getReadFormats());
+        assertEquals(Igo8RouteFormat.class, formats.get(0).getClass());
+    }
+
+    @Test
+    public void testRankTcx() throws Exception {
+        List<NavigationFormat> formats = rank("<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">");
+        assertEquals(Tcx2Format.class, formats.get(0).getClass());
+
+        formats = rank("<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v1\">");
+        assertEquals(Tcx1Format.class, formats.get(0).getClass());
+    }
+
+    @Test
+    public void testRankZip() throws Exception {
+        List<NavigationFormat> formats = rankFormats(new byte[]{'P', 'K', 3, 4, 20, 0}, getReadFormats());
+        assertEquals(Kmz22Format.class, formats.get(0).getClass());
+    }
+
+    private static int indexOf(List<NavigationFormat> formats, Class<? extends NavigationFormat> formatClass) {
+        for (int i = 0; i < formats.size(); i++) {
+            if (formats.get(i).getClass().equals(formatClass))
+                return i;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends NavigationFormat> readWithoutRanking(String content) {
+        for (NavigationFormat format : getReadFormats()) {
+            ParserContext<BaseRoute> context = new ParserContextImpl<BaseRoute>();
+            try {
+                format.read(new ByteArrayInputStream(content.getBytes()), null, context);
+            } catch (Exception e) {
+                // try the next format
+            }
+            if (context.getRoutes().size() > 0)
+                return format.getClass();
+        }
+        return null;
+    }
+
+    private static Class<? extends NavigationFormat> readWithRanking(String content) throws Exception {
+        return new NavigationFormatParser().read(content).getFormat().getClass();
+    }
+
+    @Test
+    public void testRankNmea() throws Exception {
+        assertEquals(NmeaFormat.class, rank("\n$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D\n").get(0).getClass());
+        assertEquals(NmeaFormat.class, rank("$PMGNFMT,%TRK,LAT,HEMI,LON,HEMI,ALT,UNIT,TIME,VALID,NAME,%META,ASCII\n").get(0).getClass());
+    }
+
+    @Test
+    public void testRankNmeaKeepsOrderOfMagellanFormats() throws Exception {
+        List<NavigationFormat> formats = rank("$PMGNFMT,%TRK,LAT,HEMI,LON,HEMI,ALT,UNIT,TIME,VALID,NAME,%META,ASCII\n");
+        int nmea = indexOf(formats, NmeaFormat.class);
+        int explorist = indexOf(formats, MagellanExploristFormat.class);
+        int route = indexOf(formats, MagellanRouteFormat.class);
+        assertTrue(nmea < explorist);
+        assertTrue(explorist < route);
+        assertTrue(route < indexOf(formats, Gpx11Format.class));
+    }
+
+    @Test
+    public void testRankingReadsNmeaLikeFilesWithTheSameFormat() throws Exception {
+        String magellanAndNmea = "$PMGNFMT,%TRK,LAT,HEMI,LON,HEMI,ALT,UNIT,TIME,VALID,NAME,%META,ASCII\n" +
+                "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,,A*76\n" +
+                "$PMGNTRK,4914.967,N,00651.208,E,000199,M,152224,A,KLLERTAL-RADWEG,210307*48\n";
+        assertEquals(readWithoutRanking(magellanAndNmea), readWithRanking(magellanAndNmea));
+
+        String magellan = "$PMGNFMT,%TRK,LAT,HEMI,LON,HEMI,ALT,UNIT,TIME,VALID,NAME,%META,ASCII\n" +
+                "$PMGNTRK,4914.967,N,00651.208,E,000199,M,152224,A,KLLERTAL-RADWEG,210307*48\n" +
+                "$PMGNTRK,5159.928,N,00528.243,E,00008,M,093405.33,A,,250408*79\n";
+        assertEquals(readWithoutRanking(magellan), readWithRanking(magellan));
+
+        String nmea = "$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D\n" +
+                "$GPRMC,180114,A,4808.9490,N,00928.9610,E,000.0,000.0,160607,,,A*76\n";
+        assertEquals(readWithoutRanking(nmea), readWithRanking(nmea));
+    }
+
+    @Test
+    public void testRankIni() throws Exception {
+        List<NavigationFormat> formats = rank("[CLIENT]\r\nREQUEST=EXPORTROUTE\r\n");
+        assertEquals(MTP0809Format.class, formats.get(0).getClass());
+        assertEquals(MTP0607Format.class, formats.get(1).getClass());
+    }
+
+    @Test
+    public void testUnknownKeepsOrder() throws Exception {
+        assertEquals(getReadFormats(), rank("just some text"));
+        assertEquals(getReadFormats(), rankFormats(new byte[0], getReadFormats()));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.kml.Kml22Format;
+import slash.navigation.nmea.NmeaFormat;
+import slash.navigation.tcx.Tcx2Format;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class NavigationFormatParserTest {
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private NavigationFormatParser parser = new NavigationFormatParser();
+    private File source, target;
+
+    @Before
+    public void setUp() throws IOException {
+        source = createTempFile("source", ".tmp");
+        target = createTempFile("target", ".tmp");
+    }
+
+    @After
+    public void tearDown() {
+        source.delete();
+        target.delete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeRoute(NavigationFormat format, int positionCount, File file) throws IOException {
+        List<GpxPosition> positions = new ArrayList<GpxPosition>();
+        for (int i = 0; i < positionCount; i++)
+            positions.add(new GpxPosition(10.0 + i * 0.0001, 50.0 + i * 0.0001, 100.0 + i % 100, 5.0,
+                    fromMillis(1000000000000L + i * 1000L), "Position " + i));
+        parser.write(new Gpx11Format().createRoute(Track, "Route", positions), format, false, true, null, file);
+    }
+
+    private int countPositions(File file) throws IOException {
+        final int[] count = new int[1];
+        assertTrue(parser.readPositions(file, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                count[0]++;
+            }
+        }) != null);
+        return count[0];
+    }
+
+    private int[] countReads(final Class<? extends NavigationFormat> formatClass) {
+        final int[] count = new int[1];
+        parser.addNavigationFileParserListener(new NavigationFormatParserListener() {
+            public void reading(NavigationFormat<BaseRoute> format) {
+                if (formatClass.isInstance(format))
+                    count[0]++;
+            }
+        });
+        return count;
+    }
+
+    @Test
+    public void testReadPositionsOfLargeNonStreamingFile() throws IOException {
+        writeRoute(new Tcx2Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        ParserResult result = parser.read(source);
+        assertTrue(result.isSuccessful());
+        assertEquals(result.getTheRoute().getPositionCount(), countPositions(source));
+    }
+
+    @Test
+    public void testConvertLargeNonStreamingFile() throws IOException {
+        writeRoute(new Tcx2Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        assertTrue(parser.convert(source, getReadFormats(), new Gpx11Format(), target));
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(Gpx11Format.class, result.getFormat().getClass());
+        assertEquals(20000, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testReadPositionsParsesSmallFileOnce() throws IOException {
+        writeRoute(new Tcx2Format(), 100, source);
+        assertTrue(source.length() < READ_BUFFER_SIZE);
+
+        int[] reads = countReads(Tcx2Format.class);
+        countPositions(source);
+        assertEquals(1, reads[0]);
+    }
+
+    @Test
+    public void testConvertLargeGpxFileStreamsPositions() throws IOException {
+        writeRoute(new Gpx11Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        int[] reads = countReads(NavigationFormat.class);
+        assertTrue(parser.convert(source, getReadFormats(), new NmeaFormat(), target));
+        assertEquals(0, reads[0]);
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(NmeaFormat.class, result.getFormat().getClass());
+        assertEquals(20000, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testReadKmlFile() throws IOException {
+        writeRoute(new Kml22Format(), 100, source);
+
+        ParserResult result = parser.read(source);
+        assertTrue(result.isSuccessful());
+        assertEquals(Kml22Format.class, result.getFormat().getClass());
+        // the route is written as way points and as track
+        assertEquals(2, result.getAllRoutes().size());
+        assertEquals(100, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testConvertLargeKmlFileStreamsPositions() throws IOException {
+        writeRoute(new Kml22Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        int[] reads = countReads(NavigationFormat.class);
+        assertTrue(parser.convert(source, getReadFormats(), new NmeaFormat(), target));
+        assertEquals(0, reads[0]);
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(20000, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testConvertLargeGpxFileToKmlStreamsPositions() throws IOException {
+        writeRoute(new Gpx11Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        int[] reads = countReads(NavigationFormat.class);
+        assertTrue(parser.convert(source, getReadFormats(), new Kml22Format(), target));
+        assertEquals(0, reads[0]);
+
+        ParserResult result = parser.read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(Kml22Format.class, result.getFormat().getClass());
+        assertEquals(20000, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testConvertStreamingRejectsSmallFile() throws IOException {
+        writeRoute(new Gpx11Format(), 100, source);
+        assertTrue(source.length() < READ_BUFFER_SIZE);
+
+        assertFalse(parser.convertStreaming(source, getReadFormats(), new NmeaFormat(), target));
+    }
+
+    @Test
+    public void testConvertDeletesPartialTarget() throws IOException {
+        writeRoute(new Gpx11Format(), 20000, source);
+        assertTrue(source.length() > READ_BUFFER_SIZE);
+
+        try {
+            parser.convert(source, getReadFormats(), new NmeaFormat() {
+                public PositionWriter createPositionWriter(String name, OutputStream target) throws IOException {
+                    throw new IOException("cannot write");
+                }
+            }, target);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("cannot write", e.getMessage());
+        }
+        assertFalse(target.exists());
+    }
+}
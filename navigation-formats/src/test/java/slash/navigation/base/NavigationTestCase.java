@@ -54,7 +54,6 @@ import slash.navigation.itn.TomTom5RouteFormat;
 import slash.navigation.itn.TomTomPosition;
 import slash.navigation.itn.TomTomRoute;
 import slash.navigation.itn.TomTomRouteFormat;
-import slash.navigation.jaxb.JaxbUtils;
 import slash.navigation.kml.BaseKmlFormat;
 import slash.navigation.kml.Igo8RouteFormat;
 import slash.navigation.kml.KmlFormat;
@@ -123,10 +122,6 @@ public abstract class NavigationTestCase extends TestCase {
     public static final String TEST_PATH = ROUTE_PATH + "test" + separator;
     public static final String SAMPLE_PATH = ROUTE_PATH + "samples" + separator;
 
-    static {
-        JaxbUtils.setCacheContexts(true);
-    }
-
     public static void assertDescriptionEquals(List<String> expected, List<String> was) {
         List<String> wasFiltered = new ArrayList<String>();
         if (was != null)
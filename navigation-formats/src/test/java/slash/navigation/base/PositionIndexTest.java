@@ -0,0 +1,138 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.simple.GlopusFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static slash.common.io.Transfer.toArray;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class PositionIndexTest {
+    private List<Wgs84Position> createPositions(int count, double longitude, double latitude, double spread) {
+        Random random = new Random(42);
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        for (int i = 0; i < count; i++) {
+            if (i % 50 == 7)
+                positions.add(new Wgs84Position(null, null, null, null, null, "no coordinates"));
+            else
+                positions.add(new Wgs84Position(longitude + (random.nextDouble() - 0.5) * spread,
+                        latitude + (random.nextDouble() - 0.5) * spread, null, null, null, "Position " + i));
+        }
+        return positions;
+    }
+
+    private int[] containedByScan(List<Wgs84Position> positions, BoundingBox boundingBox) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < positions.size(); i++) {
+            Wgs84Position position = positions.get(i);
+            if (position.hasCoordinates() && boundingBox.contains(position))
+                result.add(i);
+        }
+        return toArray(result);
+    }
+
+    private int closestByScan(List<Wgs84Position> positions, double longitude, double latitude, double threshold) {
+        int closestIndex = -1;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < positions.size(); ++i) {
+            Double distance = positions.get(i).calculateDistance(longitude, latitude);
+            if (distance != null && distance < closestDistance && distance < threshold) {
+                closestDistance = distance;
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+
+    @Test
+    public void testContainedPositionsMatchScan() {
+        List<Wgs84Position> positions = createPositions(2000, 10.0, 53.0, 2.0);
+        PositionIndex index = new PositionIndex(positions);
+        Random random = new Random(4711);
+        for (int i = 0; i < 100; i++) {
+            double west = 9.0 + random.nextDouble() * 2.0, south = 52.0 + random.nextDouble() * 2.0;
+            BoundingBox boundingBox = new BoundingBox(west + random.nextDouble(), south + random.nextDouble(), west, south);
+            assertArrayEquals(containedByScan(positions, boundingBox), index.getContainedPositions(boundingBox));
+        }
+        BoundingBox outside = new BoundingBox(-10.0, -10.0, -20.0, -20.0);
+        assertArrayEquals(new int[0], index.getContainedPositions(outside));
+    }
+
+    @Test
+    public void testClosestPositionMatchesScan() {
+        List<Wgs84Position> positions = createPositions(2000, 10.0, 53.0, 2.0);
+        PositionIndex index = new PositionIndex(positions);
+        Random random = new Random(4711);
+        double[] thresholds = new double[]{10.0, 500.0, 5000.0, 50000.0, 5000000.0, Double.MAX_VALUE};
+        for (int i = 0; i < 100; i++) {
+            double longitude = 8.5 + random.nextDouble() * 3.0, latitude = 51.5 + random.nextDouble() * 3.0;
+            for (double threshold : thresholds)
+                assertEquals(closestByScan(positions, longitude, latitude, threshold),
+                        index.getClosestPosition(positions, longitude, latitude, threshold));
+        }
+    }
+
+    @Test
+    public void testClosestPositionNearPoleAndDateLine() {
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        positions.addAll(createPositions(500, 179.5, 0.0, 1.0));
+        positions.addAll(createPositions(500, -179.5, 0.0, 1.0));
+        positions.addAll(createPositions(500, 0.0, 89.0, 1.0));
+        positions.addAll(createPositions(500, 180.0, 89.0, 1.0));
+        PositionIndex index = new PositionIndex(positions);
+        double[][] queries = new double[][]{{179.99, 0.0}, {-179.99, 0.1}, {90.0, 89.9}, {-90.0, 89.5}};
+        for (double[] query : queries)
+            for (double threshold : new double[]{1000.0, 50000.0, 500000.0})
+                assertEquals(closestByScan(positions, query[0], query[1], threshold),
+                        index.getClosestPosition(positions, query[0], query[1], threshold));
+    }
+
+    @Test
+    public void testRouteInvalidatesIndexOnEdits() {
+        List<Wgs84Position> positions = createPositions(1000, 10.0, 53.0, 2.0);
+        Wgs84Route route = new Wgs84Route(new GlopusFormat(), Track, positions);
+        BoundingBox boundingBox = new BoundingBox(10.5, 53.5, 9.5, 52.5);
+        assertArrayEquals(containedByScan(positions, boundingBox), route.getContainedPositions(boundingBox));
+
+        route.add(0, new Wgs84Position(10.0, 53.0, null, null, null, "added"));
+        assertEquals(0, route.getClosestPosition(10.0, 53.0, 1.0));
+        assertArrayEquals(containedByScan(positions, boundingBox), route.getContainedPositions(boundingBox));
+
+        route.down(0, 500);
+        assertEquals(500, route.getClosestPosition(10.0, 53.0, 1.0));
+
+        route.remove(500);
+        assertEquals(-1, route.getClosestPosition(10.0, 53.0, 1.0));
+        assertArrayEquals(containedByScan(positions, boundingBox), route.getContainedPositions(boundingBox));
+
+        route.getPosition(10).setLongitude(20.0);
+        route.getPosition(10).setLatitude(60.0);
+        route.invalidateIndex();
+        assertEquals(10, route.getClosestPosition(20.0, 60.0, 1.0));
+    }
+}
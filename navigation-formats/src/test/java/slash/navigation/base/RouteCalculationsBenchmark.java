@@ -0,0 +1,68 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.util.Random;
+
+import static slash.navigation.base.RouteCalculations.getSignificances;
+import static slash.navigation.base.RouteCalculations.getSignificantPositions;
+
+/**
+ * Measures how long {@link RouteCalculations#getSignificantPositions(double[], double[], double)}
+ * and {@link RouteCalculations#getSignificances(double[], double[])} take for a track of a million
+ * positions. Run it as a Java application; it is not part of the unit tests.
+ *
+ * @author Christian Pesch
+ */
+
+public class RouteCalculationsBenchmark {
+    private static final int POSITION_COUNT = 1000000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Random random = new Random(4711);
+        double[] longitudes = new double[POSITION_COUNT];
+        double[] latitudes = new double[POSITION_COUNT];
+        double longitude = 10.0, latitude = 53.0;
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            longitude += (random.nextDouble() - 0.4) * 0.0001;
+            latitude += (random.nextDouble() - 0.5) * 0.0001;
+            longitudes[i] = longitude;
+            latitudes[i] = latitude;
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (double threshold : new double[]{10.0, 100.0}) {
+                long start = System.nanoTime();
+                int[] significant = getSignificantPositions(longitudes, latitudes, threshold);
+                long end = System.nanoTime();
+                System.out.println("Round " + round + ": " + significant.length + " of " + POSITION_COUNT +
+                        " positions are significant for " + threshold + " m after " + (end - start) / 1000000 + " ms");
+            }
+
+            long start = System.nanoTime();
+            double[] significances = getSignificances(longitudes, latitudes);
+            long end = System.nanoTime();
+            System.out.println("Round " + round + ": significances of " + significances.length +
+                    " positions after " + (end - start) / 1000000 + " ms");
+        }
+    }
+}
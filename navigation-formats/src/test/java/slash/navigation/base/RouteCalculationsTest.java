@@ -0,0 +1,246 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.POSITIVE_INFINITY;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.Transfer.toArray;
+import static slash.navigation.base.RouteCalculations.asWgs84Position;
+import static slash.navigation.base.RouteCalculations.calculateOrthogonalDistance;
+import static slash.navigation.base.RouteCalculations.getSignificances;
+import static slash.navigation.base.RouteCalculations.getSignificantPositions;
+import static slash.navigation.base.RouteCalculations.updateSignificances;
+
+public class RouteCalculationsTest {
+    @Test
+    public void testSignificantPositionsOfShortLists() {
+        assertArrayEquals(new int[0], getSignificantPositions(new ArrayList<NavigationPosition>(), 10.0));
+        assertArrayEquals(new int[]{0}, getSignificantPositions(new double[]{10.0}, new double[]{53.0}, 10.0));
+        assertArrayEquals(new int[]{0, 1}, getSignificantPositions(new double[]{10.0, 10.1}, new double[]{53.0, 53.1}, 10.0));
+    }
+
+    @Test
+    public void testSignificantPositionsOfStraightLineWithPeak() {
+        List<NavigationPosition> positions = new ArrayList<NavigationPosition>();
+        positions.add(asWgs84Position(10.0, 53.0));
+        positions.add(asWgs84Position(10.01, 53.0));
+        positions.add(asWgs84Position(10.02, 53.01));
+        positions.add(asWgs84Position(10.03, 53.0));
+        positions.add(asWgs84Position(10.04, 53.0));
+        assertArrayEquals(new int[]{0, 2, 4}, getSignificantPositions(positions, 1000.0));
+        assertArrayEquals(new int[]{0, 4}, getSignificantPositions(positions, 2000.0));
+    }
+
+    @Test
+    public void testPositionsWithoutCoordinatesAreNotSignificant() {
+        double[] longitudes = new double[]{10.0, NaN, 10.02, 10.03};
+        double[] latitudes = new double[]{53.0, NaN, 53.01, 53.0};
+        assertArrayEquals(new int[]{0, 2, 3}, getSignificantPositions(longitudes, latitudes, 100.0));
+    }
+
+    @Test
+    public void testEndPositionsWithoutCoordinatesAreTrimmed() {
+        double[] longitudes = new double[]{NaN, 10.0, 10.01, 10.02, 10.03, 10.04, NaN};
+        double[] latitudes = new double[]{NaN, 53.0, 53.0, 53.01, 53.0, 53.0, NaN};
+        assertArrayEquals(new int[]{0, 1, 3, 5, 6}, getSignificantPositions(longitudes, latitudes, 1000.0));
+        assertArrayEquals(new int[]{0, 1, 5, 6}, getSignificantPositions(longitudes, latitudes, 2000.0));
+
+        double[] significances = getSignificances(longitudes, latitudes);
+        assertArrayEquals(new int[]{0, 1, 3, 5, 6}, filterSignificances(significances, 1000.0));
+        assertEquals(1112.0, significances[3], 5.0);
+        assertEquals(POSITIVE_INFINITY, significances[0], 0.0);
+    }
+
+    @Test
+    public void testOnlyPositionsWithoutCoordinates() {
+        double[] longitudes = new double[]{NaN, NaN, NaN};
+        double[] latitudes = new double[]{NaN, NaN, NaN};
+        assertArrayEquals(new int[]{0, 2}, getSignificantPositions(longitudes, latitudes, 10.0));
+    }
+
+    @Test
+    public void testDroppedPositionsAreWithinThreshold() {
+        Random random = new Random(42);
+        int count = 20000;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        double longitude = 10.0, latitude = 53.0;
+        for (int i = 0; i < count; i++) {
+            longitude += (random.nextDouble() - 0.3) * 0.001;
+            latitude += (random.nextDouble() - 0.5) * 0.001;
+            longitudes[i] = longitude;
+            latitudes[i] = latitude;
+        }
+
+        double threshold = 50.0;
+        int[] significant = getSignificantPositions(longitudes, latitudes, threshold);
+        assertEquals(0, significant[0]);
+        assertEquals(count - 1, significant[significant.length - 1]);
+        for (int i = 1; i < significant.length; i++) {
+            int from = significant[i - 1], to = significant[i];
+            assertTrue(from < to);
+            for (int j = from + 1; j < to; j++) {
+                double distance = calculateOrthogonalDistance(longitudes[from], latitudes[from],
+                        longitudes[to], latitudes[to], longitudes[j], latitudes[j]);
+                assertTrue("Position " + j + " has distance " + distance, distance <= threshold);
+            }
+        }
+    }
+
+    @Test
+    public void testMillionPositions() {
+        Random random = new Random(4711);
+        int count = 1000000;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        double longitude = 10.0, latitude = 53.0;
+        for (int i = 0; i < count; i++) {
+            longitude += (random.nextDouble() - 0.4) * 0.0001;
+            latitude += (random.nextDouble() - 0.5) * 0.0001;
+            longitudes[i] = longitude;
+            latitudes[i] = latitude;
+        }
+        int[] significant = getSignificantPositions(longitudes, latitudes, 10.0);
+        assertTrue(significant.length > 2 && significant.length < count);
+    }
+
+    @Test
+    public void testZigZagDoesNotOverflowStack() {
+        int count = 50000;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            longitudes[i] = 10.0 + i * 0.00001;
+            latitudes[i] = 53.0 + (i % 2 == 0 ? 0.0 : 0.001) + i * i * 0.000000000001;
+        }
+        int[] significant = getSignificantPositions(longitudes, latitudes, 10.0);
+        assertTrue(significant.length > count * 0.9);
+    }
+
+    private int[] filterSignificances(double[] significances, double threshold) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < significances.length; i++)
+            if (significances[i] > threshold)
+                result.add(i);
+        return toArray(result);
+    }
+
+    @Test
+    public void testSignificancesOfStraightLineWithPeak() {
+        double[] longitudes = new double[]{10.0, 10.01, 10.02, 10.03, 10.04};
+        double[] latitudes = new double[]{53.0, 53.0, 53.01, 53.0, 53.0};
+        double[] significances = getSignificances(longitudes, latitudes);
+        assertEquals(POSITIVE_INFINITY, significances[0], 0.0);
+        assertEquals(POSITIVE_INFINITY, significances[4], 0.0);
+        assertEquals(1112.0, significances[2], 5.0);
+        assertEquals(428.0, significances[1], 5.0);
+        assertEquals(428.0, significances[3], 5.0);
+        assertArrayEquals(new int[]{0, 2, 4}, filterSignificances(significances, 1000.0));
+        assertArrayEquals(new int[]{0, 4}, filterSignificances(significances, 2000.0));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, filterSignificances(significances, 100.0));
+    }
+
+    @Test
+    public void testSignificancesMatchSignificantPositions() {
+        Random random = new Random(42);
+        int count = 10000;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        double longitude = 10.0, latitude = 53.0;
+        for (int i = 0; i < count; i++) {
+            longitude += (random.nextDouble() - 0.3) * 0.001;
+            latitude += (random.nextDouble() - 0.5) * 0.001;
+            longitudes[i] = longitude;
+            latitudes[i] = latitude;
+        }
+        double[] significances = getSignificances(longitudes, latitudes);
+        for (double threshold : new double[]{10.0, 100.0, 1000.0}) {
+            int[] expected = getSignificantPositions(longitudes, latitudes, threshold);
+            int[] actual = filterSignificances(significances, threshold);
+            // both agree but where the geodesic distance decides close to the threshold
+            assertEquals(expected.length, actual.length, expected.length * 0.02);
+        }
+    }
+
+    @Test
+    public void testUpdateSignificancesOfMovedPosition() {
+        double[] longitudes = new double[]{10.0, 10.01, 10.02, 10.03, 10.04};
+        double[] latitudes = new double[]{53.0, 53.0, 53.01, 53.0, 53.0};
+        double[] significances = getSignificances(longitudes, latitudes);
+
+        latitudes[3] = 53.005;
+        updateSignificances(longitudes, latitudes, significances, 3);
+        assertArrayEquals(getSignificances(longitudes, latitudes), significances, 0.0);
+
+        latitudes[2] = 53.0;
+        updateSignificances(longitudes, latitudes, significances, 2);
+        assertArrayEquals(getSignificances(longitudes, latitudes), significances, 0.0);
+
+        longitudes[0] = 9.9;
+        updateSignificances(longitudes, latitudes, significances, 0);
+        assertArrayEquals(getSignificances(longitudes, latitudes), significances, 0.0);
+    }
+
+    @Test
+    public void testUpdateSignificancesOfPositionMovedFarOffTheLine() {
+        double[] longitudes = new double[]{10.0, 10.01, 10.02, 10.03, 10.04, 10.05, 10.06, 10.07, 10.08};
+        double[] latitudes = new double[]{53.0, 53.001, 53.0, 53.02, 53.0, 53.001, 53.0, 53.002, 53.0};
+        double[] significances = getSignificances(longitudes, latitudes);
+
+        latitudes[6] = 53.1;
+        updateSignificances(longitudes, latitudes, significances, 6);
+        assertArrayEquals(getSignificances(longitudes, latitudes), significances, 0.0);
+        assertArrayEquals(new int[]{0, 3, 5, 6, 8}, filterSignificances(significances, 1000.0));
+    }
+
+    @Test
+    public void testUpdateSignificancesMatchesSignificancesAfterRandomMoves() {
+        Random random = new Random(42);
+        int count = 1000;
+        double[] longitudes = new double[count];
+        double[] latitudes = new double[count];
+        double longitude = 10.0, latitude = 53.0;
+        for (int i = 0; i < count; i++) {
+            longitude += (random.nextDouble() - 0.3) * 0.001;
+            latitude += (random.nextDouble() - 0.5) * 0.001;
+            longitudes[i] = longitude;
+            latitudes[i] = latitude;
+        }
+        double[] significances = getSignificances(longitudes, latitudes);
+
+        for (int i = 0; i < 200; i++) {
+            int index = 1 + random.nextInt(count - 2);
+            latitudes[index] += (random.nextDouble() - 0.5) * (i % 10 == 0 ? 0.5 : 0.005);
+            updateSignificances(longitudes, latitudes, significances, index);
+            assertArrayEquals("Move " + i + " of position " + index,
+                    getSignificances(longitudes, latitudes), significances, 0.0);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.simple.GlopusFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class RouteStatisticsTest {
+    private static final double DELTA = 0.000001;
+    private final Random random = new Random(42);
+
+    private Wgs84Position createPosition() {
+        return new Wgs84Position(10.0 + random.nextDouble(), 53.0 + random.nextDouble(),
+                random.nextInt(5) == 0 ? null : random.nextDouble() * 100.0, null, null, null);
+    }
+
+    private double[] distancesFromStart(List<Wgs84Position> positions) {
+        double[] result = new double[positions.size()];
+        double distance = 0.0;
+        for (int i = 1; i < positions.size(); i++) {
+            Double delta = positions.get(i - 1).calculateDistance(positions.get(i));
+            if (delta != null)
+                distance += delta;
+            result[i] = distance;
+        }
+        return result;
+    }
+
+    private double elevationAscend(List<Wgs84Position> positions, int endIndex) {
+        double result = 0.0;
+        for (int i = 1; i <= endIndex; i++) {
+            Double elevation = positions.get(i - 1).calculateElevation(positions.get(i));
+            if (elevation != null && elevation > 0)
+                result += elevation;
+        }
+        return result;
+    }
+
+    private double elevationDescend(List<Wgs84Position> positions, int endIndex) {
+        double result = 0.0;
+        for (int i = 1; i <= endIndex; i++) {
+            Double elevation = positions.get(i - 1).calculateElevation(positions.get(i));
+            if (elevation != null && elevation < 0)
+                result -= elevation;
+        }
+        return result;
+    }
+
+    private void assertStatistics(Wgs84Route route) {
+        List<Wgs84Position> positions = route.getPositions();
+        int last = positions.size() - 1;
+        double[] expected = distancesFromStart(positions);
+        assertArrayEquals(expected, route.getDistancesFromStart(0, last), DELTA);
+        assertEquals(last >= 0 ? expected[last] : 0.0, route.getDistance(), DELTA);
+        if (last > 10) {
+            assertEquals(expected[last] - expected[5], route.getDistance(5, last), DELTA);
+            assertArrayEquals(new double[]{expected[3], expected[7]}, route.getDistancesFromStart(new int[]{7, 3}), DELTA);
+        }
+        assertEquals(elevationAscend(positions, last), route.getElevationAscend(0, last), DELTA);
+        assertEquals(elevationDescend(positions, last), route.getElevationDescend(0, last), DELTA);
+    }
+
+    @Test
+    public void testMaintainsStatisticsOnEdits() {
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        for (int i = 0; i < 500; i++)
+            positions.add(createPosition());
+        Wgs84Route route = new Wgs84Route(new GlopusFormat(), Track, positions);
+        assertStatistics(route);
+
+        for (int i = 0; i < 200; i++) {
+            int index = random.nextInt(route.getPositionCount());
+            switch (random.nextInt(7)) {
+                case 0:
+                    route.add(index, createPosition());
+                    route.positionsInserted(index, index);
+                    break;
+                case 1:
+                    route.remove(index);
+                    break;
+                case 2:
+                    Wgs84Position position = route.getPosition(index);
+                    position.setLongitude(position.getLongitude() + 0.01);
+                    position.setElevation(random.nextDouble() * 100.0);
+                    route.positionsUpdated(index, index);
+                    break;
+                case 3:
+                    route.down(index, min(index + 3, route.getPositionCount() - 1));
+                    break;
+                case 4:
+                    route.up(index, max(index - 3, 0));
+                    break;
+                case 5:
+                    int count = 1 + random.nextInt(10);
+                    for (int j = 0; j < count; j++)
+                        route.add(index, createPosition());
+                    route.positionsInserted(index, index + count - 1);
+                    break;
+                case 6:
+                    route.remove(index, min(index + random.nextInt(10), route.getPositionCount() - 1));
+                    break;
+            }
+            assertStatistics(route);
+        }
+
+        route.revert();
+        assertStatistics(route);
+        route.getPositions().add(createPosition());
+        assertStatistics(route);
+    }
+
+    private List<Wgs84Position> createPositions(int count) {
+        List<Wgs84Position> positions = new ArrayList<Wgs84Position>();
+        for (int i = 0; i < count; i++)
+            positions.add(createPosition());
+        return positions;
+    }
+
+    @Test
+    public void testNoticesDirectChangesOfThePositionsList() {
+        Wgs84Route route = new Wgs84Route(new GlopusFormat(), Track, createPositions(100));
+        double distance = route.getDistance();
+
+        Wgs84Position position = route.getPosition(50);
+        position.setLongitude(position.getLongitude() + 1.0);
+        route.positionsUpdated(50, 50);
+        assertEquals(distancesFromStart(route.getPositions())[99], route.getDistance(), DELTA);
+        assertTrue(route.getDistance() > distance);
+
+        route.getPositions().set(20, createPosition());
+        assertStatistics(route);
+
+        route.getPositions().remove(30);
+        route.getPositions().add(70, createPosition());
+        assertStatistics(route);
+    }
+
+    @Test
+    public void testNoticesChangesOfColumnarPositions() {
+        Wgs84Route route = new ColumnarRoute(new GlopusFormat(), Track, createPositions(100));
+        double distance = route.getDistance();
+
+        Wgs84Position position = route.getPosition(50);
+        position.setLongitude(position.getLongitude() + 1.0);
+        assertEquals(distancesFromStart(route.getPositions())[99], route.getDistance(), DELTA);
+        assertTrue(route.getDistance() > distance);
+
+        position.setLatitude(position.getLatitude() - 1.0);
+        position.setElevation(1000.0);
+        assertStatistics(route);
+    }
+
+    @Test
+    public void testKeepsStatisticsOnChangesOfOtherRoutes() {
+        Wgs84Route route = new Wgs84Route(new GlopusFormat(), Track, createPositions(100));
+        double distance = route.getDistance();
+
+        // an unreported change to a position is not noticed by itself ...
+        Wgs84Position position = route.getPosition(50);
+        position.setLongitude(position.getLongitude() + 1.0);
+
+        // ... and neither creating positions nor changing other routes recalculates the distances
+        Wgs84Route other = new ColumnarRoute(new GlopusFormat(), Track, createPositions(10));
+        other.getPosition(5).setLongitude(0.0);
+        other.getPositions().remove(3);
+        assertEquals(distance, route.getDistance(), 0.0);
+
+        route.positionsUpdated(50, 50);
+        assertStatistics(route);
+    }
+
+    @Test
+    public void testEmptyRoute() {
+        Wgs84Route route = new Wgs84Route(new GlopusFormat(), Track, new ArrayList<Wgs84Position>());
+        assertEquals(0.0, route.getDistance(), DELTA);
+        assertArrayEquals(new double[0], route.getDistancesFromStart(0, -1), DELTA);
+        route.add(0, createPosition());
+        route.positionsInserted(0, 0);
+        assertStatistics(route);
+    }
+}
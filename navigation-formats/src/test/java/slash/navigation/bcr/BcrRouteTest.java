@@ -27,8 +27,8 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
-import static slash.common.TestCase.assertDoubleArrayEquals;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.TestCase.assertIntArrayEquals;
 import static slash.common.TestCase.assertNotNull;
@@ -44,6 +44,8 @@ import static slash.navigation.common.NumberPattern.Number_Only;
 import static slash.navigation.common.NumberPattern.Number_Space_Then_Description;
 
 public class BcrRouteTest {
+    private static final double DELTA = 0.0000001;
+
     BcrRoute route = new BcrRoute(new MTP0607Format(), "r", null, new ArrayList<BcrPosition>());
     BcrPosition a = new BcrPosition(1, 1, 0, "a");
     BcrPosition b = new BcrPosition(2, 1, 0, "b");
@@ -236,13 +238,13 @@ public class BcrRouteTest {
         positions.add(c);
         positions.add(d);
         positions.add(e);
-        assertDoubleEquals(0.0, route.getDistance(0, 0));
-        assertDoubleEquals(1.1131, route.getDistance(0, 1));
-        assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 2));
-        assertDoubleEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 3));
-        assertDoubleEquals(1.569 + 2.4858, route.getDistance(1, 3));
-        assertDoubleEquals(route.getDistance(1, 2) + route.getDistance(2, 3), route.getDistance(1, 3));
-        assertDoubleEquals(2.4858, route.getDistance(2, 3));
+        assertEquals(0.0, route.getDistance(0, 0), DELTA);
+        assertEquals(1.1131, route.getDistance(0, 1), DELTA);
+        assertEquals(1.1131 + 1.569, route.getDistance(0, 2), DELTA);
+        assertEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 3), DELTA);
+        assertEquals(1.569 + 2.4858, route.getDistance(1, 3), DELTA);
+        assertEquals(route.getDistance(1, 2) + route.getDistance(2, 3), route.getDistance(1, 3), DELTA);
+        assertEquals(2.4858, route.getDistance(2, 3), DELTA);
     }
 
     @Test
@@ -255,14 +257,14 @@ public class BcrRouteTest {
         positions.add(c);
         positions.add(d);
         positions.add(e);
-        assertDoubleEquals(0.0, route.getDistance(0, 0));
-        assertDoubleEquals(1.1131, route.getDistance(0, 1));
-        assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 2));
-        assertDoubleEquals(1.1131 + 1.569, route.getDistance(0, 3));
-        assertDoubleEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 4));
-        assertDoubleEquals(1.569 + 2.4858, route.getDistance(1, 4));
-        assertDoubleEquals(route.getDistance(1, 2) + route.getDistance(2, 3) + route.getDistance(3, 4), route.getDistance(1, 4));
-        assertDoubleEquals(2.4858, route.getDistance(2, 4));
+        assertEquals(0.0, route.getDistance(0, 0), DELTA);
+        assertEquals(1.1131, route.getDistance(0, 1), DELTA);
+        assertEquals(1.1131 + 1.569, route.getDistance(0, 2), DELTA);
+        assertEquals(1.1131 + 1.569, route.getDistance(0, 3), DELTA);
+        assertEquals(1.1131 + 1.569 + 2.4858, route.getDistance(0, 4), DELTA);
+        assertEquals(1.569 + 2.4858, route.getDistance(1, 4), DELTA);
+        assertEquals(route.getDistance(1, 2) + route.getDistance(2, 3) + route.getDistance(3, 4), route.getDistance(1, 4), DELTA);
+        assertEquals(2.4858, route.getDistance(2, 4), DELTA);
     }
 
     @Test
@@ -274,15 +276,15 @@ public class BcrRouteTest {
         positions.add(c);
         positions.add(d);
         positions.add(e);
-        assertDoubleArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(0, 1));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(0, 2));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(0, 4));
-        assertDoubleArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(1, 3));
-        assertDoubleArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0));
-        assertDoubleArrayEquals(new double[]{1.1131}, route.getDistancesFromStart(1, 1));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(2, 2));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569+2.4858}, route.getDistancesFromStart(3, 3));
+        assertArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(0, 1), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(0, 2), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(0, 4), DELTA);
+        assertArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(1, 3), DELTA);
+        assertArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0), DELTA);
+        assertArrayEquals(new double[]{1.1131}, route.getDistancesFromStart(1, 1), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(2, 2), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569+2.4858}, route.getDistancesFromStart(3, 3), DELTA);
     }
 
     @Test
@@ -295,18 +297,18 @@ public class BcrRouteTest {
         positions.add(c);
         positions.add(d);
         positions.add(e);
-        assertDoubleArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(0, 1));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(0, 2));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(0, 4));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(0, 5));
-        assertDoubleArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569}, route.getDistancesFromStart(1, 3));
-        assertDoubleArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(1, 4));
-        assertDoubleArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0));
-        assertDoubleArrayEquals(new double[]{1.1131}, route.getDistancesFromStart(1, 1));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(2, 2));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(3, 3));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569+2.4858}, route.getDistancesFromStart(4, 4));
+        assertArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(0, 1), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(0, 2), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(0, 4), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(0, 5), DELTA);
+        assertArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569}, route.getDistancesFromStart(1, 3), DELTA);
+        assertArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569, 1.1131+1.569+2.4858}, route.getDistancesFromStart(1, 4), DELTA);
+        assertArrayEquals(new double[]{0.0}, route.getDistancesFromStart(0, 0), DELTA);
+        assertArrayEquals(new double[]{1.1131}, route.getDistancesFromStart(1, 1), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(2, 2), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569}, route.getDistancesFromStart(3, 3), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569+2.4858}, route.getDistancesFromStart(4, 4), DELTA);
     }
 
     @Test
@@ -318,13 +320,13 @@ public class BcrRouteTest {
         positions.add(c);
         positions.add(d);
         positions.add(e);
-        assertDoubleArrayEquals(new double[]{0.0}, route.getDistancesFromStart(new int[]{0}));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(new int[]{0, 1}));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(new int[]{0, 1, 2}));
-        assertDoubleArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{0, 1, 2, 3, 4}));
-        assertDoubleArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{1,2,4}));
-        assertDoubleArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{4,1,2}));
-        assertDoubleArrayEquals(new double[]{1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{4}));
+        assertArrayEquals(new double[]{0.0}, route.getDistancesFromStart(new int[]{0}), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131}, route.getDistancesFromStart(new int[]{0, 1}), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569}, route.getDistancesFromStart(new int[]{0, 1, 2}), DELTA);
+        assertArrayEquals(new double[]{0.0, 1.1131, 1.1131+1.569, 1.1131+1.569+2.4858, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{0, 1, 2, 3, 4}), DELTA);
+        assertArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{1,2,4}), DELTA);
+        assertArrayEquals(new double[]{1.1131, 1.1131+1.569, 1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{4,1,2}), DELTA);
+        assertArrayEquals(new double[]{1.1131+1.569+2.4858+2.2114}, route.getDistancesFromStart(new int[]{4}), DELTA);
     }
 
     @Test
@@ -333,14 +335,14 @@ public class BcrRouteTest {
         positions.clear();
         positions.add(a);
         positions.add(b);
-        assertDoubleEquals(1.1131, route.getDistance());
-        assertDoubleEquals(a.calculateDistance(b), route.getDistance());
+        assertEquals(1.1131, route.getDistance(), DELTA);
+        assertEquals(a.calculateDistance(b), route.getDistance(), DELTA);
         positions.add(c);
-        assertDoubleEquals(1.1131+1.569, route.getDistance());
+        assertEquals(1.1131+1.569, route.getDistance(), DELTA);
         positions.add(d);
-        assertDoubleEquals(1.1131+1.569+2.4858, route.getDistance());
+        assertEquals(1.1131+1.569+2.4858, route.getDistance(), DELTA);
         positions.add(e);
-        assertDoubleEquals(1.1131+1.569+2.4858+2.2114, route.getDistance());
+        assertEquals(1.1131+1.569+2.4858+2.2114, route.getDistance(), DELTA);
     }
 
     @Test
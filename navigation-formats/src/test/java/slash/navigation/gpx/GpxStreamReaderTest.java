@@ -0,0 +1,217 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gpx;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionConsumer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+
+public class GpxStreamReaderTest {
+    private static final String GPX_10 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx xmlns=\"http://www.topografix.com/GPX/1/0\" version=\"1.0\" creator=\"Test\">\n" +
+            "  <name>Waypoints</name>\n" +
+            "  <wpt lat=\"53.5\" lon=\"10.0\">\n" +
+            "    <ele>12.5</ele>\n" +
+            "    <time>2007-04-02T13:04:41Z</time>\n" +
+            "    <course>123.4</course>\n" +
+            "    <speed>10.0</speed>\n" +
+            "    <name>Hamburg</name>\n" +
+            "    <desc>Harbour</desc>\n" +
+            "    <sat>8</sat>\n" +
+            "    <hdop>1.2</hdop>\n" +
+            "  </wpt>\n" +
+            "  <rte>\n" +
+            "    <name>Route</name>\n" +
+            "    <rtept lat=\"53.6\" lon=\"10.1\"><cmt>Speed 12 km/h</cmt><name>First</name></rtept>\n" +
+            "    <rtept lat=\"53.7\" lon=\"10.2\"><time>2007-04-02T15:04:41.123+02:00</time></rtept>\n" +
+            "  </rte>\n" +
+            "  <trk>\n" +
+            "    <name>Track</name>\n" +
+            "    <trkseg>\n" +
+            "      <trkpt lat=\"-0.0\" lon=\"-1.5\"><time>2007-04-02T13:04:41.5</time><pdop>2.5</pdop><vdop>1.5</vdop></trkpt>\n" +
+            "      <trkpt lat=\"53.8\" lon=\"10.3\"><ele>  </ele><time>1500-01-01T00:00:00Z</time><name><![CDATA[Punkt : ]]>Alster</name></trkpt>\n" +
+            "    </trkseg>\n" +
+            "  </trk>\n" +
+            "</gpx>\n";
+
+    private static final String GPX_11 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" xmlns:nmea=\"http://trekbuddy.net/2009/01/gpx/nmea\"\n" +
+            "     xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\"\n" +
+            "     xmlns:gpxx=\"http://www.garmin.com/xmlschemas/GpxExtensions/v3\" version=\"1.1\" creator=\"Test\">\n" +
+            "  <metadata><name>Waypoints</name></metadata>\n" +
+            "  <wpt lat=\"53.5\" lon=\"10.0\">\n" +
+            "    <ele>12.5</ele>\n" +
+            "    <time>2007-04-02T13:04:41Z</time>\n" +
+            "    <name>Hamburg; Harbour</name>\n" +
+            "    <extensions><nmea:speed>10.0</nmea:speed><nmea:course>123.4</nmea:course></extensions>\n" +
+            "  </wpt>\n" +
+            "  <rte>\n" +
+            "    <name>Route</name>\n" +
+            "    <rtept lat=\"53.6\" lon=\"10.1\">\n" +
+            "      <cmt>Speed: 12.5Km/h Course: 270</cmt>\n" +
+            "      <extensions><gpxx:RoutePointExtension><gpxx:rpt lat=\"53.65\" lon=\"10.15\"/></gpxx:RoutePointExtension></extensions>\n" +
+            "    </rtept>\n" +
+            "  </rte>\n" +
+            "  <trk>\n" +
+            "    <trkseg>\n" +
+            "      <trkpt lat=\"53.7\" lon=\"10.2\"><time>2007-04-02T13:04:41.123456Z</time>\n" +
+            "        <extensions><gpxtpx:TrackPointExtension><gpxtpx:speed>5.0</gpxtpx:speed></gpxtpx:TrackPointExtension></extensions>\n" +
+            "      </trkpt>\n" +
+            "      <trkpt lat=\"53.8\" lon=\"10.3\"><time>2007-04-02T13:04:42-01:30</time><sat>12</sat>\n" +
+            "        <extensions><gpxtpx:TrackPointExtension>\n" +
+            "          <gpxtpx:speed>5.0</gpxtpx:speed></gpxtpx:TrackPointExtension></extensions>\n" +
+            "      </trkpt>\n" +
+            "    </trkseg>\n" +
+            "  </trk>\n" +
+            "</gpx>\n";
+
+    private List<BaseNavigationPosition> stream(GpxFormat format, String gpx) throws IOException {
+        final List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        format.readPositions(new ByteArrayInputStream(gpx.getBytes(UTF8_ENCODING)), null, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add(position);
+            }
+        });
+        return positions;
+    }
+
+    private List<BaseNavigationPosition> unmarshal(GpxFormat format, String gpx) throws Exception {
+        ParserContext<GpxRoute> context = new ParserContextImpl<GpxRoute>();
+        format.read(new ByteArrayInputStream(gpx.getBytes(UTF8_ENCODING)), null, context);
+        List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        for (GpxRoute route : context.getRoutes())
+            positions.addAll(route.getPositions());
+        return positions;
+    }
+
+    private void assertPositionsEqual(List<BaseNavigationPosition> expected, List<BaseNavigationPosition> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            BaseNavigationPosition e = expected.get(i), a = actual.get(i);
+            assertEquals("position " + i, e, a);
+            assertEquals("speed of position " + i, e.getSpeed(), a.getSpeed());
+            assertEquals("time of position " + i, e.getTime(), a.getTime());
+        }
+    }
+
+    @Test
+    public void testReadGpx10LikeJaxb() throws Exception {
+        Gpx10Format format = new Gpx10Format();
+        List<BaseNavigationPosition> positions = stream(format, GPX_10);
+        assertPositionsEqual(unmarshal(format, GPX_10), positions);
+        assertEquals(5, positions.size());
+
+        GpxPosition position = (GpxPosition) positions.get(0);
+        assertDoubleEquals(10.0, position.getLongitude());
+        assertDoubleEquals(53.5, position.getLatitude());
+        assertDoubleEquals(12.5, position.getElevation());
+        assertDoubleEquals(36.0, position.getSpeed());
+        assertDoubleEquals(123.4, position.getHeading());
+        assertEquals("Hamburg; Harbour", position.getDescription());
+        assertEquals(new Integer(8), position.getSatellites());
+        assertDoubleEquals(1.2, position.getHdop());
+        assertDoubleEquals(12.0, positions.get(1).getSpeed());
+        assertNull(positions.get(3).getElevation());
+        assertEquals("Punkt", ((GpxPosition) positions.get(4)).getReason());
+    }
+
+    @Test
+    public void testReadGpx11LikeJaxb() throws Exception {
+        Gpx11Format format = new Gpx11Format();
+        List<BaseNavigationPosition> positions = stream(format, GPX_11);
+        List<BaseNavigationPosition> expected = unmarshal(format, GPX_11);
+        assertEquals(4, expected.size());
+        assertPositionsEqual(expected, positions);
+
+        assertDoubleEquals(36.0, positions.get(0).getSpeed());
+        assertDoubleEquals(123.4, ((GpxPosition) positions.get(0)).getHeading());
+        assertDoubleEquals(12.5, positions.get(1).getSpeed());
+        assertDoubleEquals(270.0, ((GpxPosition) positions.get(1)).getHeading());
+        assertDoubleEquals(18.0, positions.get(2).getSpeed());
+        assertDoubleEquals(18.0, positions.get(3).getSpeed());
+    }
+
+    @Test
+    public void testReadOtherVersion() throws IOException {
+        assertEquals(0, stream(new Gpx10Format(), GPX_11).size());
+        assertEquals(0, stream(new Gpx11Format(), GPX_10).size());
+        assertEquals(0, stream(new Gpx11Format(), "<?xml version=\"1.0\"?><kml xmlns=\"http://www.opengis.net/kml/2.2\"/>").size());
+    }
+
+    @Test
+    public void testReadTruncated() throws IOException {
+        final List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        try {
+            new Gpx10Format().readPositions(new ByteArrayInputStream(GPX_10.substring(0, GPX_10.indexOf("<trk>")).getBytes(UTF8_ENCODING)), null, new PositionConsumer() {
+                public void consume(BaseNavigationPosition position) {
+                    positions.add(position);
+                }
+            });
+            assertTrue("truncated document read", false);
+        } catch (IOException e) {
+            assertEquals(3, positions.size());
+        }
+    }
+
+    @Test
+    public void testReadTimes() throws Exception {
+        for (String time : new String[]{"2007-04-02T13:04:41Z", "2007-04-02T13:04:41", "2007-04-02T13:04:41.1Z",
+                "2007-04-02T13:04:41.987654+14:00", "2007-04-02T13:04:41-12:45", "2000-02-29T23:59:59.999Z",
+                " 2007-04-02T13:04:41Z ", "2007-04-02T24:00:00Z", "12007-04-02T13:04:41Z", "1400-04-02T13:04:41Z",
+                "2007-02-29T13:04:41Z", "2007-04-02"}) {
+            String gpx = "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\">" +
+                    "<wpt lat=\"1.0\" lon=\"2.0\"><time>" + time + "</time></wpt></gpx>";
+            List<BaseNavigationPosition> expected = unmarshal(new Gpx11Format(), gpx);
+            List<BaseNavigationPosition> actual = stream(new Gpx11Format(), gpx);
+            assertEquals(time, expected.get(0).getTime(), actual.get(0).getTime());
+        }
+    }
+
+    @Test
+    public void testReadExtensions() throws Exception {
+        for (String extension : new String[]{
+                "<gpxtpx:TrackPointExtension>\n  <gpxtpx:speed>5.0</gpxtpx:speed>\n  <gpxtpx:course>90</gpxtpx:course>\n</gpxtpx:TrackPointExtension>",
+                "<gpxtpx:TrackPointExtension><!-- comment --><gpxtpx:speed>5.0</gpxtpx:speed></gpxtpx:TrackPointExtension>",
+                "<gpxtpx:TrackPointExtension>text<gpxtpx:speed>5.0</gpxtpx:speed></gpxtpx:TrackPointExtension>",
+                "<nmea:speed> 7.0 </nmea:speed><nmea:course>45</nmea:course>"}) {
+            String gpx = "<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" xmlns:nmea=\"http://trekbuddy.net/2009/01/gpx/nmea\" " +
+                    "xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\" version=\"1.1\">" +
+                    "<wpt lat=\"1.0\" lon=\"2.0\"><extensions>" + extension + "</extensions></wpt></gpx>";
+            List<BaseNavigationPosition> expected = unmarshal(new Gpx11Format(), gpx);
+            List<BaseNavigationPosition> actual = stream(new Gpx11Format(), gpx);
+            assertEquals(extension, expected.get(0).getSpeed(), actual.get(0).getSpeed());
+            assertEquals(extension, ((GpxPosition) expected.get(0)).getHeading(), ((GpxPosition) actual.get(0)).getHeading());
+        }
+    }
+}
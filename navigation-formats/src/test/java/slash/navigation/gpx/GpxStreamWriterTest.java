@@ -0,0 +1,105 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gpx;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.common.type.CompactCalendar.fromMillis;
+
+public class GpxStreamWriterTest {
+    private String write(GpxFormat format, BaseNavigationPosition... positions) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        PositionWriter writer = format.createPositionWriter("Stream", target);
+        for (BaseNavigationPosition position : positions)
+            writer.consume(position);
+        writer.close();
+        return target.toString(UTF8_ENCODING);
+    }
+
+    private GpxRoute unmarshal(GpxFormat format, String gpx) throws Exception {
+        ParserContext<GpxRoute> context = new ParserContextImpl<GpxRoute>();
+        format.read(new ByteArrayInputStream(gpx.getBytes(UTF8_ENCODING)), null, context);
+        assertEquals(1, context.getRoutes().size());
+        return context.getRoutes().get(0);
+    }
+
+    private GpxPosition createPosition() {
+        GpxPosition position = new GpxPosition(10.0, 53.5, 12.5, 36.0, fromMillis(1175519081123L), "Hamburg: Harbour");
+        position.setHeading(123.4);
+        return position;
+    }
+
+    private void checkWrittenLikeRead(GpxFormat format) throws Exception {
+        String gpx = write(format, createPosition(), new GpxPosition(10.1, 53.6, null, null, null, null));
+        GpxRoute route = unmarshal(format, gpx);
+        assertEquals("Stream", route.getName());
+        List<GpxPosition> positions = route.getPositions();
+        assertEquals(2, positions.size());
+
+        GpxPosition position = positions.get(0);
+        assertDoubleEquals(10.0, position.getLongitude());
+        assertDoubleEquals(53.5, position.getLatitude());
+        assertDoubleEquals(12.5, position.getElevation());
+        assertDoubleEquals(36.0, position.getSpeed());
+        assertDoubleEquals(123.4, position.getHeading());
+        assertEquals(fromMillis(1175519081123L), position.getTime());
+        assertEquals("Hamburg: Harbour", position.getDescription());
+
+        GpxPosition second = positions.get(1);
+        assertDoubleEquals(10.1, second.getLongitude());
+        assertDoubleEquals(53.6, second.getLatitude());
+        assertEquals(null, second.getTime());
+    }
+
+    @Test
+    public void testWriteGpx10() throws Exception {
+        checkWrittenLikeRead(new Gpx10Format());
+    }
+
+    @Test
+    public void testWriteGpx11() throws Exception {
+        checkWrittenLikeRead(new Gpx11Format());
+        String gpx = write(new Gpx11Format(), createPosition());
+        assertTrue(gpx.contains("<nmea:speed>10.0</nmea:speed>"));
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        String gpx = write(new Gpx11Format());
+        assertTrue(gpx.contains("<trkseg>"));
+        ParserContext<GpxRoute> context = new ParserContextImpl<GpxRoute>();
+        new Gpx11Format().read(new ByteArrayInputStream(gpx.getBytes(UTF8_ENCODING)), null, context);
+        assertEquals(0, context.getRoutes().size() > 0 ? context.getRoutes().get(0).getPositionCount() : 0);
+    }
+}
@@ -249,4 +249,16 @@ public class TripmasterTest extends NavigationTestCase {
         checkTripmasterGpxDescription("Blunk", "Dist. 107", "Dist. 107 : Blunk");
         checkTripmasterGpxDescription("Blunk", "Course 35", "Course 35 : Blunk");
     }
+
+    public void testPlainDescriptionsKeepValues() {
+        CompactCalendar time = calendar(2010, 5, 1, 12, 0, 0);
+        TomTomPosition position = new TomTomPosition(0.0, 0.0, 12.0, 5.0, time, "Waypoint 17");
+        assertEquals("Waypoint 17", position.getCity());
+        assertNull(position.getReason());
+        assertEquals(12.0, position.getElevation());
+        assertEquals(time, position.getTime());
+
+        checkTripmasterGpxDescription("Malchin - Teterow", null, "Malchin - Teterow");
+        checkTripmasterGpxDescription("Richtung Hamburg", null, "Richtung Hamburg");
+    }
 }
@@ -0,0 +1,97 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.common.NavigationPosition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static slash.navigation.common.PositionParser.parseExtensionPositions;
+
+public class CoordinatesTokenizerTest {
+    private Kml22Format format = new Kml22Format();
+
+    private List<KmlPosition> tokenize(boolean extension, String coordinates, int chunkSize) throws IOException {
+        final List<KmlPosition> positions = new ArrayList<KmlPosition>();
+        CoordinatesTokenizer tokenizer = new CoordinatesTokenizer(extension);
+        tokenizer.start(new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add((KmlPosition) position);
+            }
+        });
+        char[] characters = coordinates.toCharArray();
+        for (int i = 0; i < characters.length; i += chunkSize)
+            tokenizer.tokenize(characters, i, Math.min(chunkSize, characters.length - i));
+        tokenizer.finish();
+        return positions;
+    }
+
+    private void assertTokenizedLikeParsed(boolean extension, String coordinates, List<KmlPosition> expected) throws IOException {
+        for (int chunkSize = 1; chunkSize <= coordinates.length() + 1; chunkSize++) {
+            List<KmlPosition> actual = tokenize(extension, coordinates, chunkSize);
+            assertEquals("'" + coordinates + "' in chunks of " + chunkSize, expected, actual);
+        }
+    }
+
+    @Test
+    public void testCoordinatesLikePositionParser() throws IOException {
+        for (String coordinates : new String[]{"151.2393322528181,-33.59862693992532,0",
+                "10.0,53.0,12.5 10.1,53.1,13.5", " 10.0,53.0\n\t10.1,53.1 ", "10.0, 53.0, 0 \n",
+                "10.0 ,53.0 ,1.5 ", "10,53,,11", "10,53, ", "10,53,", ",53", "10,,12", "1,2,3,4,5,6",
+                "1,2,3 ,4", "1,2 3,4", "5 1,2", "1,2x3,4", "1x,2", "1, x2", "+1.5,-0.0,1E3",
+                "0.00000000000000000001,123456789012345678,1.0000000000000001", ""}) {
+            try {
+                assertTokenizedLikeParsed(false, coordinates, format.asKmlPositions(asList(coordinates)));
+            } catch (NumberFormatException e) {
+                fail("'" + coordinates + "' cannot be parsed");
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidNumber() throws IOException {
+        try {
+            tokenize(false, "10.0,5-3.0", 100);
+            fail("NumberFormatException expected");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCoordLikePositionParser() throws IOException {
+        for (String coordinates : new String[]{"10.0 53.0 12.5", "10.0,53.0,12.5", " 10.0  53.0\n12.5 ",
+                "10.0 53.0 12.5 10.1 53.1 13.5", "10.0 53.0", "10.0 x 53.0 12.5 1.0"}) {
+            List<KmlPosition> expected = new ArrayList<KmlPosition>();
+            for (NavigationPosition position : parseExtensionPositions(coordinates))
+                expected.add(new KmlPosition(position.getLongitude(), position.getLatitude(), position.getElevation(), null, null, null));
+            assertTokenizedLikeParsed(true, coordinates, expected);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationFormat;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.RouteCharacteristics;
+import slash.navigation.base.RoutesConsumer;
+import slash.navigation.base.StreamingNavigationFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.base.RouteCharacteristics.Waypoints;
+
+public class KmlStreamReaderTest {
+    private static final String KML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\"\n" +
+            "     xmlns:xal=\"urn:oasis:names:tc:ciq:xsdschema:xAL:2.0\">\n" +
+            "  <Document>\n" +
+            "    <name>Export</name>\n" +
+            "    <Style id=\"trackStyle\"><LineStyle><color>ffff00ff</color><width>3.0</width></LineStyle></Style>\n" +
+            "    <Folder>\n" +
+            "      <name>Waypoints</name>\n" +
+            "      <Placemark>\n" +
+            "        <name>Hamburg</name>\n" +
+            "        <xal:AddressDetails><xal:Country><xal:CountryName>Germany</xal:CountryName></xal:Country></xal:AddressDetails>\n" +
+            "        <description>Harbour Speed: 12.5 Km/h</description>\n" +
+            "        <TimeStamp><when>2007-04-02T13:04:41Z</when></TimeStamp>\n" +
+            "        <Point><coordinates>10.0,53.5,12.5</coordinates></Point>\n" +
+            "      </Placemark>\n" +
+            "      <Placemark>\n" +
+            "        <name><![CDATA[Alster]]></name>\n" +
+            "        <TimeSpan><begin>2007-04-02T13:05:00+02:00</begin></TimeSpan>\n" +
+            "        <Point><coordinates> 10.1, 53.6 </coordinates></Point>\n" +
+            "      </Placemark>\n" +
+            "      <Placemark><name>Nowhere</name></Placemark>\n" +
+            "    </Folder>\n" +
+            "    <Placemark>\n" +
+            "      <name>Route</name>\n" +
+            "      <MultiGeometry>\n" +
+            "        <LineString><coordinates>10.2,53.7,1 10.3,53.8,2\n" +
+            "          10.4,53.9,3</coordinates></LineString>\n" +
+            "        <Polygon><outerBoundaryIs><LinearRing><coordinates>1,1 2,2 3,3</coordinates></LinearRing></outerBoundaryIs></Polygon>\n" +
+            "        <Point><coordinates>10.5,54.0</coordinates></Point>\n" +
+            "      </MultiGeometry>\n" +
+            "    </Placemark>\n" +
+            "    <Folder>\n" +
+            "      <name>Tracks</name>\n" +
+            "      <Placemark>\n" +
+            "        <name>Blocks</name>\n" +
+            "        <gx:Track>\n" +
+            "          <when>2007-04-02T13:04:41Z</when><when></when><when>2007-04-02T13:04:43.5Z</when>\n" +
+            "          <gx:coord>10.6 54.1 5</gx:coord><gx:coord>10.7,54.2,6</gx:coord><gx:coord>10.8 54.3 7</gx:coord>\n" +
+            "        </gx:Track>\n" +
+            "      </Placemark>\n" +
+            "      <Placemark>\n" +
+            "        <name>Interleaved</name>\n" +
+            "        <gx:MultiTrack><gx:Track>\n" +
+            "          <when>2007-04-02T14:00:00Z</when><gx:coord>10.9 54.4 8</gx:coord>\n" +
+            "          <when>2007-04-02T14:00:01Z</when><gx:coord>11.0 54.5 9</gx:coord>\n" +
+            "          <gx:coord>11.1 54.6 10</gx:coord>\n" +
+            "        </gx:Track></gx:MultiTrack>\n" +
+            "      </Placemark>\n" +
+            "      <Folder>\n" +
+            "        <name>Speed [Km/h]</name>\n" +
+            "        <Placemark><LineString><coordinates>1,1 2,2</coordinates></LineString></Placemark>\n" +
+            "      </Folder>\n" +
+            "      <NetworkLink><Link><href>http://www.routeconverter.com/nothing.kml</href></Link></NetworkLink>\n" +
+            "    </Folder>\n" +
+            "  </Document>\n" +
+            "</kml>\n";
+
+    private static final String PLACEMARK = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n" +
+            "  <Placemark>\n" +
+            "    <name>Line</name>\n" +
+            "    <description>Time: 2007/04/02 13:04:41 Altitude: 100.0</description>\n" +
+            "    <LineString><coordinates>10.0,53.0 10.1,53.1,5</coordinates></LineString>\n" +
+            "  </Placemark>\n" +
+            "</kml>\n";
+
+    private static final String TOUR = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+            "  <gx:Tour>\n" +
+            "    <name>Tour</name>\n" +
+            "    <gx:Playlist>\n" +
+            "      <gx:FlyTo><LookAt><longitude>10.0</longitude><latitude>53.0</latitude><altitude>0</altitude><heading>45.5</heading></LookAt></gx:FlyTo>\n" +
+            "      <gx:Wait><gx:duration>1.0</gx:duration></gx:Wait>\n" +
+            "      <gx:FlyTo><LookAt><longitude>10.1</longitude><latitude>53.1</latitude><altitude>100</altitude></LookAt></gx:FlyTo>\n" +
+            "    </gx:Playlist>\n" +
+            "  </gx:Tour>\n" +
+            "</kml>\n";
+
+    private static final String FOLDERS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:atom=\"http://www.w3.org/2005/Atom\">\n" +
+            "  <Folder>\n" +
+            "    <name> Trip </name>\n" +
+            "    <description>Summer</description>\n" +
+            "    <Document>\n" +
+            "      <name>Day 1</name>\n" +
+            "      <Placemark><name>Start</name><Point><coordinates>9.0,48.0</coordinates></Point></Placemark>\n" +
+            "      <Placemark><name>Leg 1</name><LineString><coordinates>9.0,48.0 9.1,48.1</coordinates></LineString></Placemark>\n" +
+            "    </Document>\n" +
+            "    <Folder>\n" +
+            "      <name>Marks [Km]</name>\n" +
+            "      <Placemark><Point><coordinates>1,1</coordinates></Point></Placemark>\n" +
+            "    </Folder>\n" +
+            "    <Folder>\n" +
+            "      <name>Stops</name>\n" +
+            "      <Placemark><name>Lunch</name><description>Pizza</description><Point><coordinates>9.2,48.2</coordinates></Point></Placemark>\n" +
+            "      <Placemark><name>Area</name><Polygon><outerBoundaryIs><LinearRing><coordinates>1,1 2,2 3,3</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>\n" +
+            "      <Placemark><name>Dinner</name><Point><coordinates>9.3,48.3</coordinates></Point></Placemark>\n" +
+            "    </Folder>\n" +
+            "    <NetworkLink>\n" +
+            "      <atom:link href=\"http://www.routeconverter.com/atom.kml\"/>\n" +
+            "      <Link><href>http://www.routeconverter.com/link.kml</href></Link>\n" +
+            "    </NetworkLink>\n" +
+            "    <Placemark><name>Hotel</name><Point><coordinates>9.4,48.4</coordinates></Point></Placemark>\n" +
+            "    <Placemark><name>Leg 2</name><description>Back</description><LineString><coordinates>9.4,48.4 9.5,48.5 9.6,48.6</coordinates></LineString></Placemark>\n" +
+            "    <Placemark><name>Station</name><Point><coordinates>9.7,48.7</coordinates></Point></Placemark>\n" +
+            "  </Folder>\n" +
+            "</kml>\n";
+
+    private List<BaseNavigationPosition> stream(StreamingNavigationFormat format, byte[] bytes) throws IOException {
+        final List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        format.readPositions(new ByteArrayInputStream(bytes), null, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add(position);
+            }
+        });
+        return positions;
+    }
+
+    private List<KmlRoute> read(BaseNavigationFormat<KmlRoute> format, byte[] bytes, final List<String> links) throws Exception {
+        ParserContext<KmlRoute> context = new ParserContextImpl<KmlRoute>() {
+            public void parse(String url) {
+                links.add(url);
+            }
+        };
+        format.read(new ByteArrayInputStream(bytes), null, context);
+        return context.getRoutes();
+    }
+
+    private List<BaseNavigationPosition> positions(List<KmlRoute> routes) {
+        List<BaseNavigationPosition> positions = new ArrayList<BaseNavigationPosition>();
+        for (KmlRoute route : routes)
+            positions.addAll(route.getPositions());
+        return positions;
+    }
+
+    private void assertPositionsEqual(List<BaseNavigationPosition> expected, List<BaseNavigationPosition> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            BaseNavigationPosition e = expected.get(i), a = actual.get(i);
+            assertEquals("position " + i, e, a);
+            assertEquals("speed of position " + i, e.getSpeed(), a.getSpeed());
+            assertEquals("heading of position " + i, ((KmlPosition) e).getHeading(), ((KmlPosition) a).getHeading());
+        }
+    }
+
+    private void assertReadLikeJaxb(String kml) throws Exception {
+        Kml22Format format = new Kml22Format();
+        byte[] bytes = kml.getBytes(UTF8_ENCODING);
+        assertPositionsEqual(positions(read(format, bytes, new ArrayList<String>())), stream(format, bytes));
+    }
+
+    private byte[] zip(String kml) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(target);
+        zip.putNextEntry(new ZipEntry("doc.kml"));
+        zip.write(kml.getBytes(UTF8_ENCODING));
+        zip.close();
+        return target.toByteArray();
+    }
+
+    @Test
+    public void testReadLikeJaxb() throws Exception {
+        assertReadLikeJaxb(KML);
+        assertReadLikeJaxb(PLACEMARK);
+        assertReadLikeJaxb(TOUR);
+    }
+
+    @Test
+    public void testReadFolders() throws Exception {
+        List<String> links = new ArrayList<String>();
+        List<KmlRoute> routes = read(new Kml22Format(), FOLDERS.getBytes(UTF8_ENCODING), links);
+        assertEquals(6, routes.size());
+        assertEquals("Trip/Day 1", routes.get(0).getName());
+        assertEquals(Waypoints, routes.get(0).getCharacteristics());
+        assertEquals("Trip/Stops", routes.get(1).getName());
+        assertEquals(2, routes.get(1).getPositionCount());
+        assertEquals("Trip", routes.get(2).getName());
+        assertEquals(2, routes.get(2).getPositionCount());
+        assertEquals("Trip/Leg 2", routes.get(3).getName());
+        assertEquals(Track, routes.get(3).getCharacteristics());
+        assertEquals("Trip/Stops/Area", routes.get(4).getName());
+        assertEquals(0, routes.get(4).getPositionCount());
+        assertEquals("Trip/Day 1/Leg 1", routes.get(5).getName());
+        assertEquals(2, links.size());
+        assertEquals("http://www.routeconverter.com/atom.kml", links.get(0));
+    }
+
+    @Test
+    public void testStreamStartsRoutes() throws IOException {
+        final List<RouteCharacteristics> routes = new ArrayList<RouteCharacteristics>();
+        final List<Integer> counts = new ArrayList<Integer>();
+        new Kml22Format().readPositions(new ByteArrayInputStream(FOLDERS.getBytes(UTF8_ENCODING)), null, new RoutesConsumer() {
+            public void startRoute(RouteCharacteristics characteristics) {
+                routes.add(characteristics);
+                counts.add(0);
+            }
+
+            public void consume(BaseNavigationPosition position) {
+                counts.set(counts.size() - 1, counts.get(counts.size() - 1) + 1);
+            }
+        });
+        assertEquals(asList(Waypoints, Track, Waypoints, Waypoints, Track, Waypoints), routes);
+        assertEquals(asList(1, 2, 2, 1, 3, 1), counts);
+    }
+
+    @Test
+    public void testReadDocument() throws Exception {
+        List<BaseNavigationPosition> positions = stream(new Kml22Format(), KML.getBytes(UTF8_ENCODING));
+        assertEquals(12, positions.size());
+
+        BaseNavigationPosition hamburg = positions.get(0);
+        assertEquals("Hamburg; Harbour Speed: 12.5 Km/h", hamburg.getDescription());
+        assertDoubleEquals(12.5, hamburg.getElevation());
+        assertDoubleEquals(12.5, hamburg.getSpeed());
+        assertNotNull(hamburg.getTime());
+        assertEquals("Alster", positions.get(1).getDescription());
+        assertNull(positions.get(1).getElevation());
+
+        assertNull(positions.get(2).getDescription());
+        assertDoubleEquals(10.5, positions.get(5).getLongitude());
+
+        assertNotNull(positions.get(6).getTime());
+        assertNull(positions.get(7).getTime());
+        assertNotNull(positions.get(8).getTime());
+        assertNotNull(positions.get(9).getTime());
+        assertNotNull(positions.get(10).getTime());
+        assertNull(positions.get(11).getTime());
+        assertDoubleEquals(11.1, positions.get(11).getLongitude());
+    }
+
+    @Test
+    public void testReadKmz() throws Exception {
+        Kmz22Format format = new Kmz22Format();
+        byte[] bytes = zip(KML);
+        assertTrue(format.isSupportsStreamingRead());
+        assertPositionsEqual(positions(read(format, bytes, new ArrayList<String>())), stream(format, bytes));
+        assertEquals(12, stream(format, bytes).size());
+    }
+
+    @Test
+    public void testReadOtherVersion() throws IOException {
+        String kml21 = KML.replace("http://www.opengis.net/kml/2.2", "http://earth.google.com/kml/2.1");
+        assertEquals(0, stream(new Kml22Format(), kml21.getBytes(UTF8_ENCODING)).size());
+        assertEquals(false, new Kmz21Format().isSupportsStreamingRead());
+    }
+
+    @Test
+    public void testReadInvalidCoordinates() throws IOException {
+        try {
+            stream(new Kml22Format(), PLACEMARK.replace("10.1,53.1,5", "10.1,53-1,5").getBytes(UTF8_ENCODING));
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("53-1"));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.kml;
+
+import org.junit.Test;
+import slash.navigation.base.BaseNavigationFormat;
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionWriter;
+import slash.navigation.base.StreamingNavigationFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.TestCase.assertDoubleEquals;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class KmlStreamWriterTest {
+    private byte[] write(StreamingNavigationFormat format, BaseNavigationPosition... positions) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        PositionWriter writer = format.createPositionWriter("Stream/Track", target);
+        for (BaseNavigationPosition position : positions)
+            writer.consume(position);
+        writer.close();
+        return target.toByteArray();
+    }
+
+    private KmlRoute unmarshal(BaseNavigationFormat<KmlRoute> format, byte[] bytes) throws Exception {
+        ParserContext<KmlRoute> context = new ParserContextImpl<KmlRoute>();
+        format.read(new ByteArrayInputStream(bytes), null, context);
+        assertEquals(1, context.getRoutes().size());
+        return context.getRoutes().get(0);
+    }
+
+    private KmlPosition createPosition(double longitude, double latitude, Long time) {
+        return new KmlPosition(longitude, latitude, 12.5, null, time != null ? fromMillis(time) : null, "Position");
+    }
+
+    @Test
+    public void testWriteTrack() throws Exception {
+        Kml22Format format = new Kml22Format();
+        byte[] bytes = write(format, createPosition(10.0, 53.5, 1175519081000L), createPosition(10.1, 53.6, null),
+                createPosition(10.2, 53.7, 1175519083000L));
+        assertTrue(new String(bytes, UTF8_ENCODING).contains("<gx:Track>"));
+
+        KmlRoute route = unmarshal(format, bytes);
+        assertEquals(Track, route.getCharacteristics());
+        List<KmlPosition> positions = route.getPositions();
+        assertEquals(3, positions.size());
+        assertDoubleEquals(10.0, positions.get(0).getLongitude());
+        assertDoubleEquals(53.5, positions.get(0).getLatitude());
+        assertDoubleEquals(12.5, positions.get(0).getElevation());
+        assertEquals(fromMillis(1175519081000L), positions.get(0).getTime());
+        assertNull(positions.get(1).getTime());
+        assertEquals(fromMillis(1175519083000L), positions.get(2).getTime());
+    }
+
+    @Test
+    public void testWriteLineString() throws Exception {
+        Kml22Format format = new Kml22Format();
+        byte[] bytes = write(format, createPosition(10.0, 53.5, null), createPosition(10.1, 53.6, 1175519081000L));
+        assertTrue(new String(bytes, UTF8_ENCODING).contains("<LineString>"));
+
+        KmlRoute route = unmarshal(format, bytes);
+        assertEquals("Stream/Track", route.getName());
+        List<KmlPosition> positions = route.getPositions();
+        assertEquals(2, positions.size());
+        assertDoubleEquals(10.1, positions.get(1).getLongitude());
+        assertDoubleEquals(53.6, positions.get(1).getLatitude());
+        assertNull(positions.get(1).getTime());
+    }
+
+    @Test
+    public void testWriteKmz() throws Exception {
+        Kmz22Format format = new Kmz22Format();
+        assertTrue(format.isSupportsStreamingWrite());
+        byte[] bytes = write(format, createPosition(10.0, 53.5, 1175519081000L), createPosition(10.1, 53.6, 1175519082000L));
+        assertEquals(2, unmarshal(format, bytes).getPositionCount());
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        byte[] bytes = write(new Kml22Format());
+        ParserContext<KmlRoute> context = new ParserContextImpl<KmlRoute>();
+        new Kml22Format().read(new ByteArrayInputStream(bytes), null, context);
+        assertEquals(0, context.getRoutes().size());
+    }
+}
@@ -22,16 +22,22 @@ package slash.navigation.nmea;
 
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.PositionConsumer;
+import slash.navigation.base.PositionWriter;
 import slash.navigation.base.SimpleRoute;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -341,6 +347,46 @@ public class NmeaFormatTest {
         assertEquals("Position 3", position.getDescription());
     }
 
+    @Test
+    public void testReadPositionsMergesLikeRead() throws IOException {
+        String lines = "$GPGGA,130441,4837.4374,N,00903.4036,E,1,08,1.25,16.76,M,46.79,M,,*42\n" +
+                "$GPRMC,130441,A,4837.4374,N,00903.4036,E,000.0,000.0,290713,,,A*7A\n" +
+                "$GPGGA,130442,4837.4375,N,00903.4037,E,1,08,1.25,17.76,M,46.79,M,,*40\n" +
+                "$GPVTG,0.00,T,,M,1.531,N,2.835,K,A*37";
+        final List<NmeaPosition> positions = new ArrayList<NmeaPosition>();
+        format.readPositions(new ByteArrayInputStream(lines.getBytes(ISO_LATIN1_ENCODING)), null, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                positions.add((NmeaPosition) position);
+            }
+        });
+
+        ParserContext<NmeaRoute> context = new ParserContextImpl<NmeaRoute>();
+        format.read(new BufferedReader(new StringReader(lines)), null, ISO_LATIN1_ENCODING, context);
+        List<NmeaPosition> expected = context.getRoutes().get(0).getPositions();
+        assertEquals(2, positions.size());
+        assertEquals(expected.size(), positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            assertDoubleEquals(expected.get(i).getLongitude(), positions.get(i).getLongitude());
+            assertDoubleEquals(expected.get(i).getLatitude(), positions.get(i).getLatitude());
+            assertEquals(expected.get(i).getSpeed(), positions.get(i).getSpeed());
+            assertEquals(expected.get(i).getTime(), positions.get(i).getTime());
+        }
+    }
+
+    @Test
+    public void testCreatePositionWriter() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        PositionWriter writer = format.createPositionWriter("test", outputStream);
+        writer.consume(format.parsePosition("$GPRMC,134012.000,A,4837.4374,N,00903.4036,E,3.00,0.00,260707,,*06"));
+        writer.close();
+
+        ParserContext<NmeaRoute> context = new ParserContextImpl<NmeaRoute>();
+        format.read(new BufferedReader(new StringReader(outputStream.toString(ISO_LATIN1_ENCODING))), null, ISO_LATIN1_ENCODING, context);
+        NmeaPosition position = context.getRoutes().get(0).getPositions().get(0);
+        assertDoubleEquals(9.0567266, position.getLongitude());
+        assertDoubleEquals(48.6239566, position.getLatitude());
+    }
+
     @Test
     public void testGGAAndRMCDateProblem() throws IOException {
         StringReader reader = new StringReader(
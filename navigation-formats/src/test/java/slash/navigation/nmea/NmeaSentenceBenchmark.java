@@ -0,0 +1,114 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import slash.navigation.base.BaseNavigationPosition;
+import slash.navigation.base.PositionConsumer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+
+/**
+ * Measures the throughput of tokenizing NMEA sentences and of reading them with the {@link NmeaFormat}.
+ * Run it as a Java application; it is not part of the unit tests.
+ *
+ * @author Christian Pesch
+ */
+
+public class NmeaSentenceBenchmark {
+    private static final int LINE_COUNT = 400000;
+    private static final int ROUNDS = 5;
+
+    private static String withChecksum(String body) {
+        byte checksum = 0;
+        for (int i = 0; i < body.length(); i++)
+            checksum ^= body.charAt(i);
+        return format("$%s*%02X", body, checksum);
+    }
+
+    private static String[] createLines(int count) {
+        String[] lines = new String[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i += 2) {
+            String time = format("%02d%02d%02d.%02d", random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(100));
+            String latitude = format("%04d.%04d", random.nextInt(9000), random.nextInt(10000));
+            String longitude = format("%05d.%04d", random.nextInt(18000), random.nextInt(10000));
+            lines[i] = withChecksum(format("GPRMC,%s,A,%s,N,%s,E,%d.%d,%d.%d,%02d%02d%02d,,",
+                    time, latitude, longitude, random.nextInt(100), random.nextInt(10), random.nextInt(360),
+                    random.nextInt(10), 1 + random.nextInt(28), 1 + random.nextInt(12), random.nextInt(100)));
+            if (i + 1 < count)
+                lines[i + 1] = withChecksum(format("GPGGA,%s,%s,N,%s,E,1,08,1.25,%d.%02d,M,46.79,M,,",
+                        time, latitude, longitude, random.nextInt(1000), random.nextInt(100)));
+        }
+        return lines;
+    }
+
+    private static void report(String what, int count, long nanos) {
+        System.out.println(format("%s %d lines in %d milliseconds: %d lines per second",
+                what, count, nanos / 1000000, count * 1000000000L / Math.max(1, nanos)));
+    }
+
+    private static double tokenize(String[] lines) {
+        NmeaSentence sentence = new NmeaSentence();
+        double sum = 0.0;
+        long start = nanoTime();
+        for (String line : lines) {
+            sentence.tokenize(line);
+            if (sentence.hasValidChecksum())
+                sum += sentence.getDouble(line.startsWith("$GPRMC") ? 3 : 2) + sentence.getTimeOfDay(1);
+        }
+        report("Tokenized", lines.length, nanoTime() - start);
+        return sum;
+    }
+
+    private static int read(byte[] bytes, int lineCount) throws IOException {
+        final int[] count = new int[1];
+        long start = nanoTime();
+        new NmeaFormat().readPositions(new ByteArrayInputStream(bytes), null, new PositionConsumer() {
+            public void consume(BaseNavigationPosition position) {
+                count[0]++;
+            }
+        });
+        report("Read", lineCount, nanoTime() - start);
+        return count[0];
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] lines = createLines(LINE_COUNT);
+        StringBuilder buffer = new StringBuilder();
+        for (String line : lines)
+            buffer.append(line).append("\r\n");
+        byte[] bytes = buffer.toString().getBytes(ISO_LATIN1_ENCODING);
+
+        double sum = 0.0;
+        int positions = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sum += tokenize(lines);
+            positions += read(bytes, lines.length);
+        }
+        System.out.println(format("Checksum %f, %d positions", sum, positions));
+    }
+}
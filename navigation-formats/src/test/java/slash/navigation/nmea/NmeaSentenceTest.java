@@ -0,0 +1,175 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.nmea;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Random;
+
+import static java.lang.String.format;
+import static java.util.TimeZone.getTimeZone;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.type.CompactCalendar.NOT_CANONICAL;
+import static slash.navigation.nmea.NmeaSentence.DIGITS_AND_DOT;
+
+public class NmeaSentenceTest {
+    private NmeaSentence sentence = new NmeaSentence();
+
+    private static String withChecksum(String body) {
+        byte checksum = 0;
+        for (int i = 0; i < body.length(); i++)
+            checksum ^= body.charAt(i);
+        return format("$%s*%02X", body, checksum);
+    }
+
+    @Test
+    public void testTokenize() {
+        assertTrue(sentence.tokenize("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6D"));
+        assertTrue(sentence.isValid());
+        assertTrue(sentence.hasValidChecksum());
+        assertEquals(0x6D, sentence.getChecksum());
+        assertEquals(15, sentence.getFieldCount());
+        assertTrue(sentence.isSentence("GPGGA"));
+        assertFalse(sentence.isSentence("GPRMC"));
+        assertEquals("130441.89", sentence.getString(1));
+        assertEquals("N", sentence.getOrientation(3));
+        assertEquals('1', sentence.getCharacter(6));
+        assertTrue(sentence.isEmpty(13));
+        assertTrue(sentence.isEmpty(14));
+        assertEquals(0, sentence.getCharacter(14));
+        assertTrue(sentence.hasCharacters(2, DIGITS_AND_DOT, true));
+        assertFalse(sentence.hasCharacters(3, DIGITS_AND_DOT, true));
+        assertFalse(sentence.hasCharacters(14, DIGITS_AND_DOT, true));
+        assertTrue(sentence.hasCharacters(14, DIGITS_AND_DOT, false));
+        assertEquals("46.79,M,,", sentence.getRemainder(11));
+    }
+
+    @Test
+    public void testInvalidChecksum() {
+        assertTrue(sentence.tokenize("$GPGGA,130441.89,5239.3154,N,00907.7011,E,1,08,1.25,16.76,M,46.79,M,,*6E"));
+        assertFalse(sentence.hasValidChecksum());
+        assertEquals(0x6D, sentence.getChecksum());
+        assertEquals(0x6E, sentence.getTransmittedChecksum());
+    }
+
+    @Test
+    public void testNoSentence() {
+        assertFalse(sentence.tokenize("@Sonygps/ver1.0/wgs-84"));
+        assertFalse(sentence.tokenize("$GPGGA,130441.89"));
+        assertFalse(sentence.tokenize("$GPGGA,130441.89*6"));
+        assertFalse(sentence.tokenize("$GPGGA,130441.89*6G"));
+        assertFalse(sentence.isSentence("GPGGA"));
+        assertTrue(sentence.tokenize("$*00"));
+        assertEquals(1, sentence.getFieldCount());
+    }
+
+    @Test
+    public void testManyFields() {
+        StringBuilder buffer = new StringBuilder("GPGSV");
+        for (int i = 0; i < 100; i++)
+            buffer.append(',').append(i);
+        assertTrue(sentence.tokenize(withChecksum(buffer.toString())));
+        assertTrue(sentence.hasValidChecksum());
+        assertEquals(101, sentence.getFieldCount());
+        assertEquals(Integer.valueOf(99), sentence.getInteger(100));
+    }
+
+    private Double parse(String value) {
+        sentence.tokenize(withChecksum("X," + value));
+        return sentence.getDouble(1);
+    }
+
+    @Test
+    public void testGetDouble() {
+        assertNull(parse(""));
+        assertNull(parse("  "));
+        assertEquals(5239.3154, parse("5239.3154"), 0.0);
+        assertEquals(-0.5, parse("-.5"), 0.0);
+        assertEquals(16.0, parse("16."), 0.0);
+        assertEquals(16.76, parse(" 16.76 "), 0.0);
+        assertEquals(1.0E3, parse("1.0E3"), 0.0);
+        assertEquals(123456789012345678.9, parse("123456789012345678.9"), 0.0);
+    }
+
+    @Test
+    public void testGetDoubleIsExact() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            String value = format("%d.%0" + (1 + random.nextInt(8)) + "d", random.nextInt(18000), random.nextInt(10000000));
+            assertEquals(value, Double.parseDouble(value), parse(value), 0.0);
+        }
+    }
+
+    @Test
+    public void testGetTimeOfDay() {
+        sentence.tokenize(withChecksum("X,130441,130441.89,130441.5,235959.999,240000,1304,13O441"));
+        assertEquals(((13 * 60 + 4) * 60 + 41) * 1000L, sentence.getTimeOfDay(1));
+        assertEquals(((13 * 60 + 4) * 60 + 41) * 1000L + 89, sentence.getTimeOfDay(2));
+        assertEquals(((13 * 60 + 4) * 60 + 41) * 1000L + 5, sentence.getTimeOfDay(3));
+        assertEquals(24 * 60 * 60 * 1000L - 1, sentence.getTimeOfDay(4));
+        assertEquals(NOT_CANONICAL, sentence.getTimeOfDay(5));
+        assertEquals(NOT_CANONICAL, sentence.getTimeOfDay(6));
+        assertEquals(NOT_CANONICAL, sentence.getTimeOfDay(7));
+    }
+
+    private long parseDate(String pattern, String value) throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setTimeZone(getTimeZone("UTC"));
+        return format.parse(value).getTime();
+    }
+
+    @Test
+    public void testGetDate() throws ParseException {
+        sentence.tokenize(withChecksum("X,020407,29022000,010170,311299,290207,320107,01131999,0104O7"));
+        assertEquals(parseDate("ddMMyy", "020407"), sentence.getDate(1));
+        assertEquals(parseDate("ddMMyyyy", "29022000"), sentence.getDate(2));
+        assertEquals(0L, sentence.getDate(3));
+        assertEquals(parseDate("ddMMyy", "311299"), sentence.getDate(4));
+        assertEquals(NOT_CANONICAL, sentence.getDate(5));
+        assertEquals(NOT_CANONICAL, sentence.getDate(6));
+        assertEquals(NOT_CANONICAL, sentence.getDate(7));
+        assertEquals(NOT_CANONICAL, sentence.getDate(8));
+    }
+
+    @Test
+    public void testGetDateFromFields() throws ParseException {
+        sentence.tokenize(withChecksum("GPZDA,130441,02,04,2007,,"));
+        assertEquals(parseDate("dd MM yyyy", "02 04 2007"), sentence.getDate(2, 3, 4));
+        sentence.tokenize(withChecksum("GPZDA,130441,2,04,2007,,"));
+        assertEquals(NOT_CANONICAL, sentence.getDate(2, 3, 4));
+    }
+
+    @Test
+    public void testGetDateMatchesSimpleDateFormat() throws ParseException {
+        for (int year = 1970; year < 2100; year += 3) {
+            for (int month = 1; month <= 12; month++) {
+                String value = format("%02d%02d%04d", month * 2, month, year);
+                sentence.tokenize(withChecksum("X," + value));
+                assertEquals(value, parseDate("ddMMyyyy", value), sentence.getDate(1));
+            }
+        }
+    }
+}
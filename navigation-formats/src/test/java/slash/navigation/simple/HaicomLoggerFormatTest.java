@@ -22,15 +22,25 @@ package slash.navigation.simple;
 
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ColumnarPositionList;
+import slash.navigation.base.ColumnarRoute;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.text.DateFormat;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.TestCase.calendar;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
 
 public class HaicomLoggerFormatTest {
     HaicomLoggerFormat format = new HaicomLoggerFormat();
@@ -73,4 +83,40 @@ public class HaicomLoggerFormatTest {
         assertDoubleEquals(-47.91561, position.getLatitude());
         assertDoubleEquals(-106.90109, position.getLongitude());
     }
-}
\ No newline at end of file
+
+    private SimpleRoute read(String lines) throws Exception {
+        ParserContext<SimpleRoute> context = new ParserContextImpl<SimpleRoute>();
+        format.read(new ByteArrayInputStream(lines.getBytes(ISO_LATIN1_ENCODING)), null, context);
+        assertEquals(1, context.getRoutes().size());
+        return context.getRoutes().get(0);
+    }
+
+    @Test
+    public void testReadAndWriteColumnarPositions() throws Exception {
+        SimpleRoute route = read("INDEX,RCR,DATE,TIME,LATITUDE,N/S,LONGITUDE,E/W,ALTITUDE,COURSE,SPEED,\n" +
+                "1,T,08/12/02,05:40:15,47.91561,N,106.90109,E,1308.4m,97.78,1km/h\n" +
+                "2,T,08/12/02,05:40:20,47.91598,S,106.90421,W,1285.1m,60.13,2.4km/h\n" +
+                "3,T,,,36.87722,N,111.51194,W,1289.0m,0.0,0.0km/h\n");
+        assertTrue(route instanceof ColumnarRoute);
+        assertTrue(route.getPositions() instanceof ColumnarPositionList);
+        assertEquals(3, route.getPositionCount());
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        format.write(route, target, 0, route.getPositionCount());
+        SimpleRoute written = read(target.toString(ISO_LATIN1_ENCODING));
+        assertTrue(written instanceof ColumnarRoute);
+
+        List<Wgs84Position> expected = route.getPositions(), actual = written.getPositions();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertDoubleEquals(expected.get(i).getLongitude(), actual.get(i).getLongitude());
+            assertDoubleEquals(expected.get(i).getLatitude(), actual.get(i).getLatitude());
+            assertDoubleEquals(expected.get(i).getElevation(), actual.get(i).getElevation());
+            assertDoubleEquals(expected.get(i).getSpeed(), actual.get(i).getSpeed());
+            assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+        }
+        assertDoubleEquals(-106.90421, actual.get(1).getLongitude());
+        assertDoubleEquals(-47.91598, actual.get(1).getLatitude());
+        assertFalse(actual.get(2).hasTime());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+import slash.common.io.PersistentCache;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.common.SimpleNavigationPosition;
+import slash.navigation.geonames.GeoNamesService;
+import slash.navigation.googlemaps.GoogleMapsService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+import static java.util.Locale.US;
+
+/**
+ * Decorates the geocoding and reverse geocoding of the {@link GoogleMapsService} and the
+ * populated places of the {@link GeoNamesService} with {@link PersistentCache}s in the given
+ * directory. Without a directory every lookup is passed on to the services.
+ *
+ * @author Christian Pesch
+ */
+
+public class CachingGeocodingService {
+    private static final Logger log = Logger.getLogger(CachingGeocodingService.class.getName());
+    private static final int MAXIMUM_CACHE_ENTRIES = 100000;
+
+    private final GoogleMapsService googleMapsService;
+    private final GeoNamesService geoNamesService;
+    private final PersistentCache locationCache, positionCache, nearByCache;
+
+    public CachingGeocodingService(GoogleMapsService googleMapsService, GeoNamesService geoNamesService,
+                                   File directory, long timeToLive) {
+        this.googleMapsService = googleMapsService;
+        this.geoNamesService = geoNamesService;
+        this.locationCache = createCache(directory, "googlemaps-locations", timeToLive);
+        this.positionCache = createCache(directory, "googlemaps-positions", timeToLive);
+        this.nearByCache = createCache(directory, "geonames-nearby", timeToLive);
+    }
+
+    private static PersistentCache createCache(File directory, String name, long timeToLive) {
+        return directory != null ? new PersistentCache(new File(directory, name), timeToLive, MAXIMUM_CACHE_ENTRIES) : null;
+    }
+
+    private static String getLanguage() {
+        return Locale.getDefault().getLanguage();
+    }
+
+    static String getLocationKey(double longitude, double latitude) {
+        // quantize to about 10 meters so that nearby positions share their address
+        return format(US, "%s|%.4f|%.4f", getLanguage(), latitude, longitude);
+    }
+
+    static String getNearByKey(double longitude, double latitude) {
+        // quantize to about 100 meters so that nearby positions share their place
+        return format(US, "%.3f|%.3f", latitude, longitude);
+    }
+
+    static String getPositionKey(String address) {
+        return getLanguage() + "|" + address.trim().replaceAll("\\s+", " ").toLowerCase(US);
+    }
+
+    static String formatPosition(NavigationPosition position) {
+        return position.getLongitude() + " " + position.getLatitude() +
+                (position.getDescription() != null ? " " + position.getDescription() : "");
+    }
+
+    static NavigationPosition parsePosition(String string) {
+        String[] values = string.split(" ", 3);
+        return new SimpleNavigationPosition(Double.parseDouble(values[0]), Double.parseDouble(values[1]), 0.0d,
+                values.length > 2 ? values[2] : null);
+    }
+
+    public String getLocationFor(double longitude, double latitude) throws IOException {
+        if (locationCache == null)
+            return googleMapsService.getLocationFor(longitude, latitude);
+
+        String key = getLocationKey(longitude, latitude);
+        PersistentCache.Entry entry = locationCache.get(key);
+        if (entry != null)
+            return entry.getValue();
+
+        // the service returns null for failed requests, too, so only found locations are cached
+        String location = googleMapsService.getLocationFor(longitude, latitude);
+        if (location != null)
+            locationCache.put(key, location);
+        return location;
+    }
+
+    public NavigationPosition getPositionFor(String address) throws IOException {
+        if (positionCache == null)
+            return googleMapsService.getPositionFor(address);
+
+        String key = getPositionKey(address);
+        PersistentCache.Entry entry = positionCache.get(key);
+        if (entry != null)
+            return entry.getValue() != null ? parsePosition(entry.getValue()) : null;
+
+        List<NavigationPosition> positions = googleMapsService.getPositionsFor(address);
+        NavigationPosition position = positions != null && positions.size() > 0 ? positions.get(0) : null;
+        if (positions != null)
+            positionCache.put(key, position != null ? formatPosition(position) : null);
+        return position;
+    }
+
+    public String getNearByFor(double longitude, double latitude) throws IOException {
+        if (nearByCache == null)
+            return geoNamesService.getNearByFor(longitude, latitude);
+
+        String key = getNearByKey(longitude, latitude);
+        PersistentCache.Entry entry = nearByCache.get(key);
+        if (entry != null)
+            return entry.getValue();
+
+        // the service returns null for failed requests, too, so only found places are cached
+        String nearBy = geoNamesService.getNearByFor(longitude, latitude);
+        if (nearBy != null)
+            nearByCache.put(key, nearBy);
+        return nearBy;
+    }
+
+    public long getHitCount() {
+        long result = 0;
+        for (PersistentCache cache : new PersistentCache[]{locationCache, positionCache, nearByCache})
+            if (cache != null)
+                result += cache.getHitCount();
+        return result;
+    }
+
+    public long getMissCount() {
+        long result = 0;
+        for (PersistentCache cache : new PersistentCache[]{locationCache, positionCache, nearByCache})
+            if (cache != null)
+                result += cache.getMissCount();
+        return result;
+    }
+
+    public void close() {
+        if (locationCache == null)
+            return;
+
+        log.info(format("Geocoding cache: %d hits, %d misses", getHitCount(), getMissCount()));
+        locationCache.close();
+        positionCache.close();
+        nearByCache.close();
+    }
+}
@@ -21,6 +21,7 @@
 package slash.navigation.completer;
 
 import slash.navigation.common.LongitudeAndLatitude;
+import slash.navigation.common.NavigationPosition;
 import slash.navigation.download.DownloadManager;
 import slash.navigation.earthtools.EarthToolsService;
 import slash.navigation.elevation.ElevationService;
@@ -29,6 +30,7 @@ import slash.navigation.googlemaps.GoogleMapsService;
 import slash.navigation.hgt.HgtFiles;
 import slash.navigation.hgt.HgtFilesService;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,13 +50,27 @@ public class CompletePositionService implements ElevationService {
     private static final Logger log = Logger.getLogger(CompletePositionService.class.getName());
     protected static final Preferences preferences = Preferences.userNodeForPackage(CompletePositionService.class);
     private static final String ELEVATION_SERVICE = "elevationService";
+    private static final String CACHE_DIRECTORY_PREFERENCE = "cacheDirectory";
+    private static final String CACHE_TIME_TO_LIVE_PREFERENCE = "cacheTimeToLive";
+    private static final long DAY = 24 * 60 * 60 * 1000L;
 
     private final List<ElevationService> elevationServices = new ArrayList<ElevationService>();
     private final HgtFilesService hgtFilesService;
     private final GeoNamesService geoNamesService = new GeoNamesService();
     private final GoogleMapsService googleMapsService = new GoogleMapsService();
+    private final CachingGeocodingService geocodingService;
 
     public CompletePositionService(DownloadManager downloadManager) {
+        this(downloadManager, getCacheDirectory());
+    }
+
+    /**
+     * Creates the service with the geocoding results cached in the given directory
+     * or not cached at all if the directory is <code>null</code>.
+     */
+    public CompletePositionService(DownloadManager downloadManager, File cacheDirectory) {
+        geocodingService = new CachingGeocodingService(googleMapsService, geoNamesService, cacheDirectory,
+                preferences.getLong(CACHE_TIME_TO_LIVE_PREFERENCE, 90) * DAY);
         hgtFilesService = new HgtFilesService(downloadManager);
         for(HgtFiles hgtFile : hgtFilesService.getHgtFiles())
             elevationServices.add(hgtFile);
@@ -67,8 +83,16 @@ public class CompletePositionService implements ElevationService {
         return "Complete Position Facade";
     }
 
+    private static File getCacheDirectory() {
+        String directoryName = preferences.get(CACHE_DIRECTORY_PREFERENCE,
+                new File(System.getProperty("user.home"), ".routeconverter/cache").getAbsolutePath());
+        // an empty directory turns the cache off
+        return directoryName.length() > 0 ? new File(directoryName) : null;
+    }
+
     public void dispose() {
         hgtFilesService.dispose();
+        geocodingService.close();
     }
 
     public List<ElevationService> getElevationServices() {
@@ -96,13 +120,41 @@ public class CompletePositionService implements ElevationService {
         return elevation != null ? formatElevation(elevation).doubleValue() : null;
     }
 
+    public List<Double> getElevationsFor(List<LongitudeAndLatitude> longitudeAndLatitudes) throws IOException {
+        List<Double> elevations = getElevationService().getElevationsFor(longitudeAndLatitudes);
+        List<Double> result = new ArrayList<Double>(elevations.size());
+        for (Double elevation : elevations)
+            result.add(elevation != null ? formatElevation(elevation).doubleValue() : null);
+        return result;
+    }
+
     public String getDescriptionFor(double longitude, double latitude) throws IOException {
-        String description = googleMapsService.getLocationFor(longitude, latitude);
+        String description = getPostalAddressFor(longitude, latitude);
         if (description == null)
-            description = geoNamesService.getNearByFor(longitude, latitude);
+            description = getPopulatedPlaceFor(longitude, latitude);
         return description;
     }
 
+    public String getPostalAddressFor(double longitude, double latitude) throws IOException {
+        return geocodingService.getLocationFor(longitude, latitude);
+    }
+
+    public String getPopulatedPlaceFor(double longitude, double latitude) throws IOException {
+        return geocodingService.getNearByFor(longitude, latitude);
+    }
+
+    public NavigationPosition getPositionFor(String address) throws IOException {
+        return geocodingService.getPositionFor(address);
+    }
+
+    public long getGeocodingCacheHitCount() {
+        return geocodingService.getHitCount();
+    }
+
+    public long getGeocodingCacheMissCount() {
+        return geocodingService.getMissCount();
+    }
+
     public void downloadElevationDataFor(List<LongitudeAndLatitude> longitudeAndLatitudes) {
         getElevationService().downloadElevationDataFor(longitudeAndLatitudes);
     }
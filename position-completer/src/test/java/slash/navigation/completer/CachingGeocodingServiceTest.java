@@ -0,0 +1,159 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.completer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.common.SimpleNavigationPosition;
+import slash.navigation.geonames.GeoNamesService;
+import slash.navigation.googlemaps.GoogleMapsService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.completer.CachingGeocodingService.formatPosition;
+import static slash.navigation.completer.CachingGeocodingService.getPositionKey;
+import static slash.navigation.completer.CachingGeocodingService.parsePosition;
+
+public class CachingGeocodingServiceTest {
+    private static final long TIME_TO_LIVE = 60 * 1000L;
+
+    private File directory;
+    private int locationRequests, positionRequests, nearByRequests;
+
+    private final GoogleMapsService googleMapsService = new GoogleMapsService() {
+        public String getLocationFor(double longitude, double latitude) throws IOException {
+            locationRequests++;
+            return latitude > 0.0 ? "Goldingen" : null;
+        }
+
+        public List<NavigationPosition> getPositionsFor(String address) throws IOException {
+            positionRequests++;
+            List<NavigationPosition> result = new ArrayList<NavigationPosition>();
+            if (address.contains("Goldingen"))
+                result.add(new SimpleNavigationPosition(8.9709262, 47.2794582, 0.0, "8638 Goldingen, Switzerland"));
+            return result;
+        }
+    };
+
+    private final GeoNamesService geoNamesService = new GeoNamesService() {
+        public String getNearByFor(double longitude, double latitude) throws IOException {
+            nearByRequests++;
+            return "Rapperswil";
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        directory = createTempFile("cache", "");
+        assertTrue(directory.delete());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                assertTrue(file.delete());
+        if (directory.exists())
+            assertTrue(directory.delete());
+    }
+
+    @Test
+    public void testPositionKeyIsNormalized() {
+        assertEquals(getPositionKey("goldingen, switzerland"), getPositionKey("  Goldingen,\tSwitzerland "));
+    }
+
+    @Test
+    public void testFormatAndParsePosition() {
+        NavigationPosition position = parsePosition(formatPosition(new SimpleNavigationPosition(8.9709262, 47.2794582, 0.0, "8638 Goldingen, Switzerland")));
+        assertEquals(8.9709262, position.getLongitude(), 0.0);
+        assertEquals(47.2794582, position.getLatitude(), 0.0);
+        assertEquals("8638 Goldingen, Switzerland", position.getDescription());
+    }
+
+    @Test
+    public void testFormatAndParsePositionWithoutDescription() {
+        NavigationPosition position = parsePosition(formatPosition(new SimpleNavigationPosition(8.9709262, 47.2794582, 0.0, null)));
+        assertEquals(8.9709262, position.getLongitude(), 0.0);
+        assertEquals(47.2794582, position.getLatitude(), 0.0);
+        assertNull(position.getDescription());
+
+        position = parsePosition(formatPosition(new SimpleNavigationPosition(8.9709262, 47.2794582, 0.0, "")));
+        assertEquals("", position.getDescription());
+    }
+
+    @Test
+    public void testCachesLookups() throws IOException {
+        CachingGeocodingService service = new CachingGeocodingService(googleMapsService, geoNamesService, directory, TIME_TO_LIVE);
+        assertEquals("Goldingen", service.getLocationFor(8.97091, 47.27941));
+        assertEquals("Goldingen", service.getLocationFor(8.97092, 47.27943));
+        assertEquals(1, locationRequests);
+
+        assertEquals("8638 Goldingen, Switzerland", service.getPositionFor("Goldingen").getDescription());
+        assertEquals("8638 Goldingen, Switzerland", service.getPositionFor(" goldingen ").getDescription());
+        assertNull(service.getPositionFor("Nowhere"));
+        assertNull(service.getPositionFor("Nowhere"));
+        assertEquals(2, positionRequests);
+
+        assertEquals("Rapperswil", service.getNearByFor(8.8167, 47.2267));
+        assertEquals("Rapperswil", service.getNearByFor(8.8168, 47.2268));
+        assertEquals(1, nearByRequests);
+
+        assertEquals(4, service.getHitCount());
+        assertEquals(4, service.getMissCount());
+        service.close();
+
+        CachingGeocodingService reopened = new CachingGeocodingService(googleMapsService, geoNamesService, directory, TIME_TO_LIVE);
+        assertEquals("Goldingen", reopened.getLocationFor(8.97091, 47.27941));
+        assertEquals(1, locationRequests);
+        reopened.close();
+    }
+
+    @Test
+    public void testDoesNotCacheLocationsNotFound() throws IOException {
+        CachingGeocodingService service = new CachingGeocodingService(googleMapsService, geoNamesService, directory, TIME_TO_LIVE);
+        assertNull(service.getLocationFor(8.97092, -47.27945));
+        assertNull(service.getLocationFor(8.97092, -47.27945));
+        assertEquals(2, locationRequests);
+        service.close();
+    }
+
+    @Test
+    public void testPassesLookupsOnWithoutDirectory() throws IOException {
+        CachingGeocodingService service = new CachingGeocodingService(googleMapsService, geoNamesService, null, TIME_TO_LIVE);
+        assertEquals("Goldingen", service.getLocationFor(8.97092, 47.27945));
+        assertEquals("Goldingen", service.getLocationFor(8.97092, 47.27945));
+        assertEquals(2, locationRequests);
+        assertEquals(0, service.getHitCount());
+        service.close();
+        assertFalse(directory.exists());
+    }
+}
@@ -26,17 +26,32 @@ import slash.navigation.common.NavigationPosition;
 import slash.navigation.common.UnitSystem;
 import slash.navigation.converter.gui.profileview.ProfileMode;
 
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.lang.System.arraycopy;
 
 /**
  * Provides a {@link XYSeries} model by extracting profile information from a {@link PositionsModel}.
+ * The distances and values of all positions are kept in arrays while the series contains only the
+ * first, last, minimum and maximum value per pixel of the visible distance range.
  *
  * @author Christian Pesch
  */
 
 public class ProfileModel extends PositionsModelToXYSeriesSynchronizer {
+    private static final int DEFAULT_BUCKET_COUNT = 1000;
+
     private UnitSystem unitSystem;
     private ProfileMode profileMode;
+    private double[] distances, values;
+    private int positionCount;
+    private int[] rows;
+    // no initializers since the constructor of the super class already fills the series
+    private Double minimumDistance, maximumDistance;
+    private int bucketCount;
 
     public ProfileModel(PositionsModel positions, PatchedXYSeries series, UnitSystem unitSystem, ProfileMode profileMode) {
         super(positions, series);
@@ -57,12 +72,12 @@ public class ProfileModel extends PositionsModelToXYSeriesSynchronizer {
     }
 
     protected void handleIntervalYUpdate(int firstRow, int lastRow) {
-        getSeries().setFireSeriesChanged(false);
-        for (int i = firstRow; i < lastRow + 1; i++) {
-            getSeries().updateByIndex(i, formatValue(getPositions().getPosition(i)));
+        synchronized (this) {
+            for (int i = firstRow; i < min(lastRow + 1, positionCount); i++) {
+                values[i] = toValue(formatValue(getPositions().getPosition(i)));
+            }
         }
-        getSeries().setFireSeriesChanged(true);
-        getSeries().fireSeriesChanged();
+        updateSeries();
     }
 
     protected void handleRemove(int firstRow, int lastRow) {
@@ -70,21 +85,47 @@ public class ProfileModel extends PositionsModelToXYSeriesSynchronizer {
     }
 
     private void recomputeEverythingAfter(int firstRow) {
-        getSeries().setFireSeriesChanged(false);
+        BaseRoute route = getPositions().getRoute();
+        int lastRow = route != null ? getPositions().getRowCount() - 1 : -1;
+        firstRow = max(0, firstRow);
 
-        int itemCount = getSeries().getItemCount();
-        if (itemCount > 0 && firstRow < itemCount - 1)
-            getSeries().delete(firstRow, itemCount - 1);
+        synchronized (this) {
+            int count = lastRow + 1;
+            if (distances == null || distances.length < count) {
+                double[] newDistances = new double[count];
+                double[] newValues = new double[count];
+                if (distances != null) {
+                    arraycopy(distances, 0, newDistances, 0, min(firstRow, positionCount));
+                    arraycopy(values, 0, newValues, 0, min(firstRow, positionCount));
+                }
+                distances = newDistances;
+                values = newValues;
+            }
+            positionCount = count;
 
-        BaseRoute route = getPositions().getRoute();
-        if (route == null)
-            return;
-
-        int lastRow = getPositions().getRowCount() - 1;
-        if (firstRow <= lastRow && lastRow >= 0) {
-            double[] distances = route.getDistancesFromStart(firstRow, lastRow);
-            for (int i = firstRow; i < lastRow + 1; i++) {
-                getSeries().add(formatDistance(distances[i - firstRow]), formatValue(getPositions().getPosition(i)), false);
+            if (firstRow <= lastRow) {
+                double[] distancesFromStart = route.getDistancesFromStart(firstRow, lastRow);
+                for (int i = firstRow; i < lastRow + 1; i++) {
+                    distances[i] = formatDistance(distancesFromStart[i - firstRow]);
+                    values[i] = toValue(formatValue(getPositions().getPosition(i)));
+                }
+            }
+        }
+        updateSeries();
+    }
+
+    private void updateSeries() {
+        getSeries().setFireSeriesChanged(false);
+        getSeries().clear();
+
+        synchronized (this) {
+            rows = downsample(distances, values, positionCount,
+                    minimumDistance != null ? minimumDistance : NaN,
+                    maximumDistance != null ? maximumDistance : NaN,
+                    bucketCount > 0 ? bucketCount : DEFAULT_BUCKET_COUNT);
+            for (int row : rows) {
+                double value = values[row];
+                getSeries().add(distances[row], isNaN(value) ? null : value, false);
             }
         }
 
@@ -92,6 +133,141 @@ public class ProfileModel extends PositionsModelToXYSeriesSynchronizer {
         getSeries().fireSeriesChanged();
     }
 
+    private static int lowerBound(double[] distances, int count, double distance) {
+        int low = 0, high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distances[middle] < distance)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Selects the rows to display from the ascending distances: within each of the bucketCount
+     * buckets of the visible range the first, last, minimum and maximum value, so that the
+     * rendered area looks the same as for all positions. The row before and after the visible
+     * range are included to draw the area up to the borders.
+     */
+    static int[] downsample(double[] distances, double[] values, int count,
+                            double minimumDistance, double maximumDistance, int bucketCount) {
+        if (count == 0)
+            return new int[0];
+
+        int from = isNaN(minimumDistance) ? 0 : max(0, lowerBound(distances, count, minimumDistance) - 1);
+        int to = isNaN(maximumDistance) ? count - 1 : min(count - 1, lowerBound(distances, count, maximumDistance));
+        if (from > to)
+            return new int[0];
+
+        int rangeCount = to - from + 1;
+        if (rangeCount <= 4 * bucketCount) {
+            int[] result = new int[rangeCount];
+            for (int i = 0; i < rangeCount; i++)
+                result[i] = from + i;
+            return result;
+        }
+
+        double minimum = distances[from];
+        double width = (distances[to] - minimum) / bucketCount;
+        int[] result = new int[4 * bucketCount + 2];
+        int resultCount = 0;
+
+        int first = from;
+        while (first <= to) {
+            int bucket = width > 0.0 ? min(bucketCount - 1, (int) ((distances[first] - minimum) / width)) : 0;
+            double bucketEnd = bucket == bucketCount - 1 ? Double.POSITIVE_INFINITY : minimum + (bucket + 1) * width;
+            int last = first, minimumRow = -1, maximumRow = -1;
+            for (int i = first; i <= to && distances[i] < bucketEnd; i++) {
+                last = i;
+                double value = values[i];
+                if (isNaN(value))
+                    continue;
+                if (minimumRow == -1 || value < values[minimumRow])
+                    minimumRow = i;
+                if (maximumRow == -1 || value > values[maximumRow])
+                    maximumRow = i;
+            }
+
+            int firstOfBucket = resultCount;
+            result[resultCount++] = first;
+            if (minimumRow != -1 && maximumRow != -1) {
+                result[resultCount++] = min(minimumRow, maximumRow);
+                result[resultCount++] = max(minimumRow, maximumRow);
+            }
+            result[resultCount++] = last;
+
+            // remove duplicates while keeping the rows in ascending order
+            int distinctCount = firstOfBucket + 1;
+            for (int i = firstOfBucket + 1; i < resultCount; i++) {
+                if (result[i] != result[distinctCount - 1])
+                    result[distinctCount++] = result[i];
+            }
+            resultCount = distinctCount;
+            first = last + 1;
+        }
+
+        int[] rows = new int[resultCount];
+        arraycopy(result, 0, rows, 0, resultCount);
+        return rows;
+    }
+
+    /**
+     * Restricts the series to the given distance range which is divided into the given number
+     * of buckets, usually the width of the chart in pixels. Null for both distances displays all.
+     */
+    public void setVisibleDistances(Double minimumDistance, Double maximumDistance, int bucketCount) {
+        bucketCount = max(1, bucketCount);
+        synchronized (this) {
+            if (equals(this.minimumDistance, minimumDistance) && equals(this.maximumDistance, maximumDistance) &&
+                    this.bucketCount == bucketCount)
+                return;
+            this.minimumDistance = minimumDistance;
+            this.maximumDistance = maximumDistance;
+            this.bucketCount = bucketCount;
+        }
+        updateSeries();
+    }
+
+    private static boolean equals(Double first, Double second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    /**
+     * Returns the row of the position displayed as the given item of the series.
+     */
+    public synchronized int getRow(int item) {
+        return rows != null && item >= 0 && item < rows.length ? rows[item] : -1;
+    }
+
+    /**
+     * Returns the first row with a distance between the given distances or -1 if there is none.
+     */
+    public synchronized int getRow(double minimumDistance, double maximumDistance) {
+        return distances != null ? getRow(distances, positionCount, minimumDistance, maximumDistance) : -1;
+    }
+
+    static int getRow(double[] distances, int count, double minimumDistance, double maximumDistance) {
+        int row = lowerBound(distances, count, minimumDistance);
+        while (row < count && distances[row] == minimumDistance)
+            row++;
+        return row < count && distances[row] < maximumDistance ? row : -1;
+    }
+
+    public synchronized double getDistance(int row) {
+        return distances[row];
+    }
+
+    public synchronized Double getValue(int row) {
+        double value = values[row];
+        return isNaN(value) ? null : value;
+    }
+
+    private static double toValue(Double value) {
+        return value != null ? value : NaN;
+    }
+
     private Double formatValue(NavigationPosition position) {
         switch(profileMode) {
             case Elevation:
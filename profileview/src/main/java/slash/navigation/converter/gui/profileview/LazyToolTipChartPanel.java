@@ -26,8 +26,10 @@ import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.labels.XYToolTipGenerator;
 import org.jfree.chart.plot.PlotRenderingInfo;
 import org.jfree.chart.plot.XYPlot;
+import org.jfree.data.xy.DefaultXYDataset;
 import org.jfree.data.xy.XYDataset;
 import slash.navigation.converter.gui.models.ProfileModeModel;
+import slash.navigation.converter.gui.models.ProfileModel;
 
 import javax.swing.*;
 import java.awt.*;
@@ -46,6 +48,7 @@ import static slash.navigation.gui.helpers.JMenuHelper.createMenu;
 public class LazyToolTipChartPanel extends ChartPanel {
     static ProfileModeModel profileModeModel;
     private XYToolTipGenerator toolTipGenerator;
+    private ProfileModel profileModel;
 
     public LazyToolTipChartPanel(JFreeChart chart,
                                  boolean properties, boolean save, boolean print, boolean zoom, boolean tooltips) {
@@ -82,6 +85,10 @@ public class LazyToolTipChartPanel extends ChartPanel {
         this.toolTipGenerator = toolTipGenerator;
     }
 
+    public void setProfileModel(ProfileModel profileModel) {
+        this.profileModel = profileModel;
+    }
+
     public String getToolTipText(MouseEvent e) {
         return getTooltipAtPoint(e.getPoint());
     }
@@ -98,6 +105,17 @@ public class LazyToolTipChartPanel extends ChartPanel {
         double tx1 = domainAxis.java2DToValue(x1, screenArea, BOTTOM);
         double tx2 = domainAxis.java2DToValue(x2, screenArea, BOTTOM);
 
+        // the dataset contains only a sample of the positions, so look up all of them
+        if (profileModel != null) {
+            int row = profileModel.getRow(tx1, tx2);
+            if (row == -1)
+                return null;
+            Double value = profileModel.getValue(row);
+            DefaultXYDataset dataset = new DefaultXYDataset();
+            dataset.addSeries("Profile", new double[][]{{profileModel.getDistance(row)}, {value != null ? value : Double.NaN}});
+            return toolTipGenerator.generateToolTip(dataset, 0, 0);
+        }
+
         for (int datasetIndex = 0; datasetIndex < plot.getDatasetCount(); datasetIndex++) {
             XYDataset dataset = plot.getDataset(datasetIndex);
             for (int seriesIndex = 0; seriesIndex < dataset.getSeriesCount(); seriesIndex++) {
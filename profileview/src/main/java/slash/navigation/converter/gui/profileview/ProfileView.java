@@ -25,6 +25,9 @@ import org.jfree.chart.ChartMouseEvent;
 import org.jfree.chart.ChartMouseListener;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.event.AxisChangeEvent;
+import org.jfree.chart.event.AxisChangeListener;
 import org.jfree.chart.entity.ChartEntity;
 import org.jfree.chart.entity.XYItemEntity;
 import org.jfree.chart.labels.StandardXYToolTipGenerator;
@@ -47,6 +50,8 @@ import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.util.ResourceBundle;
 import java.util.prefs.Preferences;
 
@@ -100,12 +105,15 @@ public class ProfileView implements PositionsSelectionModel {
         // since JFreeChart is not very nice to extensions - constructors calling protected methods...
         LazyToolTipChartPanel.profileModeModel = profileModeModel;
         chartPanel = new LazyToolTipChartPanel(chart, false, true, true, true, true);
+        chartPanel.setProfileModel(profileModel);
         chartPanel.addChartMouseListener(new ChartMouseListener() {
             public void chartMouseClicked(ChartMouseEvent e) {
                 ChartEntity entity = e.getEntity();
                 if (!(entity instanceof XYItemEntity))
                     return;
-                int row = ((XYItemEntity) entity).getItem();
+                int row = profileModel.getRow(((XYItemEntity) entity).getItem());
+                if (row == -1)
+                    return;
                 positionsSelectionModel.setSelectedPositions(new int[]{row}, true);
             }
 
@@ -113,9 +121,30 @@ public class ProfileView implements PositionsSelectionModel {
             }
         });
 
+        plot.getDomainAxis().addChangeListener(new AxisChangeListener() {
+            public void axisChanged(AxisChangeEvent event) {
+                updateVisibleDistances();
+            }
+        });
+        chartPanel.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                updateVisibleDistances();
+            }
+        });
+
         updateAxis();
     }
 
+    private void updateVisibleDistances() {
+        // one bucket per pixel of the chart, the whole profile unless zoomed in
+        ValueAxis domainAxis = plot.getDomainAxis();
+        int width = chartPanel.getWidth() > 0 ? chartPanel.getWidth() : chartPanel.getPreferredSize().width;
+        if (domainAxis.isAutoRange())
+            profileModel.setVisibleDistances(null, null, width);
+        else
+            profileModel.setVisibleDistances(domainAxis.getLowerBound(), domainAxis.getUpperBound(), width);
+    }
+
     private static ResourceBundle getBundle() {
         return Application.getInstance().getContext().getBundle();
     }
@@ -0,0 +1,88 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.converter.gui.models;
+
+import org.junit.Test;
+
+import static java.lang.Double.NaN;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.converter.gui.models.ProfileModel.downsample;
+import static slash.navigation.converter.gui.models.ProfileModel.getRow;
+
+public class ProfileModelTest {
+
+    private double[] ascendingDistances(int count) {
+        double[] distances = new double[count];
+        for (int i = 0; i < count; i++)
+            distances[i] = i;
+        return distances;
+    }
+
+    @Test
+    public void testPassesThroughFewPositions() {
+        double[] distances = ascendingDistances(10);
+        double[] values = new double[]{3, 1, 4, 1, 5, 9, 2, 6, 5, 3};
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, downsample(distances, values, 10, NaN, NaN, 3));
+        assertArrayEquals(new int[0], downsample(distances, values, 0, NaN, NaN, 3));
+    }
+
+    @Test
+    public void testSelectsFirstLastMinimumAndMaximumPerBucket() {
+        double[] distances = ascendingDistances(16);
+        double[] values = new double[]{
+                5, 1, 5, 5, 9, 5, 5, 5,
+                5, 5, 9, 5, 5, 0, 5, 5
+        };
+        assertArrayEquals(new int[]{0, 1, 4, 7, 8, 10, 13, 15}, downsample(distances, values, 16, NaN, NaN, 2));
+    }
+
+    @Test
+    public void testKeepsFirstAndLastOfBucketsWithoutValues() {
+        double[] distances = ascendingDistances(16);
+        double[] values = new double[]{
+                NaN, NaN, NaN, NaN, NaN, NaN, NaN, NaN,
+                0, 1, 2, 3, 4, 5, 6, 7
+        };
+        assertArrayEquals(new int[]{0, 7, 8, 15}, downsample(distances, values, 16, NaN, NaN, 2));
+    }
+
+    @Test
+    public void testIncludesBorderRowsOfVisibleRange() {
+        double[] distances = ascendingDistances(100);
+        double[] values = ascendingDistances(100);
+        assertArrayEquals(new int[]{10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21},
+                downsample(distances, values, 100, 10.5, 20.5, 100));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4},
+                downsample(distances, values, 100, -5.0, 3.5, 100));
+        assertArrayEquals(new int[]{10, 20, 21, 31},
+                downsample(distances, values, 100, 10.5, 30.5, 2));
+    }
+
+    @Test
+    public void testGetRowSkipsEqualDistances() {
+        double[] distances = new double[]{0, 1, 1, 1, 2, 3};
+        assertEquals(4, getRow(distances, 6, 1.0, 2.5));
+        assertEquals(1, getRow(distances, 6, 0.5, 1.5));
+        assertEquals(-1, getRow(distances, 6, 0.0, 1.0));
+        assertEquals(-1, getRow(distances, 6, 3.0, 10.0));
+        assertEquals(-1, getRow(distances, 4, 1.0, 5.0));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.rest;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Process-wide pool of keep-alive HTTP connections shared by all {@link HttpRequest}s.
+ * The limits are configured with the system properties <code>rest.maximumConnections</code>,
+ * <code>rest.maximumConnectionsPerHost</code> and <code>rest.idleConnectionTimeout</code> in seconds.
+ *
+ * @author Christian Pesch
+ */
+
+public class HttpConnectionPool {
+    private static final Logger log = Logger.getLogger(HttpConnectionPool.class.getName());
+    private static final int MAXIMUM_CONNECTIONS = getInteger("rest.maximumConnections", 40);
+    private static final int MAXIMUM_CONNECTIONS_PER_HOST = getInteger("rest.maximumConnectionsPerHost", 8);
+    private static final int IDLE_CONNECTION_TIMEOUT = getInteger("rest.idleConnectionTimeout", 30);
+    private static final long IDLE_CONNECTION_EVICTION_INTERVAL = max(IDLE_CONNECTION_TIMEOUT * 1000L / 2, 1000L);
+    private static final int CONNECTION_REQUEST_TIMEOUT = 60 * 1000;
+
+    private static final CountingConnectionManager connectionManager = new CountingConnectionManager(MAXIMUM_CONNECTIONS, MAXIMUM_CONNECTIONS_PER_HOST);
+    private static final CloseableHttpClient client = createClient(connectionManager, true, CONNECTION_REQUEST_TIMEOUT);
+    private static final CloseableHttpClient clientWithoutContentCompression = createClient(connectionManager, false, CONNECTION_REQUEST_TIMEOUT);
+
+    static {
+        startIdleConnectionEviction();
+    }
+
+    private HttpConnectionPool() {
+    }
+
+    /**
+     * Counts the connections that are leased from the pool and the connections that have
+     * to be connected for a request; all others are reused while still being open.
+     */
+    static class CountingConnectionManager extends PoolingHttpClientConnectionManager {
+        private final AtomicLong leasedConnectionCount = new AtomicLong();
+        private final AtomicLong openedConnectionCount = new AtomicLong();
+
+        CountingConnectionManager(int maximumConnections, int maximumConnectionsPerHost) {
+            setMaxTotal(maximumConnections);
+            setDefaultMaxPerRoute(maximumConnectionsPerHost);
+        }
+
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            final ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                public HttpClientConnection get(long timeout, TimeUnit tunit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    HttpClientConnection connection = request.get(timeout, tunit);
+                    leasedConnectionCount.incrementAndGet();
+                    return connection;
+                }
+
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        public void connect(HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context) throws IOException {
+            openedConnectionCount.incrementAndGet();
+            super.connect(connection, route, connectTimeout, context);
+        }
+
+        long getOpenedConnections() {
+            return openedConnectionCount.get();
+        }
+
+        long getReusedConnections() {
+            return leasedConnectionCount.get() - openedConnectionCount.get();
+        }
+    }
+
+    static CloseableHttpClient createClient(PoolingHttpClientConnectionManager connectionManager, boolean contentCompression,
+                                            int connectionRequestTimeout) {
+        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
+        requestConfigBuilder.setConnectTimeout(15 * 1000);
+        requestConfigBuilder.setSocketTimeout(60 * 1000);
+        // fail instead of waiting forever if all connections of the pool are leased
+        requestConfigBuilder.setConnectionRequestTimeout(connectionRequestTimeout);
+
+        HttpClientBuilder clientBuilder = HttpClientBuilder.create();
+        clientBuilder.setConnectionManager(connectionManager);
+        clientBuilder.setDefaultRequestConfig(requestConfigBuilder.build());
+        clientBuilder.setRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+        if (!contentCompression)
+            clientBuilder.disableContentCompression();
+        return clientBuilder.build();
+    }
+
+    private static void startIdleConnectionEviction() {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(IDLE_CONNECTION_EVICTION_INTERVAL);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(IDLE_CONNECTION_TIMEOUT, SECONDS);
+                }
+            }
+        }, "IdleConnectionEviction");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static CloseableHttpClient getClient(boolean contentCompression) {
+        return contentCompression ? client : clientWithoutContentCompression;
+    }
+
+    static long getOpenedConnections() {
+        return connectionManager.getOpenedConnections();
+    }
+
+    static long getReusedConnections() {
+        return connectionManager.getReusedConnections();
+    }
+
+    public static void logStatistics() {
+        PoolStats stats = connectionManager.getTotalStats();
+        log.info(format("HTTP connections: %d leased, %d pending, %d available, %d opened, %d reused",
+                stats.getLeased(), stats.getPending(), stats.getAvailable(), getOpenedConnections(), getReusedConnections()));
+    }
+}
@@ -27,14 +27,11 @@ import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.AuthCache;
 import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.message.BasicHttpResponse;
 
 import java.io.Closeable;
@@ -45,32 +42,29 @@ import java.net.URI;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
+import static org.apache.http.HttpHeaders.USER_AGENT;
 import static org.apache.http.HttpStatus.*;
 import static org.apache.http.HttpVersion.HTTP_1_1;
 import static slash.common.io.InputOutput.readBytes;
 import static slash.common.io.Transfer.UTF8_ENCODING;
 
 /**
- * Wrapper for a simple HTTP Request.
+ * Wrapper for a simple HTTP Request executed with the connections of the {@link HttpConnectionPool}.
  *
  * @author Christian Pesch
  */
 
 public abstract class HttpRequest {
     private final Logger log;
-    private final HttpClientBuilder clientBuilder = HttpClientBuilder.create();
     private final HttpRequestBase method;
+    private final HttpClientContext context = HttpClientContext.create();
+    private boolean contentCompression = true;
     private HttpResponse response;
 
     HttpRequest(HttpRequestBase method) {
         this.log = Logger.getLogger(getClass().getName());
-        RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
-        requestConfigBuilder.setConnectTimeout(15 * 1000);
-        requestConfigBuilder.setSocketTimeout(60 * 1000);
-        clientBuilder.setDefaultRequestConfig(requestConfigBuilder.build());
-        clientBuilder.setRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
-        setUserAgent("RouteConverter REST Client/" + System.getProperty("rest", "1.6"));
         this.method = method;
+        setUserAgent("RouteConverter REST Client/" + System.getProperty("rest", "1.6"));
     }
 
     HttpRequest(HttpRequestBase method, Credentials credentials) {
@@ -85,15 +79,14 @@ public abstract class HttpRequest {
     private void setAuthentication(String userName, String password, AuthScope authScope) {
         CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
         credentialsProvider.setCredentials(authScope, new UsernamePasswordCredentials(userName, password));
-        clientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+        context.setCredentialsProvider(credentialsProvider);
 
         // preemptive authentication
         AuthCache authCache = new BasicAuthCache();
         BasicScheme basicAuth = new BasicScheme();
         HttpHost targetHost = new HttpHost(authScope.getHost(), authScope.getPort(), authScope.getScheme());
         authCache.put(targetHost, basicAuth);
-        HttpClientContext localContext = HttpClientContext.create();
-        localContext.setAuthCache(authCache);
+        context.setAuthCache(authCache);
     }
 
     private void setAuthentication(Credentials credentials) {
@@ -102,7 +95,7 @@ public abstract class HttpRequest {
     }
 
     public void setUserAgent(String userAgent) {
-        clientBuilder.setUserAgent(userAgent);
+        setHeader(USER_AGENT, userAgent);
     }
 
     protected void setHeader(String name, String value) {
@@ -110,7 +103,7 @@ public abstract class HttpRequest {
     }
 
     protected void disableContentCompression() {
-        clientBuilder.disableContentCompression();
+        contentCompression = false;
     }
 
     protected boolean throwsSocketExceptionIfUnAuthorized() {
@@ -119,7 +112,7 @@ public abstract class HttpRequest {
 
     protected HttpResponse doExecute() throws IOException {
         try {
-            return clientBuilder.build().execute(method);
+            return HttpConnectionPool.getClient(contentCompression).execute(method, context);
         } catch (SocketException e) {
             if (throwsSocketExceptionIfUnAuthorized())
                 return new BasicHttpResponse(HTTP_1_1, SC_UNAUTHORIZED, "socket exception since unauthorized");
@@ -152,15 +145,21 @@ public abstract class HttpRequest {
     public InputStream executeAsStream(boolean logUnsuccessful) throws IOException {
         this.response = doExecute();
         // no response body then
-        if (isUnAuthorized())
+        if (isUnAuthorized()) {
+            release();
             return null;
+        }
         InputStream body = response.getEntity().getContent();
         if (!isSuccessful() && logUnsuccessful)
             log.warning(format("Cannot read response body for %s", method.getURI()));
         return body;
     }
 
-    private void release() throws IOException {
+    /**
+     * Releases the connection of the response. Unless the body has been read completely,
+     * the connection is closed instead of reading the rest of the body to return it to the pool.
+     */
+    public void release() throws IOException {
         if(response instanceof Closeable)
             ((Closeable)response).close();
         method.reset();
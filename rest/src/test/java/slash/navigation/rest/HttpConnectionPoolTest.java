@@ -0,0 +1,122 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2014 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.rest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpConnectionPoolTest {
+    private static final int BODY_SIZE = 1024 * 1024;
+
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(200, BODY_SIZE);
+                OutputStream body = exchange.getResponseBody();
+                try {
+                    body.write(new byte[BODY_SIZE]);
+                } catch (IOException e) {
+                    // the client closed the connection
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testReuseReadConnection() throws IOException {
+        long opened = HttpConnectionPool.getOpenedConnections();
+        long reused = HttpConnectionPool.getReusedConnections();
+
+        new Get(url).execute();
+        new Get(url).execute();
+
+        assertEquals(1, HttpConnectionPool.getOpenedConnections() - opened);
+        assertEquals(1, HttpConnectionPool.getReusedConnections() - reused);
+    }
+
+    @Test
+    public void testReleaseClosesUnreadConnection() throws IOException {
+        long opened = HttpConnectionPool.getOpenedConnections();
+        long reused = HttpConnectionPool.getReusedConnections();
+
+        Get get = new Get(url);
+        InputStream body = get.executeAsStream(true);
+        assertEquals(0, body.read());
+        get.release();
+        new Get(url).execute();
+
+        assertEquals(2, HttpConnectionPool.getOpenedConnections() - opened);
+        assertEquals(0, HttpConnectionPool.getReusedConnections() - reused);
+    }
+
+    @Test
+    public void testWaitForConnectionTimesOut() throws IOException {
+        HttpConnectionPool.CountingConnectionManager manager = new HttpConnectionPool.CountingConnectionManager(1, 1);
+        CloseableHttpClient client = HttpConnectionPool.createClient(manager, true, 100);
+        try {
+            CloseableHttpResponse leased = client.execute(new HttpGet(url));
+            try {
+                long start = System.currentTimeMillis();
+                try {
+                    client.execute(new HttpGet(url));
+                    fail("ConnectionPoolTimeoutException expected");
+                } catch (ConnectionPoolTimeoutException e) {
+                    assertTrue(System.currentTimeMillis() - start < 10 * 1000);
+                }
+            } finally {
+                leased.close();
+            }
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.converter.cmdline;
+
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormatParser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.regex.Pattern.quote;
+import static slash.common.io.Files.absolutize;
+import static slash.common.io.Files.removeExtension;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
+
+/**
+ * Converts many files in parallel within one process to a target format and directory.
+ * Each worker thread reuses its {@link NavigationFormatParser} and format instances.
+ *
+ * @author Christian Pesch
+ */
+
+public class BatchConverter {
+    private static final Logger log = Logger.getLogger(BatchConverter.class.getName());
+
+    private final Class<? extends NavigationFormat> formatClass;
+    private final File targetDirectory;
+    private final int threads;
+
+    public BatchConverter(Class<? extends NavigationFormat> formatClass, File targetDirectory, int threads) {
+        this.formatClass = formatClass;
+        this.targetDirectory = targetDirectory;
+        this.threads = max(1, threads);
+    }
+
+    static class Source {
+        final File file;
+        final String relativePath;
+
+        Source(File file, String relativePath) {
+            this.file = file;
+            this.relativePath = relativePath;
+        }
+    }
+
+    private static class Result {
+        private long milliSeconds;
+        private String failure;
+    }
+
+    static boolean isWildcard(String name) {
+        return name.indexOf('*') != -1 || name.indexOf('?') != -1;
+    }
+
+    static Pattern toPattern(String wildcard) {
+        StringBuilder buffer = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : wildcard.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    buffer.append(quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                buffer.append(c == '*' ? ".*" : ".");
+            } else
+                literal.append(c);
+        }
+        if (literal.length() > 0)
+            buffer.append(quote(literal.toString()));
+        return Pattern.compile(buffer.toString());
+    }
+
+    private static File[] listSorted(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static void collectDirectory(File directory, String prefix, List<Source> sources) {
+        for (File file : listSorted(directory)) {
+            String relativePath = prefix + file.getName();
+            if (file.isDirectory())
+                collectDirectory(file, relativePath + File.separator, sources);
+            else
+                sources.add(new Source(file, relativePath));
+        }
+    }
+
+    private static void collectManifest(File manifest, List<Source> sources) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(manifest));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#"))
+                    collectSources(line, sources);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    static void collectSources(String argument, List<Source> sources) throws IOException {
+        if (argument.startsWith("@")) {
+            collectManifest(absolutize(new File(argument.substring(1))), sources);
+            return;
+        }
+
+        File file = absolutize(new File(argument));
+        if (isWildcard(file.getName())) {
+            File directory = file.getParentFile();
+            Pattern pattern = toPattern(file.getName());
+            for (File match : listSorted(directory)) {
+                if (match.isFile() && pattern.matcher(match.getName()).matches())
+                    sources.add(new Source(match, match.getName()));
+            }
+        } else if (file.isDirectory())
+            collectDirectory(file, "", sources);
+        else
+            sources.add(new Source(file, file.getName()));
+    }
+
+    private static String getTargetKey(Source source) {
+        return removeExtension(source.relativePath).toLowerCase();
+    }
+
+    /**
+     * Removes sources that are listed more than once and sources whose target would overwrite
+     * the target of a previous source, since wildcards and @manifests flatten the relative path
+     * to the file name, and returns a failure message for every colliding source.
+     */
+    static List<String> removeCollidingTargets(List<Source> sources) {
+        List<String> failures = new ArrayList<String>();
+        Map<String, Source> targets = new HashMap<String, Source>();
+        for (Iterator<Source> iterator = sources.iterator(); iterator.hasNext(); ) {
+            Source source = iterator.next();
+            Source previous = targets.get(getTargetKey(source));
+            if (previous == null) {
+                targets.put(getTargetKey(source), source);
+                continue;
+            }
+
+            iterator.remove();
+            if (!previous.file.equals(source.file))
+                failures.add(format("'%s': Target '%s' is also the target of '%s'", source.file.getAbsolutePath(),
+                        removeExtension(source.relativePath), previous.file.getAbsolutePath()));
+        }
+        return failures;
+    }
+
+    private File createTarget(Source source, NavigationFormat format) throws IOException {
+        File target = new File(targetDirectory, removeExtension(source.relativePath) + format.getExtension());
+        File directory = target.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create target directory '" + directory.getAbsolutePath() + "'");
+        return target;
+    }
+
+    private class Worker implements Runnable {
+        private final List<Source> sources;
+        private final Result[] results;
+        private final AtomicInteger next, completed;
+        private final NavigationFormatParser parser = new NavigationFormatParser();
+        private final List<NavigationFormat> readFormats = getReadFormats();
+        private final NavigationFormat format;
+
+        private Worker(List<Source> sources, Result[] results, AtomicInteger next, AtomicInteger completed) throws Exception {
+            this.sources = sources;
+            this.results = results;
+            this.next = next;
+            this.completed = completed;
+            this.format = formatClass.newInstance();
+        }
+
+        public void run() {
+            int index;
+            while ((index = next.getAndIncrement()) < sources.size()) {
+                Source source = sources.get(index);
+                Result result = new Result();
+                long start = currentTimeMillis();
+                try {
+                    File target = createTarget(source, format);
+                    RouteConverterCmdLine.convert(parser, readFormats, source.file, format, target);
+                } catch (Exception e) {
+                    result.failure = e.getMessage() != null ? e.getMessage() : e.toString();
+                }
+                result.milliSeconds = currentTimeMillis() - start;
+                results[index] = result;
+
+                int count = completed.incrementAndGet();
+                if (result.failure == null)
+                    log.info(format("[%d/%d] Converted '%s' in %d ms", count, sources.size(), source.file.getAbsolutePath(), result.milliSeconds));
+                else
+                    log.severe(format("[%d/%d] Could not convert '%s': %s", count, sources.size(), source.file.getAbsolutePath(), result.failure));
+            }
+        }
+    }
+
+    /**
+     * Converts the given files, directories, file name wildcards and @manifests listing one
+     * of those per line and returns if all files have been converted successfully.
+     */
+    public boolean convert(List<String> arguments) {
+        List<Source> sources = new ArrayList<Source>();
+        try {
+            for (String argument : arguments)
+                collectSources(argument, sources);
+        } catch (IOException e) {
+            log.severe("Cannot collect sources: " + e.getMessage());
+            return false;
+        }
+        List<String> collisions = removeCollidingTargets(sources);
+        log.info(format("Converting %d files with %d threads to '%s'", sources.size(), threads, targetDirectory.getAbsolutePath()));
+
+        long start = currentTimeMillis();
+        Result[] results = new Result[sources.size()];
+        AtomicInteger next = new AtomicInteger(), completed = new AtomicInteger();
+        ExecutorService executor = newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++)
+                executor.execute(new Worker(sources, results, next, completed));
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.severe("Cannot convert: " + e);
+            executor.shutdownNow();
+            return false;
+        }
+        long milliSeconds = max(1, currentTimeMillis() - start);
+
+        int failed = collisions.size();
+        long bytes = 0;
+        for (int i = 0; i < results.length; i++) {
+            bytes += sources.get(i).file.length();
+            if (results[i] == null || results[i].failure != null)
+                failed++;
+        }
+        log.info(format("Converted %d of %d files in %.1f s: %.1f files/s, %.1f MByte/s",
+                results.length - failed + collisions.size(), results.length + collisions.size(), milliSeconds / 1000.0,
+                results.length * 1000.0 / milliSeconds, bytes / 1024.0 / 1024.0 * 1000.0 / milliSeconds));
+        if (failed > 0) {
+            log.severe(format("%d files failed:", failed));
+            for (String collision : collisions)
+                log.severe(collision);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || results[i].failure != null)
+                    log.severe(format("'%s': %s", sources.get(i).file.getAbsolutePath(),
+                            results[i] != null ? results[i].failure : "not converted"));
+            }
+        }
+        return failed == 0;
+    }
+}
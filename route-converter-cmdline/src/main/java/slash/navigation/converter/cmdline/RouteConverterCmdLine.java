@@ -30,6 +30,7 @@ import slash.navigation.base.ParserResult;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -41,6 +42,7 @@ import static slash.common.system.Platform.getJava;
 import static slash.common.system.Platform.getMaximumMemory;
 import static slash.common.system.Platform.getPlatform;
 import static slash.common.system.Version.parseVersionFromManifest;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
 import static slash.navigation.base.NavigationFormatParser.getNumberOfFilesToWriteFor;
 import static slash.navigation.base.NavigationFormats.getReadFormatsSortedByName;
 import static slash.navigation.base.NavigationFormats.getWriteFormatsSortedByName;
@@ -54,6 +56,7 @@ import static slash.navigation.base.NavigationFormats.getWriteFormatsSortedByNam
 
 public class RouteConverterCmdLine {
     private static final Logger log = Logger.getLogger(RouteConverterCmdLine.class.getName());
+    private static final String BATCH_OPTION = "-batch";
 
     private void initializeLogging() {
         try {
@@ -63,13 +66,13 @@ public class RouteConverterCmdLine {
         }
     }
 
-    private void logFormatNames(List<NavigationFormat> formats) {
+    static void logFormatNames(List<NavigationFormat> formats) {
         log.info("Supported formats:");
         for (NavigationFormat format : formats)
             log.info(format.getClass().getSimpleName() + " for " + format.getName());
     }
 
-    private BaseNavigationFormat findFormat(String formatName) {
+    static BaseNavigationFormat findFormat(String formatName) {
         List<NavigationFormat> formats = NavigationFormats.getWriteFormats();
         for (NavigationFormat format : formats)
             if (formatName.equals(format.getClass().getSimpleName()))
@@ -81,8 +84,14 @@ public class RouteConverterCmdLine {
         Version version = parseVersionFromManifest();
         log.info("Started RouteConverter " + version.getVersion() + " from " + version.getDate() +
                 " on " + getJava() + " and " + getPlatform() + " with " + getMaximumMemory() + " MByte heap");
+        if (args.length > 3 && BATCH_OPTION.equals(args[0])) {
+            runBatch(args);
+            return;
+        }
         if (args.length != 3) {
             log.info("Usage: java -jar RouteConverterCmdLine.jar <source file> <target format> <target file>");
+            log.info("   or: java [-Dthreads=<count>] -jar RouteConverterCmdLine.jar " + BATCH_OPTION +
+                    " <target format> <target directory> <source file, directory, wildcard or @manifest>...");
             logFormatNames(getWriteFormatsSortedByName());
             System.exit(5);
         }
@@ -108,7 +117,12 @@ public class RouteConverterCmdLine {
         }
 
         try {
-            convert(source, format, target);
+            convert(new NavigationFormatParser(), getReadFormats(), source, format, target);
+        } catch (ConversionException e) {
+            log.severe(e.getMessage());
+            if (e.getExitCode() == 20)
+                logFormatNames(getReadFormatsSortedByName());
+            System.exit(e.getExitCode());
         } catch (IOException e) {
             log.severe("Error while converting: " + e.getMessage());
             System.exit(15);
@@ -117,25 +131,64 @@ public class RouteConverterCmdLine {
         System.exit(0);
     }
 
-    private void convert(File source, NavigationFormat format, File target) throws IOException {
-        NavigationFormatParser parser = new NavigationFormatParser();
-        ParserResult result = parser.read(source);
-        if (!result.isSuccessful()) {
-            log.severe("Could not read source '" + source.getAbsolutePath() + "'");
-            logFormatNames(getReadFormatsSortedByName());
-            System.exit(20);
+    private void runBatch(String[] args) {
+        BaseNavigationFormat format = findFormat(args[1]);
+        if (format == null) {
+            log.severe("Format '" + args[1] + "' does not exist; stopping.");
+            logFormatNames(getWriteFormatsSortedByName());
+            System.exit(12);
         }
 
+        File targetDirectory = absolutize(new File(args[2]));
+        if (!targetDirectory.isDirectory() && !targetDirectory.mkdirs()) {
+            log.severe("Target directory '" + targetDirectory.getAbsolutePath() + "' cannot be created; stopping.");
+            System.exit(13);
+        }
+
+        List<String> sources = new ArrayList<String>();
+        for (int i = 3; i < args.length; i++)
+            sources.add(args[i]);
+
+        int threads = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        boolean successful = new BatchConverter(format.getClass(), targetDirectory, threads).convert(sources);
+        System.exit(successful ? 0 : 15);
+    }
+
+    static class ConversionException extends IOException {
+        private final int exitCode;
+
+        ConversionException(String message, int exitCode) {
+            super(message);
+            this.exitCode = exitCode;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+    }
+
+    static void convert(NavigationFormatParser parser, List<NavigationFormat> readFormats,
+                        File source, NavigationFormat format, File target) throws IOException {
+        // large files are converted position by position if the routes do not have to be kept apart
+        if (!format.isSupportsMultipleRoutes()) {
+            if (target.exists())
+                throw new ConversionException("Target '" + target.getAbsolutePath() + "' already exists; stopping.", 13);
+            if (parser.convertStreaming(source, readFormats, format, target))
+                return;
+        }
+
+        ParserResult result = parser.read(source, readFormats);
+        if (!result.isSuccessful())
+            throw new ConversionException("Could not read source '" + source.getAbsolutePath() + "'", 20);
+
         if (format.isSupportsMultipleRoutes()) {
             parser.write(result.getAllRoutes(), (MultipleRoutesFormat) format, target);
         } else {
             int fileCount = getNumberOfFilesToWriteFor(result.getTheRoute(), format, false);
             File[] targets = createTargetFiles(target, fileCount, format.getExtension(), format.getMaximumFileNameLength());
             for (File t : targets) {
-                if (t.exists()) {
-                    log.severe("Target '" + t.getAbsolutePath() + "' already exists; stopping.");
-                    System.exit(13);
-                }
+                if (t.exists())
+                    throw new ConversionException("Target '" + t.getAbsolutePath() + "' already exists; stopping.", 13);
             }
             parser.write(result.getTheRoute(), format, false, false, null, targets);
         }
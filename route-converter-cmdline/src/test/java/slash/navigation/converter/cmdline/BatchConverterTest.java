@@ -0,0 +1,191 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.cmdline;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.NavigationFormat;
+import slash.navigation.base.NavigationFormatParser;
+import slash.navigation.base.NavigationFormatParserListener;
+import slash.navigation.base.ParserResult;
+import slash.navigation.nmea.NmeaFormat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Arrays.asList;
+import static java.util.Locale.US;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.NavigationFormats.getReadFormats;
+
+public class BatchConverterTest {
+    private static final String GPX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<gpx version=\"1.1\" creator=\"test\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n" +
+            "<trk><name>%s</name><trkseg>\n" +
+            "<trkpt lat=\"48.1\" lon=\"9.4\"></trkpt>\n" +
+            "<trkpt lat=\"48.2\" lon=\"9.5\"></trkpt>\n" +
+            "</trkseg></trk>\n" +
+            "</gpx>\n";
+
+    private File directory, target;
+
+    private static File createDirectory() throws IOException {
+        File directory = createTempFile("batchconverter", "");
+        directory.delete();
+        directory.mkdirs();
+        return directory;
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null)
+            for (File child : files)
+                delete(child);
+        file.delete();
+    }
+
+    private File createGpx(String path) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(String.format(GPX, path));
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private File createLargeGpx(String path, int positionCount) throws IOException {
+        File file = new File(directory, path);
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<gpx version=\"1.1\" creator=\"test\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n" +
+                    "<trk><name>large</name><trkseg>\n");
+            for (int i = 0; i < positionCount; i++)
+                writer.write(String.format(US, "<trkpt lat=\"%.6f\" lon=\"%.6f\"><ele>%d</ele><name>Position %d</name></trkpt>\n",
+                        48.0 + i * 0.00001, 9.0 + i * 0.00001, i % 1000, i));
+            writer.write("</trkseg></trk>\n</gpx>\n");
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = createDirectory();
+        target = createDirectory();
+        createGpx("a" + File.separator + "track.gpx");
+        createGpx("b" + File.separator + "track.gpx");
+        createGpx("b" + File.separator + "other.gpx");
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+        delete(target);
+    }
+
+    private String wildcard(String subDirectory) {
+        return new File(new File(directory, subDirectory), "*.gpx").getPath();
+    }
+
+    @Test
+    public void testCollectWildcards() throws IOException {
+        List<BatchConverter.Source> sources = new ArrayList<BatchConverter.Source>();
+        BatchConverter.collectSources(wildcard("b"), sources);
+        assertEquals(2, sources.size());
+        assertEquals("other.gpx", sources.get(0).relativePath);
+        assertEquals("track.gpx", sources.get(1).relativePath);
+    }
+
+    @Test
+    public void testRemoveCollidingTargets() throws IOException {
+        List<BatchConverter.Source> sources = new ArrayList<BatchConverter.Source>();
+        BatchConverter.collectSources(wildcard("a"), sources);
+        BatchConverter.collectSources(wildcard("b"), sources);
+        assertEquals(3, sources.size());
+
+        List<String> failures = BatchConverter.removeCollidingTargets(sources);
+        assertEquals(1, failures.size());
+        assertEquals(2, sources.size());
+        assertEquals(new File(new File(directory, "a"), "track.gpx"), sources.get(0).file);
+        assertEquals(new File(new File(directory, "b"), "other.gpx"), sources.get(1).file);
+    }
+
+    @Test
+    public void testRemoveSourcesListedTwice() throws IOException {
+        List<BatchConverter.Source> sources = new ArrayList<BatchConverter.Source>();
+        BatchConverter.collectSources(wildcard("b"), sources);
+        BatchConverter.collectSources(new File(new File(directory, "b"), "track.gpx").getPath(), sources);
+        assertEquals(3, sources.size());
+
+        List<String> failures = BatchConverter.removeCollidingTargets(sources);
+        assertEquals(0, failures.size());
+        assertEquals(2, sources.size());
+    }
+
+    @Test
+    public void testConvertDirectoryKeepsRelativePaths() {
+        assertTrue(new BatchConverter(NmeaFormat.class, target, 2).convert(asList(directory.getPath())));
+        assertTrue(new File(new File(target, "a"), "track.nmea").isFile());
+        assertTrue(new File(new File(target, "b"), "track.nmea").isFile());
+        assertTrue(new File(new File(target, "b"), "other.nmea").isFile());
+    }
+
+    @Test
+    public void testConvertStreamsLargeGpxFile() throws IOException {
+        File source = createLargeGpx("large.gpx", 20000);
+        assertTrue(source.length() > 1024 * 1024);
+
+        NavigationFormatParser parser = new NavigationFormatParser();
+        final int[] reads = new int[1];
+        parser.addNavigationFileParserListener(new NavigationFormatParserListener() {
+            public void reading(NavigationFormat<BaseRoute> format) {
+                reads[0]++;
+            }
+        });
+        File target = new File(this.target, "large.nmea");
+        RouteConverterCmdLine.convert(parser, getReadFormats(), source, new NmeaFormat(), target);
+        assertEquals(0, reads[0]);
+
+        ParserResult result = new NavigationFormatParser().read(target);
+        assertTrue(result.isSuccessful());
+        assertEquals(20000, result.getTheRoute().getPositionCount());
+    }
+
+    @Test
+    public void testConvertRejectsCollidingWildcards() {
+        assertFalse(new BatchConverter(NmeaFormat.class, target, 2).convert(asList(wildcard("a"), wildcard("b"))));
+        assertTrue(new File(target, "track.nmea").isFile());
+        assertTrue(new File(target, "other.nmea").isFile());
+    }
+}
@@ -27,18 +27,27 @@ import slash.navigation.common.NumberPattern;
 import slash.navigation.completer.CompletePositionService;
 import slash.navigation.converter.gui.RouteConverter;
 import slash.navigation.converter.gui.models.PositionsModel;
-import slash.navigation.geonames.GeoNamesService;
-import slash.navigation.googlemaps.GoogleMapsService;
 import slash.navigation.gui.events.ContinousRange;
 import slash.navigation.gui.events.RangeOperation;
 
 import javax.swing.*;
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
+import static java.lang.Math.max;
 import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.sleep;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static javax.swing.JOptionPane.ERROR_MESSAGE;
 import static javax.swing.JOptionPane.showMessageDialog;
 import static javax.swing.SwingUtilities.invokeLater;
@@ -67,6 +76,9 @@ import static slash.navigation.gui.helpers.UIHelper.stopWaitCursor;
 public class BatchPositionAugmenter {
     private static final Logger log = Logger.getLogger(BatchPositionAugmenter.class.getName());
     private static final Object mutex = new Object();
+    private static final long PROGRESS_UPDATE_INTERVAL = 250;
+    private static final int MAXIMUM_RETRIES = 3;
+    private static final long RETRY_BACKOFF = 1000;
     private JFrame frame;
     private CompletePositionService completePositionService;
     private boolean running = true;
@@ -112,6 +124,125 @@ public class BatchPositionAugmenter {
         String getErrorMessage();
     }
 
+    /**
+     * Limits the concurrent requests to a remote service and the interval between their starts.
+     */
+    private static class RateLimit {
+        private final int concurrency;
+        private final long minimumInterval;
+        private long nextStart = 0;
+
+        public RateLimit(int concurrency, long minimumInterval) {
+            this.concurrency = concurrency;
+            this.minimumInterval = minimumInterval;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void acquire() throws InterruptedException {
+            long waitTime;
+            synchronized (this) {
+                long now = currentTimeMillis();
+                long start = max(now, nextStart);
+                nextStart = start + minimumInterval;
+                waitTime = start - now;
+            }
+            if (waitTime > 0)
+                sleep(waitTime);
+        }
+    }
+
+    private static final RateLimit GOOGLE_MAPS_RATE_LIMIT = new RateLimit(4, 100);
+    private static final RateLimit GEONAMES_RATE_LIMIT = new RateLimit(4, 250);
+    // the HGT files are read sequentially and the remote services are queried in a batch
+    private static final RateLimit ELEVATION_RATE_LIMIT = new RateLimit(1, 0);
+
+    /**
+     * An {@link Operation} that looks up its result at a remote service concurrently
+     * and applies it to the positions in the order of the rows.
+     */
+    private static abstract class RemoteOperation<T> implements Operation {
+        public abstract RateLimit getRateLimit();
+
+        public abstract T lookup(int index, NavigationPosition position) throws Exception;
+
+        public abstract boolean apply(int index, NavigationPosition position, T result);
+
+        public boolean run(int index, NavigationPosition position) throws Exception {
+            return apply(index, position, lookup(index, position));
+        }
+    }
+
+    private class Lookups<T> {
+        private final RemoteOperation<T> operation;
+        private final ExecutorService executor;
+        private final Map<Integer, Future<T>> futures = new HashMap<Integer, Future<T>>();
+
+        public Lookups(final RemoteOperation<T> operation, PositionsModel positionsModel, int[] rows,
+                       OverwritePredicate predicate, final ProgressMonitor progress) {
+            this.operation = operation;
+            this.executor = newFixedThreadPool(operation.getRateLimit().getConcurrency());
+            for (final int row : rows) {
+                final NavigationPosition position = positionsModel.getPosition(row);
+                if (!predicate.shouldOverwrite(position))
+                    continue;
+                futures.put(row, executor.submit(new Callable<T>() {
+                    public T call() throws Exception {
+                        return lookupWithRetries(row, position, progress);
+                    }
+                }));
+            }
+        }
+
+        private T lookupWithRetries(int index, NavigationPosition position, ProgressMonitor progress) throws Exception {
+            int retry = 0;
+            while (true) {
+                if (isInterrupted(progress))
+                    throw new InterruptedException(format("Operation %s interrupted", operation.getName()));
+                operation.getRateLimit().acquire();
+                try {
+                    return operation.lookup(index, position);
+                } catch (IOException e) {
+                    if (++retry > MAXIMUM_RETRIES)
+                        throw e;
+                    log.info(format("Retrying operation %s on position %d after %s", operation.getName(), index, e));
+                    sleep(RETRY_BACKOFF << (retry - 1));
+                }
+            }
+        }
+
+        public boolean apply(int index, NavigationPosition position) throws Exception {
+            Future<T> future = futures.get(index);
+            if (future == null)
+                return false;
+            try {
+                return operation.apply(index, position, future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof InterruptedException)
+                    return false;
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+
+        public void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> Lookups<T> createLookups(RemoteOperation<T> operation, PositionsModel positionsModel, int[] rows,
+                                         OverwritePredicate predicate, ProgressMonitor progress) {
+        return new Lookups<T>(operation, positionsModel, rows, predicate, progress);
+    }
+
+    private boolean isInterrupted(ProgressMonitor progress) {
+        synchronized (mutex) {
+            return progress.isCanceled() || !running;
+        }
+    }
+
     private void executeOperation(final JTable positionsTable,
                                   final PositionsModel positionsModel,
                                   final int[] rows,
@@ -126,6 +257,7 @@ public class BatchPositionAugmenter {
         final ProgressMonitor progress = new ProgressMonitor(frame, "", RouteConverter.getBundle().getString("progress-started"), 0, 100);
         new Thread(new Runnable() {
             public void run() {
+                Lookups<?> lookups = null;
                 try {
                     invokeLater(new Runnable() {
                         public void run() {
@@ -134,12 +266,18 @@ public class BatchPositionAugmenter {
                     });
                     operation.performOnStart();
 
+                    // fan out the remote lookups while the results are applied in the order of the rows
+                    if (operation instanceof RemoteOperation)
+                        lookups = createLookups((RemoteOperation<?>) operation, positionsModel, rows, predicate, progress);
+                    final Lookups<?> remoteLookups = lookups;
+
                     final Exception[] lastException = new Exception[1];
                     lastException[0] = null;
                     final int maximumRangeLength = rows.length > 99 ? rows.length / (slowOperation ? 100 : 10) : rows.length;
 
                     new ContinousRange(rows, new RangeOperation() {
                         private int count = 1;
+                        private long lastProgress = 0;
 
                         public void performOnIndex(final int index) {
                             NavigationPosition position = positionsModel.getPosition(index);
@@ -147,7 +285,10 @@ public class BatchPositionAugmenter {
                                 try {
                                     // ignoring the result since the performance boost of the continous
                                     // range operations outweights the possible optimization
-                                    operation.run(index, position);
+                                    if (remoteLookups != null)
+                                        remoteLookups.apply(index, position);
+                                    else
+                                        operation.run(index, position);
                                 } catch (Exception e) {
                                     e.printStackTrace();
                                     log.warning(format("Error while running operation %s on position %d: %s", operation, index, e));
@@ -155,9 +296,14 @@ public class BatchPositionAugmenter {
                                 }
                             }
 
+                            // throttle the progress updates on the event dispatch thread
+                            final int percent = count++ * 100 / rows.length;
+                            long now = currentTimeMillis();
+                            if (now - lastProgress < PROGRESS_UPDATE_INTERVAL && percent < 100)
+                                return;
+                            lastProgress = now;
                             invokeLater(new Runnable() {
                                 public void run() {
-                                    int percent = count++ * 100 / rows.length;
                                     progress.setNote(MessageFormat.format(
                                             RouteConverter.getBundle().getString("progress-processing-position"),
                                             index, percent));
@@ -178,9 +324,7 @@ public class BatchPositionAugmenter {
                         }
 
                         public boolean isInterrupted() {
-                            synchronized (mutex) {
-                                return progress.isCanceled() || !running;
-                            }
+                            return BatchPositionAugmenter.this.isInterrupted(progress);
                         }
                     }).performMonotonicallyIncreasing(maximumRangeLength);
 
@@ -189,6 +333,8 @@ public class BatchPositionAugmenter {
                                 MessageFormat.format(operation.getErrorMessage(), lastException[0].getLocalizedMessage()),
                                 frame.getTitle(), ERROR_MESSAGE);
                 } finally {
+                    if (lookups != null)
+                        lookups.shutdown();
                     invokeLater(new Runnable() {
                         public void run() {
                             stopWaitCursor(frame.getRootPane());
@@ -207,13 +353,15 @@ public class BatchPositionAugmenter {
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
         executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GoogleMapsService googleMapsService = new GoogleMapsService();
-
+                new RemoteOperation<NavigationPosition>() {
                     public String getName() {
                         return "CoordinatesPositionAugmenter";
                     }
 
+                    public RateLimit getRateLimit() {
+                        return GOOGLE_MAPS_RATE_LIMIT;
+                    }
+
                     public int getColumnIndex() {
                         return ALL_COLUMNS; // LONGITUDE_COLUMN_INDEX + LATITUDE_COLUMN_INDEX;
                     }
@@ -221,8 +369,11 @@ public class BatchPositionAugmenter {
                     public void performOnStart() {
                     }
 
-                    public boolean run(int index, NavigationPosition position) throws Exception {
-                        NavigationPosition coordinates = googleMapsService.getPositionFor(position.getDescription());
+                    public NavigationPosition lookup(int index, NavigationPosition position) throws Exception {
+                        return completePositionService.getPositionFor(position.getDescription());
+                    }
+
+                    public boolean apply(int index, NavigationPosition position, NavigationPosition coordinates) {
                         if (coordinates != null) {
                             positionsModel.edit(index, LONGITUDE_COLUMN_INDEX, coordinates.getLongitude(),
                                     LATITUDE_COLUMN_INDEX, coordinates.getLatitude(), false, true);
@@ -247,27 +398,50 @@ public class BatchPositionAugmenter {
                                    final int[] rows,
                                    final OverwritePredicate predicate) {
         executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
+                new RemoteOperation<Double>() {
+                    private Map<Integer, Double> elevations = null;
+
                     public String getName() {
                         return "ElevationPositionAugmenter";
                     }
 
+                    public RateLimit getRateLimit() {
+                        return ELEVATION_RATE_LIMIT;
+                    }
+
                     public int getColumnIndex() {
                         return ELEVATION_COLUMN_INDEX;
                     }
 
                     public void performOnStart() {
+                        List<Integer> indices = new ArrayList<Integer>();
                         List<LongitudeAndLatitude> longitudeAndLatitudes = new ArrayList<LongitudeAndLatitude>();
                         for (int row : rows) {
                             NavigationPosition position = positionsModel.getPosition(row);
+                            if (!predicate.shouldOverwrite(position))
+                                continue;
+                            indices.add(row);
                             longitudeAndLatitudes.add(new LongitudeAndLatitude(position.getLongitude(), position.getLatitude()));
                         }
                         completePositionService.downloadElevationDataFor(longitudeAndLatitudes);
+
+                        try {
+                            List<Double> result = completePositionService.getElevationsFor(longitudeAndLatitudes);
+                            elevations = new HashMap<Integer, Double>(result.size());
+                            for (int i = 0; i < result.size(); i++)
+                                elevations.put(indices.get(i), result.get(i));
+                        } catch (IOException e) {
+                            log.warning(format("Cannot get elevations in a batch, looking up each position: %s", e));
+                        }
                     }
 
-                    public boolean run(int index, NavigationPosition position) throws Exception {
+                    public Double lookup(int index, NavigationPosition position) throws Exception {
+                        return elevations != null && elevations.containsKey(index) ? elevations.get(index) :
+                                completePositionService.getElevationFor(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public boolean apply(int index, NavigationPosition position, Double nextElevation) {
                         Double previousElevation = position.getElevation();
-                        Double nextElevation = completePositionService.getElevationFor(position.getLongitude(), position.getLatitude());
                         boolean changed = nextElevation == null || !nextElevation.equals(previousElevation);
                         if (changed)
                             positionsModel.edit(index, ELEVATION_COLUMN_INDEX, nextElevation, -1, null, false, true);
@@ -291,13 +465,15 @@ public class BatchPositionAugmenter {
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
         executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GeoNamesService geonamesService = new GeoNamesService();
-
+                new RemoteOperation<String>() {
                     public String getName() {
                         return "PopulatedPlacePositionAugmenter";
                     }
 
+                    public RateLimit getRateLimit() {
+                        return GEONAMES_RATE_LIMIT;
+                    }
+
                     public int getColumnIndex() {
                         return DESCRIPTION_COLUMN_INDEX;
                     }
@@ -305,8 +481,11 @@ public class BatchPositionAugmenter {
                     public void performOnStart() {
                     }
 
-                    public boolean run(int index, NavigationPosition position) throws Exception {
-                        String description = geonamesService.getNearByFor(position.getLongitude(), position.getLatitude());
+                    public String lookup(int index, NavigationPosition position) throws Exception {
+                        return completePositionService.getPopulatedPlaceFor(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public boolean apply(int index, NavigationPosition position, String description) {
                         if (description != null)
                             positionsModel.edit(index, DESCRIPTION_COLUMN_INDEX, description, -1, null, false, true);
                         return description != null;
@@ -329,13 +508,15 @@ public class BatchPositionAugmenter {
                                     final int[] rows,
                                     final OverwritePredicate predicate) {
         executeOperation(positionsTable, positionsModel, rows, true, predicate,
-                new Operation() {
-                    private GoogleMapsService googleMapsService = new GoogleMapsService();
-
+                new RemoteOperation<String>() {
                     public String getName() {
                         return "PostalAddressPositionAugmenter";
                     }
 
+                    public RateLimit getRateLimit() {
+                        return GOOGLE_MAPS_RATE_LIMIT;
+                    }
+
                     public int getColumnIndex() {
                         return DESCRIPTION_COLUMN_INDEX;
                     }
@@ -343,8 +524,11 @@ public class BatchPositionAugmenter {
                     public void performOnStart() {
                     }
 
-                    public boolean run(int index, NavigationPosition position) throws Exception {
-                        String description = googleMapsService.getLocationFor(position.getLongitude(), position.getLatitude());
+                    public String lookup(int index, NavigationPosition position) throws Exception {
+                        return completePositionService.getPostalAddressFor(position.getLongitude(), position.getLatitude());
+                    }
+
+                    public boolean apply(int index, NavigationPosition position, String description) {
                         if (description != null)
                             positionsModel.edit(index, DESCRIPTION_COLUMN_INDEX, description, -1, null, false, true);
                         return description != null;
@@ -131,18 +131,14 @@ public class LengthCalculator {
     }
 
     private void recalculateDistance() {
-        fireCalculatedDistance(0, 0);
-
-        double distanceMeters = 0.0;
+        // the distances are maintained by the route, the times are cheap to sum up
+        double distanceMeters = positionsModel.getRoute().getDistance();
         long totalTimeMilliSeconds = 0;
         CompactCalendar minimumTime = null, maximumTime = null;
         NavigationPosition previous = null;
         for (int i = 0; i < positionsModel.getRowCount(); i++) {
             NavigationPosition next = positionsModel.getPosition(i);
             if (previous != null) {
-                Double distance = previous.calculateDistance(next);
-                if (distance != null)
-                    distanceMeters += distance;
                 Long time = previous.calculateTime(next);
                 if (time != null && time > 0)
                     totalTimeMilliSeconds += time;
@@ -156,9 +152,6 @@ public class LengthCalculator {
                     maximumTime = time;
             }
 
-            if (i > 0 && i % 100 == 0)
-                fireCalculatedDistance((int) distanceMeters, totalTimeMilliSeconds > 0 ? (int) (totalTimeMilliSeconds / 1000) : 0);
-
             previous = next;
         }
 
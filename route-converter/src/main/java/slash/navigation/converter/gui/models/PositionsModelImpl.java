@@ -195,6 +195,8 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
         editCell(rowIndex, firstColumnIndex, firstValue);
         if (secondColumnIndex != -1)
             editCell(rowIndex, secondColumnIndex, secondValue);
+        if (isDistanceOrElevationColumn(firstColumnIndex) || isDistanceOrElevationColumn(secondColumnIndex))
+            getRoute().positionsUpdated(rowIndex, rowIndex);
 
         if (fireEvent) {
             if (secondColumnIndex != -1)
@@ -204,6 +206,11 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
         }
     }
 
+    private boolean isDistanceOrElevationColumn(int columnIndex) {
+        return columnIndex == LONGITUDE_COLUMN_INDEX || columnIndex == LATITUDE_COLUMN_INDEX ||
+                columnIndex == ELEVATION_COLUMN_INDEX;
+    }
+
     private void editCell(int rowIndex, int columnIndex, Object value) {
         NavigationPosition position = getPosition(rowIndex);
         String string = value != null ? trim(value.toString()) : null;
@@ -318,6 +325,7 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
             BaseNavigationPosition position = positions.get(i);
             getRoute().add(rowIndex, position);
         }
+        getRoute().positionsInserted(rowIndex, rowIndex - 1 + positions.size());
         fireTableRowsInserted(rowIndex, rowIndex - 1 + positions.size());
     }
 
@@ -340,10 +348,10 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     public void remove(int[] rows, final boolean fireEvent) {
         new ContinousRange(rows, new RangeOperation() {
             public void performOnIndex(int index) {
-                getRoute().remove(index);
             }
 
             public void performOnRange(int firstIndex, int lastIndex) {
+                getRoute().remove(firstIndex, lastIndex);
                 if (fireEvent)
                     fireTableRowsDeleted(firstIndex, lastIndex);
             }
@@ -433,6 +441,8 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     public void fireTableChanged(TableModelEvent e) {
         this.currentEvent = e;
         distanceCache = null;
+        if (getRoute() != null)
+            getRoute().invalidateIndex();
         super.fireTableChanged(e);
         this.currentEvent = null;
     }